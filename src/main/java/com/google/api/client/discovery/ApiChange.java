@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A single difference between two versions of a discovery document, found by
+ * a {@link CompatibilityChecker}. Instances are immutable.
+ */
+public final class ApiChange {
+  /**
+   * Whether existing clients keep working after a change.
+   */
+  public enum Impact {
+    /** Existing clients keep working. */
+    COMPATIBLE,
+
+    /** Existing clients may fail. */
+    BREAKING
+  }
+
+  private final Impact impact;
+  private final String path;
+  private final String message;
+
+  ApiChange(Impact impact, String path, String message) {
+    this.impact = Preconditions.checkNotNull(impact);
+    this.path = Preconditions.checkNotNull(path);
+    this.message = Preconditions.checkNotNull(message);
+  }
+
+  /**
+   * Returns whether existing clients keep working after this change.
+   */
+  public Impact getImpact() {
+    return impact;
+  }
+
+  /**
+   * Returns whether existing clients may fail after this change.
+   */
+  public boolean isBreaking() {
+    return impact == Impact.BREAKING;
+  }
+
+  /**
+   * Returns the dotted path of the changed element, such as
+   * {@code "schemas.Url.properties.id"} or
+   * {@code "methods.urlshortener.url.get.parameters.shortUrl"}, where methods
+   * are identified by their id.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns a description of the change.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return impact + " " + path + ": " + message;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.json.CustomizeJsonParser;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.services.discovery.model.DirectoryList;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link DiscoveryParser} which binds the JSON to the wire format classes
+ * through their {@code @Key} annotated fields. Members unknown to the wire
+ * format are kept as unknown keys of the parsed objects.
+ */
+public class BindingDiscoveryParser implements DiscoveryParser {
+  private final JsonFactory jsonFactory;
+
+  /**
+   * Create an instance.
+   *
+   * @param jsonFactory Factory of the JSON parsers to bind with.
+   */
+  public BindingDiscoveryParser(JsonFactory jsonFactory) {
+    this.jsonFactory = Preconditions.checkNotNull(jsonFactory);
+  }
+
+  public RestDescription parseRestDescription(InputStream content) throws IOException {
+    return jsonFactory.createJsonParser(content)
+        .parseAndClose(RestDescription.class, new CustomizeJsonParser());
+  }
+
+  public DirectoryList parseDirectoryList(InputStream content) throws IOException {
+    return jsonFactory.createJsonParser(content)
+        .parseAndClose(DirectoryList.class, new CustomizeJsonParser());
+  }
+}
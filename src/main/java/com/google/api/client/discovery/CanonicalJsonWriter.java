@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.util.Data;
+import com.google.api.client.util.DateTime;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the discovery model in a canonical JSON form, so that documents
+ * which differ only in key order, whitespace or the spelling of numbers are
+ * written identically. The form follows the JSON Canonicalization Scheme
+ * (RFC 8785) closely:
+ *
+ * <ul>
+ * <li>there is no whitespace;</li>
+ * <li>object keys are sorted by their UTF-16 code units and {@code null}
+ * values are left out;</li>
+ * <li>numbers are written without exponent, trailing zeros or a fraction if
+ * they are integral, so {@code 1.50}, {@code 15E-1} and {@code 1.5} are all
+ * written as {@code 1.5};</li>
+ * <li>strings escape only quotes, backslashes and control characters.</li>
+ * </ul>
+ *
+ * <p>
+ * Descriptions may be left out, so that documentation edits do not change
+ * the {@link #fingerprint} of a document. Fields are told apart from names,
+ * so a property which happens to be named {@code description} is kept.
+ * </p>
+ */
+public final class CanonicalJsonWriter {
+  /** Fields which hold documentation only. */
+  private static final Set<String> DESCRIPTION_FIELDS =
+      ImmutableSet.of("description", "enumDescriptions");
+
+  /** Fields whose keys are names of parameters, schemas and so on, not fields. */
+  private static final Set<String> NAME_FIELDS = ImmutableSet.of(
+      "methods", "parameters", "properties", "resources", "schemas", "scopes");
+
+  private final Writer out;
+  private final boolean includeDescriptions;
+
+  /**
+   * Create an instance.
+   *
+   * @param out Writer to write to, which is neither flushed nor closed.
+   * @param includeDescriptions Whether to write the description fields.
+   */
+  public CanonicalJsonWriter(Writer out, boolean includeDescriptions) {
+    this.out = Preconditions.checkNotNull(out);
+    this.includeDescriptions = includeDescriptions;
+  }
+
+  /**
+   * Write a document.
+   */
+  public void write(RestDiscovery discovery) throws IOException {
+    write(discovery.getDocument());
+  }
+
+  /**
+   * Write a value of the JSON data model: a map, a collection or array, a
+   * string, number, boolean or {@link DateTime}.
+   */
+  public void write(Object value) throws IOException {
+    write(value, false);
+  }
+
+  /**
+   * Returns the hex encoded SHA-256 digest of the canonical form of a
+   * document, encoded as UTF-8.
+   *
+   * @param discovery Document to fingerprint.
+   * @param includeDescriptions Whether descriptions count towards the
+   *        fingerprint.
+   */
+  public static String fingerprint(RestDiscovery discovery, boolean includeDescriptions) {
+    return fingerprint(discovery.getDocument(), includeDescriptions);
+  }
+
+  /**
+   * Returns the hex encoded SHA-256 digest of the canonical form of a value
+   * of the JSON data model, such as a single schema.
+   */
+  public static String fingerprint(Object value, boolean includeDescriptions) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+
+    OutputStream discard = new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+      }
+    };
+    Writer writer = new BufferedWriter(
+        new OutputStreamWriter(new DigestOutputStream(discard, digest), Charsets.UTF_8));
+    try {
+      new CanonicalJsonWriter(writer, includeDescriptions).write(value);
+      writer.flush();
+    } catch (IOException e) {
+      // Nothing is actually written anywhere
+      throw new IllegalStateException(e);
+    }
+
+    byte[] bytes = digest.digest();
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Write a value.
+   *
+   * @param value Value to write.
+   * @param names Whether the keys of the value, if it is a map, are names
+   *        rather than fields.
+   */
+  private void write(Object value, boolean names) throws IOException {
+    if (value == null || Data.isNull(value)) {
+      out.write("null");
+    } else if (value instanceof Map<?, ?>) {
+      writeObject((Map<?, ?>) value, names);
+    } else if (value instanceof Iterable<?>) {
+      out.write('[');
+      boolean first = true;
+      for (Object element : (Iterable<?>) value) {
+        if (!first) {
+          out.write(',');
+        }
+        first = false;
+        write(element, false);
+      }
+      out.write(']');
+    } else if (value instanceof Object[]) {
+      write(Arrays.asList((Object[]) value), false);
+    } else if (value instanceof Boolean) {
+      out.write(value.toString());
+    } else if (value instanceof Number) {
+      out.write(normalize((Number) value));
+    } else if (value instanceof DateTime) {
+      writeString(((DateTime) value).toStringRfc3339());
+    } else {
+      writeString(value.toString());
+    }
+  }
+
+  private void writeObject(Map<?, ?> map, boolean names) throws IOException {
+    List<String> keys = Lists.newArrayListWithCapacity(map.size());
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      String key = entry.getKey().toString();
+      if (entry.getValue() != null
+          && (names || includeDescriptions || !DESCRIPTION_FIELDS.contains(key))) {
+        keys.add(key);
+      }
+    }
+    Collections.sort(keys);
+
+    out.write('{');
+    boolean first = true;
+    for (String key : keys) {
+      if (!first) {
+        out.write(',');
+      }
+      first = false;
+      writeString(key);
+      out.write(':');
+      write(map.get(key), !names && NAME_FIELDS.contains(key));
+    }
+    out.write('}');
+  }
+
+  private void writeString(String value) throws IOException {
+    out.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          out.write("\\\"");
+          break;
+        case '\\':
+          out.write("\\\\");
+          break;
+        case '\b':
+          out.write("\\b");
+          break;
+        case '\f':
+          out.write("\\f");
+          break;
+        case '\n':
+          out.write("\\n");
+          break;
+        case '\r':
+          out.write("\\r");
+          break;
+        case '\t':
+          out.write("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            out.write(String.format("\\u%04x", (int) c));
+          } else {
+            out.write(c);
+          }
+      }
+    }
+    out.write('"');
+  }
+
+  /**
+   * Returns the canonical spelling of a number.
+   */
+  static String normalize(Number number) {
+    if (number instanceof Integer || number instanceof Long || number instanceof Short
+        || number instanceof Byte || number instanceof BigInteger) {
+      return number.toString();
+    }
+
+    BigDecimal decimal;
+    if (number instanceof BigDecimal) {
+      decimal = (BigDecimal) number;
+    } else {
+      double value = number.doubleValue();
+      Preconditions.checkArgument(!Double.isNaN(value) && !Double.isInfinite(value),
+          "Not a JSON number: %s", number);
+      // The shortest decimal which reads back as the same float or double
+      decimal = new BigDecimal(number.toString());
+    }
+    if (decimal.signum() == 0) {
+      return "0";
+    }
+    decimal = decimal.stripTrailingZeros();
+    return decimal.scale() <= 0 ? decimal.toBigInteger().toString() : decimal.toPlainString();
+  }
+}
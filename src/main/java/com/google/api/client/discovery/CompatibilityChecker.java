@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.ApiChange.Impact;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.api.services.discovery.model.Restmethod;
+import com.google.api.services.discovery.model.Restresource;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two versions of a discovery document and classifies every
+ * difference as compatible or breaking for existing clients. For example,
+ * removing a property, narrowing a range, removing an enum value, making a
+ * parameter required or changing a path are breaking, while adding an
+ * optional property or parameter, widening a range or adding an enum value
+ * are compatible. Changes to descriptions are not reported.
+ *
+ * <p>
+ * Schemas are compared by name and methods by id. Every schema, method and
+ * nested schema is first compared by a structural hash, and subtrees with
+ * equal hashes are skipped, so comparing mostly unchanged documents costs
+ * little more than hashing them once.
+ * </p>
+ */
+public final class CompatibilityChecker {
+  private final StructuralHash hash = new StructuralHash();
+  private final List<ApiChange> changes = Lists.newArrayList();
+
+  private CompatibilityChecker() {
+  }
+
+  /**
+   * Compare two versions of a document.
+   *
+   * @param oldVersion Version which clients were built against.
+   * @param newVersion Version to be rolled out.
+   */
+  public static CompatibilityReport compare(RestDiscovery oldVersion, RestDiscovery newVersion) {
+    CompatibilityChecker checker = new CompatibilityChecker();
+    checker.compareDocuments(Preconditions.checkNotNull(oldVersion).getDocument(),
+        Preconditions.checkNotNull(newVersion).getDocument());
+    return new CompatibilityReport(checker.changes);
+  }
+
+  private void breaking(String path, String message) {
+    changes.add(new ApiChange(Impact.BREAKING, path, message));
+  }
+
+  private void compatible(String path, String message) {
+    changes.add(new ApiChange(Impact.COMPATIBLE, path, message));
+  }
+
+  private void compareDocuments(RestDescription oldDocument, RestDescription newDocument) {
+    if (hash.same(oldDocument, newDocument)) {
+      return;
+    }
+    if (!Objects.equal(oldDocument.getBasePath(), newDocument.getBasePath())) {
+      breaking("basePath", "Changed from " + oldDocument.getBasePath() + " to "
+          + newDocument.getBasePath());
+    }
+
+    Map<String, Jsonschema> oldSchemas = orEmpty(oldDocument.getSchemas());
+    Map<String, Jsonschema> newSchemas = orEmpty(newDocument.getSchemas());
+    for (Map.Entry<String, Jsonschema> schema : oldSchemas.entrySet()) {
+      String path = "schemas." + schema.getKey();
+      Jsonschema newSchema = newSchemas.get(schema.getKey());
+      if (newSchema == null) {
+        breaking(path, "Schema removed");
+      } else {
+        compareSchemas(path, schema.getValue(), newSchema);
+      }
+    }
+    for (String name : newSchemas.keySet()) {
+      if (!oldSchemas.containsKey(name)) {
+        compatible("schemas." + name, "Schema added");
+      }
+    }
+
+    Map<String, Restmethod> oldMethods = methodsById(oldDocument);
+    Map<String, Restmethod> newMethods = methodsById(newDocument);
+    for (Map.Entry<String, Restmethod> method : oldMethods.entrySet()) {
+      String path = "methods." + method.getKey();
+      Restmethod newMethod = newMethods.get(method.getKey());
+      if (newMethod == null) {
+        breaking(path, "Method removed");
+      } else {
+        compareMethods(path, method.getValue(), newMethod);
+      }
+    }
+    for (String id : newMethods.keySet()) {
+      if (!oldMethods.containsKey(id)) {
+        compatible("methods." + id, "Method added");
+      }
+    }
+  }
+
+  private void compareMethods(String path, Restmethod oldMethod, Restmethod newMethod) {
+    if (hash.same(oldMethod, newMethod)) {
+      return;
+    }
+    compareValues(path + ".httpMethod", oldMethod.getHttpMethod(), newMethod.getHttpMethod());
+    compareValues(path + ".path", oldMethod.getPath(), newMethod.getPath());
+
+    String oldRequest = oldMethod.getRequest() == null ? null : oldMethod.getRequest().get$ref();
+    String newRequest = newMethod.getRequest() == null ? null : newMethod.getRequest().get$ref();
+    compareValues(path + ".request", oldRequest, newRequest);
+    String oldResponse =
+        oldMethod.getResponse() == null ? null : oldMethod.getResponse().get$ref();
+    String newResponse =
+        newMethod.getResponse() == null ? null : newMethod.getResponse().get$ref();
+    if (oldResponse == null && newResponse != null) {
+      compatible(path + ".response", "Response " + newResponse + " added");
+    } else {
+      compareValues(path + ".response", oldResponse, newResponse);
+    }
+
+    List<String> oldOrder = orEmpty(oldMethod.getParameterOrder());
+    List<String> newOrder = orEmpty(newMethod.getParameterOrder());
+    if (!oldOrder.equals(newOrder)) {
+      boolean appended = newOrder.size() > oldOrder.size()
+          && newOrder.subList(0, oldOrder.size()).equals(oldOrder);
+      if (!appended) {
+        breaking(path + ".parameterOrder", "Changed from " + oldOrder + " to " + newOrder);
+      }
+    }
+
+    Map<String, Jsonschema> oldParameters = orEmpty(oldMethod.getParameters());
+    Map<String, Jsonschema> newParameters = orEmpty(newMethod.getParameters());
+    for (Map.Entry<String, Jsonschema> parameter : oldParameters.entrySet()) {
+      String parameterPath = path + ".parameters." + parameter.getKey();
+      Jsonschema newParameter = newParameters.get(parameter.getKey());
+      if (newParameter == null) {
+        breaking(parameterPath, "Parameter removed");
+        continue;
+      }
+      compareValues(parameterPath + ".location", parameter.getValue().getLocation(),
+          newParameter.getLocation());
+      boolean wasRequired =
+          isRequired(parameter.getValue()) || oldOrder.contains(parameter.getKey());
+      boolean required = isRequired(newParameter) || newOrder.contains(parameter.getKey());
+      if (!wasRequired && required) {
+        breaking(parameterPath, "Parameter became required");
+      } else if (wasRequired && !required) {
+        compatible(parameterPath, "Parameter became optional");
+      }
+      compareSchemas(parameterPath, parameter.getValue(), newParameter);
+    }
+    for (Map.Entry<String, Jsonschema> parameter : newParameters.entrySet()) {
+      if (!oldParameters.containsKey(parameter.getKey())) {
+        String parameterPath = path + ".parameters." + parameter.getKey();
+        if (isRequired(parameter.getValue()) || newOrder.contains(parameter.getKey())) {
+          breaking(parameterPath, "Required parameter added");
+        } else {
+          compatible(parameterPath, "Optional parameter added");
+        }
+      }
+    }
+
+    List<String> oldScopes = orEmpty(oldMethod.getScopes());
+    List<String> newScopes = orEmpty(newMethod.getScopes());
+    for (String scope : oldScopes) {
+      if (!newScopes.contains(scope)) {
+        breaking(path + ".scopes", "Scope " + scope + " removed");
+      }
+    }
+    for (String scope : newScopes) {
+      if (!oldScopes.contains(scope)) {
+        compatible(path + ".scopes", "Scope " + scope + " added");
+      }
+    }
+  }
+
+  /**
+   * Compare two schema nodes. The required flag of properties is compared
+   * here, that of parameters by the caller together with the parameter order.
+   */
+  private void compareSchemas(String path, Jsonschema oldSchema, Jsonschema newSchema) {
+    if (hash.same(oldSchema, newSchema)) {
+      return;
+    }
+    if (oldSchema.get$ref() != null || newSchema.get$ref() != null) {
+      // The referenced schemas are compared by name
+      compareValues(path + ".$ref", oldSchema.get$ref(), newSchema.get$ref());
+      return;
+    }
+    if (!Objects.equal(oldSchema.getType(), newSchema.getType())) {
+      breaking(path, "Type changed from " + oldSchema.getType() + " to " + newSchema.getType());
+      return;
+    }
+    compareValues(path + ".format", oldSchema.getFormat(), newSchema.getFormat());
+    compareValues(path + ".repeated", oldSchema.getRepeated(), newSchema.getRepeated());
+    compareValues(path + ".default", oldSchema.getDiscoveryDefault(),
+        newSchema.getDiscoveryDefault());
+    compareBound(path + ".minimum", oldSchema.getMinimum(), newSchema.getMinimum(), true);
+    compareBound(path + ".maximum", oldSchema.getMaximum(), newSchema.getMaximum(), false);
+
+    if (!Objects.equal(oldSchema.getPattern(), newSchema.getPattern())) {
+      if (newSchema.getPattern() == null) {
+        compatible(path + ".pattern", "Pattern removed");
+      } else {
+        breaking(path + ".pattern", "Changed from " + oldSchema.getPattern() + " to "
+            + newSchema.getPattern());
+      }
+    }
+
+    List<String> oldEnum = oldSchema.getDiscoveryEnum();
+    List<String> newEnum = newSchema.getDiscoveryEnum();
+    if (oldEnum != null && newEnum == null) {
+      compatible(path + ".enum", "Enum removed");
+    } else if (oldEnum == null && newEnum != null) {
+      breaking(path + ".enum", "Enum added");
+    } else if (oldEnum != null) {
+      for (String value : oldEnum) {
+        if (!newEnum.contains(value)) {
+          breaking(path + ".enum", "Value " + value + " removed");
+        }
+      }
+      for (String value : newEnum) {
+        if (!oldEnum.contains(value)) {
+          compatible(path + ".enum", "Value " + value + " added");
+        }
+      }
+    }
+
+    Map<String, Jsonschema> oldProperties = orEmpty(oldSchema.getProperties());
+    Map<String, Jsonschema> newProperties = orEmpty(newSchema.getProperties());
+    for (Map.Entry<String, Jsonschema> property : oldProperties.entrySet()) {
+      String propertyPath = path + ".properties." + property.getKey();
+      Jsonschema newProperty = newProperties.get(property.getKey());
+      if (newProperty == null) {
+        breaking(propertyPath, "Property removed");
+        continue;
+      }
+      if (!isRequired(property.getValue()) && isRequired(newProperty)) {
+        breaking(propertyPath, "Property became required");
+      } else if (isRequired(property.getValue()) && !isRequired(newProperty)) {
+        compatible(propertyPath, "Property became optional");
+      }
+      compareSchemas(propertyPath, property.getValue(), newProperty);
+    }
+    for (Map.Entry<String, Jsonschema> property : newProperties.entrySet()) {
+      if (!oldProperties.containsKey(property.getKey())) {
+        String propertyPath = path + ".properties." + property.getKey();
+        if (isRequired(property.getValue())) {
+          breaking(propertyPath, "Required property added");
+        } else {
+          compatible(propertyPath, "Property added");
+        }
+      }
+    }
+
+    Jsonschema oldAdditional = oldSchema.getAdditionalProperties();
+    Jsonschema newAdditional = newSchema.getAdditionalProperties();
+    if (oldAdditional != null && newAdditional == null) {
+      breaking(path + ".additionalProperties", "Additional properties removed");
+    } else if (oldAdditional == null && newAdditional != null) {
+      compatible(path + ".additionalProperties", "Additional properties added");
+    } else if (oldAdditional != null) {
+      compareSchemas(path + ".additionalProperties", oldAdditional, newAdditional);
+    }
+
+    if (oldSchema.getItems() != null && newSchema.getItems() != null) {
+      compareSchemas(path + ".items", oldSchema.getItems(), newSchema.getItems());
+    }
+  }
+
+  /**
+   * Report any change of a value as breaking.
+   */
+  private void compareValues(String path, Object oldValue, Object newValue) {
+    if (!Objects.equal(oldValue, newValue)) {
+      breaking(path, "Changed from " + oldValue + " to " + newValue);
+    }
+  }
+
+  /**
+   * Compare a minimum or maximum, where a stricter bound is breaking and a
+   * looser one compatible.
+   */
+  private void compareBound(String path, String oldBound, String newBound, boolean lower) {
+    if (Objects.equal(oldBound, newBound)) {
+      return;
+    }
+    String message = "Changed from " + oldBound + " to " + newBound;
+    if (newBound == null) {
+      compatible(path, message);
+      return;
+    }
+    if (oldBound == null) {
+      breaking(path, message);
+      return;
+    }
+    int comparison;
+    try {
+      comparison = new BigDecimal(newBound).compareTo(new BigDecimal(oldBound));
+    } catch (NumberFormatException e) {
+      breaking(path, message);
+      return;
+    }
+    if (comparison == 0) {
+      return;
+    }
+    if ((comparison > 0) == lower) {
+      breaking(path, message);
+    } else {
+      compatible(path, message);
+    }
+  }
+
+  private static boolean isRequired(Jsonschema schema) {
+    return Boolean.TRUE.equals(schema.getRequired());
+  }
+
+  /**
+   * Returns all methods by id, or by path for methods without an id.
+   */
+  private static Map<String, Restmethod> methodsById(RestDescription document) {
+    Map<String, Restmethod> methods = Maps.newLinkedHashMap();
+    addMethods(methods, "methods", document.getMethods());
+    addResources(methods, "resources", document.getResources());
+    return methods;
+  }
+
+  private static void addResources(
+      Map<String, Restmethod> methods, String path, Map<String, Restresource> resources) {
+    for (Map.Entry<String, Restresource> resource : orEmpty(resources).entrySet()) {
+      String resourcePath = path + "." + resource.getKey();
+      addMethods(methods, resourcePath + ".methods", resource.getValue().getMethods());
+      addResources(methods, resourcePath + ".resources", resource.getValue().getResources());
+    }
+  }
+
+  private static void addMethods(
+      Map<String, Restmethod> methods, String path, Map<String, Restmethod> methodNodes) {
+    for (Map.Entry<String, Restmethod> method : orEmpty(methodNodes).entrySet()) {
+      String id = method.getValue().getId();
+      methods.put(id != null ? id : path + "." + method.getKey(), method.getValue());
+    }
+  }
+
+  private static <K, V> Map<K, V> orEmpty(Map<K, V> map) {
+    return map == null ? Collections.<K, V>emptyMap() : map;
+  }
+
+  private static <T> List<T> orEmpty(List<T> list) {
+    return list == null ? Collections.<T>emptyList() : list;
+  }
+}
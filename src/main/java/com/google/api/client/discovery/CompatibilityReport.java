@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Differences between two versions of a discovery document, as found by a
+ * {@link CompatibilityChecker}. Instances are immutable.
+ */
+public final class CompatibilityReport {
+  private final ImmutableList<ApiChange> changes;
+
+  CompatibilityReport(List<ApiChange> changes) {
+    this.changes = ImmutableList.copyOf(changes);
+  }
+
+  /**
+   * Returns all changes, grouped by element in document order.
+   */
+  public List<ApiChange> getChanges() {
+    return changes;
+  }
+
+  /**
+   * Returns the changes which may make existing clients fail.
+   */
+  public List<ApiChange> getBreakingChanges() {
+    ImmutableList.Builder<ApiChange> breaking = ImmutableList.builder();
+    for (ApiChange change : changes) {
+      if (change.isBreaking()) {
+        breaking.add(change);
+      }
+    }
+    return breaking.build();
+  }
+
+  /**
+   * Returns whether any change may make existing clients fail.
+   */
+  public boolean isBreaking() {
+    for (ApiChange change : changes) {
+      if (change.isBreaking()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    if (changes.isEmpty()) {
+      return "no changes";
+    }
+    StringBuilder out = new StringBuilder();
+    for (ApiChange change : changes) {
+      out.append(change).append('\n');
+    }
+    return out.toString();
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zip archive holding a directory document together with the discovery
+ * documents it lists, for deployments without access to the Discovery
+ * service. The directory is stored as {@value #DIRECTORY_ENTRY} and each API
+ * as {@code apis/<name>/<version>/rest.json}, mirroring the service's URLs.
+ *
+ * <p>
+ * Documents are read by random access through the zip central directory, so
+ * opening an archive reads nothing but its index and every API is only
+ * inflated and parsed when it is loaded. Use the archive as a
+ * {@link DiscoverySource} with {@link RestHelper#loadDiscovery},
+ * {@link RestHelper#loadDirectoryDocument} and
+ * {@link RestHelper#loadApisFromDirectory}, and create one with
+ * {@link RestHelper#archiveDirectory} or a {@link Writer}.
+ * </p>
+ */
+public class DiscoveryArchive implements DiscoverySource, Closeable {
+  /** Name of the entry holding the directory document. */
+  public static final String DIRECTORY_ENTRY = "directory.json";
+
+  private final ZipFile zipFile;
+
+  /**
+   * Open an archive for reading.
+   *
+   * @param archiveFile Archive to read.
+   */
+  public DiscoveryArchive(File archiveFile) throws IOException {
+    this.zipFile = new ZipFile(Preconditions.checkNotNull(archiveFile));
+  }
+
+  public InputStream openDirectory() throws IOException {
+    return openEntry(DIRECTORY_ENTRY);
+  }
+
+  public InputStream openRestDescription(String apiName, String apiVersion) throws IOException {
+    return openEntry(restDescriptionEntry(apiName, apiVersion));
+  }
+
+  /**
+   * Returns whether the archive holds the discovery document of the API.
+   *
+   * @param apiName Name of the API.
+   * @param apiVersion Version of the API.
+   */
+  public boolean contains(String apiName, String apiVersion) {
+    return zipFile.getEntry(restDescriptionEntry(apiName, apiVersion)) != null;
+  }
+
+  /**
+   * Release the underlying file.
+   */
+  public void close() throws IOException {
+    zipFile.close();
+  }
+
+  private InputStream openEntry(String name) throws IOException {
+    ZipEntry entry = zipFile.getEntry(name);
+    if (entry == null) {
+      throw new FileNotFoundException(name + " not found in " + zipFile.getName());
+    }
+    return zipFile.getInputStream(entry);
+  }
+
+  static String restDescriptionEntry(String apiName, String apiVersion) {
+    return "apis/" + Preconditions.checkNotNull(apiName) + "/"
+        + Preconditions.checkNotNull(apiVersion) + "/rest.json";
+  }
+
+  /**
+   * Writes an archive. The documents are stored exactly as given.
+   */
+  public static class Writer implements Closeable {
+    private final ZipOutputStream out;
+
+    /**
+     * Create an instance.
+     *
+     * @param out Stream to write the archive to, which is closed along with
+     *        the writer.
+     */
+    public Writer(OutputStream out) {
+      this.out = new ZipOutputStream(Preconditions.checkNotNull(out));
+    }
+
+    /**
+     * Add the directory document.
+     *
+     * @param content UTF-8 encoded JSON of the document.
+     */
+    public void putDirectory(byte[] content) throws IOException {
+      putEntry(DIRECTORY_ENTRY, content);
+    }
+
+    /**
+     * Add the discovery document of an API.
+     *
+     * @param apiName Name of the API.
+     * @param apiVersion Version of the API.
+     * @param content UTF-8 encoded JSON of the document.
+     */
+    public void putRestDescription(String apiName, String apiVersion, byte[] content)
+        throws IOException {
+      putEntry(restDescriptionEntry(apiName, apiVersion), content);
+    }
+
+    /**
+     * Finish the archive and close the underlying stream.
+     */
+    public void close() throws IOException {
+      out.close();
+    }
+
+    private void putEntry(String name, byte[] content) throws IOException {
+      out.putNextEntry(new ZipEntry(name));
+      out.write(content);
+      out.closeEntry();
+    }
+  }
+}
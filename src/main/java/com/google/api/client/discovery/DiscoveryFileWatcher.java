@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.lint.DiscoveryLinter;
+import com.google.api.client.discovery.lint.LintReport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link DiscoveryRegistry} in sync with the discovery documents in a
+ * directory, such as a mounted config volume. Instances are created through
+ * a {@link Builder}.
+ *
+ * <p>
+ * {@link #start()} loads every document in the directory and then watches it
+ * with a {@link WatchService}. Events are debounced: a burst of events
+ * triggers a single rescan once the directory has been quiet for the
+ * debounce delay. The rescan runs on a background thread and reparses only
+ * the files whose content changed. Each reparsed document
+ * is validated and then swapped into the registry atomically, so readers keep
+ * seeing the previous version until the new one is complete. Rescanning the
+ * whole directory also catches updates made by swapping a symbolic link.
+ * </p>
+ *
+ * <p>
+ * A file which fails to parse or validate is reported to the
+ * {@link Listener} and the previous version stays registered. Deleting a file
+ * does not unregister its API either.
+ * </p>
+ */
+public final class DiscoveryFileWatcher implements Closeable {
+
+  /**
+   * Callback for the outcome of each load. Calls are made from the thread
+   * which calls {@link #start()} and then from a single background thread.
+   */
+  public interface Listener {
+
+    /**
+     * Called after a document has been swapped into the registry.
+     *
+     * @param file File which was loaded.
+     * @param discovery The registered document.
+     * @param latencyMillis Time from the first event of the burst which
+     *        triggered the reload, or from the start of the initial load, until
+     *        the document was registered.
+     */
+    void onReload(File file, RestDiscovery discovery, long latencyMillis);
+
+    /**
+     * Called when a file fails to load or validate.
+     *
+     * @param file File which failed to load.
+     * @param cause Reason of the failure.
+     */
+    void onFailure(File file, Exception cause);
+  }
+
+  /**
+   * Check applied to every document before it is registered.
+   */
+  public interface Validator {
+
+    /**
+     * Throw an exception to reject a document, which is then reported as a
+     * failure.
+     */
+    void validate(RestDiscovery discovery) throws Exception;
+  }
+
+  /**
+   * Rejects documents without a name or version, which cannot be registered,
+   * and documents for which the default rules of a {@link DiscoveryLinter}
+   * report an error, such as a reference to a missing schema from a schema or
+   * from the request or response of a method.
+   */
+  public static final Validator DEFAULT_VALIDATOR = new Validator() {
+    private final DiscoveryLinter linter = new DiscoveryLinter();
+
+    public void validate(RestDiscovery discovery) {
+      Preconditions.checkArgument(discovery.getName() != null, "Document without a name");
+      Preconditions.checkArgument(discovery.getVersion() != null, "Document without a version");
+      LintReport report = linter.lint(discovery.getDocument());
+      if (report.hasErrors()) {
+        throw new IllegalArgumentException(report.toString());
+      }
+    }
+  };
+
+  /**
+   * What was loaded from a file.
+   */
+  private static class LoadedFile {
+    final byte[] digest;
+    final String name;
+    final String version;
+
+    LoadedFile(byte[] digest, String name, String version) {
+      this.digest = digest;
+      this.name = name;
+      this.version = version;
+    }
+  }
+
+  private final File directory;
+  private final DiscoveryRegistry registry;
+  private final DiscoveryParser parser;
+  private final Validator validator;
+  private final Listener listener;
+  private final String suffix;
+  private final long debounceMillis;
+
+  /** Files seen by the last scan, only used on the scanning thread. */
+  private final Map<File, LoadedFile> loadedFiles = Maps.newHashMap();
+
+  private WatchService watchService;
+  private Thread watchThread;
+  private ScheduledExecutorService reloadExecutor;
+  private ScheduledFuture<?> pendingRescan;
+  private long burstStartNanos;
+
+  private DiscoveryFileWatcher(Builder builder) {
+    this.directory = builder.directory;
+    this.registry = builder.registry;
+    this.parser = builder.parser;
+    this.validator = builder.validator;
+    this.listener = builder.listener;
+    this.suffix = builder.suffix;
+    this.debounceMillis = builder.debounceMillis;
+  }
+
+  /**
+   * Returns a new builder watching the given directory.
+   *
+   * @param directory Directory holding the discovery documents.
+   * @param registry Registry to load the documents into.
+   */
+  public static Builder builder(File directory, DiscoveryRegistry registry) {
+    return new Builder(directory, registry);
+  }
+
+  /**
+   * Load every document in the directory and start watching it. Documents
+   * which fail to load are reported to the listener.
+   */
+  public synchronized void start() throws IOException {
+    Preconditions.checkState(watchService == null, "Watcher already started");
+
+    Path path = directory.toPath();
+    watchService = FileSystems.getDefault().newWatchService();
+    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    reloadExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("discovery-reload-%d").build());
+
+    // Registered before the initial scan, so no change can slip in between
+    scan(System.nanoTime());
+
+    // The thread keeps its own reference, since close() clears the field
+    final WatchService service = watchService;
+    watchThread = new Thread(new Runnable() {
+      public void run() {
+        watch(service);
+      }
+    }, "discovery-watch");
+    watchThread.setDaemon(true);
+    watchThread.start();
+  }
+
+  /**
+   * Stop watching. A reload in progress is interrupted.
+   */
+  public synchronized void close() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+      reloadExecutor.shutdownNow();
+      watchService = null;
+      reloadExecutor = null;
+    }
+  }
+
+  private void watch(WatchService service) {
+    try {
+      while (true) {
+        WatchKey key = service.take();
+        key.pollEvents();
+        scheduleRescan();
+        if (!key.reset()) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // The watcher was closed
+    }
+  }
+
+  /**
+   * Schedule a rescan after the debounce delay, pushing back a rescan which is
+   * still pending.
+   */
+  private synchronized void scheduleRescan() {
+    if (reloadExecutor == null) {
+      return;
+    }
+    if (pendingRescan == null || !pendingRescan.cancel(false)) {
+      // Nothing is pending, so this event starts a new burst
+      burstStartNanos = System.nanoTime();
+    }
+    final long startNanos = burstStartNanos;
+    pendingRescan = reloadExecutor.schedule(new Runnable() {
+      public void run() {
+        scan(startNanos);
+      }
+    }, debounceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Reload every file which changed since the previous scan.
+   *
+   * @param startNanos Time at which the reload was triggered.
+   */
+  private void scan(long startNanos) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      listener.onFailure(directory, new IOException("Unable to list " + directory));
+      return;
+    }
+    for (File file : files) {
+      if (!file.getName().endsWith(suffix) || !file.isFile()) {
+        continue;
+      }
+      load(file, startNanos);
+    }
+  }
+
+  /**
+   * Load a file unless its content is unchanged. Modification times are not
+   * relied upon, since their resolution may be as coarse as seconds.
+   */
+  private void load(File file, long startNanos) {
+    LoadedFile previous = loadedFiles.get(file);
+    byte[] content;
+    try {
+      content = Files.toByteArray(file);
+    } catch (IOException e) {
+      listener.onFailure(file, e);
+      return;
+    }
+    byte[] digest = digest(content);
+    if (previous != null && Arrays.equals(previous.digest, digest)) {
+      return;
+    }
+
+    RestDiscovery discovery;
+    try {
+      RestDescription document =
+          parser.parseRestDescription(new ByteArrayInputStream(content));
+      validator.validate(new RestDiscovery(document));
+      discovery = registry.put(document);
+    } catch (Exception e) {
+      // Remember the broken version, so it is not reported again until it changes
+      loadedFiles.put(file, new LoadedFile(digest,
+          previous == null ? null : previous.name, previous == null ? null : previous.version));
+      listener.onFailure(file, e);
+      return;
+    }
+
+    if (previous != null && previous.name != null
+        && !(previous.name.equals(discovery.getName())
+            && previous.version.equals(discovery.getVersion()))) {
+      // The file now holds another API or version
+      registry.remove(previous.name, previous.version);
+    }
+    loadedFiles.put(file, new LoadedFile(digest, discovery.getName(), discovery.getVersion()));
+    listener.onReload(file, discovery,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
+
+  private static byte[] digest(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Builder for {@link DiscoveryFileWatcher}.
+   */
+  public static final class Builder {
+    private final File directory;
+    private final DiscoveryRegistry registry;
+    private DiscoveryParser parser = new StreamingDiscoveryParser(new GsonFactory());
+    private Validator validator = DEFAULT_VALIDATOR;
+    private Listener listener = new Listener() {
+      public void onReload(File file, RestDiscovery discovery, long latencyMillis) {
+      }
+
+      public void onFailure(File file, Exception cause) {
+      }
+    };
+    private String suffix = ".json";
+    private long debounceMillis = 500;
+
+    Builder(File directory, DiscoveryRegistry registry) {
+      this.directory = Preconditions.checkNotNull(directory);
+      this.registry = Preconditions.checkNotNull(registry);
+    }
+
+    /**
+     * Set the parser of the documents; defaults to a
+     * {@link StreamingDiscoveryParser}.
+     */
+    public Builder setParser(DiscoveryParser parser) {
+      this.parser = Preconditions.checkNotNull(parser);
+      return this;
+    }
+
+    /**
+     * Set the check applied before a document is registered; defaults to
+     * {@link DiscoveryFileWatcher#DEFAULT_VALIDATOR}.
+     */
+    public Builder setValidator(Validator validator) {
+      this.validator = Preconditions.checkNotNull(validator);
+      return this;
+    }
+
+    /**
+     * Set the callback for reloads and failures, which by default are
+     * ignored.
+     */
+    public Builder setListener(Listener listener) {
+      this.listener = Preconditions.checkNotNull(listener);
+      return this;
+    }
+
+    /**
+     * Only load files whose name ends with the given suffix; defaults to
+     * {@code .json}.
+     */
+    public Builder setFileSuffix(String suffix) {
+      this.suffix = Preconditions.checkNotNull(suffix);
+      return this;
+    }
+
+    /**
+     * Set how long the directory must be quiet before changes are reloaded;
+     * defaults to 500 milliseconds.
+     */
+    public Builder setDebounceMillis(long debounceMillis) {
+      Preconditions.checkArgument(debounceMillis >= 0);
+      this.debounceMillis = debounceMillis;
+      return this;
+    }
+
+    /**
+     * Returns a new watcher which has not been started.
+     */
+    public DiscoveryFileWatcher build() {
+      return new DiscoveryFileWatcher(this);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.services.discovery.model.DirectoryList;
+import com.google.api.services.discovery.model.RestDescription;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Backend which turns the JSON of discovery and directory documents into their
+ * wire format classes. {@link RestHelper} uses it for every document it loads.
+ * Implementations must be thread-safe.
+ */
+public interface DiscoveryParser {
+
+  /**
+   * Parse a discovery document.
+   *
+   * @param content UTF-8 encoded JSON, which is closed when parsing finishes.
+   * @return Wire format of the document.
+   */
+  RestDescription parseRestDescription(InputStream content) throws IOException;
+
+  /**
+   * Parse a directory document.
+   *
+   * @param content UTF-8 encoded JSON, which is closed when parsing finishes.
+   * @return Wire format of the directory.
+   */
+  DirectoryList parseDirectoryList(InputStream content) throws IOException;
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the loaded versions of many APIs, keyed by name and version,
+ * which can be reloaded while it is being read.
+ *
+ * <p>
+ * Every change publishes a new immutable snapshot with a single volatile
+ * write. Readers only read the current snapshot, so they never lock, never
+ * wait for a reload and never see an API which is partially loaded: a
+ * document is parsed and wrapped before it is published, and an API is
+ * replaced atomically. Changes are serialized with each other.
+ * </p>
+ *
+ * <p>
+ * Schemas which are identical, descriptions included, in several registered
+ * documents are stored once. When a document is registered, each of its
+ * named schemas which equals one already registered is replaced by the
+ * registered instance. A shared schema is kept for as long as any
+ * registered document refers to it.
+ * </p>
+ */
+public final class DiscoveryRegistry {
+
+  /**
+   * A schema stored once for all documents which contain it.
+   */
+  private static class SharedSchema {
+    final Jsonschema schema;
+    int references;
+
+    SharedSchema(Jsonschema schema) {
+      this.schema = schema;
+    }
+  }
+
+  /** Current snapshot, keyed by {@code <name>:<version>}. */
+  private volatile ImmutableMap<String, RestDiscovery> snapshot = ImmutableMap.of();
+
+  /** Shared schemas by fingerprint, guarded by {@code this}. */
+  private final Map<String, SharedSchema> sharedSchemas = Maps.newHashMap();
+
+  /** Fingerprints of the schemas of each registered API, guarded by {@code this}. */
+  private final Map<String, List<String>> schemaFingerprints = Maps.newHashMap();
+
+  /**
+   * Returns the registered version of an API or {@code null} if there is
+   * none.
+   */
+  public RestDiscovery get(String name, String version) {
+    return snapshot.get(key(name, version));
+  }
+
+  /**
+   * Returns all registered APIs keyed by {@code <name>:<version>}. The map is
+   * an immutable snapshot, which is not affected by later changes.
+   */
+  public Map<String, RestDiscovery> getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Returns the registered versions of an API, in order of registration.
+   */
+  public List<String> getVersions(String name) {
+    List<String> versions = Lists.newArrayList();
+    for (RestDiscovery discovery : snapshot.values()) {
+      if (discovery.getName().equals(name)) {
+        versions.add(discovery.getVersion());
+      }
+    }
+    return ImmutableList.copyOf(versions);
+  }
+
+  /**
+   * Returns the number of distinct schemas stored for all registered APIs.
+   */
+  public synchronized int getSharedSchemaCount() {
+    return sharedSchemas.size();
+  }
+
+  /**
+   * Register a document, atomically replacing the version with the same
+   * name and version if there is one. The registry takes ownership of the
+   * document, whose named schemas may be replaced by equal shared ones, so it
+   * must not be used or modified by the caller afterwards.
+   *
+   * @param document Wire format of the document to register, with a name and
+   *        version.
+   * @return The registered API.
+   */
+  public synchronized RestDiscovery put(RestDescription document) {
+    String key = key(document.getName(), document.getVersion());
+    List<String> fingerprints = Lists.newArrayList();
+    if (document.getSchemas() != null) {
+      for (Map.Entry<String, Jsonschema> schema : document.getSchemas().entrySet()) {
+        String fingerprint = CanonicalJsonWriter.fingerprint(schema.getValue(), true);
+        SharedSchema shared = sharedSchemas.get(fingerprint);
+        if (shared == null) {
+          shared = new SharedSchema(schema.getValue());
+          sharedSchemas.put(fingerprint, shared);
+        } else {
+          schema.setValue(shared.schema);
+        }
+        shared.references++;
+        fingerprints.add(fingerprint);
+      }
+    }
+    RestDiscovery discovery = new RestDiscovery(document);
+
+    Map<String, RestDiscovery> next = Maps.newLinkedHashMap(snapshot);
+    next.put(key, discovery);
+    snapshot = ImmutableMap.copyOf(next);
+
+    // Release the schemas of the replaced version only once it is unpublished
+    release(schemaFingerprints.put(key, fingerprints));
+    return discovery;
+  }
+
+  /**
+   * Unregister a version of an API.
+   *
+   * @return The API which was registered or {@code null} if there was none.
+   */
+  public synchronized RestDiscovery remove(String name, String version) {
+    String key = key(name, version);
+    RestDiscovery removed = snapshot.get(key);
+    if (removed != null) {
+      Map<String, RestDiscovery> next = Maps.newLinkedHashMap(snapshot);
+      next.remove(key);
+      snapshot = ImmutableMap.copyOf(next);
+      release(schemaFingerprints.remove(key));
+    }
+    return removed;
+  }
+
+  private void release(List<String> fingerprints) {
+    if (fingerprints == null) {
+      return;
+    }
+    for (String fingerprint : fingerprints) {
+      SharedSchema shared = sharedSchemas.get(fingerprint);
+      if (--shared.references == 0) {
+        sharedSchemas.remove(fingerprint);
+      }
+    }
+  }
+
+  private static String key(String name, String version) {
+    return Preconditions.checkNotNull(name) + ":" + Preconditions.checkNotNull(version);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Local store of the directory document and the discovery documents it lists,
+ * which {@link RestHelper} can load from instead of the Discovery service.
+ * Implementations must be thread-safe.
+ */
+public interface DiscoverySource {
+
+  /**
+   * Open the directory document.
+   *
+   * @return UTF-8 encoded JSON, to be closed by the caller.
+   * @throws java.io.FileNotFoundException if the source holds no directory.
+   */
+  InputStream openDirectory() throws IOException;
+
+  /**
+   * Open the discovery document of a single API.
+   *
+   * @param apiName Name of the API.
+   * @param apiVersion Version of the API.
+   * @return UTF-8 encoded JSON, to be closed by the caller.
+   * @throws java.io.FileNotFoundException if the source holds no such API.
+   */
+  InputStream openRestDescription(String apiName, String apiVersion) throws IOException;
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.types.DiscoveryType;
+
+/**
+ * Callback for a walk over a whole discovery document started with
+ * {@link RestDiscovery#accept(DiscoveryVisitor)}. Every method has an empty
+ * default implementation, so subclasses only override what they need.
+ *
+ * <p>
+ * Methods returning a boolean decide whether the walk descends into the
+ * children of the visited element. Returning {@code false} prunes that
+ * subtree.
+ * </p>
+ */
+public abstract class DiscoveryVisitor {
+
+  /**
+   * Called for every resource, before its methods and sub-resources.
+   *
+   * @param path Dotted path of resource names from the API root, such as
+   *        {@code "activities.comments"}.
+   * @param resource The visited resource.
+   * @return Whether to visit the methods and sub-resources of this resource.
+   */
+  public boolean visitResource(String path, RestResource resource) {
+    return true;
+  }
+
+  /**
+   * Called for every method, both those at the API root and those on
+   * resources.
+   *
+   * @param method The visited method.
+   * @return Whether to visit the parameters of this method.
+   */
+  public boolean visitMethod(RestMethod method) {
+    return true;
+  }
+
+  /**
+   * Called for every parameter of a visited method.
+   *
+   * @param method Method which declares the parameter.
+   * @param parameter The visited parameter.
+   */
+  public void visitParameter(RestMethod method, Parameter parameter) {
+  }
+
+  /**
+   * Called for every schema definition: each named top level schema and,
+   * nested below it, each property, additional property and array element.
+   * A nested schema which refers to a named schema is reported with the
+   * dereferenced type, but the walk does not descend into it, since the named
+   * schema is expanded where it is defined. This keeps the walk finite for
+   * recursive schemas.
+   *
+   * @param path Path of the schema, such as {@code "Url.analytics"}. Additional
+   *        properties are suffixed with {@code "{}"} and array elements with
+   *        {@code "[]"}.
+   * @param type The visited type.
+   * @return Whether to visit the nested schemas of this type.
+   */
+  public boolean visitSchema(String path, DiscoveryType type) {
+    return true;
+  }
+}
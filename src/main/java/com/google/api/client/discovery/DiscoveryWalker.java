@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.api.services.discovery.model.Restmethod;
+import com.google.api.services.discovery.model.Restresource;
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Iterative walk over a discovery document which drives a
+ * {@link DiscoveryVisitor}. The walk works directly on the wire format and
+ * keeps explicit stacks instead of recursing, so deeply nested documents
+ * cannot overflow the call stack. Elements are visited depth first in
+ * document order.
+ */
+final class DiscoveryWalker {
+
+  /**
+   * A pending element on one of the walk stacks.
+   */
+  private static class Frame<T> {
+    final String path;
+    final T node;
+
+    Frame(String path, T node) {
+      this.path = path;
+      this.node = node;
+    }
+  }
+
+  private DiscoveryWalker() {
+  }
+
+  /**
+   * Walk every resource, method, parameter and schema of the document.
+   *
+   * @param document Wire format of the document to walk.
+   * @param parameterTables Parameter tables of the document.
+   * @param visitor Visitor to call for every element.
+   */
+  static void walk(
+      RestDescription document, ParameterTableCache parameterTables, DiscoveryVisitor visitor) {
+    Map<String, Jsonschema> topLevelSchemas = document.getSchemas() == null
+        ? Collections.<String, Jsonschema>emptyMap() : document.getSchemas();
+
+    walkMethods(document.getMethods(), topLevelSchemas, parameterTables, visitor);
+
+    LinkedList<Frame<Restresource>> resources = new LinkedList<Frame<Restresource>>();
+    push(resources, null, document.getResources());
+    while (!resources.isEmpty()) {
+      Frame<Restresource> frame = resources.removeFirst();
+      RestResource resource = new RestResource(frame.node, topLevelSchemas, parameterTables);
+      if (visitor.visitResource(frame.path, resource)) {
+        walkMethods(frame.node.getMethods(), topLevelSchemas, parameterTables, visitor);
+        push(resources, frame.path, frame.node.getResources());
+      }
+    }
+
+    LinkedList<Frame<Jsonschema>> schemas = new LinkedList<Frame<Jsonschema>>();
+    push(schemas, null, document.getSchemas());
+    while (!schemas.isEmpty()) {
+      Frame<Jsonschema> frame = schemas.removeFirst();
+      Jsonschema node = frame.node;
+      DiscoveryType type = DiscoveryType.createTypeFromSchemaNode(node, topLevelSchemas);
+      if (visitor.visitSchema(frame.path, type) && node.get$ref() == null) {
+        if (node.getItems() != null) {
+          schemas.addFirst(new Frame<Jsonschema>(frame.path + "[]", node.getItems()));
+        }
+        if (node.getAdditionalProperties() != null) {
+          schemas.addFirst(
+              new Frame<Jsonschema>(frame.path + "{}", node.getAdditionalProperties()));
+        }
+        push(schemas, frame.path, node.getProperties());
+      }
+    }
+  }
+
+  private static void walkMethods(Map<String, Restmethod> methods,
+      Map<String, Jsonschema> topLevelSchemas, ParameterTableCache parameterTables,
+      DiscoveryVisitor visitor) {
+    if (methods == null) {
+      return;
+    }
+
+    for (Restmethod methodNode : methods.values()) {
+      RestMethod method = new RestMethod(topLevelSchemas, methodNode, parameterTables);
+      if (visitor.visitMethod(method)) {
+        for (RestMethod.Parameter parameter : method.getParameterTable().getParameters()) {
+          visitor.visitParameter(method, parameter);
+        }
+      }
+    }
+  }
+
+  /**
+   * Push the children onto the stack so that they are popped in document
+   * order.
+   */
+  private static <T> void push(
+      LinkedList<Frame<T>> stack, String parentPath, Map<String, T> children) {
+    if (children == null) {
+      return;
+    }
+
+    List<Map.Entry<String, T>> entries = Lists.newArrayList(children.entrySet());
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      Map.Entry<String, T> child = entries.get(i);
+      String path = parentPath == null ? child.getKey() : parentPath + "." + child.getKey();
+      stack.addFirst(new Frame<T>(path, child.getValue()));
+    }
+  }
+}
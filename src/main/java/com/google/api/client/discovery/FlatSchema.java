@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * Node of a fully inlined schema tree built by a {@link SchemaFlattener}.
+ * References are expanded in place, so properties, additional properties and
+ * array elements are reachable directly from their parent.
+ *
+ * <p>
+ * Where expansion stops the tree holds a marker node without children: a
+ * {@link Kind#CYCLE} where a schema refers to a schema which encloses it, and
+ * a {@link Kind#TRUNCATED} node below the maximum depth. Markers still carry
+ * the type and reference of the schema they stand for. Trees are immutable.
+ * </p>
+ */
+public final class FlatSchema {
+  /**
+   * Whether a node was expanded, and why not.
+   */
+  public enum Kind {
+    /** Node with all its children inlined. */
+    EXPANDED,
+
+    /** Reference to a schema which encloses this node, not expanded again. */
+    CYCLE,
+
+    /** Node below the maximum depth, not expanded. */
+    TRUNCATED
+  }
+
+  private final Kind kind;
+  private final DiscoveryType type;
+  private final String reference;
+  private final ImmutableMap<String, FlatSchema> properties;
+  private final FlatSchema additionalProperties;
+  private final FlatSchema items;
+
+  FlatSchema(Kind kind, DiscoveryType type, String reference,
+      ImmutableMap<String, FlatSchema> properties, FlatSchema additionalProperties,
+      FlatSchema items) {
+    this.kind = kind;
+    this.type = type;
+    this.reference = reference;
+    this.properties = properties;
+    this.additionalProperties = additionalProperties;
+    this.items = items;
+  }
+
+  /**
+   * Returns whether this node was expanded.
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the dereferenced type of this node, which also gives access to
+   * its description, format, enum values and bounds.
+   */
+  public DiscoveryType getType() {
+    return type;
+  }
+
+  /**
+   * Returns the name of the schema this node was expanded from, or
+   * {@code null} for an anonymous schema.
+   */
+  public String getReference() {
+    return reference;
+  }
+
+  /**
+   * Returns the inlined properties in document order, which is empty for
+   * markers and types other than objects.
+   */
+  public Map<String, FlatSchema> getProperties() {
+    return properties;
+  }
+
+  /**
+   * Returns the inlined type of additional properties, or {@code null} if
+   * there is none or this is a marker.
+   */
+  public FlatSchema getAdditionalProperties() {
+    return additionalProperties;
+  }
+
+  /**
+   * Returns the inlined type of array elements, or {@code null} if this is
+   * not an array or a marker.
+   */
+  public FlatSchema getItems() {
+    return items;
+  }
+
+  /**
+   * Returns an indented rendering of the tree, one node per line.
+   */
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder();
+    render(out, null, 0);
+    return out.toString();
+  }
+
+  private void render(StringBuilder out, String label, int indent) {
+    for (int i = 0; i < indent; i++) {
+      out.append("  ");
+    }
+    if (label != null) {
+      out.append(label).append(": ");
+    }
+    out.append(type.getBaseType().name().toLowerCase());
+    if (reference != null) {
+      out.append(" (").append(reference).append(')');
+    }
+    if (kind != Kind.EXPANDED) {
+      out.append(" [").append(kind).append(']');
+    }
+    out.append('\n');
+    for (Map.Entry<String, FlatSchema> property : properties.entrySet()) {
+      property.getValue().render(out, property.getKey(), indent + 1);
+    }
+    if (additionalProperties != null) {
+      additionalProperties.render(out, "{}", indent + 1);
+    }
+    if (items != null) {
+      items.render(out, "[]", indent + 1);
+    }
+  }
+}
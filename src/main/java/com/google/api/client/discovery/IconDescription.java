@@ -19,7 +19,7 @@ package com.google.api.client.discovery;
 import com.google.common.base.Preconditions;
 
 /**
- * Representation of an icon url.
+ * Representation of an icon url. Instances are immutable.
  *
  * @author moshenko@google.com (Jake Moshenko)
  */
@@ -32,13 +32,16 @@ public class IconDescription {
     X32,
   }
 
-  private Size size;
-  private String url;
+  private final Size size;
+  private final String url;
 
   /**
-   * Private constructor to prevent instantiation.
+   * Private constructor to prevent instantiation outside of the factory
+   * methods.
    */
-  private IconDescription() {
+  private IconDescription(Size size, String url) {
+    this.size = size;
+    this.url = Preconditions.checkNotNull(url);
   }
 
   /**
@@ -56,16 +59,10 @@ public class IconDescription {
   }
 
   static IconDescription createX16Icon(String url) {
-    IconDescription instance = new IconDescription();
-    instance.size = Size.X16;
-    instance.url = Preconditions.checkNotNull(url);
-    return instance;
+    return new IconDescription(Size.X16, url);
   }
 
   static IconDescription createX32Icon(String url) {
-    IconDescription instance = new IconDescription();
-    instance.size = Size.X16;
-    instance.url = Preconditions.checkNotNull(url);
-    return instance;
+    return new IconDescription(Size.X32, url);
   }
 }
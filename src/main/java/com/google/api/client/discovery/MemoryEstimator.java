@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.util.GenericData;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates the heap used by discovery documents and the state built from
+ * them from a model of object layout on a 64-bit JVM with compressed
+ * references: 12 byte object headers, 4 byte references and sizes aligned to
+ * 8 bytes. Strings are assumed to hold UTF-16 characters. Objects of the
+ * classes of this library are walked field by field, while maps, collections
+ * and bit sets are measured through their public interface. Each object is
+ * counted once, so objects shared between several documents measured by the
+ * same instance are counted towards the first of them only.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+final class MemoryEstimator {
+  private static final int HEADER = 12;
+  private static final int REFERENCE = 4;
+  private static final int ARRAY_HEADER = 16;
+  private static final int HASH_ENTRY = 40;
+  private static final int HASH_MAP = 56;
+
+  /** Fields which hold documentation only. */
+  static final Set<String> DESCRIPTION_FIELDS =
+      ImmutableSet.of("description", "enumDescriptions");
+
+  /** Prefix of the classes whose fields are walked. */
+  private static final String OWN_PACKAGE = "com.google.api.client.discovery.";
+
+  /** Shallow sizes of the wire format classes, which only depend on the class. */
+  private static final ConcurrentMap<Class<?>, Long> shallowSizes = Maps.newConcurrentMap();
+
+  /** Instance fields of reference type of the classes whose fields are walked. */
+  private static final ConcurrentMap<Class<?>, List<Field>> referenceFields =
+      Maps.newConcurrentMap();
+
+  /**
+   * Receives the size of every object reached by a measurement.
+   */
+  interface Sink {
+
+    /**
+     * Called with the shallow size of each object.
+     *
+     * @param bytes Estimated size of the object.
+     * @param description Whether the object is a description string.
+     */
+    void add(long bytes, boolean description);
+  }
+
+  private final IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+
+  /**
+   * Measure a value of the JSON data model and everything it refers to
+   * which was not measured before.
+   *
+   * @param value Value to measure.
+   * @param description Whether the value is the value of a description field.
+   * @param sink Sink for the size of each object.
+   */
+  void measure(Object value, boolean description, Sink sink) {
+    if (value == null || value instanceof Boolean || value instanceof Enum<?>
+        || visited.put(value, Boolean.TRUE) != null) {
+      // Booleans and enums are shared constants
+      return;
+    }
+
+    if (value instanceof String) {
+      sink.add(sizeOf((String) value), description);
+    } else if (value instanceof GenericData) {
+      sink.add(shallowSizeOf(value.getClass()), false);
+      for (Map.Entry<String, Object> entry : ((GenericData) value).entrySet()) {
+        // Keys of declared fields are interned, so only values are counted
+        measure(entry.getValue(), DESCRIPTION_FIELDS.contains(entry.getKey()), sink);
+      }
+    } else if (value instanceof Map<?, ?>) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      sink.add(HASH_MAP + align(ARRAY_HEADER + REFERENCE * capacity(map.size()))
+          + (long) HASH_ENTRY * map.size(), false);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        measure(entry.getKey(), false, sink);
+        measure(entry.getValue(), false, sink);
+      }
+    } else if (value instanceof Collection<?>) {
+      Collection<?> collection = (Collection<?>) value;
+      sink.add(align(HEADER + 2 * REFERENCE)
+          + align(ARRAY_HEADER + (long) REFERENCE * collection.size()), false);
+      for (Object element : collection) {
+        measure(element, description, sink);
+      }
+    } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+      sink.add(align(HEADER + 4 * REFERENCE) + align(ARRAY_HEADER + value.toString().length()),
+          false);
+    } else if (value instanceof BitSet) {
+      sink.add(align(HEADER + REFERENCE + 8) + align(ARRAY_HEADER + ((BitSet) value).size() / 8),
+          false);
+    } else if (value.getClass().isArray()) {
+      measureArray(value, sink);
+    } else if (value.getClass().getName().startsWith(OWN_PACKAGE)) {
+      sink.add(shallowSizeOf(value.getClass()), false);
+      try {
+        for (Field field : referenceFieldsOf(value.getClass())) {
+          measure(field.get(value), false, sink);
+        }
+      } catch (IllegalAccessException e) {
+        // The fields were made accessible
+        throw new IllegalStateException(e);
+      }
+    } else {
+      // Boxed numbers, dates and anything else small
+      sink.add(align(HEADER + 12), false);
+    }
+  }
+
+  private void measureArray(Object array, Sink sink) {
+    int length = Array.getLength(array);
+    Class<?> component = array.getClass().getComponentType();
+    if (!component.isPrimitive()) {
+      sink.add(align(ARRAY_HEADER + (long) REFERENCE * length), false);
+      for (int i = 0; i < length; i++) {
+        measure(Array.get(array, i), false, sink);
+      }
+    } else {
+      int elementSize = component == long.class || component == double.class ? 8
+          : component == int.class || component == float.class ? 4
+          : component == byte.class || component == boolean.class ? 1 : 2;
+      sink.add(align(ARRAY_HEADER + (long) elementSize * length), false);
+    }
+  }
+
+  private static List<Field> referenceFieldsOf(Class<?> type) {
+    List<Field> fields = referenceFields.get(type);
+    if (fields == null) {
+      List<Field> found = Lists.newArrayList();
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+            field.setAccessible(true);
+            found.add(field);
+          }
+        }
+      }
+      fields = ImmutableList.copyOf(found);
+      referenceFields.put(type, fields);
+    }
+    return fields;
+  }
+
+  /**
+   * Returns the estimated size of a string and its character array.
+   */
+  static long sizeOf(String value) {
+    return align(HEADER + REFERENCE + 8) + align(ARRAY_HEADER + 2L * value.length());
+  }
+
+  private static long shallowSizeOf(Class<?> type) {
+    Long size = shallowSizes.get(type);
+    if (size == null) {
+      long bytes = HEADER;
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            bytes += field.getType().isPrimitive() ? 8 : REFERENCE;
+          }
+        }
+      }
+      size = align(bytes);
+      shallowSizes.put(type, size);
+    }
+    return size;
+  }
+
+  /**
+   * Returns the table length of a hash map holding the given number of
+   * entries.
+   */
+  private static int capacity(int size) {
+    int capacity = 16;
+    while (capacity * 3 / 4 < size) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Estimated heap retained by several loaded APIs, which can be sorted by any
+ * {@link MemoryUsage.Measure} to pick candidates for eviction.
+ *
+ * <p>
+ * Objects shared between APIs, such as the schemas a
+ * {@link DiscoveryRegistry} stores once, are counted towards the first API
+ * which refers to them only, so the usages add up to the heap retained by
+ * all of the APIs together.
+ * </p>
+ */
+public final class MemoryReport {
+  private final List<MemoryUsage> usages;
+
+  private MemoryReport(List<MemoryUsage> usages) {
+    this.usages = ImmutableList.copyOf(usages);
+  }
+
+  /**
+   * Measure the given APIs.
+   */
+  public static MemoryReport measure(Iterable<RestDiscovery> discoveries) {
+    MemoryEstimator estimator = new MemoryEstimator();
+    List<MemoryUsage> usages = Lists.newArrayList();
+    for (RestDiscovery discovery : discoveries) {
+      usages.add(MemoryUsage.measure(discovery, estimator));
+    }
+    return new MemoryReport(usages);
+  }
+
+  /**
+   * Measure the current snapshot of a registry.
+   */
+  public static MemoryReport measure(DiscoveryRegistry registry) {
+    return measure(registry.getSnapshot().values());
+  }
+
+  /**
+   * Returns the usage of each API, in the order they were measured.
+   */
+  public List<MemoryUsage> getUsages() {
+    return usages;
+  }
+
+  /**
+   * Returns the usage of each API ordered by the given figure, largest
+   * first.
+   */
+  public List<MemoryUsage> sortedBy(MemoryUsage.Measure measure) {
+    List<MemoryUsage> sorted = Lists.newArrayList(usages);
+    Collections.sort(sorted, measure.largestFirst());
+    return Collections.unmodifiableList(sorted);
+  }
+
+  /**
+   * Returns the estimated bytes retained by all of the APIs.
+   */
+  public long getTotalBytes() {
+    long total = 0;
+    for (MemoryUsage usage : usages) {
+      total += usage.getTotalBytes();
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder();
+    for (MemoryUsage usage : sortedBy(MemoryUsage.Measure.TOTAL)) {
+      out.append(usage).append('\n');
+    }
+    return out.append("Total: ").append(getTotalBytes()).append(" bytes").toString();
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimated heap retained by one loaded API, measured without a heap dump by
+ * walking the document and the state built from it.
+ *
+ * <p>
+ * The total is split into the bytes of schemas, of methods and resources, of
+ * descriptions anywhere in the document, of everything else in the document,
+ * and of the caches which {@link RestDiscovery} builds on first use: the
+ * schema and scope indexes, the memoized flattened schemas, the fingerprint
+ * and the parameter tables. These add up to the total, and the caches are
+ * counted as they exist when measured, so they grow as the API is used. The
+ * sizes of single schemas and resources include their descriptions. Sizes
+ * are estimates from a model of object layout on a 64-bit JVM with compressed
+ * references, so they are good for comparing APIs with each other rather than
+ * as exact figures.
+ * </p>
+ */
+public final class MemoryUsage {
+
+  /**
+   * A figure by which usages can be compared.
+   */
+  public enum Measure {
+    TOTAL,
+    SCHEMAS,
+    METHODS,
+    DESCRIPTIONS,
+    CACHES;
+
+    /**
+     * Returns a comparator which orders usages by this figure, largest first.
+     */
+    public Comparator<MemoryUsage> largestFirst() {
+      return new Comparator<MemoryUsage>() {
+        public int compare(MemoryUsage a, MemoryUsage b) {
+          long difference = b.get(Measure.this) - a.get(Measure.this);
+          return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+        }
+      };
+    }
+  }
+
+  private static final int OTHER = 0;
+  private static final int SCHEMAS = 1;
+  private static final int METHODS = 2;
+  private static final int DESCRIPTIONS = 3;
+  private static final int CACHES = 4;
+
+  private final String apiId;
+  private final long[] bytes;
+  private final Map<String, Long> schemaSizes;
+  private final Map<String, Long> resourceSizes;
+
+  private MemoryUsage(String apiId, long[] bytes, Map<String, Long> schemaSizes,
+      Map<String, Long> resourceSizes) {
+    this.apiId = apiId;
+    this.bytes = bytes;
+    this.schemaSizes = schemaSizes;
+    this.resourceSizes = resourceSizes;
+  }
+
+  /**
+   * Measure a single API, counting every object it refers to.
+   */
+  public static MemoryUsage measure(RestDiscovery discovery) {
+    return measure(discovery, new MemoryEstimator());
+  }
+
+  /**
+   * Measure an API, skipping objects the estimator measured before.
+   */
+  static MemoryUsage measure(RestDiscovery discovery, MemoryEstimator estimator) {
+    RestDescription document = discovery.getDocument();
+    final long[] bytes = new long[5];
+    Map<String, Long> schemaSizes = Maps.newHashMap();
+    Map<String, Long> resourceSizes = Maps.newHashMap();
+
+    if (document.getSchemas() != null) {
+      measureChildren(estimator, document.getSchemas(), SCHEMAS, bytes, schemaSizes);
+    }
+    if (document.getResources() != null) {
+      measureChildren(estimator, document.getResources(), METHODS, bytes, resourceSizes);
+    }
+    if (document.getMethods() != null) {
+      estimator.measure(document.getMethods(), false, new Bucket(METHODS, bytes));
+    }
+    // Everything not measured yet: the fields at the root and the document itself
+    for (Map.Entry<String, Object> field : document.entrySet()) {
+      estimator.measure(field.getValue(),
+          MemoryEstimator.DESCRIPTION_FIELDS.contains(field.getKey()), new Bucket(OTHER, bytes));
+    }
+    estimator.measure(document, false, new Bucket(OTHER, bytes));
+    // Measured last, so the document nodes they refer to are not counted again
+    for (Object cached : discovery.getCachedState()) {
+      estimator.measure(cached, false, new Bucket(CACHES, bytes));
+    }
+
+    return new MemoryUsage(discovery.getName() + ":" + discovery.getVersion(), bytes,
+        largestFirst(schemaSizes), largestFirst(resourceSizes));
+  }
+
+  /**
+   * Measure each entry of a map of named children into its own size, then
+   * the map itself.
+   */
+  private static void measureChildren(MemoryEstimator estimator, Map<String, ?> children,
+      int category, long[] bytes, Map<String, Long> sizes) {
+    for (Map.Entry<String, ?> child : children.entrySet()) {
+      Bucket bucket = new Bucket(category, bytes);
+      estimator.measure(child.getKey(), false, bucket);
+      estimator.measure(child.getValue(), false, bucket);
+      sizes.put(child.getKey(), bucket.total);
+    }
+    estimator.measure(children, false, new Bucket(category, bytes));
+  }
+
+  /**
+   * Sink which adds up the bytes of one subtree and its categories.
+   */
+  private static class Bucket implements MemoryEstimator.Sink {
+    final int category;
+    final long[] bytes;
+    long total;
+
+    Bucket(int category, long[] bytes) {
+      this.category = category;
+      this.bytes = bytes;
+    }
+
+    public void add(long size, boolean description) {
+      total += size;
+      bytes[description ? DESCRIPTIONS : category] += size;
+    }
+  }
+
+  private static Map<String, Long> largestFirst(Map<String, Long> sizes) {
+    List<Map.Entry<String, Long>> entries = Lists.newArrayList(sizes.entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+      public int compare(Map.Entry<String, Long> a, Map.Entry<String, Long> b) {
+        return b.getValue().compareTo(a.getValue());
+      }
+    });
+    ImmutableMap.Builder<String, Long> sorted = ImmutableMap.builder();
+    for (Map.Entry<String, Long> entry : entries) {
+      sorted.put(entry.getKey(), entry.getValue());
+    }
+    return sorted.build();
+  }
+
+  /**
+   * Returns the id of the API, as {@code <name>:<version>}.
+   */
+  public String getApiId() {
+    return apiId;
+  }
+
+  /**
+   * Returns the given figure in bytes.
+   */
+  public long get(Measure measure) {
+    switch (measure) {
+      case SCHEMAS:
+        return bytes[SCHEMAS];
+      case METHODS:
+        return bytes[METHODS];
+      case DESCRIPTIONS:
+        return bytes[DESCRIPTIONS];
+      case CACHES:
+        return bytes[CACHES];
+      default:
+        return getTotalBytes();
+    }
+  }
+
+  /**
+   * Returns the estimated bytes retained by the whole document and its
+   * caches.
+   */
+  public long getTotalBytes() {
+    return bytes[OTHER] + bytes[SCHEMAS] + bytes[METHODS] + bytes[DESCRIPTIONS] + bytes[CACHES];
+  }
+
+  /**
+   * Returns the bytes of the named schemas, without their descriptions.
+   */
+  public long getSchemaBytes() {
+    return bytes[SCHEMAS];
+  }
+
+  /**
+   * Returns the bytes of the methods and resources, without their
+   * descriptions.
+   */
+  public long getMethodBytes() {
+    return bytes[METHODS];
+  }
+
+  /**
+   * Returns the bytes of all descriptions.
+   */
+  public long getDescriptionBytes() {
+    return bytes[DESCRIPTIONS];
+  }
+
+  /**
+   * Returns the bytes of the state built from the document on first use,
+   * such as indexes and flattened schemas.
+   */
+  public long getCacheBytes() {
+    return bytes[CACHES];
+  }
+
+  /**
+   * Returns the bytes of everything else in the document, such as API wide
+   * parameters and authentication scopes.
+   */
+  public long getOtherBytes() {
+    return bytes[OTHER];
+  }
+
+  /**
+   * Returns the bytes of each named schema, descriptions included, largest
+   * first.
+   */
+  public Map<String, Long> getSchemaSizes() {
+    return schemaSizes;
+  }
+
+  /**
+   * Returns the bytes of each top level resource with its methods and
+   * sub-resources, descriptions included, largest first.
+   */
+  public Map<String, Long> getResourceSizes() {
+    return resourceSizes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: %d bytes (schemas %d, methods %d, descriptions %d, other %d, caches %d)",
+        apiId, getTotalBytes(), bytes[SCHEMAS], bytes[METHODS], bytes[DESCRIPTIONS],
+        bytes[OTHER], bytes[CACHES]);
+  }
+}
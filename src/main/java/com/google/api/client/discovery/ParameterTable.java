@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.RestMethod.ParameterLocation;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed table of the parameters of a single {@link RestMethod}. The
+ * required parameters are those named by the method's parameter order, in
+ * that order; all other parameters are optional and kept in document order.
+ * Both lists are also split by {@link ParameterLocation}, and every parameter
+ * can be looked up by name.
+ *
+ * <p>
+ * Obtain the table through {@link RestMethod#getParameterTable()}, which
+ * memoizes it per method of a {@link RestDiscovery}. Instances are immutable,
+ * and each {@link Parameter} resolves its type only once.
+ * </p>
+ */
+public final class ParameterTable {
+  private final ImmutableList<Parameter> parameters;
+  private final ImmutableMap<String, Parameter> byName;
+  private final ImmutableList<Parameter> required;
+  private final ImmutableList<Parameter> optional;
+  private final Map<ParameterLocation, ImmutableList<Parameter>> requiredByLocation;
+  private final Map<ParameterLocation, ImmutableList<Parameter>> optionalByLocation;
+
+  /**
+   * Build the table for a method.
+   *
+   * @param method Method whose parameters to tabulate.
+   * @param parameterNodes Schema nodes of the parameters by name, or
+   *        {@code null} if the method has none.
+   * @param parameterOrder Names of the required parameters in order, or
+   *        {@code null} if there are none.
+   */
+  ParameterTable(RestMethod method, Map<String, Jsonschema> parameterNodes,
+      List<String> parameterOrder) {
+    Map<String, Jsonschema> nodes =
+        parameterNodes == null ? Collections.<String, Jsonschema>emptyMap() : parameterNodes;
+    List<String> order =
+        parameterOrder == null ? Collections.<String>emptyList() : parameterOrder;
+
+    ImmutableList.Builder<Parameter> all = ImmutableList.builder();
+    Map<String, Parameter> named = Maps.newLinkedHashMap();
+    for (Map.Entry<String, Jsonschema> node : nodes.entrySet()) {
+      Parameter parameter = method.new Parameter(node.getKey(), node.getValue());
+      all.add(parameter);
+      named.put(node.getKey(), parameter);
+    }
+    parameters = all.build();
+    byName = ImmutableMap.copyOf(named);
+
+    Set<String> requiredNames = Sets.newHashSet();
+    ImmutableList.Builder<Parameter> requiredBuilder = ImmutableList.builder();
+    for (String name : order) {
+      Parameter parameter = byName.get(name);
+      if (parameter != null && requiredNames.add(name)) {
+        requiredBuilder.add(parameter);
+      }
+    }
+    required = requiredBuilder.build();
+
+    ImmutableList.Builder<Parameter> optionalBuilder = ImmutableList.builder();
+    for (Parameter parameter : parameters) {
+      if (!requiredNames.contains(parameter.getName())) {
+        optionalBuilder.add(parameter);
+      }
+    }
+    optional = optionalBuilder.build();
+
+    requiredByLocation = splitByLocation(required);
+    optionalByLocation = splitByLocation(optional);
+  }
+
+  private static Map<ParameterLocation, ImmutableList<Parameter>> splitByLocation(
+      List<Parameter> parameters) {
+    Map<ParameterLocation, ImmutableList<Parameter>> split =
+        new EnumMap<ParameterLocation, ImmutableList<Parameter>>(ParameterLocation.class);
+    for (ParameterLocation location : ParameterLocation.values()) {
+      ImmutableList.Builder<Parameter> atLocation = ImmutableList.builder();
+      for (Parameter parameter : parameters) {
+        if (parameter.getLocation() == location) {
+          atLocation.add(parameter);
+        }
+      }
+      split.put(location, atLocation.build());
+    }
+    return Collections.unmodifiableMap(split);
+  }
+
+  /**
+   * Returns all parameters in document order.
+   */
+  public List<Parameter> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Returns the parameter with the given name or {@code null} if the method
+   * has no such parameter.
+   */
+  public Parameter get(String name) {
+    return byName.get(name);
+  }
+
+  /**
+   * Returns the required parameters in the suggested order.
+   */
+  public List<Parameter> getRequired() {
+    return required;
+  }
+
+  /**
+   * Returns the required parameters at a location in the suggested order.
+   */
+  public List<Parameter> getRequired(ParameterLocation location) {
+    return requiredByLocation.get(location);
+  }
+
+  /**
+   * Returns the optional parameters in document order.
+   */
+  public List<Parameter> getOptional() {
+    return optional;
+  }
+
+  /**
+   * Returns the optional parameters at a location in document order.
+   */
+  public List<Parameter> getOptional(ParameterLocation location) {
+    return optionalByLocation.get(location);
+  }
+}
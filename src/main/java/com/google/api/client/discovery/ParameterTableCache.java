@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.services.discovery.model.Restmethod;
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parameter tables of the methods of one document, keyed by the identity of
+ * the wire format method node. {@link RestMethod} wrappers are created anew
+ * on every lookup, so the tables live here, owned by the {@link RestDiscovery}
+ * of the document, and every wrapper of a method shares the same table.
+ * Instances are safe to use from any number of threads.
+ */
+final class ParameterTableCache {
+  /** Weak keys are compared by identity, and the document keeps them alive. */
+  private final ConcurrentMap<Restmethod, ParameterTable> tables =
+      new MapMaker().weakKeys().makeMap();
+
+  /**
+   * Returns the table of a method, building it on first use.
+   *
+   * @param method Wrapper of the method, which owns the parameters of a newly
+   *        built table.
+   * @param methodNode Wire format of the method.
+   */
+  ParameterTable get(RestMethod method, Restmethod methodNode) {
+    ParameterTable table = tables.get(methodNode);
+    if (table == null) {
+      // Racing threads may each build a table, but all callers get the first
+      ParameterTable built = new ParameterTable(
+          method, methodNode.getParameters(), methodNode.getParameterOrder());
+      table = tables.putIfAbsent(methodNode, built);
+      if (table == null) {
+        table = built;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Returns the number of tables built so far.
+   */
+  int size() {
+    return tables.size();
+  }
+}
@@ -26,6 +26,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Maps.EntryTransformer;
 
@@ -36,11 +37,35 @@ import java.util.Map;
 /**
  * Main class that describes an API entirely.
  *
+ * <p>
+ * The model is immutable: {@link RestDiscovery}, {@link RestResource},
+ * {@link RestMethod} and the {@link DiscoveryType} wrappers hold only final
+ * fields, and every collection they return is an unmodifiable view. A single
+ * instance can be shared by any number of threads without copying or
+ * locking, provided that the {@link RestDescription} it wraps is not modified
+ * after it has been passed to the constructor.
+ * </p>
+ *
  * @author moshenko@google.com (Jake Moshenko)
  */
 public class RestDiscovery implements BaseDiscovery {
   private final RestDescription document;
 
+  /** Parameter tables shared by all wrappers of each method. */
+  private final ParameterTableCache parameterTables = new ParameterTableCache();
+
+  /** Lazily built reachability index, see {@link #getSchemaIndex()}. */
+  private volatile SchemaIndex schemaIndex;
+
+  /** Lazily built flattener, see {@link #getSchemaFlattener()}. */
+  private volatile SchemaFlattener schemaFlattener;
+
+  /** Lazily built scope dictionary, see {@link #getScopeIndex()}. */
+  private volatile ScopeIndex scopeIndex;
+
+  /** Lazily computed content fingerprint, see {@link #getFingerprint()}. */
+  private volatile String fingerprint;
+
   /**
    * Create an instance.
    *
@@ -69,7 +94,7 @@ public class RestDiscovery implements BaseDiscovery {
 
   @Override
   public List<String> getFeatures() {
-    return document.getFeatures();
+    return unmodifiableListOrNull(document.getFeatures());
   }
 
   @Override
@@ -85,7 +110,7 @@ public class RestDiscovery implements BaseDiscovery {
 
   @Override
   public List<String> getLabels() {
-    return document.getLabels();
+    return unmodifiableListOrNull(document.getLabels());
   }
 
   /**
@@ -96,12 +121,12 @@ public class RestDiscovery implements BaseDiscovery {
       return Collections.emptyMap();
     }
 
-    return Maps.transformValues(
+    return Collections.unmodifiableMap(Maps.transformValues(
         document.getMethods(), new Function<Restmethod, RestMethod>() {
           public RestMethod apply(Restmethod input) {
-            return new RestMethod(document.getSchemas(), input);
+            return new RestMethod(topLevelSchemas(), input, parameterTables);
           }
-        });
+        }));
   }
 
   @Override
@@ -125,12 +150,12 @@ public class RestDiscovery implements BaseDiscovery {
       return Collections.emptyMap();
     }
 
-    return Maps.transformValues(
+    return Collections.unmodifiableMap(Maps.transformValues(
         document.getResources(), new Function<Restresource, RestResource>() {
           public RestResource apply(Restresource input) {
-            return new RestResource(input, document.getSchemas());
+            return new RestResource(input, topLevelSchemas(), parameterTables);
           }
-        });
+        }));
   }
 
   @Override
@@ -156,12 +181,126 @@ public class RestDiscovery implements BaseDiscovery {
       return Collections.emptyMap();
     }
 
-    return Maps.transformEntries(document.getAuth().getOauth2().getScopes(),
+    return Collections.unmodifiableMap(Maps.transformEntries(
+        document.getAuth().getOauth2().getScopes(),
         new EntryTransformer<String, RestDescriptionAuthOauth2Scopes, OAuth2Scope>() {
           public OAuth2Scope transformEntry(String key, RestDescriptionAuthOauth2Scopes value) {
             return new OAuth2Scope(key, value.getDescription());
           }
-        });
+        }));
+  }
+
+  /**
+   * Returns the reachability index over the schemas of this API. The index is
+   * built on first use and then shared by all callers.
+   */
+  public SchemaIndex getSchemaIndex() {
+    SchemaIndex index = schemaIndex;
+    if (index == null) {
+      // Racing threads may each build an index, but they are equivalent
+      index = new SchemaIndex(document, parameterTables);
+      schemaIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the OAuth 2.0 scope dictionary of this API. The index is built on
+   * first use and then shared by all callers.
+   */
+  public ScopeIndex getScopeIndex() {
+    ScopeIndex index = scopeIndex;
+    if (index == null) {
+      // Racing threads may each build an index, but they are equivalent
+      index = new ScopeIndex(document, parameterTables);
+      scopeIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the flattener of the schemas of this API, which memoizes the
+   * trees it builds. It is created on first use and then shared by all
+   * callers.
+   */
+  public SchemaFlattener getSchemaFlattener() {
+    SchemaFlattener flattener = schemaFlattener;
+    if (flattener == null) {
+      // Unlike the indexes, a second instance would not share the memoized trees
+      synchronized (this) {
+        flattener = schemaFlattener;
+        if (flattener == null) {
+          flattener = new SchemaFlattener(topLevelSchemas());
+          schemaFlattener = flattener;
+        }
+      }
+    }
+    return flattener;
+  }
+
+  /**
+   * Returns a fingerprint of the content of this API, which is equal for
+   * documents that differ only in key order, whitespace or the spelling of
+   * numbers. It is computed on first use; see
+   * {@link CanonicalJsonWriter#fingerprint} to leave out descriptions.
+   */
+  public String getFingerprint() {
+    String result = fingerprint;
+    if (result == null) {
+      // Racing threads may each compute it, but they get the same result
+      result = CanonicalJsonWriter.fingerprint(this, true);
+      fingerprint = result;
+    }
+    return result;
+  }
+
+  /**
+   * Walk every resource, method, parameter and schema of this API with the
+   * given visitor.
+   *
+   * @param visitor Visitor to call for every element of the document.
+   */
+  public void accept(DiscoveryVisitor visitor) {
+    DiscoveryWalker.walk(document, parameterTables, Preconditions.checkNotNull(visitor));
+  }
+
+  /**
+   * Returns the wire format of the document, for the analyses in this
+   * package which work on it directly.
+   */
+  RestDescription getDocument() {
+    return document;
+  }
+
+  /**
+   * Returns the state built from the document on first use which exists so
+   * far: indexes, the flattener, the fingerprint and the parameter tables.
+   */
+  List<Object> getCachedState() {
+    List<Object> state = Lists.newArrayList();
+    for (Object cached : new Object[] {
+        schemaIndex, scopeIndex, schemaFlattener, fingerprint, parameterTables}) {
+      if (cached != null) {
+        state.add(cached);
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Returns the parameter tables built so far for the methods of this API.
+   */
+  ParameterTableCache getParameterTables() {
+    return parameterTables;
+  }
+
+  /**
+   * Returns the named top level schemas, which are empty for a document
+   * without a schemas block.
+   */
+  private Map<String, Jsonschema> topLevelSchemas() {
+    return document.getSchemas() == null
+        ? Collections.<String, Jsonschema>emptyMap() : document.getSchemas();
   }
 
   private Map<String, DiscoveryType> transformSchemaMap(Map<String, Jsonschema> input) {
@@ -169,11 +308,16 @@ public class RestDiscovery implements BaseDiscovery {
       return Collections.emptyMap();
     }
 
-    return Maps.transformValues(input, new Function<Jsonschema, DiscoveryType>() {
-      public DiscoveryType apply(Jsonschema value) {
-        return DiscoveryType.createTypeFromSchemaNode(value, document.getSchemas());
-      }
-    });
+    return Collections.unmodifiableMap(
+        Maps.transformValues(input, new Function<Jsonschema, DiscoveryType>() {
+          public DiscoveryType apply(Jsonschema value) {
+            return DiscoveryType.createTypeFromSchemaNode(value, topLevelSchemas());
+          }
+        }));
+  }
+
+  private static List<String> unmodifiableListOrNull(List<String> list) {
+    return list == null ? null : Collections.unmodifiableList(list);
   }
 
   @Override
@@ -16,33 +16,152 @@
 
 package com.google.api.client.discovery;
 
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.CustomizeJsonParser;
-import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.services.discovery.Discovery;
 import com.google.api.services.discovery.model.DirectoryList;
 import com.google.api.services.discovery.model.DirectoryListItems;
 import com.google.api.services.discovery.model.RestDescription;
-import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Helper for interacting with the Discovery service.
  *
+ * <p>
+ * The static methods share a single default instance backed by a
+ * {@link NetHttpTransport} and a {@link StreamingDiscoveryParser} over a
+ * {@link GsonFactory}. Create an instance
+ * directly to supply a different transport, for example one with a pooled
+ * connection manager. Instances are thread-safe and should be reused so that
+ * the underlying transport can keep connections alive between fetches. All
+ * requests ask for gzip encoded responses, which are transparently inflated.
+ * </p>
+ *
+ * <p>
+ * Failed fetches are retried according to the instance's {@link RetryPolicy}.
+ * A policy which hedges requests gives the instance a thread pool, which
+ * {@link #close()} releases.
+ * </p>
+ *
+ * <p>
+ * Documents can also be loaded from local sources, such as files, memory,
+ * the classpath or a {@link DiscoveryArchive} mirror of the whole directory.
+ * </p>
+ *
  * @author moshenko@google.com (Jake Moshenko)
  */
-public class RestHelper {
+public class RestHelper implements Closeable {
+  private static final Logger logger = Logger.getLogger(RestHelper.class.getName());
+
   private static final String BASE_DISCOVERY_URL = "https://www.googleapis.com/discovery/v1/";
 
+  /** Connect and read timeout of a single attempt when no deadline applies. */
+  private static final int DEFAULT_TIMEOUT_MILLIS = 20000;
+
+  private static final RestHelper DEFAULT_INSTANCE =
+      new RestHelper(new NetHttpTransport(), new GsonFactory());
+
+  private final HttpRequestFactory requestFactory;
+  private final DiscoveryParser parser;
+  private final RetryPolicy retryPolicy;
+  private final ExecutorService hedgeExecutor;
+  private final Random random = new Random();
+
+  /**
+   * Create an instance which retries with {@link RetryPolicy#DEFAULT}.
+   *
+   * @param transport Transport over which all documents will be fetched.
+   * @param jsonFactory Factory of the parsers which stream the fetched
+   *        documents into a {@link StreamingDiscoveryParser}.
+   */
+  public RestHelper(HttpTransport transport, JsonFactory jsonFactory) {
+    this(transport, jsonFactory, RetryPolicy.DEFAULT);
+  }
+
+  /**
+   * Create an instance.
+   *
+   * @param transport Transport over which all documents will be fetched.
+   * @param jsonFactory Factory of the parsers which stream the fetched
+   *        documents into a {@link StreamingDiscoveryParser}.
+   * @param retryPolicy Policy which decides how failed fetches are retried.
+   */
+  public RestHelper(HttpTransport transport, JsonFactory jsonFactory, RetryPolicy retryPolicy) {
+    this(transport, new StreamingDiscoveryParser(jsonFactory), retryPolicy);
+  }
+
+  /**
+   * Create an instance.
+   *
+   * @param transport Transport over which all documents will be fetched.
+   * @param parser Backend used to parse the fetched and loaded documents.
+   * @param retryPolicy Policy which decides how failed fetches are retried.
+   */
+  public RestHelper(HttpTransport transport, DiscoveryParser parser, RetryPolicy retryPolicy) {
+    this.requestFactory =
+        Preconditions.checkNotNull(transport).createRequestFactory(new GzipRequestInitializer());
+    this.parser = Preconditions.checkNotNull(parser);
+    this.retryPolicy = Preconditions.checkNotNull(retryPolicy);
+    this.hedgeExecutor = retryPolicy.getHedgeDelayMillis() > 0 ? Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("discovery-hedge-%d").build())
+        : null;
+  }
+
+  /**
+   * Release the threads which send hedged requests, interrupting those still
+   * in flight. Hedged fetches fail once the instance is closed; other
+   * fetches and local loads keep working. The transport is left open.
+   * Closing the default instance is a no-op, since its policy never hedges.
+   */
+  public void close() {
+    if (hedgeExecutor != null) {
+      hedgeExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the shared instance used by the static helper methods.
+   */
+  public static RestHelper getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
   /**
    * Fetch and deserialize the Discovery document for the given API.
    *
@@ -69,15 +188,7 @@ public class RestHelper {
    */
   public static RestDiscovery getDiscovery(String apiName, String apiVersion, String discoveryUrl)
       throws IOException, URISyntaxException {
-    Preconditions.checkNotNull(apiName);
-    Preconditions.checkNotNull(apiVersion);
-    Preconditions.checkNotNull(discoveryUrl);
-
-    Discovery discoveryClient = new Discovery(new NetHttpTransport(), new GsonFactory());
-    changeClientToUrl(discoveryClient, discoveryUrl);
-    RestDescription restDescription = discoveryClient.apis.getRest(apiName, apiVersion).execute();
-
-    return new RestDiscovery(restDescription);
+    return DEFAULT_INSTANCE.fetchDiscovery(apiName, apiVersion, discoveryUrl);
   }
 
   /**
@@ -87,12 +198,51 @@ public class RestHelper {
    * @return Discovery document.
    */
   public static RestDiscovery getDiscoveryFromFile(File discoveryFile) throws IOException {
-    Preconditions.checkNotNull(discoveryFile);
+    return DEFAULT_INSTANCE.parseDiscoveryFile(discoveryFile);
+  }
+
+  /**
+   * Parse a REST discovery document from a stream.
+   *
+   * @param content UTF-8 encoded document, which is closed when parsing
+   *        finishes.
+   * @return Discovery document.
+   */
+  public static RestDiscovery getDiscoveryFromStream(InputStream content) throws IOException {
+    return DEFAULT_INSTANCE.parseDiscovery(content);
+  }
 
-    JsonParser parser = new GsonFactory().createJsonParser(new FileReader(discoveryFile));
-    RestDescription wire = parser.parseAndClose(RestDescription.class, new CustomizeJsonParser());
+  /**
+   * Parse a REST discovery document held in memory.
+   *
+   * @param content UTF-8 encoded document.
+   * @return Discovery document.
+   */
+  public static RestDiscovery getDiscoveryFromBytes(byte[] content) throws IOException {
+    return DEFAULT_INSTANCE.parseDiscovery(content);
+  }
 
-    return new RestDiscovery(wire);
+  /**
+   * Parse a REST discovery document held in the remaining bytes of a buffer.
+   *
+   * @param content UTF-8 encoded document; its position is not changed.
+   * @return Discovery document.
+   */
+  public static RestDiscovery getDiscoveryFromBuffer(ByteBuffer content) throws IOException {
+    return DEFAULT_INSTANCE.parseDiscovery(content);
+  }
+
+  /**
+   * Load and parse a REST discovery document from the classpath, using the
+   * context class loader of the calling thread.
+   *
+   * @param resourceName Name of the resource, such as
+   *        {@code "discovery/urlshortener-v1-rest.json"}.
+   * @return Discovery document.
+   * @throws FileNotFoundException if there is no such resource.
+   */
+  public static RestDiscovery getDiscoveryFromResource(String resourceName) throws IOException {
+    return DEFAULT_INSTANCE.parseDiscoveryResource(resourceName, null);
   }
 
   /**
@@ -117,13 +267,7 @@ public class RestHelper {
    */
   public static DirectoryList getDirectoryDocument(String discoveryUrl)
       throws IOException, URISyntaxException {
-    Preconditions.checkNotNull(discoveryUrl);
-
-    Discovery discoveryClient = new Discovery(new NetHttpTransport(), new GsonFactory());
-    changeClientToUrl(discoveryClient, discoveryUrl);
-    DirectoryList directory = discoveryClient.apis.list().execute();
-
-    return directory;
+    return DEFAULT_INSTANCE.fetchDirectoryDocument(discoveryUrl);
   }
 
   /**
@@ -152,23 +296,410 @@ public class RestHelper {
    */
   public static List<RestDiscovery> getApisFromDirectory(String discoveryUrl)
       throws IOException, URISyntaxException {
-    DirectoryList wire = getDirectoryDocument(discoveryUrl);
-    return Lists.transform(wire.getItems(), new Function<DirectoryListItems, RestDiscovery>() {
-      public RestDiscovery apply(DirectoryListItems api) {
+    return DEFAULT_INSTANCE.fetchApisFromDirectory(discoveryUrl);
+  }
+
+  /**
+   * Fetch and deserialize the Discovery document for the given API using this
+   * instance's transport.
+   *
+   * @param apiName Name of the API to fetch.
+   * @param apiVersion Version of the API to fetch.
+   * @param discoveryUrl Base url from which to fetch the discovery document.
+   * @return Discovery document.
+   */
+  public RestDiscovery fetchDiscovery(String apiName, String apiVersion, String discoveryUrl)
+      throws IOException, URISyntaxException {
+    Preconditions.checkNotNull(apiName);
+    Preconditions.checkNotNull(apiVersion);
+    Preconditions.checkNotNull(discoveryUrl);
+
+    String url = resolveUrl(discoveryUrl, "apis/" + apiName + "/" + apiVersion + "/rest");
+    return new RestDiscovery(fetch(url, REST_DESCRIPTION));
+  }
+
+  /**
+   * Load and parse the REST discovery file from disk using this instance's
+   * parser.
+   *
+   * @param discoveryFile File instance to parse.
+   * @return Discovery document.
+   */
+  public RestDiscovery parseDiscoveryFile(File discoveryFile) throws IOException {
+    Preconditions.checkNotNull(discoveryFile);
+
+    return parseDiscovery(new FileInputStream(discoveryFile));
+  }
+
+  /**
+   * Parse a REST discovery document from a stream using this instance's
+   * parser. The bytes are decoded as they are read, without buffering the
+   * whole document.
+   *
+   * @param content UTF-8 encoded document, which is closed when parsing
+   *        finishes.
+   * @return Discovery document.
+   */
+  public RestDiscovery parseDiscovery(InputStream content) throws IOException {
+    Preconditions.checkNotNull(content);
+
+    return new RestDiscovery(parser.parseRestDescription(content));
+  }
+
+  /**
+   * Parse a REST discovery document held in memory using this instance's
+   * parser. The array is read in place.
+   *
+   * @param content UTF-8 encoded document.
+   * @return Discovery document.
+   */
+  public RestDiscovery parseDiscovery(byte[] content) throws IOException {
+    return parseDiscovery(new ByteArrayInputStream(content));
+  }
+
+  /**
+   * Parse a REST discovery document held in the remaining bytes of a buffer
+   * using this instance's parser. The buffer is read in place, whether it is
+   * backed by an array or not.
+   *
+   * @param content UTF-8 encoded document; its position is not changed.
+   * @return Discovery document.
+   */
+  public RestDiscovery parseDiscovery(ByteBuffer content) throws IOException {
+    if (content.hasArray()) {
+      return parseDiscovery(new ByteArrayInputStream(
+          content.array(), content.arrayOffset() + content.position(), content.remaining()));
+    }
+    return parseDiscovery(new ByteBufferInputStream(content));
+  }
+
+  /**
+   * Load and parse a REST discovery document from the classpath using this
+   * instance's parser. The resource is streamed straight from its jar.
+   *
+   * @param resourceName Name of the resource, such as
+   *        {@code "discovery/urlshortener-v1-rest.json"}.
+   * @param classLoader Class loader to search, or {@code null} for the
+   *        context class loader of the calling thread.
+   * @return Discovery document.
+   * @throws FileNotFoundException if there is no such resource.
+   */
+  public RestDiscovery parseDiscoveryResource(String resourceName, ClassLoader classLoader)
+      throws IOException {
+    Preconditions.checkNotNull(resourceName);
+    if (classLoader == null) {
+      classLoader = Thread.currentThread().getContextClassLoader();
+    }
+    if (classLoader == null) {
+      classLoader = RestHelper.class.getClassLoader();
+    }
+
+    InputStream content = classLoader.getResourceAsStream(resourceName);
+    if (content == null) {
+      throw new FileNotFoundException("No classpath resource named " + resourceName);
+    }
+    return parseDiscovery(content);
+  }
+
+  /**
+   * Fetch the Directory document using this instance's transport.
+   *
+   * @param discoveryUrl Url from which to fetch the directory document.
+   * @return The Directory document.
+   */
+  public DirectoryList fetchDirectoryDocument(String discoveryUrl)
+      throws IOException, URISyntaxException {
+    Preconditions.checkNotNull(discoveryUrl);
+
+    return fetch(resolveUrl(discoveryUrl, "apis"), DIRECTORY_LIST);
+  }
+
+  /**
+   * Fetch a list of Discovery objects based on the items available in
+   * directory using this instance's transport. Every document is fetched
+   * eagerly from the same discovery url; failures which remain after retrying
+   * are logged.
+   *
+   * @param discoveryUrl Url from which to fetch the directory document.
+   * @return List of the Directory document or null place-holders when an
+   *         exception occurred.
+   */
+  public List<RestDiscovery> fetchApisFromDirectory(String discoveryUrl)
+      throws IOException, URISyntaxException {
+    DirectoryList wire = fetchDirectoryDocument(discoveryUrl);
+    List<RestDiscovery> apis = Lists.newArrayListWithCapacity(wire.getItems().size());
+    for (DirectoryListItems api : wire.getItems()) {
+      try {
+        apis.add(fetchDiscovery(api.getName(), api.getVersion(), discoveryUrl));
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to fetch " + api.getId(), e);
+        apis.add(null);
+      }
+    }
+    return Collections.unmodifiableList(apis);
+  }
+
+  /**
+   * Mirror the directory and every discovery document it lists into an
+   * archive which {@link DiscoveryArchive} can read. The documents are stored
+   * exactly as served. APIs which still fail to fetch after retrying are
+   * logged and left out.
+   *
+   * @param discoveryUrl Url from which to fetch the documents.
+   * @param archiveFile File to write the archive to.
+   */
+  public void archiveDirectory(String discoveryUrl, File archiveFile)
+      throws IOException, URISyntaxException {
+    Preconditions.checkNotNull(discoveryUrl);
+
+    byte[] directory = fetch(resolveUrl(discoveryUrl, "apis"), RAW);
+    DirectoryList wire = parser.parseDirectoryList(new ByteArrayInputStream(directory));
+
+    DiscoveryArchive.Writer writer = new DiscoveryArchive.Writer(new FileOutputStream(archiveFile));
+    try {
+      writer.putDirectory(directory);
+      for (DirectoryListItems api : wire.getItems()) {
+        String url =
+            resolveUrl(discoveryUrl, "apis/" + api.getName() + "/" + api.getVersion() + "/rest");
         try {
-          return getDiscovery(api.getName(), api.getVersion());
+          writer.putRestDescription(api.getName(), api.getVersion(), fetch(url, RAW));
         } catch (IOException e) {
-          // Intentionally blank
+          logger.log(Level.WARNING, "Unable to fetch " + api.getId(), e);
         }
-        return null;
       }
-    });
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Load and parse the discovery document of an API from a local source.
+   *
+   * @param source Source holding the document, such as a
+   *        {@link DiscoveryArchive}.
+   * @param apiName Name of the API to load.
+   * @param apiVersion Version of the API to load.
+   * @return Discovery document.
+   * @throws FileNotFoundException if the source does not hold the API.
+   */
+  public RestDiscovery loadDiscovery(DiscoverySource source, String apiName, String apiVersion)
+      throws IOException {
+    return parseDiscovery(source.openRestDescription(apiName, apiVersion));
+  }
+
+  /**
+   * Load and parse the directory document from a local source.
+   *
+   * @param source Source holding the document, such as a
+   *        {@link DiscoveryArchive}.
+   * @return The Directory document.
+   */
+  public DirectoryList loadDirectoryDocument(DiscoverySource source) throws IOException {
+    return parser.parseDirectoryList(source.openDirectory());
   }
 
-  private static void changeClientToUrl(Discovery client, String discoveryUrl)
+  /**
+   * Returns a list of Discovery objects based on the items available in the
+   * directory of a local source. Unlike
+   * {@link #fetchApisFromDirectory(String)}, each document is only loaded when
+   * its element is first read, and then kept; failures are logged.
+   *
+   * @param source Source holding the documents, such as a
+   *        {@link DiscoveryArchive}.
+   * @return List of the Directory document or null place-holders when an
+   *         exception occurred.
+   */
+  public List<RestDiscovery> loadApisFromDirectory(final DiscoverySource source)
+      throws IOException {
+    final List<DirectoryListItems> items = loadDirectoryDocument(source).getItems();
+    final RestDiscovery[] loaded = new RestDiscovery[items.size()];
+    final boolean[] attempted = new boolean[items.size()];
+
+    return new AbstractList<RestDiscovery>() {
+      @Override
+      public synchronized RestDiscovery get(int index) {
+        if (!attempted[index]) {
+          DirectoryListItems api = items.get(index);
+          try {
+            loaded[index] = loadDiscovery(source, api.getName(), api.getVersion());
+          } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to load " + api.getId(), e);
+          }
+          attempted[index] = true;
+        }
+        return loaded[index];
+      }
+
+      @Override
+      public int size() {
+        return items.size();
+      }
+    };
+  }
+
+  /**
+   * Fetch and parse a document, retrying failed attempts according to the
+   * retry policy.
+   */
+  private <T> T fetch(String url, WireFormat<T> wireFormat) throws IOException {
+    long deadlineNanos = retryPolicy.getDeadlineMillis() > 0
+        ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryPolicy.getDeadlineMillis())
+        : Long.MAX_VALUE;
+
+    for (int attempt = 1;; attempt++) {
+      try {
+        return fetchOnce(url, wireFormat, deadlineNanos);
+      } catch (IOException e) {
+        if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e)) {
+          throw e;
+        }
+
+        long backoffMillis = retryPolicy.getBackoffMillis(attempt, random);
+        if (backoffMillis >= remainingMillis(deadlineNanos)) {
+          throw e;
+        }
+        logger.log(Level.FINE, "Retrying " + url + " in " + backoffMillis + "ms", e);
+        try {
+          Thread.sleep(backoffMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while fetching " + url);
+        }
+      }
+    }
+  }
+
+  /**
+   * Make a single logical attempt, which is hedged with a second request if
+   * the policy asks for it.
+   */
+  private <T> T fetchOnce(
+      final String url, final WireFormat<T> wireFormat, final long deadlineNanos)
+      throws IOException {
+    if (hedgeExecutor == null) {
+      return fetchDirect(url, wireFormat, deadlineNanos);
+    }
+    Preconditions.checkState(!hedgeExecutor.isShutdown(), "Closed");
+
+    Callable<T> request = new Callable<T>() {
+      public T call() throws IOException {
+        return fetchDirect(url, wireFormat, deadlineNanos);
+      }
+    };
+    CompletionService<T> completion = new ExecutorCompletionService<T>(hedgeExecutor);
+    List<Future<T>> inFlight = Lists.newArrayListWithCapacity(2);
+    try {
+      inFlight.add(completion.submit(request));
+      long hedgeDelayMillis =
+          Math.min(retryPolicy.getHedgeDelayMillis(), remainingMillis(deadlineNanos));
+      Future<T> done = completion.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+      if (done == null && remainingMillis(deadlineNanos) > 0) {
+        inFlight.add(completion.submit(request));
+      }
+
+      IOException failure = null;
+      for (int pending = inFlight.size(); pending > 0; pending--) {
+        if (done == null) {
+          done = completion.poll(remainingMillis(deadlineNanos), TimeUnit.MILLISECONDS);
+          if (done == null) {
+            throw new InterruptedIOException("Deadline exceeded while fetching " + url);
+          }
+        }
+        try {
+          return done.get();
+        } catch (ExecutionException e) {
+          failure = asIOException(e.getCause());
+        }
+        done = null;
+      }
+      throw failure;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while fetching " + url);
+    } finally {
+      for (Future<T> future : inFlight) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private <T> T fetchDirect(String url, WireFormat<T> wireFormat, long deadlineNanos)
+      throws IOException {
+    int timeoutMillis = (int) Math.min(DEFAULT_TIMEOUT_MILLIS, remainingMillis(deadlineNanos));
+    if (timeoutMillis <= 0) {
+      throw new InterruptedIOException("Deadline exceeded while fetching " + url);
+    }
+
+    HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(url));
+    request.setConnectTimeout(timeoutMillis);
+    request.setReadTimeout(timeoutMillis);
+    HttpResponse response = request.execute();
+    return wireFormat.parse(parser, response.getContent());
+  }
+
+  private static long remainingMillis(long deadlineNanos) {
+    if (deadlineNanos == Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+  }
+
+  private static IOException asIOException(Throwable cause) {
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IOException(cause);
+  }
+
+  private static String resolveUrl(String discoveryUrl, String relativePath)
       throws URISyntaxException {
     URI uri = new URI(discoveryUrl);
-    client.setBaseServer(uri.getScheme() + "://" + uri.getAuthority());
-    client.setBasePath(uri.getPath());
+    return uri.resolve(relativePath).toString();
+  }
+
+  /**
+   * Kind of document to fetch, which selects the parser method to use.
+   */
+  private abstract static class WireFormat<T> {
+    abstract T parse(DiscoveryParser parser, InputStream content) throws IOException;
+  }
+
+  private static final WireFormat<RestDescription> REST_DESCRIPTION =
+      new WireFormat<RestDescription>() {
+        @Override
+        RestDescription parse(DiscoveryParser parser, InputStream content) throws IOException {
+          return parser.parseRestDescription(content);
+        }
+      };
+
+  private static final WireFormat<DirectoryList> DIRECTORY_LIST = new WireFormat<DirectoryList>() {
+    @Override
+    DirectoryList parse(DiscoveryParser parser, InputStream content) throws IOException {
+      return parser.parseDirectoryList(content);
+    }
+  };
+
+  private static final WireFormat<byte[]> RAW = new WireFormat<byte[]>() {
+    @Override
+    byte[] parse(DiscoveryParser parser, InputStream content) throws IOException {
+      try {
+        return ByteStreams.toByteArray(content);
+      } finally {
+        content.close();
+      }
+    }
+  };
+
+  /**
+   * Request initializer which asks the server for a gzip encoded response.
+   */
+  private static class GzipRequestInitializer implements HttpRequestInitializer {
+    public void initialize(HttpRequest request) {
+      request.getHeaders().setAcceptEncoding("gzip");
+    }
   }
 }
@@ -19,20 +19,18 @@ package com.google.api.client.discovery;
 import com.google.api.client.discovery.types.DiscoveryType;
 import com.google.api.services.discovery.model.Jsonschema;
 import com.google.api.services.discovery.model.Restmethod;
-import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
- * Class which describes a method available for this particular API.
+ * Class which describes a method available for this particular API. Methods
+ * and their parameters are immutable views over the discovery document.
  *
  * @author moshenko@google.com (Jacob Moshenko)
  */
@@ -66,7 +64,7 @@ public class RestMethod {
       return jsonValueToEnum.get(jsonValue);
     }
 
-    private String jsonValue;
+    private final String jsonValue;
 
     private ParameterLocation(String jsonValue) {
       this.jsonValue = jsonValue;
@@ -82,6 +80,7 @@ public class RestMethod {
   public class Parameter {
     private final String name;
     private final Jsonschema schemaNode;
+    private final DiscoveryType type;
 
     /**
      * Create an instance in the context of the calling method.
@@ -92,6 +91,7 @@ public class RestMethod {
     Parameter(String name, Jsonschema schemaNode) {
       this.name = Preconditions.checkNotNull(name);
       this.schemaNode = Preconditions.checkNotNull(schemaNode);
+      this.type = DiscoveryType.createTypeFromSchemaNode(schemaNode, topLevelSchemas);
     }
 
     /**
@@ -105,7 +105,7 @@ public class RestMethod {
      * Returns the type description of this parameter.
      */
     public DiscoveryType getType() {
-      return DiscoveryType.createTypeFromSchemaNode(schemaNode, topLevelSchemas);
+      return type;
     }
 
     /**
@@ -125,6 +125,7 @@ public class RestMethod {
 
   private final Map<String, Jsonschema> topLevelSchemas;
   private final Restmethod methodNode;
+  private final ParameterTableCache parameterTables;
 
   /**
    * Create an instance.
@@ -132,10 +133,13 @@ public class RestMethod {
    * @param topLevelSchemas Map of the named top level schemas.
    * @param methodNode {@link Restmethod} node which this method
    *        wraps.
+   * @param parameterTables Parameter tables of the document.
    */
-  RestMethod(Map<String, Jsonschema> topLevelSchemas, Restmethod methodNode) {
+  RestMethod(Map<String, Jsonschema> topLevelSchemas, Restmethod methodNode,
+      ParameterTableCache parameterTables) {
     this.topLevelSchemas = Preconditions.checkNotNull(topLevelSchemas);
     this.methodNode = Preconditions.checkNotNull(methodNode);
+    this.parameterTables = Preconditions.checkNotNull(parameterTables);
   }
 
   /**
@@ -162,19 +166,32 @@ public class RestMethod {
    * suggested order.
    */
   public List<Parameter> getRequiredParameters() {
-    return createParameterList(methodNode.getParameterOrder());
+    return getParameterTable().getRequired();
   }
 
   /**
    * Returns type descriptions for each of the parameters that are named but not
-   * listed as required. There is no guaranteed ordering of these parameters.
+   * listed as required, in document order.
    */
   public Collection<Parameter> getOptionalParameters() {
-    Set<String> required = Sets.newHashSet(methodNode.getParameterOrder());
-    Set<String> allParameters = methodNode.getParameters().keySet();
-    Set<String> optional = Sets.difference(allParameters, required);
+    return getParameterTable().getOptional();
+  }
+
+  /**
+   * Returns the parameter with the given name or {@code null} if there is no
+   * such parameter.
+   */
+  public Parameter getParameter(String name) {
+    return getParameterTable().get(name);
+  }
 
-    return createParameterList(Lists.newArrayList(optional));
+  /**
+   * Returns the table of all parameters of this method, which is built on
+   * first use and then shared by every instance describing the same method of
+   * the same {@link RestDiscovery}.
+   */
+  public ParameterTable getParameterTable() {
+    return parameterTables.get(this, methodNode);
   }
 
   /**
@@ -186,36 +203,55 @@ public class RestMethod {
   }
 
   /**
-   * Returns the description of what type this method accepts.
+   * Returns the description of what type this method accepts or {@code null}
+   * if the method has no request body.
    */
   public DiscoveryType getRequest() {
     // TODO(moshenko) remove this when response types are Jsonschema
-    Jsonschema requestType = topLevelSchemas.get(methodNode.getRequest().get$ref());
+    String requestName = getRequestSchemaName();
+    if (requestName == null) {
+      return null;
+    }
+    Jsonschema requestType = topLevelSchemas.get(requestName);
     return DiscoveryType.createTypeFromSchemaNode(requestType, topLevelSchemas);
   }
 
   /**
-   * Returns the description of what type this method returns.
+   * Returns the description of what type this method returns or {@code null}
+   * if the method has no response body.
    */
   public DiscoveryType getResponse() {
     // TODO(moshenko) remove this when response types are Jsonschema
-    Jsonschema responseType = topLevelSchemas.get(methodNode.getResponse().get$ref());
+    String responseName = getResponseSchemaName();
+    if (responseName == null) {
+      return null;
+    }
+    Jsonschema responseType = topLevelSchemas.get(responseName);
     return DiscoveryType.createTypeFromSchemaNode(responseType, topLevelSchemas);
   }
 
   /**
-   * Returns a list of the OAuth 2.0 scope names applicable to this method.
+   * Returns the name of the top level schema of the request body or
+   * {@code null} if there is none.
    */
-  public List<String> getScopes() {
-    return methodNode.getScopes();
+  String getRequestSchemaName() {
+    return methodNode.getRequest() == null ? null : methodNode.getRequest().get$ref();
   }
 
-  private List<Parameter> createParameterList(List<String> paramNamesInOrder) {
-    return Lists.transform(paramNamesInOrder, new Function<String, Parameter>() {
-      public Parameter apply(String name) {
-        return new Parameter(name, methodNode.getParameters().get(name));
-      }
-    });
+  /**
+   * Returns the name of the top level schema of the response body or
+   * {@code null} if there is none.
+   */
+  String getResponseSchemaName() {
+    return methodNode.getResponse() == null ? null : methodNode.getResponse().get$ref();
+  }
+
+  /**
+   * Returns a list of the OAuth 2.0 scope names applicable to this method.
+   */
+  public List<String> getScopes() {
+    List<String> scopes = methodNode.getScopes();
+    return scopes == null ? null : Collections.unmodifiableList(scopes);
   }
 
   @Override
@@ -28,22 +28,27 @@ import java.util.Map;
 
 /**
  * A resource type in a RESTful API. Contains methods and sub-resources.
+ * Instances are immutable and safe to share between threads.
  *
  * @author moshenko@google.com (Jake Moshenko)
  */
 public class RestResource {
   private final Restresource resource;
   private final Map<String, Jsonschema> topLevelSchemas;
+  private final ParameterTableCache parameterTables;
 
   /**
    * Create an instance.
    *
    * @param resource Wire format bound version of the resource block.
    * @param topLevelSchemas Map of the named top level schemas.
+   * @param parameterTables Parameter tables of the document.
    */
-  RestResource(Restresource resource, Map<String, Jsonschema> topLevelSchemas) {
+  RestResource(Restresource resource, Map<String, Jsonschema> topLevelSchemas,
+      ParameterTableCache parameterTables) {
     this.resource = Preconditions.checkNotNull(resource);
     this.topLevelSchemas = Preconditions.checkNotNull(topLevelSchemas);
+    this.parameterTables = Preconditions.checkNotNull(parameterTables);
   }
 
   /**
@@ -54,11 +59,12 @@ public class RestResource {
       return Collections.emptyMap();
     }
 
-    return Maps.transformValues(resource.getMethods(), new Function<Restmethod, RestMethod>() {
-      public RestMethod apply(Restmethod input) {
-        return new RestMethod(topLevelSchemas, input);
-      }
-    });
+    return Collections.unmodifiableMap(
+        Maps.transformValues(resource.getMethods(), new Function<Restmethod, RestMethod>() {
+          public RestMethod apply(Restmethod input) {
+            return new RestMethod(topLevelSchemas, input, parameterTables);
+          }
+        }));
   }
 
   /**
@@ -69,11 +75,11 @@ public class RestResource {
       return Collections.emptyMap();
     }
 
-    return Maps.transformValues(
+    return Collections.unmodifiableMap(Maps.transformValues(
         resource.getResources(), new Function<Restresource, RestResource>() {
           public RestResource apply(Restresource input) {
-            return new RestResource(input, topLevelSchemas);
+            return new RestResource(input, topLevelSchemas, parameterTables);
           }
-        });
+        }));
   }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Describes how {@link RestHelper} retries failed fetches of discovery
+ * documents. Instances are immutable and are created through a
+ * {@link Builder}.
+ *
+ * <p>
+ * Failed attempts are retried with an exponentially growing backoff that is
+ * randomized by a jitter factor. Only network failures and responses with a
+ * retryable status code are retried. An optional overall deadline bounds the
+ * total time spent on a single fetch, including backoff. When a hedge delay
+ * is set, a second identical request is issued if the first one has not
+ * completed within that delay and whichever finishes first wins.
+ * </p>
+ */
+public final class RetryPolicy {
+  /** Status codes which indicate a transient server side condition. */
+  public static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES =
+      ImmutableSet.of(408, 429, 500, 502, 503, 504);
+
+  /** Policy which makes a single attempt and never retries. */
+  public static final RetryPolicy NO_RETRY = builder().setMaxAttempts(1).build();
+
+  /** Policy used when none is specified. */
+  public static final RetryPolicy DEFAULT = builder().build();
+
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final double backoffMultiplier;
+  private final double jitterFactor;
+  private final long deadlineMillis;
+  private final long hedgeDelayMillis;
+  private final Set<Integer> retryableStatusCodes;
+
+  private RetryPolicy(Builder builder) {
+    this.maxAttempts = builder.maxAttempts;
+    this.initialBackoffMillis = builder.initialBackoffMillis;
+    this.maxBackoffMillis = builder.maxBackoffMillis;
+    this.backoffMultiplier = builder.backoffMultiplier;
+    this.jitterFactor = builder.jitterFactor;
+    this.deadlineMillis = builder.deadlineMillis;
+    this.hedgeDelayMillis = builder.hedgeDelayMillis;
+    this.retryableStatusCodes = ImmutableSet.copyOf(builder.retryableStatusCodes);
+  }
+
+  /**
+   * Returns a new builder initialized with the default settings.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the maximum number of attempts, including the first one.
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * Returns the overall time budget for a fetch in milliseconds or {@code 0}
+   * if there is no deadline.
+   */
+  public long getDeadlineMillis() {
+    return deadlineMillis;
+  }
+
+  /**
+   * Returns the delay after which a hedged request is issued in milliseconds
+   * or {@code 0} if hedging is disabled.
+   */
+  public long getHedgeDelayMillis() {
+    return hedgeDelayMillis;
+  }
+
+  /**
+   * Returns the HTTP status codes which are considered retryable.
+   */
+  public Set<Integer> getRetryableStatusCodes() {
+    return retryableStatusCodes;
+  }
+
+  /**
+   * Returns whether a failed attempt should be retried. Error responses are
+   * retried only if their status code is retryable, any other I/O failure is
+   * treated as a transient network error.
+   *
+   * @param failure Exception thrown by the failed attempt.
+   */
+  public boolean isRetryable(IOException failure) {
+    if (failure instanceof HttpResponseException) {
+      int statusCode = ((HttpResponseException) failure).getResponse().getStatusCode();
+      return retryableStatusCodes.contains(statusCode);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the randomized time to wait before the given retry.
+   *
+   * @param retryNumber Number of the retry, starting at {@code 1}.
+   * @param random Source of the jitter.
+   */
+  public long getBackoffMillis(int retryNumber, Random random) {
+    Preconditions.checkArgument(retryNumber > 0);
+
+    double backoff = initialBackoffMillis * Math.pow(backoffMultiplier, retryNumber - 1);
+    backoff = Math.min(backoff, maxBackoffMillis);
+    double jitter = backoff * jitterFactor;
+    return Math.round(backoff - jitter + random.nextDouble() * 2 * jitter);
+  }
+
+  /**
+   * Builder for {@link RetryPolicy} instances.
+   */
+  public static final class Builder {
+    private int maxAttempts = 3;
+    private long initialBackoffMillis = 250;
+    private long maxBackoffMillis = 10000;
+    private double backoffMultiplier = 2.0;
+    private double jitterFactor = 0.5;
+    private long deadlineMillis = 0;
+    private long hedgeDelayMillis = 0;
+    private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the maximum number of attempts, including the first one.
+     */
+    public Builder setMaxAttempts(int maxAttempts) {
+      Preconditions.checkArgument(maxAttempts > 0);
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Sets the backoff before the first retry in milliseconds.
+     */
+    public Builder setInitialBackoffMillis(long initialBackoffMillis) {
+      Preconditions.checkArgument(initialBackoffMillis >= 0);
+      this.initialBackoffMillis = initialBackoffMillis;
+      return this;
+    }
+
+    /**
+     * Sets the upper bound of the backoff before jitter in milliseconds.
+     */
+    public Builder setMaxBackoffMillis(long maxBackoffMillis) {
+      Preconditions.checkArgument(maxBackoffMillis >= 0);
+      this.maxBackoffMillis = maxBackoffMillis;
+      return this;
+    }
+
+    /**
+     * Sets the factor by which the backoff grows after each retry.
+     */
+    public Builder setBackoffMultiplier(double backoffMultiplier) {
+      Preconditions.checkArgument(backoffMultiplier >= 1.0);
+      this.backoffMultiplier = backoffMultiplier;
+      return this;
+    }
+
+    /**
+     * Sets the jitter factor. A backoff of {@code b} is randomized uniformly
+     * within {@code b * (1 - jitterFactor)} and {@code b * (1 + jitterFactor)}.
+     */
+    public Builder setJitterFactor(double jitterFactor) {
+      Preconditions.checkArgument(jitterFactor >= 0.0 && jitterFactor <= 1.0);
+      this.jitterFactor = jitterFactor;
+      return this;
+    }
+
+    /**
+     * Sets the overall time budget for a fetch in milliseconds, or {@code 0}
+     * for no deadline.
+     */
+    public Builder setDeadlineMillis(long deadlineMillis) {
+      Preconditions.checkArgument(deadlineMillis >= 0);
+      this.deadlineMillis = deadlineMillis;
+      return this;
+    }
+
+    /**
+     * Sets the delay after which a hedged request is issued in milliseconds,
+     * or {@code 0} to disable hedging.
+     */
+    public Builder setHedgeDelayMillis(long hedgeDelayMillis) {
+      Preconditions.checkArgument(hedgeDelayMillis >= 0);
+      this.hedgeDelayMillis = hedgeDelayMillis;
+      return this;
+    }
+
+    /**
+     * Sets the HTTP status codes which are considered retryable.
+     */
+    public Builder setRetryableStatusCodes(Set<Integer> retryableStatusCodes) {
+      this.retryableStatusCodes = Preconditions.checkNotNull(retryableStatusCodes);
+      return this;
+    }
+
+    /**
+     * Returns a new policy with the current settings.
+     */
+    public RetryPolicy build() {
+      return new RetryPolicy(this);
+    }
+  }
+}
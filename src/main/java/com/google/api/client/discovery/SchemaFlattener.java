@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.FlatSchema.Kind;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds {@link FlatSchema} trees for the named schemas of a single discovery
+ * document and memoizes them per schema and depth, so that repeated requests
+ * for the same view return the same tree.
+ *
+ * <p>
+ * The depth of a node is the number of properties, additional properties and
+ * array elements between it and the root, which has depth 0. Nodes deeper
+ * than the maximum depth are {@link Kind#TRUNCATED} markers. A reference to a
+ * schema which already encloses the node becomes a {@link Kind#CYCLE} marker,
+ * so even an unbounded expansion of a recursive schema terminates.
+ * </p>
+ *
+ * <p>
+ * Obtain the flattener through {@link RestDiscovery#getSchemaFlattener()}.
+ * Instances are safe to use from any number of threads.
+ * </p>
+ */
+public final class SchemaFlattener {
+  /** Maximum depth which expands every schema until a cycle. */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final Map<String, Jsonschema> topLevelSchemas;
+  private final ConcurrentMap<Key, FlatSchema> cache = new ConcurrentHashMap<Key, FlatSchema>();
+
+  private static final class Key {
+    final String schemaName;
+    final int maxDepth;
+
+    Key(String schemaName, int maxDepth) {
+      this.schemaName = schemaName;
+      this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(schemaName, maxDepth);
+    }
+
+    @Override
+    public boolean equals(Object rhs) {
+      if (rhs instanceof Key) {
+        Key rhsTyped = (Key) rhs;
+        return schemaName.equals(rhsTyped.schemaName) && maxDepth == rhsTyped.maxDepth;
+      } else {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Create an instance.
+   *
+   * @param topLevelSchemas All named top level schemas of the document.
+   */
+  SchemaFlattener(Map<String, Jsonschema> topLevelSchemas) {
+    this.topLevelSchemas = Preconditions.checkNotNull(topLevelSchemas);
+  }
+
+  /**
+   * Returns the named schema with every reference expanded until a cycle.
+   *
+   * @param schemaName Name of a top level schema, such as {@code "Url"}.
+   * @throws IllegalArgumentException if there is no such schema.
+   */
+  public FlatSchema flatten(String schemaName) {
+    return flatten(schemaName, UNBOUNDED);
+  }
+
+  /**
+   * Returns the named schema with every reference expanded until a cycle or
+   * the maximum depth.
+   *
+   * @param schemaName Name of a top level schema, such as {@code "Url"}.
+   * @param maxDepth Depth of the deepest expanded nodes, or
+   *        {@link #UNBOUNDED}.
+   * @throws IllegalArgumentException if there is no such schema.
+   */
+  public FlatSchema flatten(String schemaName, int maxDepth) {
+    Preconditions.checkArgument(maxDepth >= 0);
+    Jsonschema schema = topLevelSchemas.get(schemaName);
+    Preconditions.checkArgument(schema != null, "Unknown schema: %s", schemaName);
+
+    Key key = new Key(schemaName, maxDepth);
+    FlatSchema flat = cache.get(key);
+    if (flat == null) {
+      // Racing threads may each build a tree, but all callers get the first
+      Set<String> enclosing = Sets.newHashSet();
+      enclosing.add(schemaName);
+      FlatSchema built = expand(schemaName, schema, 0, maxDepth, enclosing);
+      flat = cache.putIfAbsent(key, built);
+      if (flat == null) {
+        flat = built;
+      }
+    }
+    return flat;
+  }
+
+  /**
+   * Expand a node whose references have been resolved.
+   *
+   * @param reference Name of the schema the node was resolved from, or
+   *        {@code null}.
+   * @param enclosing Names of the schemas being expanded around the node.
+   */
+  private FlatSchema expand(
+      String reference, Jsonschema node, int depth, int maxDepth, Set<String> enclosing) {
+    DiscoveryType type = DiscoveryType.createTypeFromSchemaNode(node, topLevelSchemas);
+
+    ImmutableMap.Builder<String, FlatSchema> properties = ImmutableMap.builder();
+    if (node.getProperties() != null) {
+      for (Map.Entry<String, Jsonschema> property : node.getProperties().entrySet()) {
+        properties.put(property.getKey(),
+            child(property.getValue(), depth + 1, maxDepth, enclosing));
+      }
+    }
+    FlatSchema additionalProperties = node.getAdditionalProperties() == null
+        ? null : child(node.getAdditionalProperties(), depth + 1, maxDepth, enclosing);
+    FlatSchema items =
+        node.getItems() == null ? null : child(node.getItems(), depth + 1, maxDepth, enclosing);
+
+    return new FlatSchema(
+        Kind.EXPANDED, type, reference, properties.build(), additionalProperties, items);
+  }
+
+  private FlatSchema child(Jsonschema node, int depth, int maxDepth, Set<String> enclosing) {
+    // Follow chains of references to the schema which defines the node
+    String reference = null;
+    Jsonschema resolved = node;
+    while (resolved.get$ref() != null) {
+      reference = resolved.get$ref();
+      resolved = topLevelSchemas.get(reference);
+      Preconditions.checkArgument(resolved != null, "Reference to unknown schema: %s", reference);
+    }
+
+    if (reference != null && enclosing.contains(reference)) {
+      return marker(Kind.CYCLE, reference, resolved);
+    }
+    if (depth > maxDepth) {
+      return marker(Kind.TRUNCATED, reference, resolved);
+    }
+    if (reference == null) {
+      return expand(null, resolved, depth, maxDepth, enclosing);
+    }
+    enclosing.add(reference);
+    try {
+      return expand(reference, resolved, depth, maxDepth, enclosing);
+    } finally {
+      enclosing.remove(reference);
+    }
+  }
+
+  private FlatSchema marker(Kind kind, String reference, Jsonschema node) {
+    return new FlatSchema(kind, DiscoveryType.createTypeFromSchemaNode(node, topLevelSchemas),
+        reference, ImmutableMap.<String, FlatSchema>of(), null, null);
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reachability index over the named schemas of a single discovery document.
+ * Each named schema is assigned an id, its position in
+ * {@link #getSchemaNames()}, and closures are expressed as bitsets over those
+ * ids. The closure of a schema contains the schema itself and every named
+ * schema reachable through its properties, additional properties and array
+ * elements. The closure of a method is the union of the closures of its
+ * request and response.
+ *
+ * <p>
+ * All closures are computed once when the index is built. Obtain the index
+ * through {@link RestDiscovery#getSchemaIndex()}, which memoizes it per
+ * document. Instances are immutable; every returned bitset is a copy.
+ * </p>
+ */
+public final class SchemaIndex {
+  private final ImmutableList<String> schemaNames;
+  private final ImmutableMap<String, Integer> schemaIds;
+  private final BitSet[] schemaClosures;
+  private final ImmutableMap<String, BitSet> methodClosures;
+  private final ImmutableList<ImmutableList<String>> methodsBySchema;
+
+  /**
+   * Build the index for a document.
+   *
+   * @param document Wire format of the document to index.
+   * @param parameterTables Parameter tables of the document.
+   */
+  SchemaIndex(RestDescription document, ParameterTableCache parameterTables) {
+    Map<String, Jsonschema> topLevelSchemas = document.getSchemas() == null
+        ? ImmutableMap.<String, Jsonschema>of() : document.getSchemas();
+
+    schemaNames = ImmutableList.copyOf(topLevelSchemas.keySet());
+    ImmutableMap.Builder<String, Integer> ids = ImmutableMap.builder();
+    for (int i = 0; i < schemaNames.size(); i++) {
+      ids.put(schemaNames.get(i), i);
+    }
+    schemaIds = ids.build();
+
+    BitSet[] references = new BitSet[schemaNames.size()];
+    for (int i = 0; i < schemaNames.size(); i++) {
+      references[i] = findReferences(topLevelSchemas.get(schemaNames.get(i)));
+    }
+
+    schemaClosures = new BitSet[schemaNames.size()];
+    for (int i = 0; i < schemaNames.size(); i++) {
+      schemaClosures[i] = computeClosure(i, references);
+    }
+
+    final Map<String, BitSet> methods = Maps.newLinkedHashMap();
+    DiscoveryWalker.walk(document, parameterTables, new DiscoveryVisitor() {
+      @Override
+      public boolean visitMethod(RestMethod method) {
+        BitSet closure = new BitSet(schemaNames.size());
+        addClosure(closure, method.getRequestSchemaName());
+        addClosure(closure, method.getResponseSchemaName());
+        methods.put(method.getId(), closure);
+        return false;
+      }
+
+      @Override
+      public boolean visitSchema(String path, DiscoveryType type) {
+        return false;
+      }
+    });
+    methodClosures = ImmutableMap.copyOf(methods);
+
+    List<List<String>> users = Lists.newArrayListWithCapacity(schemaNames.size());
+    for (int i = 0; i < schemaNames.size(); i++) {
+      users.add(Lists.<String>newArrayList());
+    }
+    for (Map.Entry<String, BitSet> method : methodClosures.entrySet()) {
+      BitSet closure = method.getValue();
+      for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+        users.get(i).add(method.getKey());
+      }
+    }
+    ImmutableList.Builder<ImmutableList<String>> bySchema = ImmutableList.builder();
+    for (List<String> methodIds : users) {
+      bySchema.add(ImmutableList.copyOf(methodIds));
+    }
+    methodsBySchema = bySchema.build();
+  }
+
+  /**
+   * Returns the names of all named schemas, indexed by schema id.
+   */
+  public List<String> getSchemaNames() {
+    return schemaNames;
+  }
+
+  /**
+   * Returns the id of the named schema or {@code -1} if there is no such
+   * schema.
+   *
+   * @param schemaName Name of a top level schema.
+   */
+  public int getSchemaId(String schemaName) {
+    Integer id = schemaIds.get(schemaName);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the ids of all schemas reachable from the named schema, including
+   * itself.
+   *
+   * @param schemaName Name of a top level schema.
+   * @throws IllegalArgumentException if there is no such schema.
+   */
+  public BitSet getClosure(String schemaName) {
+    return (BitSet) schemaClosures[checkedSchemaId(schemaName)].clone();
+  }
+
+  /**
+   * Returns the ids of all schemas reachable from the request or the
+   * response of the method.
+   *
+   * @param methodId Id of a method, such as {@code "urlshortener.url.get"}.
+   * @throws IllegalArgumentException if there is no such method.
+   */
+  public BitSet getMethodClosure(String methodId) {
+    BitSet closure = methodClosures.get(methodId);
+    Preconditions.checkArgument(closure != null, "Unknown method: %s", methodId);
+    return (BitSet) closure.clone();
+  }
+
+  /**
+   * Returns the names of all schemas reachable from the request or the
+   * response of the method, in schema id order.
+   *
+   * @param methodId Id of a method, such as {@code "urlshortener.url.get"}.
+   * @throws IllegalArgumentException if there is no such method.
+   */
+  public List<String> getMethodSchemaNames(String methodId) {
+    BitSet closure = methodClosures.get(methodId);
+    Preconditions.checkArgument(closure != null, "Unknown method: %s", methodId);
+
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+      names.add(schemaNames.get(i));
+    }
+    return names.build();
+  }
+
+  /**
+   * Returns whether the schema is reachable from the request or the response
+   * of the method.
+   *
+   * @param methodId Id of a method, such as {@code "urlshortener.url.get"}.
+   * @param schemaName Name of a top level schema.
+   */
+  public boolean methodUsesSchema(String methodId, String schemaName) {
+    BitSet closure = methodClosures.get(methodId);
+    int schemaId = getSchemaId(schemaName);
+    return closure != null && schemaId >= 0 && closure.get(schemaId);
+  }
+
+  /**
+   * Returns the ids of all methods whose request or response reaches the
+   * named schema.
+   *
+   * @param schemaName Name of a top level schema.
+   * @throws IllegalArgumentException if there is no such schema.
+   */
+  public List<String> getMethodsUsing(String schemaName) {
+    return methodsBySchema.get(checkedSchemaId(schemaName));
+  }
+
+  private int checkedSchemaId(String schemaName) {
+    int schemaId = getSchemaId(schemaName);
+    Preconditions.checkArgument(schemaId >= 0, "Unknown schema: %s", schemaName);
+    return schemaId;
+  }
+
+  private void addClosure(BitSet closure, String schemaName) {
+    int schemaId = getSchemaId(schemaName);
+    if (schemaId >= 0) {
+      closure.or(schemaClosures[schemaId]);
+    }
+  }
+
+  /**
+   * Returns the ids of the named schemas directly referenced anywhere inside
+   * the definition of a schema.
+   */
+  private BitSet findReferences(Jsonschema definition) {
+    BitSet references = new BitSet(schemaNames.size());
+    LinkedList<Jsonschema> pending = Lists.newLinkedList();
+    pending.add(definition);
+    while (!pending.isEmpty()) {
+      Jsonschema node = pending.removeFirst();
+      if (node.get$ref() != null) {
+        int schemaId = getSchemaId(node.get$ref());
+        if (schemaId >= 0) {
+          references.set(schemaId);
+        }
+        continue;
+      }
+
+      if (node.getProperties() != null) {
+        pending.addAll(node.getProperties().values());
+      }
+      if (node.getAdditionalProperties() != null) {
+        pending.add(node.getAdditionalProperties());
+      }
+      if (node.getItems() != null) {
+        pending.add(node.getItems());
+      }
+    }
+    return references;
+  }
+
+  private static BitSet computeClosure(int schemaId, BitSet[] references) {
+    BitSet closure = new BitSet(references.length);
+    closure.set(schemaId);
+    LinkedList<Integer> pending = Lists.newLinkedList();
+    pending.add(schemaId);
+    while (!pending.isEmpty()) {
+      BitSet direct = references[pending.removeFirst()];
+      for (int i = direct.nextSetBit(0); i >= 0; i = direct.nextSetBit(i + 1)) {
+        if (!closure.get(i)) {
+          closure.set(i);
+          pending.add(i);
+        }
+      }
+    }
+    return closure;
+  }
+}
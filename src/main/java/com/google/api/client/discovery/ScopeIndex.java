@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of the OAuth 2.0 scopes of a single discovery document, with a
+ * precomputed scope bitset for every method. Each scope is assigned an id, its
+ * position in {@link #getScopeNames()}: first the scopes declared by the API,
+ * in document order, then any further scopes only named by methods.
+ *
+ * <p>
+ * A method lists the scopes of which any one authorizes a call. Encode the
+ * scopes granted to a token once with {@link #toBitSet(Collection)}; checking
+ * it against a method is then a single bitset intersection.
+ * </p>
+ *
+ * <p>
+ * Obtain the index through {@link RestDiscovery#getScopeIndex()}, which
+ * memoizes it per document. Instances are immutable; every returned bitset is
+ * a copy.
+ * </p>
+ */
+public final class ScopeIndex {
+  private final ImmutableList<String> scopeNames;
+  private final ImmutableMap<String, Integer> scopeIds;
+  private final ImmutableMap<String, BitSet> methodScopes;
+  private final ImmutableList<ImmutableList<String>> methodsByScope;
+
+  /**
+   * Build the index for a document.
+   *
+   * @param document Wire format of the document to index.
+   * @param parameterTables Parameter tables of the document.
+   */
+  ScopeIndex(RestDescription document, ParameterTableCache parameterTables) {
+    final Map<String, Integer> ids = Maps.newLinkedHashMap();
+    if (document.getAuth() != null && document.getAuth().getOauth2() != null
+        && document.getAuth().getOauth2().getScopes() != null) {
+      for (String scopeName : document.getAuth().getOauth2().getScopes().keySet()) {
+        ids.put(scopeName, ids.size());
+      }
+    }
+
+    final Map<String, BitSet> methods = Maps.newLinkedHashMap();
+    DiscoveryWalker.walk(document, parameterTables, new DiscoveryVisitor() {
+      @Override
+      public boolean visitMethod(RestMethod method) {
+        BitSet scopes = new BitSet();
+        List<String> names = method.getScopes();
+        for (String scopeName : names == null ? ImmutableList.<String>of() : names) {
+          Integer id = ids.get(scopeName);
+          if (id == null) {
+            id = ids.size();
+            ids.put(scopeName, id);
+          }
+          scopes.set(id);
+        }
+        methods.put(method.getId(), scopes);
+        return false;
+      }
+
+      @Override
+      public boolean visitSchema(String path, DiscoveryType type) {
+        return false;
+      }
+    });
+
+    scopeIds = ImmutableMap.copyOf(ids);
+    scopeNames = ImmutableList.copyOf(ids.keySet());
+    methodScopes = ImmutableMap.copyOf(methods);
+
+    List<List<String>> users = Lists.newArrayListWithCapacity(scopeNames.size());
+    for (int i = 0; i < scopeNames.size(); i++) {
+      users.add(Lists.<String>newArrayList());
+    }
+    for (Map.Entry<String, BitSet> method : methodScopes.entrySet()) {
+      BitSet scopes = method.getValue();
+      for (int i = scopes.nextSetBit(0); i >= 0; i = scopes.nextSetBit(i + 1)) {
+        users.get(i).add(method.getKey());
+      }
+    }
+    ImmutableList.Builder<ImmutableList<String>> byScope = ImmutableList.builder();
+    for (List<String> methodIds : users) {
+      byScope.add(ImmutableList.copyOf(methodIds));
+    }
+    methodsByScope = byScope.build();
+  }
+
+  /**
+   * Returns the names of all scopes, indexed by scope id.
+   */
+  public List<String> getScopeNames() {
+    return scopeNames;
+  }
+
+  /**
+   * Returns the id of the scope or {@code -1} if no part of the API names it.
+   *
+   * @param scopeName Name of a scope, such as
+   *        {@code "https://www.googleapis.com/auth/urlshortener"}.
+   */
+  public int getScopeId(String scopeName) {
+    Integer id = scopeIds.get(scopeName);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the ids of the given scopes. Scopes unknown to this API are
+   * ignored, since they cannot authorize any of its methods.
+   *
+   * @param scopes Names of scopes, such as those granted to a token.
+   */
+  public BitSet toBitSet(Collection<String> scopes) {
+    BitSet bits = new BitSet(scopeNames.size());
+    for (String scopeName : scopes) {
+      int id = getScopeId(scopeName);
+      if (id >= 0) {
+        bits.set(id);
+      }
+    }
+    return bits;
+  }
+
+  /**
+   * Returns the ids of the scopes of which any one authorizes the method.
+   *
+   * @param methodId Id of a method, such as {@code "urlshortener.url.insert"}.
+   * @throws IllegalArgumentException if there is no such method.
+   */
+  public BitSet getMethodScopes(String methodId) {
+    return (BitSet) checkedMethodScopes(methodId).clone();
+  }
+
+  /**
+   * Returns whether the granted scopes authorize a call to the method. A
+   * method which lists no scopes is always authorized.
+   *
+   * @param methodId Id of a method, such as {@code "urlshortener.url.insert"}.
+   * @param grantedScopes Scope ids as returned by {@link #toBitSet(Collection)}.
+   * @throws IllegalArgumentException if there is no such method.
+   */
+  public boolean isAuthorized(String methodId, BitSet grantedScopes) {
+    BitSet required = checkedMethodScopes(methodId);
+    return required.isEmpty() || required.intersects(grantedScopes);
+  }
+
+  /**
+   * Returns the ids of all methods which list the scope.
+   *
+   * @param scopeName Name of a scope.
+   * @throws IllegalArgumentException if no part of the API names the scope.
+   */
+  public List<String> getMethodsWithScope(String scopeName) {
+    int id = getScopeId(scopeName);
+    Preconditions.checkArgument(id >= 0, "Unknown scope: %s", scopeName);
+    return methodsByScope.get(id);
+  }
+
+  private BitSet checkedMethodScopes(String methodId) {
+    BitSet scopes = methodScopes.get(methodId);
+    Preconditions.checkArgument(scopes != null, "Unknown method: %s", methodId);
+    return scopes;
+  }
+}
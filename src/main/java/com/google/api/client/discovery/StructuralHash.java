@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64-bit hash over the content of wire format trees, such as schemas and
+ * methods. Maps hash independently of their key order, lists in order, and
+ * every other value by its string form. Hashes of maps are memoized by
+ * identity, so hashing a tree and then each of its subtrees visits every node
+ * only once; the trees must not be modified while an instance is in use.
+ * Instances are not thread-safe.
+ */
+final class StructuralHash {
+  private static final long MAP_SEED = 0x9e3779b97f4a7c15L;
+  private static final long LIST_SEED = 0xc2b2ae3d27d4eb4fL;
+  private static final long NULL_HASH = 0x165667b19e3779f9L;
+
+  private final Map<Map<?, ?>, Long> memo = new IdentityHashMap<Map<?, ?>, Long>();
+
+  /**
+   * Returns the hash of a value, which is equal for equal trees.
+   */
+  long of(Object value) {
+    if (value == null) {
+      return NULL_HASH;
+    } else if (value instanceof Map<?, ?>) {
+      return ofMap((Map<?, ?>) value);
+    } else if (value instanceof List<?>) {
+      long hash = LIST_SEED;
+      for (Object element : (List<?>) value) {
+        hash = mix(hash * 31 + of(element));
+      }
+      return hash;
+    } else {
+      return ofString(value.toString());
+    }
+  }
+
+  private long ofMap(Map<?, ?> map) {
+    Long memoized = memo.get(map);
+    if (memoized != null) {
+      return memoized;
+    }
+    // Sum the entries, which does not depend on iteration order
+    long sum = 0;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (entry.getValue() != null) {
+        sum += mix(ofString(entry.getKey().toString()) * 31 + of(entry.getValue()));
+      }
+    }
+    long hash = mix(MAP_SEED ^ sum);
+    memo.put(map, hash);
+    return hash;
+  }
+
+  private static long ofString(String value) {
+    // 64-bit FNV-1a over the UTF-16 code units
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  /**
+   * Finalization step of MurmurHash3, which spreads every input bit over the
+   * whole result.
+   */
+  private static long mix(long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb93fe1a85ec3L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Returns whether two trees have the same hash, and so are treated as
+   * equal.
+   */
+  boolean same(Object a, Object b) {
+    return a == b || of(a) == of(b);
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the whole type graph of a freshly loaded API in parallel, so that
+ * a server reaches its steady-state latency before it takes traffic.
+ *
+ * <p>
+ * Every named schema, property, additional property and array element, and
+ * the request, response and parameter types of every method, are resolved to
+ * their {@link DiscoveryType}, one fork-join task per schema and per method.
+ * The warm-up builds the state which {@link RestDiscovery} keeps for later
+ * requests: the {@link ParameterTable} of every method, whose parameters hold
+ * their resolved types, the {@link SchemaIndex}, the {@link ScopeIndex} and,
+ * if a flatten depth is set, the {@link FlatSchema} of every named schema.
+ * Schema types themselves are cheap views which are not cached, so resolving
+ * them serves to validate the graph and to load and compile the code involved.
+ * The timing of each warm-up is logged.
+ * </p>
+ *
+ * <p>
+ * A reference to a missing schema or a schema of unknown type makes the
+ * warm-up fail with the exception thrown while resolving it.
+ * </p>
+ */
+public final class TypeGraphWarmer {
+  private static final Logger logger = Logger.getLogger(TypeGraphWarmer.class.getName());
+
+  /** Flatten depth which leaves the flattened views to be built on demand. */
+  public static final int NO_FLATTENING = -1;
+
+  private final ForkJoinPool pool;
+  private final int flattenDepth;
+
+  /**
+   * Create an instance with a pool as large as the number of processors,
+   * which does not flatten schemas.
+   */
+  public TypeGraphWarmer() {
+    this(new ForkJoinPool(), NO_FLATTENING);
+  }
+
+  /**
+   * Create an instance.
+   *
+   * @param pool Pool which runs the warm-up tasks.
+   * @param flattenDepth Maximum depth at which to flatten every named schema,
+   *        {@link SchemaFlattener#UNBOUNDED} or {@link #NO_FLATTENING}.
+   *        Unbounded trees of large APIs can be big.
+   */
+  public TypeGraphWarmer(ForkJoinPool pool, int flattenDepth) {
+    Preconditions.checkArgument(flattenDepth >= NO_FLATTENING);
+    this.pool = Preconditions.checkNotNull(pool);
+    this.flattenDepth = flattenDepth;
+  }
+
+  /**
+   * Warm up an API, returning once all of its types are resolved.
+   *
+   * @param discovery API to warm up.
+   * @return The number of types resolved.
+   */
+  public int warmUp(final RestDiscovery discovery) {
+    long start = System.nanoTime();
+    final AtomicInteger resolved = new AtomicInteger();
+
+    final List<RecursiveAction> tasks = Lists.newArrayList();
+    for (final String name : discovery.getSchemas().keySet()) {
+      tasks.add(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          resolved.addAndGet(resolve(discovery.getSchemas().get(name), true));
+          if (flattenDepth != NO_FLATTENING) {
+            discovery.getSchemaFlattener().flatten(name, flattenDepth);
+          }
+        }
+      });
+    }
+    for (final RestMethod method : collectMethods(discovery)) {
+      tasks.add(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          int count = resolve(method.getRequest(), false)
+              + resolve(method.getResponse(), false);
+          for (Parameter parameter : method.getParameterTable().getParameters()) {
+            count += resolve(parameter.getType(), false);
+          }
+          resolved.addAndGet(count);
+        }
+      });
+    }
+    tasks.add(new RecursiveAction() {
+      @Override
+      protected void compute() {
+        discovery.getSchemaIndex();
+        discovery.getScopeIndex();
+      }
+    });
+
+    pool.invoke(new RecursiveAction() {
+      @Override
+      protected void compute() {
+        invokeAll(tasks);
+      }
+    });
+
+    if (logger.isLoggable(Level.INFO)) {
+      logger.info(String.format("Warmed up %s:%s in %dms: %d types of %d schemas and methods",
+          discovery.getName(), discovery.getVersion(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), resolved.get(),
+          tasks.size() - 1));
+    }
+    return resolved.get();
+  }
+
+  /**
+   * Resolve a type and everything below it. Named schemas other than the root
+   * are not expanded, since each is expanded by its own task, which also
+   * keeps recursive schemas finite. Named schemas are recognized by their
+   * {@link DiscoveryType#getSchemaName() schema name}, since the id field is
+   * optional and may differ from the name.
+   *
+   * @param type Type to resolve.
+   * @param root Whether the type is the named schema of the task.
+   * @return The number of types resolved.
+   */
+  private static int resolve(DiscoveryType type, boolean root) {
+    if (type == null) {
+      return 0;
+    }
+    if (!root && type.getSchemaName() != null) {
+      return 1;
+    }
+
+    int count = 1;
+    switch (type.getBaseType()) {
+      case OBJECT:
+        Map<String, DiscoveryType> properties = type.getObject().getProperties();
+        if (properties != null) {
+          for (DiscoveryType property : properties.values()) {
+            count += resolve(property, false);
+          }
+        }
+        count += resolve(type.getObject().getAdditionalPropertyType(), false);
+        break;
+      case ARRAY:
+        count += resolve(type.getArray().getElementType(), false);
+        break;
+      default:
+        break;
+    }
+    return count;
+  }
+
+  /**
+   * Returns every method of the API. The walk hands out methods which share
+   * their parameter tables with those returned by
+   * {@link RestDiscovery#getResources()}.
+   */
+  private static List<RestMethod> collectMethods(RestDiscovery discovery) {
+    final List<RestMethod> methods = Lists.newArrayList();
+    discovery.accept(new DiscoveryVisitor() {
+      @Override
+      public boolean visitMethod(RestMethod method) {
+        methods.add(method);
+        return false;
+      }
+
+      @Override
+      public boolean visitSchema(String path, DiscoveryType type) {
+        return false;
+      }
+    });
+    return methods;
+  }
+}
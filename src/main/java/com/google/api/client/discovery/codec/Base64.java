@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import java.util.Arrays;
+
+/**
+ * Base64 encoding of the {@code byte} string format. Encodes with the url
+ * safe alphabet and padding, as Google APIs do, and decodes either alphabet
+ * with or without padding.
+ */
+final class Base64 {
+  private static final char[] ALPHABET =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+  private static final byte[] DECODE = new byte[128];
+
+  static {
+    Arrays.fill(DECODE, (byte) -1);
+    for (int i = 0; i < ALPHABET.length; i++) {
+      DECODE[ALPHABET[i]] = (byte) i;
+    }
+    DECODE['+'] = 62;
+    DECODE['/'] = 63;
+  }
+
+  private Base64() {
+  }
+
+  static String encode(byte[] bytes) {
+    StringBuilder out = new StringBuilder((bytes.length + 2) / 3 * 4);
+    for (int i = 0; i < bytes.length; i += 3) {
+      int remaining = Math.min(3, bytes.length - i);
+      int chunk = (bytes[i] & 0xff) << 16;
+      if (remaining > 1) {
+        chunk |= (bytes[i + 1] & 0xff) << 8;
+      }
+      if (remaining > 2) {
+        chunk |= bytes[i + 2] & 0xff;
+      }
+      out.append(ALPHABET[(chunk >> 18) & 0x3f]).append(ALPHABET[(chunk >> 12) & 0x3f]);
+      out.append(remaining > 1 ? ALPHABET[(chunk >> 6) & 0x3f] : '=');
+      out.append(remaining > 2 ? ALPHABET[chunk & 0x3f] : '=');
+    }
+    return out.toString();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the text is not base64.
+   */
+  static byte[] decode(String text) {
+    int length = text.length();
+    while (length > 0 && text.charAt(length - 1) == '=') {
+      length--;
+    }
+    if (length % 4 == 1) {
+      throw new IllegalArgumentException("Invalid base64 length: " + text);
+    }
+
+    byte[] bytes = new byte[length * 3 / 4];
+    int chunk = 0;
+    int out = 0;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      int value = c < 128 ? DECODE[c] : -1;
+      if (value < 0) {
+        throw new IllegalArgumentException("Invalid base64 character '" + c + "' in " + text);
+      }
+      chunk = chunk << 6 | value;
+      if (i % 4 == 3) {
+        bytes[out++] = (byte) (chunk >> 16);
+        bytes[out++] = (byte) (chunk >> 8);
+        bytes[out++] = (byte) chunk;
+        chunk = 0;
+      }
+    }
+    if (length % 4 == 2) {
+      bytes[out] = (byte) (chunk >> 4);
+    } else if (length % 4 == 3) {
+      bytes[out++] = (byte) (chunk >> 10);
+      bytes[out] = (byte) (chunk >> 2);
+    }
+    return bytes;
+  }
+}
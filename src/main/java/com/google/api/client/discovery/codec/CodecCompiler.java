@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.discovery.types.IntegerType;
+import com.google.api.client.discovery.types.NumberType;
+import com.google.api.client.discovery.types.ObjectType;
+import com.google.api.client.discovery.types.StringType;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * Compiles a type into a tree of {@link ValueCodec}s. Named object, map and
+ * array schemas are compiled once per compiler and registered by their
+ * {@link DiscoveryType#getSchemaName() schema name} before their children,
+ * which also ends the recursion of schemas which refer to themselves, with or
+ * without an id.
+ */
+final class CodecCompiler {
+  private final Map<String, ValueCodec> namedCodecs = Maps.newHashMap();
+
+  ValueCodec compile(DiscoveryType type) {
+    switch (type.getBaseType()) {
+      case OBJECT:
+        return compileObject(type.getObject());
+      case ARRAY:
+        String name = type.getSchemaName();
+        ValueCodec named = named(name);
+        if (named != null) {
+          return named;
+        }
+        ValueCodec.ArrayCodec array = register(name, new ValueCodec.ArrayCodec());
+        array.initialize(compile(type.getArray().getElementType()));
+        return array;
+      case STRING:
+        return compileString(type.getString());
+      case INTEGER:
+        IntegerType integer = type.getInteger();
+        return new ValueCodec.IntegerCodec(
+            integer.getFormat() == IntegerType.Format.UINT32, integer.getDefault());
+      case NUMBER:
+        NumberType number = type.getNumber();
+        return new ValueCodec.NumberCodec(
+            number.getFormat() == NumberType.Format.FLOAT, number.getDefault());
+      case BOOLEAN:
+        return new ValueCodec.BooleanCodec(type.getBoolean().getDefault());
+      default:
+        return ValueCodec.AnyCodec.INSTANCE;
+    }
+  }
+
+  private ValueCodec compileObject(ObjectType type) {
+    Map<String, DiscoveryType> properties = type.getProperties();
+    DiscoveryType additional = type.getAdditionalPropertyType();
+    String name = type.getSchemaName();
+    ValueCodec named = named(name);
+    if (named != null) {
+      return named;
+    }
+    if (properties == null && additional != null) {
+      ValueCodec.MapCodec map = register(name, new ValueCodec.MapCodec());
+      map.initialize(compile(additional));
+      return map;
+    }
+
+    ValueCodec.ObjectCodec codec = register(name, new ValueCodec.ObjectCodec());
+
+    Map<String, ValueCodec> propertyCodecs = Maps.newHashMap();
+    if (properties != null) {
+      for (Map.Entry<String, DiscoveryType> property : properties.entrySet()) {
+        propertyCodecs.put(property.getKey(), compile(property.getValue()));
+      }
+    }
+    codec.initialize(propertyCodecs, additional == null ? null : compile(additional));
+    return codec;
+  }
+
+  /**
+   * Returns the codec of a named schema, or {@code null} if it has no name or
+   * has not been compiled yet.
+   */
+  private ValueCodec named(String name) {
+    return name == null ? null : namedCodecs.get(name);
+  }
+
+  /**
+   * Register the codec of a named schema before its children are compiled.
+   */
+  private <T extends ValueCodec> T register(String name, T codec) {
+    if (name != null) {
+      namedCodecs.put(name, codec);
+    }
+    return codec;
+  }
+
+  private static ValueCodec compileString(StringType type) {
+    String defaultValue = type.getDefault();
+    if (type.getFormat() == null) {
+      return new ValueCodec.StringCodec(defaultValue);
+    }
+    switch (type.getFormat()) {
+      case INT64:
+        return new ValueCodec.Int64Codec(defaultValue);
+      case UINT64:
+        return new ValueCodec.Uint64Codec(defaultValue);
+      case DATE_TIME:
+        return new ValueCodec.DateTimeCodec(defaultValue);
+      case BYTE:
+        return new ValueCodec.BytesCodec(defaultValue);
+      default:
+        return new ValueCodec.StringCodec(defaultValue);
+    }
+  }
+}
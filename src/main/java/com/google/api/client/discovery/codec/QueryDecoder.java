@@ -0,0 +1,576 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.discovery.RestMethod;
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.RestMethod.ParameterLocation;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.discovery.types.IntegerType;
+import com.google.api.client.discovery.types.NumberType;
+import com.google.api.client.discovery.types.StringType;
+import com.google.api.client.util.DateTime;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes the query string of a request to a method into typed parameter
+ * values, in a single pass over the raw query.
+ *
+ * <p>
+ * A decoder is compiled once per method, for example
+ * {@code QueryDecoder.compile(method)}, and is then immutable and safe to
+ * share between threads. Names are looked up in a hash table of the query
+ * parameters of the method without creating strings. Names and values are
+ * only copied when they must be percent-decoded, into a buffer which is
+ * reused for the whole query, and integers, booleans and enum values are
+ * parsed straight from the characters. Values are typed as follows:
+ * </p>
+ *
+ * <ul>
+ * <li>integers to {@code int}, or {@code long} for {@code uint32};</li>
+ * <li>strings of format {@code int64} to {@code long}, {@code uint64} to
+ * {@code BigInteger}, {@code date-time} to {@link DateTime} and
+ * {@code byte} to {@code byte[]};</li>
+ * <li>enum strings to the ordinal of the value;</li>
+ * <li>numbers to {@code double} and booleans to {@code boolean};</li>
+ * <li>everything else to {@code String}s.</li>
+ * </ul>
+ *
+ * <p>
+ * Repeated parameters may occur any number of times and collect all of their
+ * values. Parameters which the method does not declare in the query, such as
+ * API wide parameters, are skipped.
+ * </p>
+ */
+public final class QueryDecoder {
+
+  /**
+   * How the value of a parameter is parsed.
+   */
+  enum Kind {
+    INT32, UINT32, INT64, UINT64, DOUBLE, BOOLEAN, ENUM, STRING, DATE_TIME, BYTES;
+
+    /**
+     * Returns whether values of this kind are stored as a {@code long}.
+     */
+    boolean isPrimitive() {
+      return this == INT32 || this == UINT32 || this == INT64 || this == DOUBLE
+          || this == BOOLEAN || this == ENUM;
+    }
+  }
+
+  /**
+   * A compiled query parameter.
+   */
+  static final class Slot {
+    final String name;
+    final char[] nameChars;
+    final Kind kind;
+    final boolean repeated;
+    final boolean required;
+    final char[][] enumValues;
+    final List<String> enumNames;
+    final long minimum;
+    final long maximum;
+    final double numberMinimum;
+    final double numberMaximum;
+
+    /** Raw default value, or {@code null} if none is declared. */
+    final String defaultValue;
+
+    Slot(String name, Kind kind, boolean repeated, boolean required, List<String> enumNames,
+        long minimum, long maximum, double numberMinimum, double numberMaximum,
+        String defaultValue) {
+      this.name = name;
+      this.nameChars = name.toCharArray();
+      this.kind = kind;
+      this.repeated = repeated;
+      this.required = required;
+      this.enumNames = enumNames;
+      this.enumValues = new char[enumNames == null ? 0 : enumNames.size()][];
+      for (int i = 0; i < enumValues.length; i++) {
+        enumValues[i] = enumNames.get(i).toCharArray();
+      }
+      this.minimum = minimum;
+      this.maximum = maximum;
+      this.numberMinimum = numberMinimum;
+      this.numberMaximum = numberMaximum;
+      this.defaultValue = defaultValue;
+    }
+  }
+
+  private static final BigInteger UINT64_LIMIT = BigInteger.ONE.shiftLeft(64);
+
+  private final Slot[] slots;
+
+  /** Open addressing table from name hash to slot index, -1 for empty. */
+  private final int[] table;
+
+  /** Values of the declared defaults, applied to every decoded query. */
+  private final long[] defaultPrimitives;
+  private final Object[] defaultObjects;
+
+  private QueryDecoder(Slot[] slots) {
+    this.slots = slots;
+    int capacity = Integer.highestOneBit(Math.max(1, slots.length) * 4);
+    table = new int[capacity];
+    Arrays.fill(table, -1);
+    for (int i = 0; i < slots.length; i++) {
+      int index = hash(slots[i].nameChars) & (capacity - 1);
+      while (table[index] != -1) {
+        index = (index + 1) & (capacity - 1);
+      }
+      table[index] = i;
+    }
+
+    defaultPrimitives = new long[slots.length];
+    defaultObjects = new Object[slots.length];
+    for (int i = 0; i < slots.length; i++) {
+      String value = slots[i].defaultValue;
+      if (value != null && !slots[i].repeated) {
+        if (slots[i].kind.isPrimitive()) {
+          defaultPrimitives[i] = parsePrimitive(slots[i], value, 0, value.length());
+        } else {
+          defaultObjects[i] = parseObject(slots[i], value, 0, value.length());
+        }
+      }
+    }
+  }
+
+  /**
+   * Compile a decoder for the query parameters of a method.
+   *
+   * @throws IllegalArgumentException if a declared default does not match
+   *         its type.
+   */
+  public static QueryDecoder compile(RestMethod method) {
+    List<Slot> slots = Lists.newArrayList();
+    List<Parameter> required = method.getParameterTable().getRequired();
+    for (Parameter parameter : method.getParameterTable().getParameters()) {
+      if (parameter.getLocation() != ParameterLocation.PATH) {
+        slots.add(compile(parameter, required.contains(parameter)
+            || Boolean.TRUE.equals(parameter.getType().getRequired())));
+      }
+    }
+    return new QueryDecoder(slots.toArray(new Slot[slots.size()]));
+  }
+
+  private static Slot compile(Parameter parameter, boolean required) {
+    DiscoveryType type = parameter.getType();
+    Kind kind = Kind.STRING;
+    List<String> enumNames = null;
+    long minimum = Long.MIN_VALUE;
+    long maximum = Long.MAX_VALUE;
+    double numberMinimum = Double.NEGATIVE_INFINITY;
+    double numberMaximum = Double.POSITIVE_INFINITY;
+    String defaultValue = null;
+
+    switch (type.getBaseType()) {
+      case INTEGER:
+        IntegerType integer = type.getInteger();
+        if (integer.getFormat() == IntegerType.Format.UINT32) {
+          kind = Kind.UINT32;
+          minimum = 0;
+          maximum = 0xffffffffL;
+        } else {
+          kind = Kind.INT32;
+          minimum = Integer.MIN_VALUE;
+          maximum = Integer.MAX_VALUE;
+        }
+        if (integer.getMinimum() != null) {
+          minimum = Math.max(minimum, integer.getMinimum());
+        }
+        if (integer.getMaximum() != null) {
+          maximum = Math.min(maximum, integer.getMaximum());
+        }
+        defaultValue = integer.getDefault() == null ? null : integer.getDefault().toString();
+        break;
+      case NUMBER:
+        NumberType number = type.getNumber();
+        kind = Kind.DOUBLE;
+        if (number.getMinimum() != null) {
+          numberMinimum = number.getMinimum();
+        }
+        if (number.getMaximum() != null) {
+          numberMaximum = number.getMaximum();
+        }
+        defaultValue = number.getDefault() == null ? null : number.getDefault().toString();
+        break;
+      case BOOLEAN:
+        kind = Kind.BOOLEAN;
+        defaultValue = type.getBoolean().getDefault() == null
+            ? null : type.getBoolean().getDefault().toString();
+        break;
+      case STRING:
+        StringType string = type.getString();
+        if (string.isEnum()) {
+          kind = Kind.ENUM;
+          enumNames = string.getEnumValues();
+        } else if (string.getFormat() == StringType.Format.INT64) {
+          kind = Kind.INT64;
+        } else if (string.getFormat() == StringType.Format.UINT64) {
+          kind = Kind.UINT64;
+        } else if (string.getFormat() == StringType.Format.DATE_TIME) {
+          kind = Kind.DATE_TIME;
+        } else if (string.getFormat() == StringType.Format.BYTE) {
+          kind = Kind.BYTES;
+        }
+        defaultValue = string.getDefault();
+        break;
+      default:
+        break;
+    }
+    return new Slot(parameter.getName(), kind, Boolean.TRUE.equals(parameter.isRepeated()),
+        required, enumNames, minimum, maximum, numberMinimum, numberMaximum, defaultValue);
+  }
+
+  /**
+   * Decode a query string.
+   *
+   * @param query Raw query, with or without the leading {@code '?'}.
+   * @return The typed values of the parameters of the method.
+   * @throws IllegalArgumentException if a value does not match its type, a
+   *         parameter which is not repeated occurs twice, or the query is not
+   *         properly percent-encoded.
+   */
+  public QueryValues decode(CharSequence query) {
+    long[] primitives = defaultPrimitives.clone();
+    Object[] objects = defaultObjects.clone();
+    boolean[] present = new boolean[slots.length];
+
+    int length = query.length();
+    int start = length > 0 && query.charAt(0) == '?' ? 1 : 0;
+    char[] buffer = null;
+    while (start < length) {
+      int end = start;
+      int equals = -1;
+      boolean encoded = false;
+      for (char c; end < length && (c = query.charAt(end)) != '&'; end++) {
+        if (c == '=' && equals == -1) {
+          equals = end;
+        } else if (c == '%' || c == '+') {
+          encoded = true;
+        }
+      }
+      int nameEnd = equals == -1 ? end : equals;
+      int valueStart = equals == -1 ? end : equals + 1;
+
+      if (nameEnd > start) {
+        CharSequence source = query;
+        int nameStart = start;
+        int valueEnd = end;
+        if (encoded) {
+          // Decode name and value one after the other into the shared buffer
+          if (buffer == null) {
+            buffer = new char[length];
+          }
+          int decodedName = percentDecode(query, start, nameEnd, buffer, 0);
+          int decodedValue = percentDecode(query, valueStart, end, buffer, decodedName);
+          source = CharBuffer.wrap(buffer);
+          nameStart = 0;
+          nameEnd = decodedName;
+          valueStart = decodedName;
+          valueEnd = decodedValue;
+        }
+
+        int index = lookup(source, nameStart, nameEnd);
+        if (index != -1) {
+          store(index, source, valueStart, valueEnd, primitives, objects, present);
+        }
+      }
+      start = end + 1;
+    }
+    return new QueryValues(this, primitives, objects, present);
+  }
+
+  private void store(int index, CharSequence source, int start, int end, long[] primitives,
+      Object[] objects, boolean[] present) {
+    Slot slot = slots[index];
+    if (slot.repeated) {
+      @SuppressWarnings("unchecked")
+      List<Object> values = (List<Object>) objects[index];
+      if (values == null) {
+        values = Lists.newArrayListWithCapacity(4);
+        objects[index] = values;
+      }
+      values.add(box(slot, source, start, end));
+    } else {
+      if (present[index]) {
+        throw new IllegalArgumentException("Parameter " + slot.name + " is not repeated");
+      }
+      if (slot.kind.isPrimitive()) {
+        primitives[index] = parsePrimitive(slot, source, start, end);
+      } else {
+        objects[index] = parseObject(slot, source, start, end);
+      }
+    }
+    present[index] = true;
+  }
+
+  /**
+   * Returns the value of a repeated parameter boxed as it is returned by
+   * {@link QueryValues#get}.
+   */
+  private static Object box(Slot slot, CharSequence source, int start, int end) {
+    if (!slot.kind.isPrimitive()) {
+      return parseObject(slot, source, start, end);
+    }
+    return boxPrimitive(slot, parsePrimitive(slot, source, start, end));
+  }
+
+  static Object boxPrimitive(Slot slot, long value) {
+    switch (slot.kind) {
+      case INT32:
+        return (int) value;
+      case DOUBLE:
+        return Double.longBitsToDouble(value);
+      case BOOLEAN:
+        return value != 0;
+      case ENUM:
+        return slot.enumNames.get((int) value);
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Parse a value stored as a {@code long}: integers, booleans as 0 or 1, enum
+   * ordinals and the bits of doubles.
+   */
+  private static long parsePrimitive(Slot slot, CharSequence source, int start, int end) {
+    switch (slot.kind) {
+      case BOOLEAN:
+        if (regionEquals(source, start, end, "true")) {
+          return 1;
+        } else if (regionEquals(source, start, end, "false")) {
+          return 0;
+        }
+        throw invalid(slot, source, start, end);
+      case ENUM:
+        for (int i = 0; i < slot.enumValues.length; i++) {
+          if (regionEquals(source, start, end, slot.enumValues[i])) {
+            return i;
+          }
+        }
+        throw invalid(slot, source, start, end);
+      case DOUBLE:
+        double number;
+        try {
+          number = Double.parseDouble(source.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+          throw invalid(slot, source, start, end);
+        }
+        if (!(number >= slot.numberMinimum && number <= slot.numberMaximum)) {
+          throw invalid(slot, source, start, end);
+        }
+        return Double.doubleToRawLongBits(number);
+      default:
+        long value = parseLong(slot, source, start, end);
+        if (value < slot.minimum || value > slot.maximum) {
+          throw invalid(slot, source, start, end);
+        }
+        return value;
+    }
+  }
+
+  private static Object parseObject(Slot slot, CharSequence source, int start, int end) {
+    String text = source.subSequence(start, end).toString();
+    switch (slot.kind) {
+      case UINT64:
+        try {
+          BigInteger value = new BigInteger(text);
+          if (value.signum() >= 0 && value.compareTo(UINT64_LIMIT) < 0) {
+            return value;
+          }
+        } catch (NumberFormatException e) {
+          // Reported below
+        }
+        throw invalid(slot, source, start, end);
+      case DATE_TIME:
+        try {
+          return DateTime.parseRfc3339(text);
+        } catch (NumberFormatException e) {
+          throw invalid(slot, source, start, end);
+        } catch (StringIndexOutOfBoundsException e) {
+          throw invalid(slot, source, start, end);
+        }
+      case BYTES:
+        return Base64.decode(text);
+      default:
+        return text;
+    }
+  }
+
+  /**
+   * Parse a decimal integer without creating a string, failing on overflow.
+   */
+  private static long parseLong(Slot slot, CharSequence source, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+      negative = source.charAt(i) == '-';
+      i++;
+    }
+    if (i == end) {
+      throw invalid(slot, source, start, end);
+    }
+    // Accumulate negatively, since the negative range is the larger one
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long result = 0;
+    for (; i < end; i++) {
+      int digit = source.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || result < limit / 10) {
+        throw invalid(slot, source, start, end);
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        throw invalid(slot, source, start, end);
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Percent-decode a region as UTF-8, turning {@code '+'} into a space.
+   *
+   * @return The position in the output after the decoded characters.
+   */
+  private static int percentDecode(
+      CharSequence source, int start, int end, char[] out, int position) {
+    int i = start;
+    while (i < end) {
+      char c = source.charAt(i);
+      if (c == '+') {
+        out[position++] = ' ';
+        i++;
+      } else if (c != '%') {
+        out[position++] = c;
+        i++;
+      } else {
+        int first = hexByte(source, i, end);
+        int extra = first < 0x80 ? 0 : first >= 0xf0 ? 3 : first >= 0xe0 ? 2 : 1;
+        if (first >= 0x80 && first < 0xc0 || first >= 0xf8) {
+          throw malformed(source, start, end);
+        }
+        int codePoint = extra == 0 ? first : first & (0x3f >> extra);
+        i += 3;
+        for (int k = 0; k < extra; k++) {
+          int next = i < end && source.charAt(i) == '%' ? hexByte(source, i, end) : -1;
+          if ((next & 0xc0) != 0x80) {
+            throw malformed(source, start, end);
+          }
+          codePoint = (codePoint << 6) | (next & 0x3f);
+          i += 3;
+        }
+        position += Character.toChars(codePoint, out, position);
+      }
+    }
+    return position;
+  }
+
+  private static int hexByte(CharSequence source, int percent, int end) {
+    if (percent + 3 > end) {
+      throw malformed(source, percent, end);
+    }
+    int high = Character.digit(source.charAt(percent + 1), 16);
+    int low = Character.digit(source.charAt(percent + 2), 16);
+    if (high < 0 || low < 0) {
+      throw malformed(source, percent, end);
+    }
+    return (high << 4) | low;
+  }
+
+  private int lookup(CharSequence source, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + source.charAt(i);
+    }
+    int mask = table.length - 1;
+    for (int index = hash & mask; table[index] != -1; index = (index + 1) & mask) {
+      if (regionEquals(source, start, end, slots[table[index]].nameChars)) {
+        return table[index];
+      }
+    }
+    return -1;
+  }
+
+  private static int hash(char[] chars) {
+    int hash = 0;
+    for (char c : chars) {
+      hash = 31 * hash + c;
+    }
+    return hash;
+  }
+
+  private static boolean regionEquals(CharSequence source, int start, int end, char[] chars) {
+    if (end - start != chars.length) {
+      return false;
+    }
+    for (int i = 0; i < chars.length; i++) {
+      if (source.charAt(start + i) != chars[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean regionEquals(CharSequence source, int start, int end, String text) {
+    if (end - start != text.length()) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      if (source.charAt(start + i) != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static IllegalArgumentException invalid(
+      Slot slot, CharSequence source, int start, int end) {
+    return new IllegalArgumentException("Invalid value for parameter " + slot.name + ": "
+        + source.subSequence(start, end));
+  }
+
+  private static IllegalArgumentException malformed(CharSequence source, int start, int end) {
+    return new IllegalArgumentException(
+        "Malformed percent-encoding: " + source.subSequence(start, end));
+  }
+
+  /**
+   * Returns the index of a parameter, or -1 if the method has no such query
+   * parameter.
+   */
+  int indexOf(String name) {
+    return lookup(Preconditions.checkNotNull(name), 0, name.length());
+  }
+
+  Slot getSlot(int index) {
+    return slots[index];
+  }
+
+  int getSlotCount() {
+    return slots.length;
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.discovery.codec.QueryDecoder.Kind;
+import com.google.api.client.discovery.codec.QueryDecoder.Slot;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed values of the query parameters of one request, as decoded by a
+ * {@link QueryDecoder}.
+ *
+ * <p>
+ * Parameters which are absent from the query hold their declared default, if
+ * any. The primitive getters fail for parameters of another type and for
+ * absent parameters without a default, so check {@link #has} first for
+ * optional ones. Instances are not meant to be shared between threads.
+ * </p>
+ */
+public final class QueryValues {
+  private final QueryDecoder decoder;
+  private final long[] primitives;
+  private final Object[] objects;
+  private final boolean[] present;
+
+  QueryValues(QueryDecoder decoder, long[] primitives, Object[] objects, boolean[] present) {
+    this.decoder = decoder;
+    this.primitives = primitives;
+    this.objects = objects;
+    this.present = present;
+  }
+
+  /**
+   * Returns whether the parameter occurred in the query.
+   *
+   * @throws IllegalArgumentException if the method has no such query
+   *         parameter.
+   */
+  public boolean isPresent(String name) {
+    return present[index(name)];
+  }
+
+  /**
+   * Returns whether the parameter has a value, either from the query or from
+   * its declared default.
+   *
+   * @throws IllegalArgumentException if the method has no such query
+   *         parameter.
+   */
+  public boolean has(String name) {
+    int index = index(name);
+    return present[index] || decoder.getSlot(index).defaultValue != null;
+  }
+
+  /**
+   * Returns the value of an {@code int32} integer parameter.
+   */
+  public int getInt(String name) {
+    return (int) primitive(name, Kind.INT32);
+  }
+
+  /**
+   * Returns the value of a {@code uint32} integer or {@code int64} string
+   * parameter.
+   */
+  public long getLong(String name) {
+    return primitive(name, Kind.UINT32, Kind.INT64);
+  }
+
+  /**
+   * Returns the value of a number parameter.
+   */
+  public double getDouble(String name) {
+    return Double.longBitsToDouble(primitive(name, Kind.DOUBLE));
+  }
+
+  /**
+   * Returns the value of a boolean parameter.
+   */
+  public boolean getBoolean(String name) {
+    return primitive(name, Kind.BOOLEAN) != 0;
+  }
+
+  /**
+   * Returns the position of the value of an enum parameter in its list of
+   * enum values.
+   */
+  public int getEnumOrdinal(String name) {
+    return (int) primitive(name, Kind.ENUM);
+  }
+
+  /**
+   * Returns the value of a parameter as a string: strings as decoded, enum
+   * values by name and any other value by its string form, or {@code null} if
+   * the parameter has no value.
+   */
+  public String getString(String name) {
+    Object value = get(name);
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * Returns the boxed value of a parameter which is not repeated, or
+   * {@code null} if it has no value. Integers are {@code Integer}s, or
+   * {@code Long}s for {@code uint32}, and enum values are their names; other
+   * values are typed as documented by {@link QueryDecoder}.
+   *
+   * @throws IllegalArgumentException if the parameter is repeated.
+   */
+  public Object get(String name) {
+    int index = index(name);
+    Slot slot = decoder.getSlot(index);
+    Preconditions.checkArgument(!slot.repeated, "Parameter %s is repeated", name);
+    if (!present[index] && slot.defaultValue == null) {
+      return null;
+    }
+    return slot.kind.isPrimitive()
+        ? QueryDecoder.boxPrimitive(slot, primitives[index]) : objects[index];
+  }
+
+  /**
+   * Returns all values of a repeated parameter in query order, boxed as by
+   * {@link #get}, or an empty list if it did not occur.
+   *
+   * @throws IllegalArgumentException if the parameter is not repeated.
+   */
+  public List<Object> getAll(String name) {
+    int index = index(name);
+    Preconditions.checkArgument(
+        decoder.getSlot(index).repeated, "Parameter %s is not repeated", name);
+    @SuppressWarnings("unchecked")
+    List<Object> values = (List<Object>) objects[index];
+    return values == null
+        ? Collections.emptyList() : Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Returns the names of the required query parameters which did not occur in
+   * the query.
+   */
+  public List<String> getMissing() {
+    ImmutableList.Builder<String> missing = ImmutableList.builder();
+    for (int i = 0; i < present.length; i++) {
+      if (!present[i] && decoder.getSlot(i).required) {
+        missing.add(decoder.getSlot(i).name);
+      }
+    }
+    return missing.build();
+  }
+
+  private long primitive(String name, Kind... kinds) {
+    int index = index(name);
+    Slot slot = decoder.getSlot(index);
+    boolean matches = false;
+    for (Kind kind : kinds) {
+      matches |= slot.kind == kind;
+    }
+    Preconditions.checkArgument(matches && !slot.repeated,
+        "Parameter %s is not a single value of type %s", name, kinds[0]);
+    Preconditions.checkState(
+        present[index] || slot.defaultValue != null, "Parameter %s has no value", name);
+    return primitives[index];
+  }
+
+  private int index(String name) {
+    int index = decoder.indexOf(name);
+    Preconditions.checkArgument(index != -1, "Unknown query parameter: %s", name);
+    return index;
+  }
+}
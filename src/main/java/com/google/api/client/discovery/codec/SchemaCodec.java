@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+
+/**
+ * Reads and writes the JSON of request and response bodies according to a
+ * {@link DiscoveryType}, in a single streaming pass and without reflection.
+ *
+ * <p>
+ * A codec is compiled once from a type, for example
+ * {@code SchemaCodec.compile(method.getResponse())}, and is then immutable
+ * and safe to share between threads. Values are mapped as follows:
+ * </p>
+ *
+ * <ul>
+ * <li>objects to insertion ordered {@code Map<String, Object>}s, in which
+ * omitted properties which declare a default hold that default. Members which
+ * the schema does not know are skipped, unless it declares additional
+ * properties.</li>
+ * <li>arrays to {@code List}s.</li>
+ * <li>strings to {@code String}s, except for the formats {@code int64} to
+ * {@code Long}, {@code uint64} to {@code BigInteger}, {@code date-time} to
+ * {@link com.google.api.client.util.DateTime} and {@code byte} to
+ * {@code byte[]}.</li>
+ * <li>integers to {@code Integer}s, or {@code Long}s for {@code uint32}.</li>
+ * <li>numbers to {@code Double}s, or {@code Float}s for {@code float}.</li>
+ * <li>booleans to {@code Boolean}s.</li>
+ * <li>values of type {@code any} to maps, lists, strings, booleans,
+ * {@code Long}s or {@code BigInteger}s for integers and {@code BigDecimal}s
+ * for other numbers.</li>
+ * </ul>
+ *
+ * <p>
+ * Writing accepts the same representations and omits {@code null} members of
+ * objects.
+ * </p>
+ */
+public final class SchemaCodec {
+  private final ValueCodec root;
+
+  private SchemaCodec(ValueCodec root) {
+    this.root = root;
+  }
+
+  /**
+   * Compile a codec for values of the given type.
+   *
+   * @param type Type of the values, such as the request or response of a
+   *        method.
+   */
+  public static SchemaCodec compile(DiscoveryType type) {
+    Preconditions.checkNotNull(type);
+    return new SchemaCodec(new CodecCompiler().compile(type));
+  }
+
+  /**
+   * Read the next value from a parser, which is left on its last token.
+   *
+   * @return The typed value or {@code null} for JSON {@code null}.
+   * @throws IllegalArgumentException if the JSON does not match the type.
+   */
+  public Object read(JsonParser parser) throws IOException {
+    if (parser.getCurrentToken() == null
+        || parser.getCurrentToken() == JsonToken.FIELD_NAME) {
+      parser.nextToken();
+    }
+    Preconditions.checkArgument(parser.getCurrentToken() != null, "No JSON value");
+    return root.readNullable(parser);
+  }
+
+  /**
+   * Parse a complete JSON document and close the stream.
+   *
+   * @throws IllegalArgumentException if the JSON does not match the type.
+   */
+  public Object parse(JsonFactory jsonFactory, InputStream content) throws IOException {
+    JsonParser parser = jsonFactory.createJsonParser(content);
+    try {
+      return read(parser);
+    } finally {
+      parser.close();
+    }
+  }
+
+  /**
+   * Parse a complete JSON document.
+   *
+   * @throws IllegalArgumentException if the JSON does not match the type.
+   */
+  public Object parse(JsonFactory jsonFactory, String content) throws IOException {
+    JsonParser parser = jsonFactory.createJsonParser(content);
+    try {
+      return read(parser);
+    } finally {
+      parser.close();
+    }
+  }
+
+  /**
+   * Write a value, as read by this codec, to a generator.
+   *
+   * @param value Value to write, where {@code null} writes JSON {@code null}.
+   */
+  public void write(JsonGenerator generator, Object value) throws IOException {
+    root.writeNullable(generator, value);
+  }
+
+  /**
+   * Returns a value, as read by this codec, as a compact JSON string.
+   */
+  public String toJson(JsonFactory jsonFactory, Object value) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonGenerator generator = jsonFactory.createJsonGenerator(out);
+    write(generator, value);
+    generator.flush();
+    return out.toString();
+  }
+}
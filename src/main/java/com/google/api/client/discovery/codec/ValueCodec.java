@@ -0,0 +1,573 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.client.util.DateTime;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the values of a single schema node. Codecs are built by
+ * {@link CodecCompiler} and are immutable once compilation finishes.
+ */
+abstract class ValueCodec {
+
+  /**
+   * Read the value whose first token is the current token of the parser. On
+   * return the current token is the last token of the value.
+   */
+  abstract Object read(JsonParser parser) throws IOException;
+
+  /**
+   * Write a value, which is never {@code null}.
+   */
+  abstract void write(JsonGenerator generator, Object value) throws IOException;
+
+  /**
+   * Returns the value to use when an object omits a property of this type,
+   * or {@code null} if the property should stay absent.
+   */
+  Object getDefault() {
+    return null;
+  }
+
+  /**
+   * Read a value and map JSON {@code null} to {@code null}.
+   */
+  final Object readNullable(JsonParser parser) throws IOException {
+    return parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : read(parser);
+  }
+
+  /**
+   * Write a value, or JSON {@code null} for {@code null}.
+   */
+  final void writeNullable(JsonGenerator generator, Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      write(generator, value);
+    }
+  }
+
+  static IllegalArgumentException mismatch(String expected, JsonParser parser)
+      throws IOException {
+    return new IllegalArgumentException(
+        "Expected " + expected + " but found " + parser.getCurrentToken() + " "
+            + parser.getText());
+  }
+
+  /**
+   * Object with named properties and optionally additional properties. Read
+   * as an insertion ordered map, with omitted properties which have a
+   * default filled in after the members that were present.
+   */
+  static final class ObjectCodec extends ValueCodec {
+    private Map<String, ValueCodec> properties = Collections.emptyMap();
+    private Map<String, Object> defaults = Collections.emptyMap();
+    private ValueCodec additionalProperties;
+
+    /**
+     * Complete the codec. Called exactly once during compilation, after the
+     * codec may already be referenced by recursive properties.
+     */
+    void initialize(Map<String, ValueCodec> properties, ValueCodec additionalProperties) {
+      this.properties = properties;
+      this.additionalProperties = additionalProperties;
+      Map<String, Object> defaultValues = Maps.newLinkedHashMap();
+      for (Map.Entry<String, ValueCodec> property : properties.entrySet()) {
+        Object value = property.getValue().getDefault();
+        if (value != null) {
+          defaultValues.put(property.getKey(), value);
+        }
+      }
+      this.defaults = defaultValues;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+        throw mismatch("an object", parser);
+      }
+
+      Map<String, Object> values = Maps.newLinkedHashMap();
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        ValueCodec codec = properties.get(name);
+        if (codec == null) {
+          codec = additionalProperties;
+        }
+        if (codec == null) {
+          parser.skipChildren();
+        } else {
+          values.put(name, codec.readNullable(parser));
+        }
+      }
+
+      for (Map.Entry<String, Object> value : defaults.entrySet()) {
+        if (!values.containsKey(value.getKey())) {
+          values.put(value.getKey(), value.getValue());
+        }
+      }
+      return values;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeStartObject();
+      for (Map.Entry<?, ?> member : ((Map<?, ?>) value).entrySet()) {
+        if (member.getValue() == null) {
+          continue;
+        }
+        String name = member.getKey().toString();
+        ValueCodec codec = properties.get(name);
+        if (codec == null) {
+          codec = additionalProperties != null ? additionalProperties : AnyCodec.INSTANCE;
+        }
+        generator.writeFieldName(name);
+        codec.write(generator, member.getValue());
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Object with only additional properties, read as an insertion ordered
+   * map.
+   */
+  static final class MapCodec extends ValueCodec {
+    private ValueCodec values;
+
+    /**
+     * Complete the codec. Called exactly once during compilation, after the
+     * codec may already be referenced by recursive values.
+     */
+    void initialize(ValueCodec values) {
+      this.values = values;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+        throw mismatch("an object", parser);
+      }
+      Map<String, Object> map = Maps.newLinkedHashMap();
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        map.put(name, values.readNullable(parser));
+      }
+      return map;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeStartObject();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        generator.writeFieldName(entry.getKey().toString());
+        values.writeNullable(generator, entry.getValue());
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Array, read as a list.
+   */
+  static final class ArrayCodec extends ValueCodec {
+    private ValueCodec elements;
+
+    /**
+     * Complete the codec. Called exactly once during compilation, after the
+     * codec may already be referenced by recursive elements.
+     */
+    void initialize(ValueCodec elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+        throw mismatch("an array", parser);
+      }
+      List<Object> list = Lists.newArrayList();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        list.add(elements.readNullable(parser));
+      }
+      return list;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeStartArray();
+      for (Object element : (Iterable<?>) value) {
+        elements.writeNullable(generator, element);
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  /**
+   * Plain string, or a string with a format which has no richer type.
+   */
+  static final class StringCodec extends ValueCodec {
+    private final String defaultValue;
+
+    StringCodec(String defaultValue) {
+      this.defaultValue = defaultValue;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+        throw mismatch("a string", parser);
+      }
+      return parser.getText();
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeString(value.toString());
+    }
+
+    @Override
+    Object getDefault() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Signed 64-bit integer carried as a string, read as a {@link Long}.
+   * Numbers are accepted as well.
+   */
+  static final class Int64Codec extends ValueCodec {
+    private final Long defaultValue;
+
+    Int64Codec(String defaultValue) {
+      this.defaultValue = defaultValue == null ? null : Long.valueOf(defaultValue);
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      JsonToken token = parser.getCurrentToken();
+      if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT) {
+        throw mismatch("an int64", parser);
+      }
+      return Long.valueOf(parser.getText());
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeString(Long.toString(((Number) value).longValue()));
+    }
+
+    @Override
+    Object getDefault() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Unsigned 64-bit integer carried as a string, read as a
+   * {@link BigInteger}. Numbers are accepted as well.
+   */
+  static final class Uint64Codec extends ValueCodec {
+    private final BigInteger defaultValue;
+
+    Uint64Codec(String defaultValue) {
+      this.defaultValue = defaultValue == null ? null : new BigInteger(defaultValue);
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      JsonToken token = parser.getCurrentToken();
+      if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT) {
+        throw mismatch("a uint64", parser);
+      }
+      return new BigInteger(parser.getText());
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeString(value.toString());
+    }
+
+    @Override
+    Object getDefault() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * RFC 3339 timestamp, read as a {@link DateTime}.
+   */
+  static final class DateTimeCodec extends ValueCodec {
+    private final DateTime defaultValue;
+
+    DateTimeCodec(String defaultValue) {
+      this.defaultValue = defaultValue == null ? null : DateTime.parseRfc3339(defaultValue);
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+        throw mismatch("a date-time", parser);
+      }
+      return DateTime.parseRfc3339(parser.getText());
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeString(((DateTime) value).toStringRfc3339());
+    }
+
+    @Override
+    Object getDefault() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Base64 encoded bytes, read as a byte array.
+   */
+  static final class BytesCodec extends ValueCodec {
+    private final String defaultValue;
+
+    BytesCodec(String defaultValue) {
+      this.defaultValue = defaultValue;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+        throw mismatch("base64 bytes", parser);
+      }
+      return Base64.decode(parser.getText());
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeString(Base64.encode((byte[]) value));
+    }
+
+    @Override
+    Object getDefault() {
+      // Decode for every object, since arrays are mutable
+      return defaultValue == null ? null : Base64.decode(defaultValue);
+    }
+  }
+
+  /**
+   * JSON integer, read as an {@link Integer}, or a {@link Long} for the
+   * {@code uint32} format.
+   */
+  static final class IntegerCodec extends ValueCodec {
+    private final boolean unsigned;
+    private final Integer defaultValue;
+
+    IntegerCodec(boolean unsigned, Integer defaultValue) {
+      this.unsigned = unsigned;
+      this.defaultValue = defaultValue;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      JsonToken token = parser.getCurrentToken();
+      if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_STRING) {
+        throw mismatch("an integer", parser);
+      }
+      String text = parser.getText();
+      return unsigned ? (Object) Long.valueOf(text) : (Object) Integer.valueOf(text);
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeNumber(((Number) value).longValue());
+    }
+
+    @Override
+    Object getDefault() {
+      if (defaultValue == null) {
+        return null;
+      }
+      return unsigned ? (Object) Long.valueOf(defaultValue) : (Object) defaultValue;
+    }
+  }
+
+  /**
+   * JSON number, read as a {@link Double}, or a {@link Float} for the
+   * {@code float} format.
+   */
+  static final class NumberCodec extends ValueCodec {
+    private final boolean single;
+    private final Double defaultValue;
+
+    NumberCodec(boolean single, Double defaultValue) {
+      this.single = single;
+      this.defaultValue = defaultValue;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      JsonToken token = parser.getCurrentToken();
+      if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT
+          && token != JsonToken.VALUE_STRING) {
+        throw mismatch("a number", parser);
+      }
+      String text = parser.getText();
+      return single ? (Object) Float.valueOf(text) : (Object) Double.valueOf(text);
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      if (single) {
+        generator.writeNumber(((Number) value).floatValue());
+      } else {
+        generator.writeNumber(((Number) value).doubleValue());
+      }
+    }
+
+    @Override
+    Object getDefault() {
+      if (defaultValue == null) {
+        return null;
+      }
+      return single ? (Object) defaultValue.floatValue() : (Object) defaultValue;
+    }
+  }
+
+  /**
+   * JSON boolean.
+   */
+  static final class BooleanCodec extends ValueCodec {
+    private final Boolean defaultValue;
+
+    BooleanCodec(Boolean defaultValue) {
+      this.defaultValue = defaultValue;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      switch (parser.getCurrentToken()) {
+        case VALUE_TRUE:
+          return Boolean.TRUE;
+        case VALUE_FALSE:
+          return Boolean.FALSE;
+        case VALUE_STRING:
+          return Boolean.valueOf(parser.getText());
+        default:
+          throw mismatch("a boolean", parser);
+      }
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      generator.writeBoolean((Boolean) value);
+    }
+
+    @Override
+    Object getDefault() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Value of any type. Objects are read as insertion ordered maps, arrays as
+   * lists, integers as {@link Long} or {@link BigInteger} when they do not
+   * fit, and other numbers as {@link BigDecimal}.
+   */
+  static final class AnyCodec extends ValueCodec {
+    static final AnyCodec INSTANCE = new AnyCodec();
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      switch (parser.getCurrentToken()) {
+        case START_OBJECT:
+          Map<String, Object> map = Maps.newLinkedHashMap();
+          while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            map.put(name, readNullable(parser));
+          }
+          return map;
+        case START_ARRAY:
+          List<Object> list = Lists.newArrayList();
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(readNullable(parser));
+          }
+          return list;
+        case VALUE_STRING:
+          return parser.getText();
+        case VALUE_NUMBER_INT:
+          BigInteger integer = parser.getBigIntegerValue();
+          return integer.bitLength() < 64 ? (Object) integer.longValue() : (Object) integer;
+        case VALUE_NUMBER_FLOAT:
+          return parser.getDecimalValue();
+        case VALUE_TRUE:
+          return Boolean.TRUE;
+        case VALUE_FALSE:
+          return Boolean.FALSE;
+        default:
+          throw mismatch("a value", parser);
+      }
+    }
+
+    @Override
+    void write(JsonGenerator generator, Object value) throws IOException {
+      if (value instanceof Map<?, ?>) {
+        generator.writeStartObject();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          generator.writeFieldName(entry.getKey().toString());
+          writeNullable(generator, entry.getValue());
+        }
+        generator.writeEndObject();
+      } else if (value instanceof Iterable<?>) {
+        generator.writeStartArray();
+        for (Object element : (Iterable<?>) value) {
+          writeNullable(generator, element);
+        }
+        generator.writeEndArray();
+      } else if (value instanceof Boolean) {
+        generator.writeBoolean((Boolean) value);
+      } else if (value instanceof BigDecimal) {
+        generator.writeNumber((BigDecimal) value);
+      } else if (value instanceof BigInteger) {
+        generator.writeNumber((BigInteger) value);
+      } else if (value instanceof Double || value instanceof Float) {
+        generator.writeNumber(((Number) value).doubleValue());
+      } else if (value instanceof Number) {
+        generator.writeNumber(((Number) value).longValue());
+      } else if (value instanceof DateTime) {
+        generator.writeString(((DateTime) value).toStringRfc3339());
+      } else if (value instanceof byte[]) {
+        generator.writeString(Base64.encode((byte[]) value));
+      } else {
+        generator.writeString(value.toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codegen;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates Java model classes for the named object schemas of a discovery
+ * document. Each class extends {@code GenericJson} and carries {@code @Key}
+ * annotated fields, so it can be parsed and serialized by the JSON library.
+ * 64-bit integers become boxed {@code Long} or {@code BigInteger} fields
+ * annotated with {@code @JsonString} and date-time strings become
+ * {@code DateTime} fields.
+ *
+ * <p>
+ * Generation is incremental. A fingerprint of every schema, covering
+ * everything its generated class depends on, is kept in a manifest file next
+ * to the generated sources. Schemas whose fingerprint is unchanged and whose
+ * file still exists are skipped, classes of schemas which disappeared are
+ * deleted, and everything else is generated in parallel.
+ * </p>
+ */
+public class ModelGenerator {
+  /** Name of the manifest file kept in each generated package directory. */
+  public static final String MANIFEST_FILE_NAME = ".model-manifest.properties";
+
+  private final String javaPackage;
+  private final File packageDirectory;
+  private final ExecutorService executor;
+
+  /**
+   * Summary of a single {@link ModelGenerator#generate} run.
+   */
+  public static class Result {
+    private final List<String> generated;
+    private final List<String> skipped;
+    private final List<String> deleted;
+
+    Result(List<String> generated, List<String> skipped, List<String> deleted) {
+      this.generated = ImmutableList.copyOf(generated);
+      this.skipped = ImmutableList.copyOf(skipped);
+      this.deleted = ImmutableList.copyOf(deleted);
+    }
+
+    /**
+     * Returns the names of the classes which were written.
+     */
+    public List<String> getGenerated() {
+      return generated;
+    }
+
+    /**
+     * Returns the names of the classes which were up to date.
+     */
+    public List<String> getSkipped() {
+      return skipped;
+    }
+
+    /**
+     * Returns the names of the classes which were removed because their
+     * schema no longer exists.
+     */
+    public List<String> getDeleted() {
+      return deleted;
+    }
+  }
+
+  /**
+   * Create an instance which generates on the given executor.
+   *
+   * @param javaPackage Package of the generated classes.
+   * @param sourceDirectory Root source directory; classes are written to the
+   *        sub-directory matching the package.
+   * @param executor Executor on which the classes are generated.
+   */
+  public ModelGenerator(String javaPackage, File sourceDirectory, ExecutorService executor) {
+    this.javaPackage = Preconditions.checkNotNull(javaPackage);
+    this.packageDirectory = new File(
+        Preconditions.checkNotNull(sourceDirectory), javaPackage.replace('.', File.separatorChar));
+    this.executor = executor;
+  }
+
+  /**
+   * Create an instance which generates on a private pool with one thread per
+   * processor for each run.
+   *
+   * @param javaPackage Package of the generated classes.
+   * @param sourceDirectory Root source directory; classes are written to the
+   *        sub-directory matching the package.
+   */
+  public ModelGenerator(String javaPackage, File sourceDirectory) {
+    this(javaPackage, sourceDirectory, null);
+  }
+
+  /**
+   * Bring the generated classes for the API up to date.
+   *
+   * @param discovery API whose schemas should be generated.
+   * @return Which classes were generated, skipped and deleted.
+   */
+  public Result generate(RestDiscovery discovery) throws IOException {
+    final Map<String, DiscoveryType> schemas = discovery.getSchemas();
+    final ModelSource source = new ModelSource(javaPackage, schemas);
+    final Properties manifest = readManifest();
+    final Properties updated = new Properties();
+
+    ExecutorService pool = executor != null ? executor
+        : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try {
+      Map<String, Future<Boolean>> tasks = Maps.newLinkedHashMap();
+      for (final String schemaName : source.getGeneratedSchemaNames()) {
+        tasks.put(source.getClassName(schemaName), pool.submit(new Callable<Boolean>() {
+          public Boolean call() throws IOException {
+            return generateIfChanged(source, schemaName, manifest, updated);
+          }
+        }));
+      }
+
+      List<String> generated = Lists.newArrayList();
+      List<String> skipped = Lists.newArrayList();
+      for (Map.Entry<String, Future<Boolean>> task : tasks.entrySet()) {
+        if (getUninterruptibly(task.getValue())) {
+          generated.add(task.getKey());
+        } else {
+          skipped.add(task.getKey());
+        }
+      }
+
+      List<String> deleted = Lists.newArrayList();
+      for (String className : manifest.stringPropertyNames()) {
+        if (!tasks.containsKey(className)) {
+          new File(packageDirectory, className + ".java").delete();
+          deleted.add(className);
+        }
+      }
+      Collections.sort(deleted);
+
+      writeManifest(updated);
+      return new Result(generated, skipped, deleted);
+    } finally {
+      if (pool != executor) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private boolean generateIfChanged(
+      ModelSource source, String schemaName, Properties manifest, Properties updated)
+      throws IOException {
+    String className = source.getClassName(schemaName);
+    String fingerprint = source.fingerprint(schemaName);
+    updated.setProperty(className, fingerprint);
+
+    File file = new File(packageDirectory, className + ".java");
+    if (fingerprint.equals(manifest.getProperty(className)) && file.exists()) {
+      return false;
+    }
+
+    Files.createParentDirs(file);
+    Files.write(source.generate(schemaName), file, Charsets.UTF_8);
+    return true;
+  }
+
+  private Properties readManifest() throws IOException {
+    Properties manifest = new Properties();
+    File file = new File(packageDirectory, MANIFEST_FILE_NAME);
+    if (file.exists()) {
+      InputStream in = new FileInputStream(file);
+      try {
+        manifest.load(in);
+      } finally {
+        in.close();
+      }
+    }
+    return manifest;
+  }
+
+  private void writeManifest(Properties manifest) throws IOException {
+    File file = new File(packageDirectory, MANIFEST_FILE_NAME);
+    File temp = new File(packageDirectory, MANIFEST_FILE_NAME + ".tmp");
+    Files.createParentDirs(temp);
+    OutputStream out = new FileOutputStream(temp);
+    try {
+      manifest.store(out, "Schema fingerprints of the generated model classes");
+    } finally {
+      out.close();
+    }
+    if (!temp.renameTo(file)) {
+      // Some platforms refuse to rename over an existing file
+      file.delete();
+      Files.move(temp, file);
+    }
+  }
+
+  private static <T> T getUninterruptibly(Future<T> future) throws IOException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          } else if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          throw new IOException(e.getCause());
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codegen;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.discovery.types.DiscoveryType.BaseType;
+import com.google.api.client.discovery.types.IntegerType;
+import com.google.api.client.discovery.types.NumberType;
+import com.google.api.client.discovery.types.ObjectType;
+import com.google.api.client.discovery.types.StringType;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Produces the Java source and the fingerprint of the model class for each
+ * named object schema of one discovery document. Instances are immutable and
+ * may be used from several threads at once.
+ *
+ * <p>
+ * Types map as follows: {@code string} to {@code String}, except that the
+ * {@code int64} and {@code uint64} formats become {@code Long} and
+ * {@code BigInteger} carried as JSON strings and {@code date-time} becomes
+ * {@code DateTime}; {@code integer} to {@code Integer}, or {@code Long} for
+ * {@code uint32}; {@code number} to {@code Double}, or {@code Float} for
+ * {@code float}; {@code boolean} to {@code Boolean}; {@code array} to
+ * {@code List}; objects with only additional properties to {@code Map}, named
+ * objects to their model class and anonymous objects to nested classes;
+ * everything else to {@code Object}.
+ * </p>
+ */
+final class ModelSource {
+  /** Bump whenever the generated output changes for the same input. */
+  private static final String GENERATOR_VERSION = "1";
+
+  private static final String GENERIC_JSON = "com.google.api.client.json.GenericJson";
+  private static final String KEY = "com.google.api.client.util.Key";
+  private static final String JSON_STRING = "com.google.api.client.json.JsonString";
+  private static final String DATE_TIME = "com.google.api.client.util.DateTime";
+  private static final String BIG_INTEGER = "java.math.BigInteger";
+  private static final String LIST = "java.util.List";
+  private static final String MAP = "java.util.Map";
+
+  /** Implicitly imported types which a class in the same package would shadow. */
+  private static final Set<String> JAVA_LANG_NAMES =
+      ImmutableSet.of("Boolean", "Double", "Float", "Integer", "Long", "Object", "String");
+
+  private static final Set<String> RESERVED_WORDS = ImmutableSet.of("abstract", "assert",
+      "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+      "default", "do", "double", "else", "enum", "extends", "false", "final", "finally", "float",
+      "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long",
+      "native", "new", "null", "package", "private", "protected", "public", "return", "short",
+      "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws",
+      "transient", "true", "try", "void", "volatile", "while");
+
+  private final String javaPackage;
+  private final Map<String, DiscoveryType> schemas;
+  private final Map<String, String> classNames;
+  private final Set<String> shadowedJavaLangNames;
+
+  /**
+   * Create an instance.
+   *
+   * @param javaPackage Package of the generated classes.
+   * @param schemas Named top level schemas of the document.
+   */
+  ModelSource(String javaPackage, Map<String, DiscoveryType> schemas) {
+    this.javaPackage = javaPackage;
+    this.schemas = ImmutableMap.copyOf(schemas);
+
+    Map<String, String> names = Maps.newLinkedHashMap();
+    Set<String> used = Sets.newHashSet();
+    for (Map.Entry<String, DiscoveryType> schema : this.schemas.entrySet()) {
+      if (schema.getValue().getBaseType() == BaseType.OBJECT) {
+        names.put(schema.getKey(), unique(toClassName(schema.getKey()), used));
+      }
+    }
+    this.classNames = ImmutableMap.copyOf(names);
+    this.shadowedJavaLangNames =
+        ImmutableSet.copyOf(Sets.intersection(JAVA_LANG_NAMES, used));
+  }
+
+  /**
+   * Returns the names of the schemas for which a class is generated.
+   */
+  List<String> getGeneratedSchemaNames() {
+    return ImmutableList.copyOf(classNames.keySet());
+  }
+
+  /**
+   * Returns the name of the class generated for the schema.
+   */
+  String getClassName(String schemaName) {
+    return classNames.get(schemaName);
+  }
+
+  /**
+   * Returns a SHA-256 digest, in hex, of everything the generated class of
+   * the schema depends on: its own definition, the class names of the schemas
+   * it refers to and the generator settings.
+   */
+  String fingerprint(String schemaName) {
+    StringBuilder description = new StringBuilder();
+    description.append(GENERATOR_VERSION).append('|').append(javaPackage).append('|')
+        .append(classNames.get(schemaName)).append('|').append(shadowedJavaLangNames);
+    describe(description, schemas.get(schemaName), true, Sets.<String>newHashSet());
+
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(description.toString().getBytes(Charsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the full source of the class generated for the schema.
+   */
+  String generate(String schemaName) {
+    String className = classNames.get(schemaName);
+    DiscoveryType schema = schemas.get(schemaName);
+
+    FileContext file = new FileContext();
+    for (String name : shadowedJavaLangNames) {
+      file.claim(name, javaPackage + "." + name);
+    }
+    file.claim(className, javaPackage + "." + className);
+
+    StringBuilder body = new StringBuilder();
+    writeClass(body, file, className, schema.getObject(), "", true);
+
+    StringBuilder source = new StringBuilder();
+    source.append("/*\n * Generated from the \"").append(schemaName)
+        .append("\" discovery schema. Do not edit.\n */\n\n");
+    source.append("package ").append(javaPackage).append(";\n\n");
+    for (String qualifiedName : new TreeSet<String>(file.imports)) {
+      source.append("import ").append(qualifiedName).append(";\n");
+    }
+    if (!file.imports.isEmpty()) {
+      source.append('\n');
+    }
+    source.append(body);
+    return source.toString();
+  }
+
+  private void describe(
+      StringBuilder out, DiscoveryType type, boolean classRoot, Set<String> expanding) {
+    String id = type.getId();
+    if (!classRoot && id != null && classNames.containsKey(id)) {
+      out.append("{ref:").append(classNames.get(id)).append('}');
+      return;
+    }
+    if (id != null && schemas.containsKey(id) && !classNames.containsKey(id)
+        && !expanding.add(id)) {
+      out.append("{cycle}");
+      return;
+    }
+
+    out.append('{').append(type.getBaseType()).append(':').append(formatOf(type))
+        .append(':').append(type.getDescription());
+    if (type.getBaseType() == BaseType.OBJECT) {
+      ObjectType object = type.getObject();
+      if (object.getProperties() != null) {
+        for (Map.Entry<String, DiscoveryType> property : object.getProperties().entrySet()) {
+          out.append(property.getKey().length()).append(':').append(property.getKey());
+          describe(out, property.getValue(), false, expanding);
+        }
+      }
+      if (object.getAdditionalPropertyType() != null) {
+        out.append("additional");
+        describe(out, object.getAdditionalPropertyType(), false, expanding);
+      }
+    } else if (type.getBaseType() == BaseType.ARRAY) {
+      describe(out, type.getArray().getElementType(), false, expanding);
+    }
+    out.append('}');
+
+    if (id != null) {
+      expanding.remove(id);
+    }
+  }
+
+  private static Object formatOf(DiscoveryType type) {
+    switch (type.getBaseType()) {
+      case STRING:
+        return type.getString().getFormat();
+      case INTEGER:
+        return type.getInteger().getFormat();
+      case NUMBER:
+        return type.getNumber().getFormat();
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * A field of a class being generated.
+   */
+  private static class Field {
+    final String jsonName;
+    final String name;
+    final String javaType;
+    final boolean jsonString;
+    final String description;
+
+    Field(String jsonName, String name, String javaType, boolean jsonString, String description) {
+      this.jsonName = jsonName;
+      this.name = name;
+      this.javaType = javaType;
+      this.jsonString = jsonString;
+      this.description = description;
+    }
+  }
+
+  /**
+   * An anonymous object type which becomes a nested class.
+   */
+  private static class NestedClass {
+    final String name;
+    final ObjectType type;
+
+    NestedClass(String name, ObjectType type) {
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  /**
+   * Tracks the imports of a single source file and which simple names are
+   * already taken, either by an import or by a class declared in the file.
+   */
+  private class FileContext {
+    final Set<String> imports = Sets.newHashSet();
+    final Map<String, String> claimedNames = Maps.newHashMap();
+
+    void claim(String simpleName, String owner) {
+      claimedNames.put(simpleName, owner);
+    }
+
+    /**
+     * Returns how the type should be written in this file, adding an import
+     * when needed.
+     */
+    String reference(String qualifiedName) {
+      String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+      String owner = claimedNames.get(simpleName);
+      if (owner == null) {
+        claimedNames.put(simpleName, qualifiedName);
+        String typePackage = qualifiedName.substring(0, qualifiedName.lastIndexOf('.'));
+        if (!typePackage.equals("java.lang") && !typePackage.equals(javaPackage)) {
+          imports.add(qualifiedName);
+        }
+        return simpleName;
+      }
+      return owner.equals(qualifiedName) ? simpleName : qualifiedName;
+    }
+
+    /**
+     * Returns a name for a nested class which does not hide any other type
+     * used in this file.
+     */
+    String nestedClassName(String baseName) {
+      String name = baseName;
+      for (int i = 2; claimedNames.containsKey(name); i++) {
+        name = baseName + i;
+      }
+      claimedNames.put(name, name);
+      return name;
+    }
+  }
+
+  private void writeClass(StringBuilder out, FileContext file, String className,
+      ObjectType type, String indent, boolean topLevel) {
+    List<NestedClass> nestedClasses = Lists.newArrayList();
+    List<Field> fields = Lists.newArrayList();
+    Set<String> fieldNames = Sets.newHashSet();
+    if (type.getProperties() != null) {
+      for (Map.Entry<String, DiscoveryType> property : type.getProperties().entrySet()) {
+        DiscoveryType propertyType = property.getValue();
+        String fieldName = unique(toFieldName(property.getKey()), fieldNames);
+        String javaType = javaType(file, propertyType, toClassName(property.getKey()),
+            nestedClasses, Sets.<String>newHashSet());
+        fields.add(new Field(property.getKey(), fieldName, javaType, isJsonString(propertyType),
+            propertyType.getDescription()));
+      }
+    }
+
+    writeJavadoc(out, indent, type.getDescription());
+    out.append(indent).append(topLevel ? "public final class " : "public static final class ")
+        .append(className).append(" extends ").append(file.reference(GENERIC_JSON))
+        .append(" {\n");
+
+    String member = indent + "  ";
+    for (Field field : fields) {
+      out.append('\n');
+      writeJavadoc(out, member, field.description);
+      out.append(member).append('@').append(file.reference(KEY)).append("(\"")
+          .append(escapeJava(field.jsonName)).append("\")\n");
+      if (field.jsonString) {
+        out.append(member).append('@').append(file.reference(JSON_STRING)).append('\n');
+      }
+      out.append(member).append("private ").append(field.javaType).append(' ')
+          .append(field.name).append(";\n");
+    }
+
+    for (Field field : fields) {
+      String accessorSuffix = Character.toUpperCase(field.name.charAt(0)) + field.name.substring(1);
+      out.append('\n');
+      out.append(member).append("public ").append(field.javaType).append(" get")
+          .append(accessorSuffix).append("() {\n");
+      out.append(member).append("  return ").append(field.name).append(";\n");
+      out.append(member).append("}\n\n");
+      out.append(member).append("public ").append(className).append(" set")
+          .append(accessorSuffix).append('(').append(field.javaType).append(' ')
+          .append(field.name).append(") {\n");
+      out.append(member).append("  this.").append(field.name).append(" = ").append(field.name)
+          .append(";\n");
+      out.append(member).append("  return this;\n");
+      out.append(member).append("}\n");
+    }
+
+    for (NestedClass nested : nestedClasses) {
+      out.append('\n');
+      writeClass(out, file, nested.name, nested.type, member, false);
+    }
+    out.append(indent).append("}\n");
+  }
+
+  /**
+   * Returns the Java type for a discovery type. Anonymous object types are
+   * added to the list of nested classes to generate.
+   */
+  private String javaType(FileContext file, DiscoveryType type, String nestedName,
+      List<NestedClass> nestedClasses, Set<String> expanding) {
+    String id = type.getId();
+    if (id != null && classNames.containsKey(id)) {
+      return file.reference(javaPackage + "." + classNames.get(id));
+    }
+    if (id != null && schemas.containsKey(id) && !expanding.add(id)) {
+      // A named non-object schema which contains itself
+      return file.reference("java.lang.Object");
+    }
+
+    switch (type.getBaseType()) {
+      case STRING:
+        StringType.Format stringFormat = type.getString().getFormat();
+        if (stringFormat == StringType.Format.INT64) {
+          return file.reference("java.lang.Long");
+        } else if (stringFormat == StringType.Format.UINT64) {
+          return file.reference(BIG_INTEGER);
+        } else if (stringFormat == StringType.Format.DATE_TIME) {
+          return file.reference(DATE_TIME);
+        }
+        return file.reference("java.lang.String");
+      case INTEGER:
+        return type.getInteger().getFormat() == IntegerType.Format.UINT32
+            ? file.reference("java.lang.Long") : file.reference("java.lang.Integer");
+      case NUMBER:
+        return type.getNumber().getFormat() == NumberType.Format.FLOAT
+            ? file.reference("java.lang.Float") : file.reference("java.lang.Double");
+      case BOOLEAN:
+        return file.reference("java.lang.Boolean");
+      case ARRAY:
+        String elementType = javaType(
+            file, type.getArray().getElementType(), nestedName, nestedClasses, expanding);
+        return file.reference(LIST) + '<' + elementType + '>';
+      case OBJECT:
+        ObjectType object = type.getObject();
+        if (object.getProperties() == null) {
+          DiscoveryType valueType = object.getAdditionalPropertyType();
+          String valueJavaType = valueType == null ? file.reference("java.lang.Object")
+              : javaType(file, valueType, nestedName, nestedClasses, expanding);
+          return file.reference(MAP) + '<' + file.reference("java.lang.String") + ", "
+              + valueJavaType + '>';
+        }
+        String name = file.nestedClassName(nestedName);
+        nestedClasses.add(new NestedClass(name, object));
+        return name;
+      default:
+        return file.reference("java.lang.Object");
+    }
+  }
+
+  /**
+   * Returns whether values of the type are 64-bit integers carried as JSON
+   * strings, either directly or as the elements of a list or map.
+   */
+  private boolean isJsonString(DiscoveryType type) {
+    switch (type.getBaseType()) {
+      case STRING:
+        StringType.Format format = type.getString().getFormat();
+        return format == StringType.Format.INT64 || format == StringType.Format.UINT64;
+      case ARRAY:
+        return isJsonString(type.getArray().getElementType());
+      case OBJECT:
+        ObjectType object = type.getObject();
+        return object.getProperties() == null && object.getAdditionalPropertyType() != null
+            && isJsonString(object.getAdditionalPropertyType());
+      default:
+        return false;
+    }
+  }
+
+  private static void writeJavadoc(StringBuilder out, String indent, String description) {
+    if (description == null || description.length() == 0) {
+      return;
+    }
+    out.append(indent).append("/**\n");
+    for (String line : description.replace("*/", "*&#47;").split("\n")) {
+      out.append(indent).append(" * ").append(line.trim()).append('\n');
+    }
+    out.append(indent).append(" */\n");
+  }
+
+  private static String escapeJava(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Returns an upper camel case identifier derived from the name.
+   */
+  static String toClassName(String name) {
+    StringBuilder identifier = new StringBuilder();
+    boolean upperNext = true;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!Character.isJavaIdentifierPart(c) || c == '$' || c == '_') {
+        upperNext = true;
+      } else {
+        identifier.append(upperNext ? Character.toUpperCase(c) : c);
+        upperNext = false;
+      }
+    }
+    if (identifier.length() == 0 || !Character.isJavaIdentifierStart(identifier.charAt(0))) {
+      identifier.insert(0, "Schema");
+    }
+    return identifier.toString();
+  }
+
+  /**
+   * Returns a lower camel case identifier derived from the JSON key, which is
+   * prefixed with {@code discovery} if it would be a reserved word.
+   */
+  static String toFieldName(String jsonName) {
+    String className = toClassName(jsonName);
+    String fieldName = Character.toLowerCase(className.charAt(0)) + className.substring(1);
+    if (RESERVED_WORDS.contains(fieldName)) {
+      return "discovery" + className;
+    }
+    return fieldName;
+  }
+
+  private static String unique(String name, Set<String> used) {
+    String candidate = name;
+    for (int i = 2; !used.add(candidate); i++) {
+      candidate = name + i;
+    }
+    return candidate;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.export;
+
+import com.google.api.client.discovery.DiscoveryParser;
+import com.google.api.client.discovery.DiscoverySource;
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.json.JsonEncoding;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.services.discovery.model.DirectoryList;
+import com.google.api.services.discovery.model.DirectoryListItems;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Converts discovery documents to another format. The output is written
+ * straight to a {@link JsonGenerator} while the document is walked, without
+ * building an intermediate tree, so only the document being converted is
+ * held in memory.
+ */
+public abstract class DiscoveryExporter {
+
+  /**
+   * Write a document in the target format.
+   *
+   * @param discovery Document to convert.
+   * @param generator Generator to write to, which is flushed but not closed.
+   */
+  public abstract void export(RestDiscovery discovery, JsonGenerator generator)
+      throws IOException;
+
+  /**
+   * Returns the extension of the files written by
+   * {@link #exportDirectory}, such as {@code ".json"}.
+   */
+  protected abstract String getFileExtension();
+
+  /**
+   * Write a document in the target format as UTF-8.
+   *
+   * @param discovery Document to convert.
+   * @param jsonFactory Factory of the generator.
+   * @param out Stream to write to, which is flushed but not closed.
+   */
+  public void export(RestDiscovery discovery, JsonFactory jsonFactory, OutputStream out)
+      throws IOException {
+    JsonGenerator generator = jsonFactory.createJsonGenerator(out, JsonEncoding.UTF8);
+    export(discovery, generator);
+  }
+
+  /**
+   * Convert every API listed in a directory, one at a time, into a file
+   * named {@code <api>-<version>} plus the file extension.
+   *
+   * @param source Source of the directory and the documents.
+   * @param parser Parser for the documents.
+   * @param jsonFactory Factory of the generators.
+   * @param outputDirectory Existing directory to write the files to.
+   * @return The files written, in directory order.
+   */
+  public List<File> exportDirectory(DiscoverySource source, DiscoveryParser parser,
+      JsonFactory jsonFactory, File outputDirectory) throws IOException {
+    Preconditions.checkArgument(outputDirectory.isDirectory(), "Not a directory: %s",
+        outputDirectory);
+    InputStream directoryContent = source.openDirectory();
+    DirectoryList directory;
+    try {
+      directory = parser.parseDirectoryList(directoryContent);
+    } finally {
+      directoryContent.close();
+    }
+    if (directory.getItems() == null) {
+      return ImmutableList.of();
+    }
+
+    List<File> files = Lists.newArrayList();
+    for (DirectoryListItems item : directory.getItems()) {
+      InputStream content = source.openRestDescription(item.getName(), item.getVersion());
+      RestDiscovery discovery;
+      try {
+        discovery = new RestDiscovery(parser.parseRestDescription(content));
+      } finally {
+        content.close();
+      }
+
+      File file = new File(
+          outputDirectory, item.getName() + "-" + item.getVersion() + getFileExtension());
+      OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+      try {
+        export(discovery, jsonFactory, out);
+      } finally {
+        out.close();
+      }
+      files.add(file);
+    }
+    return files;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.export;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.json.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Exports the schemas of a discovery document as a JSON Schema (draft
+ * 2020-12) document, which defines every named schema under {@code $defs}.
+ */
+public class JsonSchemaExporter extends DiscoveryExporter {
+  /** Meta-schema of the exported documents. */
+  public static final String SCHEMA_URI = "https://json-schema.org/draft/2020-12/schema";
+
+  @Override
+  public void export(RestDiscovery discovery, JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeFieldName("$schema");
+    generator.writeString(SCHEMA_URI);
+    if (discovery.getTitle() != null) {
+      generator.writeFieldName("title");
+      generator.writeString(discovery.getTitle());
+    }
+    if (discovery.getDescription() != null) {
+      generator.writeFieldName("description");
+      generator.writeString(discovery.getDescription());
+    }
+    generator.writeFieldName("$defs");
+    new SchemaWriter(generator, "#/$defs/").writeDefinitions(discovery.getSchemas());
+    generator.writeEndObject();
+    generator.flush();
+  }
+
+  @Override
+  protected String getFileExtension() {
+    return ".schema.json";
+  }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.export;
+
+import com.google.api.client.discovery.OAuth2Scope;
+import com.google.api.client.discovery.ParameterTable;
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestMethod;
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.RestMethod.ParameterLocation;
+import com.google.api.client.discovery.RestResource;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.json.JsonGenerator;
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports a discovery document as an OpenAPI 3.1 document.
+ *
+ * <p>
+ * Every method becomes an operation, tagged with the name of its top level
+ * resource, under its path relative to the base path, which becomes the
+ * server url. Named schemas become component schemas, API wide parameters
+ * become component parameters which every operation references, and the
+ * OAuth 2.0 scopes become an authorization code security scheme.
+ * </p>
+ */
+public class OpenApiExporter extends DiscoveryExporter {
+  /** Version of the OpenAPI specification of the exported documents. */
+  public static final String OPENAPI_VERSION = "3.1.0";
+
+  private static final String SECURITY_SCHEME = "oauth2";
+  private static final String AUTHORIZATION_URL = "https://accounts.google.com/o/oauth2/auth";
+  private static final String TOKEN_URL = "https://accounts.google.com/o/oauth2/token";
+  private static final String MEDIA_TYPE = "application/json";
+
+  /**
+   * A method together with the tag of its operation.
+   */
+  private static class Operation {
+    final String tag;
+    final RestMethod method;
+
+    Operation(String tag, RestMethod method) {
+      this.tag = tag;
+      this.method = method;
+    }
+  }
+
+  @Override
+  public void export(RestDiscovery discovery, JsonGenerator generator) throws IOException {
+    Map<String, DiscoveryType> schemas = discovery.getSchemas();
+    SchemaWriter schemaWriter = new SchemaWriter(generator, "#/components/schemas/");
+
+    generator.writeStartObject();
+    writeField(generator, "openapi", OPENAPI_VERSION);
+    generator.writeFieldName("info");
+    generator.writeStartObject();
+    // Both the title and the version are required
+    writeField(generator, "title", Objects.firstNonNull(discovery.getTitle(),
+        Strings.nullToEmpty(discovery.getName())));
+    writeField(generator, "version", Strings.nullToEmpty(discovery.getVersion()));
+    writeField(generator, "description", discovery.getDescription());
+    generator.writeEndObject();
+
+    // An empty server url is the default, the root of the host
+    String serverUrl = toServerUrl(Strings.nullToEmpty(discovery.getBasePath()));
+    if (!serverUrl.isEmpty()) {
+      generator.writeFieldName("servers");
+      generator.writeStartArray();
+      generator.writeStartObject();
+      writeField(generator, "url", serverUrl);
+      generator.writeEndObject();
+      generator.writeEndArray();
+    }
+
+    // Operations must be grouped by path, so only the methods are collected
+    Map<String, List<Operation>> paths = Maps.newLinkedHashMap();
+    collect(paths, null, discovery.getMethods());
+    collectResources(paths, null, discovery.getResources());
+    boolean secured = !discovery.getOAuth2Scopes().isEmpty();
+    generator.writeFieldName("paths");
+    generator.writeStartObject();
+    for (Map.Entry<String, List<Operation>> path : paths.entrySet()) {
+      generator.writeFieldName(path.getKey());
+      generator.writeStartObject();
+      for (Operation operation : path.getValue()) {
+        writeOperation(generator, schemaWriter, discovery, operation, secured);
+      }
+      generator.writeEndObject();
+    }
+    generator.writeEndObject();
+
+    generator.writeFieldName("components");
+    generator.writeStartObject();
+    generator.writeFieldName("schemas");
+    schemaWriter.writeDefinitions(schemas);
+    if (!discovery.getParameters().isEmpty()) {
+      generator.writeFieldName("parameters");
+      generator.writeStartObject();
+      for (Map.Entry<String, DiscoveryType> parameter : discovery.getParameters().entrySet()) {
+        generator.writeFieldName(parameter.getKey());
+        writeParameter(generator, schemaWriter, parameter.getKey(), ParameterLocation.QUERY,
+            false, parameter.getValue(), false);
+      }
+      generator.writeEndObject();
+    }
+    if (secured) {
+      writeSecuritySchemes(generator, discovery.getOAuth2Scopes());
+    }
+    generator.writeEndObject();
+
+    generator.writeEndObject();
+    generator.flush();
+  }
+
+  @Override
+  protected String getFileExtension() {
+    return ".openapi.json";
+  }
+
+  private static void collectResources(
+      Map<String, List<Operation>> paths, String tag, Map<String, RestResource> resources) {
+    for (Map.Entry<String, RestResource> resource : resources.entrySet()) {
+      String resourceTag = tag != null ? tag : resource.getKey();
+      collect(paths, resourceTag, resource.getValue().getMethods());
+      collectResources(paths, resourceTag, resource.getValue().getResources());
+    }
+  }
+
+  private static void collect(
+      Map<String, List<Operation>> paths, String tag, Map<String, RestMethod> methods) {
+    for (RestMethod method : methods.values()) {
+      String path = toOpenApiPath(method.getPath());
+      List<Operation> operations = paths.get(path);
+      if (operations == null) {
+        operations = Lists.newArrayList();
+        paths.put(path, operations);
+      }
+      operations.add(new Operation(tag, method));
+    }
+  }
+
+  /**
+   * Convert a base path to a server url. Every path starts with a slash, so
+   * the trailing slash of the base path is dropped.
+   */
+  static String toServerUrl(String basePath) {
+    return basePath.endsWith("/") ? basePath.substring(0, basePath.length() - 1) : basePath;
+  }
+
+  /**
+   * Convert a discovery path template, which may contain reserved expansions
+   * such as {@code {+name}}, to an absolute OpenAPI path template.
+   */
+  static String toOpenApiPath(String path) {
+    String converted = path.replace("{+", "{");
+    return converted.startsWith("/") ? converted : "/" + converted;
+  }
+
+  private static void writeOperation(JsonGenerator generator, SchemaWriter schemaWriter,
+      RestDiscovery discovery, Operation operation, boolean secured) throws IOException {
+    RestMethod method = operation.method;
+    generator.writeFieldName(method.getHttpMethod().toLowerCase());
+    generator.writeStartObject();
+    writeField(generator, "operationId", method.getId());
+    if (operation.tag != null) {
+      generator.writeFieldName("tags");
+      generator.writeStartArray();
+      generator.writeString(operation.tag);
+      generator.writeEndArray();
+    }
+    writeField(generator, "description", method.getDescription());
+
+    ParameterTable table = method.getParameterTable();
+    if (!table.getParameters().isEmpty() || !discovery.getParameters().isEmpty()) {
+      generator.writeFieldName("parameters");
+      generator.writeStartArray();
+      for (Parameter parameter : table.getParameters()) {
+        ParameterLocation location = parameter.getLocation() != null
+            ? parameter.getLocation() : ParameterLocation.QUERY;
+        writeParameter(generator, schemaWriter, parameter.getName(), location,
+            table.getRequired().contains(parameter), parameter.getType(),
+            Boolean.TRUE.equals(parameter.isRepeated()));
+      }
+      for (String name : discovery.getParameters().keySet()) {
+        generator.writeStartObject();
+        writeField(generator, "$ref", "#/components/parameters/" + name);
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    }
+
+    if (method.getRequest() != null) {
+      generator.writeFieldName("requestBody");
+      generator.writeStartObject();
+      generator.writeFieldName("required");
+      generator.writeBoolean(true);
+      writeContent(generator, schemaWriter, method.getRequest());
+      generator.writeEndObject();
+    }
+
+    generator.writeFieldName("responses");
+    generator.writeStartObject();
+    generator.writeFieldName("200");
+    generator.writeStartObject();
+    writeField(generator, "description", "Successful response");
+    if (method.getResponse() != null) {
+      writeContent(generator, schemaWriter, method.getResponse());
+    }
+    generator.writeEndObject();
+    generator.writeEndObject();
+
+    if (secured && method.getScopes() != null) {
+      generator.writeFieldName("security");
+      generator.writeStartArray();
+      generator.writeStartObject();
+      generator.writeFieldName(SECURITY_SCHEME);
+      generator.writeStartArray();
+      for (String scope : method.getScopes()) {
+        generator.writeString(scope);
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.writeEndArray();
+    }
+    generator.writeEndObject();
+  }
+
+  private static void writeParameter(JsonGenerator generator, SchemaWriter schemaWriter,
+      String name, ParameterLocation location, boolean required, DiscoveryType type,
+      boolean repeated) throws IOException {
+    generator.writeStartObject();
+    writeField(generator, "name", name);
+    writeField(generator, "in", location.name().toLowerCase());
+    // OpenAPI requires path parameters to be marked as required
+    if (required || location == ParameterLocation.PATH) {
+      generator.writeFieldName("required");
+      generator.writeBoolean(true);
+    }
+    writeField(generator, "description", type.getDescription());
+    generator.writeFieldName("schema");
+    schemaWriter.write(type, repeated);
+    generator.writeEndObject();
+  }
+
+  private static void writeContent(
+      JsonGenerator generator, SchemaWriter schemaWriter, DiscoveryType type) throws IOException {
+    generator.writeFieldName("content");
+    generator.writeStartObject();
+    generator.writeFieldName(MEDIA_TYPE);
+    generator.writeStartObject();
+    generator.writeFieldName("schema");
+    schemaWriter.write(type);
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  private static void writeSecuritySchemes(
+      JsonGenerator generator, Map<String, OAuth2Scope> scopes) throws IOException {
+    generator.writeFieldName("securitySchemes");
+    generator.writeStartObject();
+    generator.writeFieldName(SECURITY_SCHEME);
+    generator.writeStartObject();
+    writeField(generator, "type", "oauth2");
+    generator.writeFieldName("flows");
+    generator.writeStartObject();
+    generator.writeFieldName("authorizationCode");
+    generator.writeStartObject();
+    writeField(generator, "authorizationUrl", AUTHORIZATION_URL);
+    writeField(generator, "tokenUrl", TOKEN_URL);
+    generator.writeFieldName("scopes");
+    generator.writeStartObject();
+    for (OAuth2Scope scope : scopes.values()) {
+      writeField(generator, scope.getScopeName(),
+          scope.getDescription() != null ? scope.getDescription() : "");
+    }
+    generator.writeEndObject();
+    generator.writeEndObject();
+    generator.writeEndObject();
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write a string field, unless the value is {@code null}.
+   */
+  private static void writeField(JsonGenerator generator, String name, String value)
+      throws IOException {
+    if (value != null) {
+      generator.writeFieldName(name);
+      generator.writeString(value);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.export;
+
+import com.google.api.client.discovery.types.ArrayType;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.discovery.types.IntegerType;
+import com.google.api.client.discovery.types.NumberType;
+import com.google.api.client.discovery.types.ObjectType;
+import com.google.api.client.discovery.types.StringType;
+import com.google.api.client.json.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes {@link DiscoveryType}s as JSON Schema (draft 2020-12, which is also
+ * the schema dialect of OpenAPI 3.1) straight to a {@link JsonGenerator}.
+ * Types which are named top level schemas are written as references to their
+ * {@link DiscoveryType#getSchemaName() schema name}, except where they are
+ * defined, so recursive schemas terminate whether or not they have an id.
+ */
+final class SchemaWriter {
+  private final JsonGenerator generator;
+  private final String referencePrefix;
+
+  /**
+   * Create an instance.
+   *
+   * @param generator Generator to write to.
+   * @param referencePrefix Prefix of the references to named schemas, such as
+   *        {@code "#/$defs/"}.
+   */
+  SchemaWriter(JsonGenerator generator, String referencePrefix) {
+    this.generator = generator;
+    this.referencePrefix = referencePrefix;
+  }
+
+  /**
+   * Write an object with the definition of each named schema.
+   */
+  void writeDefinitions(Map<String, DiscoveryType> schemas) throws IOException {
+    generator.writeStartObject();
+    for (Map.Entry<String, DiscoveryType> schema : schemas.entrySet()) {
+      generator.writeFieldName(schema.getKey());
+      writeDefinition(schema.getValue());
+    }
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write a type, as a reference if it is a named schema.
+   */
+  void write(DiscoveryType type) throws IOException {
+    String name = type.getSchemaName();
+    if (name != null) {
+      generator.writeStartObject();
+      generator.writeFieldName("$ref");
+      generator.writeString(referencePrefix + name);
+      generator.writeEndObject();
+    } else {
+      writeDefinition(type);
+    }
+  }
+
+  /**
+   * Write a type, or an array of the type if it is repeated.
+   */
+  void write(DiscoveryType type, boolean repeated) throws IOException {
+    if (!repeated) {
+      write(type);
+      return;
+    }
+    generator.writeStartObject();
+    writeField("type", "array");
+    generator.writeFieldName("items");
+    write(type);
+    generator.writeEndObject();
+  }
+
+  private void writeDefinition(DiscoveryType type) throws IOException {
+    generator.writeStartObject();
+    switch (type.getBaseType()) {
+      case STRING:
+        writeString(type.getString());
+        break;
+      case INTEGER:
+        writeInteger(type.getInteger());
+        break;
+      case NUMBER:
+        writeNumber(type.getNumber());
+        break;
+      case BOOLEAN:
+        writeField("type", "boolean");
+        if (type.getBoolean().getDefault() != null) {
+          generator.writeFieldName("default");
+          generator.writeBoolean(type.getBoolean().getDefault());
+        }
+        break;
+      case OBJECT:
+        writeObject(type.getObject());
+        break;
+      case ARRAY:
+        writeArray(type.getArray());
+        break;
+      case NULL:
+        writeField("type", "null");
+        break;
+      case ANY:
+        // Any value is valid against an empty schema
+        break;
+    }
+    writeField("description", type.getDescription());
+    generator.writeEndObject();
+  }
+
+  private void writeString(StringType type) throws IOException {
+    writeField("type", "string");
+    if (type.getFormat() != null) {
+      writeField("format", formatName(type.getFormat()));
+    }
+    writeField("pattern", type.getPattern());
+    if (type.isEnum()) {
+      generator.writeFieldName("enum");
+      generator.writeStartArray();
+      for (String value : type.getEnumValues()) {
+        generator.writeString(value);
+      }
+      generator.writeEndArray();
+    }
+    writeField("default", type.getDefault());
+  }
+
+  private void writeInteger(IntegerType type) throws IOException {
+    writeField("type", "integer");
+    if (type.getFormat() != null) {
+      writeField("format", formatName(type.getFormat()));
+    }
+    if (type.getMinimum() != null) {
+      generator.writeFieldName("minimum");
+      generator.writeNumber(type.getMinimum());
+    }
+    if (type.getMaximum() != null) {
+      generator.writeFieldName("maximum");
+      generator.writeNumber(type.getMaximum());
+    }
+    if (type.getDefault() != null) {
+      generator.writeFieldName("default");
+      generator.writeNumber(type.getDefault());
+    }
+  }
+
+  private void writeNumber(NumberType type) throws IOException {
+    writeField("type", "number");
+    if (type.getFormat() != null) {
+      writeField("format", formatName(type.getFormat()));
+    }
+    if (type.getMinimum() != null) {
+      generator.writeFieldName("minimum");
+      generator.writeNumber(type.getMinimum());
+    }
+    if (type.getMaximum() != null) {
+      generator.writeFieldName("maximum");
+      generator.writeNumber(type.getMaximum());
+    }
+    if (type.getDefault() != null) {
+      generator.writeFieldName("default");
+      generator.writeNumber(type.getDefault());
+    }
+  }
+
+  private void writeObject(ObjectType type) throws IOException {
+    writeField("type", "object");
+    Map<String, DiscoveryType> properties = type.getProperties();
+    if (properties != null) {
+      generator.writeFieldName("properties");
+      generator.writeStartObject();
+      boolean anyRequired = false;
+      for (Map.Entry<String, DiscoveryType> property : properties.entrySet()) {
+        generator.writeFieldName(property.getKey());
+        write(property.getValue());
+        anyRequired |= Boolean.TRUE.equals(property.getValue().getRequired());
+      }
+      generator.writeEndObject();
+
+      if (anyRequired) {
+        generator.writeFieldName("required");
+        generator.writeStartArray();
+        for (Map.Entry<String, DiscoveryType> property : properties.entrySet()) {
+          if (Boolean.TRUE.equals(property.getValue().getRequired())) {
+            generator.writeString(property.getKey());
+          }
+        }
+        generator.writeEndArray();
+      }
+    }
+    DiscoveryType additional = type.getAdditionalPropertyType();
+    if (additional != null) {
+      generator.writeFieldName("additionalProperties");
+      write(additional);
+    }
+  }
+
+  private void writeArray(ArrayType type) throws IOException {
+    writeField("type", "array");
+    if (type.getElementType() != null) {
+      generator.writeFieldName("items");
+      write(type.getElementType());
+    }
+  }
+
+  /**
+   * Write a string field, unless the value is {@code null}.
+   */
+  private void writeField(String name, String value) throws IOException {
+    if (value != null) {
+      generator.writeFieldName(name);
+      generator.writeString(value);
+    }
+  }
+
+  /**
+   * Returns the JSON name of a format constant, such as {@code date-time}.
+   */
+  private static String formatName(Enum<?> format) {
+    return format.name().toLowerCase().replace('_', '-');
+  }
+}
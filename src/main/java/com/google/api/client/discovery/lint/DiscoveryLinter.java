@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.api.client.discovery.DiscoveryParser;
+import com.google.api.client.discovery.DiscoverySource;
+import com.google.api.services.discovery.model.DirectoryList;
+import com.google.api.services.discovery.model.DirectoryListItems;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.api.services.discovery.model.Restmethod;
+import com.google.api.services.discovery.model.Restresource;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks discovery documents against a set of {@link LintRule}s, so that a
+ * broken document can be rejected when it is loaded rather than failing on
+ * first use. Many documents, such as a whole directory, are checked in
+ * parallel, one document per task.
+ *
+ * <p>
+ * Each document is walked once on its wire format, without following
+ * references, and every rule sees every element. Instances are immutable and
+ * safe to share between threads as long as the rules are.
+ * </p>
+ */
+public class DiscoveryLinter {
+  /** Rule name of issues about documents which could not be loaded. */
+  public static final String LOAD_RULE = "load";
+
+  private final ImmutableList<LintRule> rules;
+  private final ExecutorService executor;
+
+  /**
+   * Create an instance which checks the {@link LintRules#defaults()} and
+   * uses a pool with a thread per processor for every batch of documents.
+   */
+  public DiscoveryLinter() {
+    this(LintRules.defaults(), null);
+  }
+
+  /**
+   * Create an instance.
+   *
+   * @param rules Rules to check, in the order their issues are reported for
+   *        each element.
+   * @param executor Executor on which documents are checked, or {@code null}
+   *        to use a pool with a thread per processor for every batch.
+   */
+  public DiscoveryLinter(List<? extends LintRule> rules, ExecutorService executor) {
+    this.rules = ImmutableList.copyOf(rules);
+    this.executor = executor;
+  }
+
+  /**
+   * Check a single document on the calling thread.
+   *
+   * @param document Wire format of the document to check.
+   */
+  public LintReport lint(RestDescription document) {
+    Preconditions.checkNotNull(document);
+    List<LintIssue> issues = Lists.newArrayList();
+    LintContext context = new LintContext(document, issues);
+
+    for (LintRule rule : rules) {
+      context.setRule(rule.getName());
+      try {
+        rule.checkDocument(document, context);
+      } catch (RuntimeException e) {
+        context.error("", "Rule failed: " + e);
+      }
+    }
+    walkMethods("", document.getMethods(), context);
+    walkResources(document.getResources(), context);
+    walkSchemas("parameters", document.getParameters(), context);
+    walkSchemas("schemas", document.getSchemas(), context);
+
+    return new LintReport(documentId(document), issues);
+  }
+
+  /**
+   * Check documents in parallel.
+   *
+   * @param documents Wire format of the documents to check.
+   * @return A report for each document, in the same order.
+   */
+  public List<LintReport> lintAll(List<RestDescription> documents) {
+    List<Callable<LintReport>> tasks = Lists.newArrayListWithCapacity(documents.size());
+    for (final RestDescription document : documents) {
+      tasks.add(new Callable<LintReport>() {
+        public LintReport call() {
+          return lint(document);
+        }
+      });
+    }
+    return runAll(tasks);
+  }
+
+  /**
+   * Load and check every API listed in a directory in parallel. Documents
+   * which fail to load or parse are reported with an error of the
+   * {@link #LOAD_RULE}.
+   *
+   * @param source Source of the directory and the documents.
+   * @param parser Parser for the documents.
+   * @return A report for each listed API, in directory order.
+   * @throws IOException if the directory itself cannot be loaded.
+   */
+  public List<LintReport> lintDirectory(final DiscoverySource source,
+      final DiscoveryParser parser) throws IOException {
+    InputStream directoryContent = source.openDirectory();
+    DirectoryList directory;
+    try {
+      directory = parser.parseDirectoryList(directoryContent);
+    } finally {
+      directoryContent.close();
+    }
+    if (directory.getItems() == null) {
+      return ImmutableList.of();
+    }
+
+    List<Callable<LintReport>> tasks = Lists.newArrayList();
+    for (final DirectoryListItems item : directory.getItems()) {
+      tasks.add(new Callable<LintReport>() {
+        public LintReport call() {
+          String documentId = item.getName() + ":" + item.getVersion();
+          try {
+            InputStream content = source.openRestDescription(item.getName(), item.getVersion());
+            try {
+              return lint(parser.parseRestDescription(content));
+            } finally {
+              content.close();
+            }
+          } catch (IOException e) {
+            return loadFailure(documentId, e);
+          } catch (RuntimeException e) {
+            return loadFailure(documentId, e);
+          }
+        }
+      });
+    }
+    return runAll(tasks);
+  }
+
+  private static LintReport loadFailure(String documentId, Exception e) {
+    return new LintReport(documentId, ImmutableList.of(new LintIssue(
+        LintIssue.Severity.ERROR, LOAD_RULE, "", "Unable to load document: " + e)));
+  }
+
+  private List<LintReport> runAll(List<Callable<LintReport>> tasks) {
+    if (tasks.isEmpty()) {
+      return ImmutableList.of();
+    }
+    ExecutorService pool = executor != null ? executor
+        : Executors.newFixedThreadPool(
+            Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      List<Future<LintReport>> futures = Lists.newArrayListWithCapacity(tasks.size());
+      for (Callable<LintReport> task : tasks) {
+        futures.add(pool.submit(task));
+      }
+      ImmutableList.Builder<LintReport> reports = ImmutableList.builder();
+      for (Future<LintReport> future : futures) {
+        reports.add(getUninterruptibly(future));
+      }
+      return reports.build();
+    } finally {
+      if (executor == null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private static <T> T getUninterruptibly(Future<T> future) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static String documentId(RestDescription document) {
+    if (document.getId() != null) {
+      return document.getId();
+    }
+    return document.getName() + ":" + document.getVersion();
+  }
+
+  private void walkResources(Map<String, Restresource> resources, LintContext context) {
+    LinkedList<Map.Entry<String, Restresource>> pending = Lists.newLinkedList();
+    push(pending, "resources", resources);
+    while (!pending.isEmpty()) {
+      Map.Entry<String, Restresource> resource = pending.removeFirst();
+      walkMethods(resource.getKey(), resource.getValue().getMethods(), context);
+      push(pending, resource.getKey() + ".resources", resource.getValue().getResources());
+    }
+  }
+
+  private void walkMethods(String parentPath, Map<String, Restmethod> methods,
+      LintContext context) {
+    if (methods == null) {
+      return;
+    }
+    for (Map.Entry<String, Restmethod> method : methods.entrySet()) {
+      String path = join(join(parentPath, "methods"), method.getKey());
+      for (LintRule rule : rules) {
+        context.setRule(rule.getName());
+        try {
+          rule.checkMethod(path, method.getValue(), context);
+        } catch (RuntimeException e) {
+          context.error(path, "Rule failed: " + e);
+        }
+      }
+      walkSchemas(path + ".parameters", method.getValue().getParameters(), context);
+    }
+  }
+
+  /**
+   * Check the schemas and everything nested below them, depth first in
+   * document order.
+   */
+  private void walkSchemas(String parentPath, Map<String, Jsonschema> schemas,
+      LintContext context) {
+    LinkedList<Map.Entry<String, Jsonschema>> pending = Lists.newLinkedList();
+    push(pending, parentPath, schemas);
+    while (!pending.isEmpty()) {
+      Map.Entry<String, Jsonschema> entry = pending.removeFirst();
+      String path = entry.getKey();
+      Jsonschema schema = entry.getValue();
+      for (LintRule rule : rules) {
+        context.setRule(rule.getName());
+        try {
+          rule.checkSchema(path, schema, context);
+        } catch (RuntimeException e) {
+          context.error(path, "Rule failed: " + e);
+        }
+      }
+      if (schema.get$ref() != null) {
+        continue;
+      }
+      push(pending, path + ".properties", schema.getProperties());
+      if (schema.getAdditionalProperties() != null) {
+        pending.addFirst(Maps.immutableEntry(
+            path + ".additionalProperties", schema.getAdditionalProperties()));
+      }
+      if (schema.getItems() != null) {
+        pending.addFirst(Maps.immutableEntry(path + ".items", schema.getItems()));
+      }
+    }
+  }
+
+  /**
+   * Push the children onto the stack, keyed by path, so that they are popped
+   * in document order.
+   */
+  private static <T> void push(
+      LinkedList<Map.Entry<String, T>> stack, String parentPath, Map<String, T> children) {
+    if (children == null) {
+      return;
+    }
+    List<Map.Entry<String, T>> entries = Lists.newArrayList(children.entrySet());
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      Map.Entry<String, T> child = entries.get(i);
+      stack.addFirst(Maps.immutableEntry(join(parentPath, child.getKey()), child.getValue()));
+    }
+  }
+
+  private static String join(String parentPath, String name) {
+    return parentPath.length() == 0 ? name : parentPath + "." + name;
+  }
+}
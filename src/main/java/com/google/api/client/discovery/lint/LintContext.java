@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.api.client.discovery.lint.LintIssue.Severity;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a {@link LintRule} sees of the document being checked, and where it
+ * reports issues. A context is confined to the thread checking one document.
+ */
+public final class LintContext {
+  private final RestDescription document;
+  private final Map<String, Jsonschema> schemas;
+  private final List<LintIssue> issues;
+  private String rule;
+
+  LintContext(RestDescription document, List<LintIssue> issues) {
+    this.document = document;
+    this.schemas = document.getSchemas() == null
+        ? Collections.<String, Jsonschema>emptyMap() : document.getSchemas();
+    this.issues = issues;
+  }
+
+  /**
+   * Set the rule to which reported issues are attributed.
+   */
+  void setRule(String rule) {
+    this.rule = rule;
+  }
+
+  /**
+   * Returns the document being checked.
+   */
+  public RestDescription getDocument() {
+    return document;
+  }
+
+  /**
+   * Returns the named top level schemas, which is empty rather than
+   * {@code null} if the document has none.
+   */
+  public Map<String, Jsonschema> getSchemas() {
+    return schemas;
+  }
+
+  /**
+   * Report a problem which makes the document fail when used.
+   */
+  public void error(String path, String message) {
+    issues.add(new LintIssue(Severity.ERROR, rule, path, message));
+  }
+
+  /**
+   * Report something which is likely wrong.
+   */
+  public void warning(String path, String message) {
+    issues.add(new LintIssue(Severity.WARNING, rule, path, message));
+  }
+}
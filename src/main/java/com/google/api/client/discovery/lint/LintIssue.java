@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * A single problem found in a discovery document by a {@link LintRule}.
+ * Instances are immutable.
+ */
+public final class LintIssue {
+  /**
+   * How serious an issue is.
+   */
+  public enum Severity {
+    /** The document is broken and will fail when used. */
+    ERROR,
+
+    /** The document is usable but likely wrong. */
+    WARNING
+  }
+
+  private final Severity severity;
+  private final String rule;
+  private final String path;
+  private final String message;
+
+  LintIssue(Severity severity, String rule, String path, String message) {
+    this.severity = Preconditions.checkNotNull(severity);
+    this.rule = Preconditions.checkNotNull(rule);
+    this.path = Preconditions.checkNotNull(path);
+    this.message = Preconditions.checkNotNull(message);
+  }
+
+  /**
+   * Returns how serious this issue is.
+   */
+  public Severity getSeverity() {
+    return severity;
+  }
+
+  /**
+   * Returns the name of the rule which reported this issue.
+   */
+  public String getRule() {
+    return rule;
+  }
+
+  /**
+   * Returns the dotted path of the offending element from the document root,
+   * such as {@code "resources.url.methods.get.parameters.shortUrl"}, or the
+   * empty string for the document itself.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns a description of the problem.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return severity + " " + rule + (path.length() == 0 ? "" : " " + path) + ": " + message;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(severity, rule, path, message);
+  }
+
+  @Override
+  public boolean equals(Object rhs) {
+    if (rhs instanceof LintIssue) {
+      LintIssue rhsTyped = (LintIssue) rhs;
+      return severity == rhsTyped.severity && rule.equals(rhsTyped.rule)
+          && path.equals(rhsTyped.path) && message.equals(rhsTyped.message);
+    } else {
+      return false;
+    }
+  }
+}
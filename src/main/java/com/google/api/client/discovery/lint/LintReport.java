@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.api.client.discovery.lint.LintIssue.Severity;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Issues found in one discovery document, in the order in which the elements
+ * were checked. Instances are immutable.
+ */
+public final class LintReport {
+  private final String documentId;
+  private final ImmutableList<LintIssue> issues;
+
+  LintReport(String documentId, List<LintIssue> issues) {
+    this.documentId = documentId;
+    this.issues = ImmutableList.copyOf(issues);
+  }
+
+  /**
+   * Returns the id of the checked document, such as {@code "urlshortener:v1"}.
+   */
+  public String getDocumentId() {
+    return documentId;
+  }
+
+  /**
+   * Returns all issues.
+   */
+  public List<LintIssue> getIssues() {
+    return issues;
+  }
+
+  /**
+   * Returns the issues of the given severity.
+   */
+  public List<LintIssue> getIssues(Severity severity) {
+    ImmutableList.Builder<LintIssue> matching = ImmutableList.builder();
+    for (LintIssue issue : issues) {
+      if (issue.getSeverity() == severity) {
+        matching.add(issue);
+      }
+    }
+    return matching.build();
+  }
+
+  /**
+   * Returns whether any issue is an error, in which case the document should
+   * be rejected.
+   */
+  public boolean hasErrors() {
+    for (LintIssue issue : issues) {
+      if (issue.getSeverity() == Severity.ERROR) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder(documentId).append(": ");
+    if (issues.isEmpty()) {
+      return out.append("no issues").toString();
+    }
+    out.append(issues.size()).append(issues.size() == 1 ? " issue" : " issues");
+    for (LintIssue issue : issues) {
+      out.append("\n  ").append(issue);
+    }
+    return out.toString();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.api.services.discovery.model.Restmethod;
+
+/**
+ * Check applied by a {@link DiscoveryLinter} to every element of a document.
+ * Every method has an empty default implementation, so subclasses only
+ * override what they need.
+ *
+ * <p>
+ * Rules work on the wire format, since the point is to find what would make
+ * the wrapping classes fail. They must not assume anything the rule itself
+ * has not checked: any field may be {@code null}. A rule which throws is
+ * reported as an error of that rule, and the other rules still run.
+ * Instances are shared between threads and should be stateless.
+ * </p>
+ */
+public abstract class LintRule {
+
+  /**
+   * Returns the name under which issues of this rule are reported, such as
+   * {@code "missing-reference"}.
+   */
+  public abstract String getName();
+
+  /**
+   * Called once per document, before its elements.
+   *
+   * @param document The checked document.
+   * @param context Context to report issues to.
+   */
+  public void checkDocument(RestDescription document, LintContext context) {
+  }
+
+  /**
+   * Called for every method, both those at the API root and those on
+   * resources, before its parameters.
+   *
+   * @param path Path of the method, such as {@code "resources.url.methods.get"}.
+   * @param method The checked method.
+   * @param context Context to report issues to.
+   */
+  public void checkMethod(String path, Restmethod method, LintContext context) {
+  }
+
+  /**
+   * Called for every schema node: each named top level schema, each API and
+   * method parameter, and nested below them each property, additional
+   * property and array element. References are not followed, since the
+   * referenced schema is checked where it is defined.
+   *
+   * @param path Path of the schema, such as
+   *        {@code "schemas.Url.properties.analytics"}.
+   * @param schema The checked schema node.
+   * @param context Context to report issues to.
+   */
+  public void checkSchema(String path, Jsonschema schema, LintContext context) {
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.api.client.discovery.RestMethod.ParameterLocation;
+import com.google.api.client.discovery.types.DiscoveryType.BaseType;
+import com.google.api.client.discovery.types.IntegerType;
+import com.google.api.client.discovery.types.NumberType;
+import com.google.api.client.discovery.types.StringType;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.Restmethod;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The built-in {@link LintRule}s. Each catches a class of problem which
+ * otherwise only surfaces as an exception once the document is used.
+ */
+public final class LintRules {
+
+  /**
+   * Reports references to schemas which the document does not define, both
+   * from schemas and from method requests and responses.
+   */
+  public static final LintRule MISSING_REFERENCE = new LintRule() {
+    @Override
+    public String getName() {
+      return "missing-reference";
+    }
+
+    @Override
+    public void checkMethod(String path, Restmethod method, LintContext context) {
+      if (method.getRequest() != null) {
+        checkReference(path + ".request", method.getRequest().get$ref(), context);
+      }
+      if (method.getResponse() != null) {
+        checkReference(path + ".response", method.getResponse().get$ref(), context);
+      }
+    }
+
+    @Override
+    public void checkSchema(String path, Jsonschema schema, LintContext context) {
+      if (schema.get$ref() != null) {
+        checkReference(path, schema.get$ref(), context);
+      }
+    }
+
+    private void checkReference(String path, String reference, LintContext context) {
+      if (reference == null) {
+        context.error(path, "Reference without a schema name");
+      } else if (!context.getSchemas().containsKey(reference)) {
+        context.error(path, "Reference to undefined schema " + reference);
+      }
+    }
+  };
+
+  /**
+   * Reports schemas with a missing or unknown type, and formats which are not
+   * known for their type.
+   */
+  public static final LintRule UNKNOWN_TYPE = new LintRule() {
+    @Override
+    public String getName() {
+      return "unknown-type";
+    }
+
+    @Override
+    public void checkSchema(String path, Jsonschema schema, LintContext context) {
+      if (schema.get$ref() != null) {
+        return;
+      }
+      if (schema.getType() == null) {
+        context.error(path, "Schema has neither a type nor a reference");
+        return;
+      }
+      BaseType type = BaseType.getTypeForJsonType(schema.getType());
+      if (type == null) {
+        context.error(path, "Unknown type " + schema.getType());
+        return;
+      }
+
+      String format = schema.getFormat();
+      if (format == null) {
+        return;
+      }
+      boolean known;
+      switch (type) {
+        case STRING:
+          known = StringType.Format.getEnumForJsonFormat(format) != null;
+          break;
+        case INTEGER:
+          known = IntegerType.Format.getEnumForJsonFormat(format) != null;
+          break;
+        case NUMBER:
+          known = NumberType.Format.getEnumForJsonFormat(format) != null;
+          break;
+        default:
+          known = false;
+      }
+      if (!known) {
+        context.warning(path, "Unknown format " + format + " for type " + schema.getType());
+      }
+    }
+  };
+
+  /**
+   * Reports parameter order entries which name no parameter or repeat one,
+   * and required parameters missing from the order.
+   */
+  public static final LintRule PARAMETER_ORDER = new LintRule() {
+    @Override
+    public String getName() {
+      return "parameter-order";
+    }
+
+    @Override
+    public void checkMethod(String path, Restmethod method, LintContext context) {
+      Map<String, Jsonschema> parameters = parameters(method);
+      List<String> order = method.getParameterOrder() == null
+          ? Collections.<String>emptyList() : method.getParameterOrder();
+
+      Set<String> ordered = Sets.newHashSet();
+      for (String name : order) {
+        if (!parameters.containsKey(name)) {
+          context.error(path + ".parameterOrder", "Undefined parameter " + name);
+        } else if (!ordered.add(name)) {
+          context.error(path + ".parameterOrder", "Repeated parameter " + name);
+        }
+      }
+      for (Map.Entry<String, Jsonschema> parameter : parameters.entrySet()) {
+        if (Boolean.TRUE.equals(parameter.getValue().getRequired())
+            && !ordered.contains(parameter.getKey())) {
+          context.warning(path + ".parameters." + parameter.getKey(),
+              "Required parameter missing from parameterOrder");
+        }
+      }
+    }
+  };
+
+  /**
+   * Reports parameters with an unknown location, variables of the path
+   * template which are not path parameters, and path parameters which do not
+   * appear in the path.
+   */
+  public static final LintRule PATH_PARAMETERS = new LintRule() {
+    private final Pattern variable = Pattern.compile("\\{([^}]*)\\}");
+
+    @Override
+    public String getName() {
+      return "path-parameters";
+    }
+
+    @Override
+    public void checkMethod(String path, Restmethod method, LintContext context) {
+      Map<String, Jsonschema> parameters = parameters(method);
+      Set<String> variables = Sets.newLinkedHashSet();
+      if (method.getPath() == null) {
+        context.error(path, "Method has no path");
+      } else {
+        Matcher matcher = variable.matcher(method.getPath());
+        while (matcher.find()) {
+          for (String name : matcher.group(1).split(",")) {
+            // Strip RFC 6570 operators and modifiers, such as {+name} and {name*}
+            variables.add(name.replaceAll("^[+#./;?&]|\\*$|:\\d+$", ""));
+          }
+        }
+      }
+
+      for (String name : variables) {
+        Jsonschema parameter = parameters.get(name);
+        if (parameter == null) {
+          context.error(path + ".path", "Path variable " + name + " is not a parameter");
+        } else if (!"path".equals(parameter.getLocation())) {
+          context.error(path + ".parameters." + name,
+              "Path variable is not located in the path");
+        }
+      }
+      for (Map.Entry<String, Jsonschema> parameter : parameters.entrySet()) {
+        String location = parameter.getValue().getLocation();
+        String parameterPath = path + ".parameters." + parameter.getKey();
+        if (ParameterLocation.getEnumForJsonValue(location) == null) {
+          context.error(parameterPath, "Unknown location " + location);
+        } else if ("path".equals(location) && !variables.contains(parameter.getKey())) {
+          context.warning(parameterPath, "Path parameter does not appear in the path");
+        }
+      }
+    }
+  };
+
+  /**
+   * Reports minimums, maximums and defaults which do not parse as their type,
+   * minimums above maximums, enums which do not match their descriptions or
+   * default, and invalid patterns.
+   */
+  public static final LintRule VALUES = new LintRule() {
+    @Override
+    public String getName() {
+      return "values";
+    }
+
+    @Override
+    public void checkSchema(String path, Jsonschema schema, LintContext context) {
+      BaseType type = schema.get$ref() == null && schema.getType() != null
+          ? BaseType.getTypeForJsonType(schema.getType()) : null;
+
+      if (type == BaseType.INTEGER || type == BaseType.NUMBER) {
+        boolean integer = type == BaseType.INTEGER;
+        Double min = parse(path, "minimum", schema.getMinimum(), integer, context);
+        Double max = parse(path, "maximum", schema.getMaximum(), integer, context);
+        parse(path, "default", schema.getDiscoveryDefault(), integer, context);
+        if (min != null && max != null && min > max) {
+          context.error(path, "Minimum " + schema.getMinimum() + " exceeds maximum "
+              + schema.getMaximum());
+        }
+      } else if (type == BaseType.BOOLEAN && schema.getDiscoveryDefault() != null
+          && !schema.getDiscoveryDefault().equals("true")
+          && !schema.getDiscoveryDefault().equals("false")) {
+        context.error(path, "Invalid boolean default " + schema.getDiscoveryDefault());
+      }
+
+      List<String> enumValues = schema.getDiscoveryEnum();
+      List<String> descriptions = schema.getEnumDescriptions();
+      if (enumValues != null && descriptions != null
+          && enumValues.size() != descriptions.size()) {
+        context.warning(path, enumValues.size() + " enum values but " + descriptions.size()
+            + " enum descriptions");
+      }
+      if (enumValues != null && schema.getDiscoveryDefault() != null
+          && !enumValues.contains(schema.getDiscoveryDefault())) {
+        context.warning(path, "Default " + schema.getDiscoveryDefault() + " is not an enum value");
+      }
+
+      if (schema.getPattern() != null) {
+        try {
+          Pattern.compile(schema.getPattern());
+        } catch (PatternSyntaxException e) {
+          context.error(path, "Invalid pattern " + schema.getPattern());
+        }
+      }
+    }
+
+    /**
+     * Returns the parsed value, or {@code null} if it is absent or invalid.
+     */
+    private Double parse(
+        String path, String name, String value, boolean integer, LintContext context) {
+      if (value == null) {
+        return null;
+      }
+      try {
+        return integer ? (double) Integer.parseInt(value) : Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+        context.error(path, "Invalid " + (integer ? "integer " : "number ") + name + " " + value);
+        return null;
+      }
+    }
+  };
+
+  private static final ImmutableList<LintRule> DEFAULTS =
+      ImmutableList.of(MISSING_REFERENCE, UNKNOWN_TYPE, PARAMETER_ORDER, PATH_PARAMETERS, VALUES);
+
+  private LintRules() {
+  }
+
+  /**
+   * Returns all built-in rules.
+   */
+  public static List<LintRule> defaults() {
+    return DEFAULTS;
+  }
+
+  private static Map<String, Jsonschema> parameters(Restmethod method) {
+    return method.getParameters() == null
+        ? Collections.<String, Jsonschema>emptyMap() : method.getParameters();
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.search;
+
+import com.google.api.client.discovery.DiscoveryVisitor;
+import com.google.api.client.discovery.OAuth2Scope;
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestMethod;
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.RestResource;
+import com.google.api.client.discovery.search.SearchHit.Kind;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable inverted index over the elements of a single API. The
+ * {@link SearchIndex} keeps one segment per API, so reloading an API only
+ * rebuilds its own segment.
+ */
+final class ApiSegment {
+  /** Weight of a term taken from the name of an element. */
+  static final float NAME_WEIGHT = 3.0f;
+
+  /** Weight of a term taken from the name of a parameter or property. */
+  static final float MEMBER_WEIGHT = 2.0f;
+
+  /** Weight of a term taken from a description. */
+  static final float DESCRIPTION_WEIGHT = 1.0f;
+
+  /** Factor applied to a term which only matches a query prefix. */
+  static final float PREFIX_FACTOR = 0.5f;
+
+  /**
+   * Documents containing a term with the weight of the term in each, sorted
+   * by document number. Queries combine postings by merging them, so their
+   * cost depends on the number of documents containing the query terms
+   * rather than on the size of the API.
+   */
+  private static class Postings {
+    static final Postings EMPTY = new Postings(new int[0], new float[0]);
+
+    final int[] documents;
+    final float[] weights;
+
+    Postings(Map<Integer, Float> weightByDocument) {
+      documents = new int[weightByDocument.size()];
+      weights = new float[weightByDocument.size()];
+      int i = 0;
+      for (Map.Entry<Integer, Float> entry : weightByDocument.entrySet()) {
+        documents[i] = entry.getKey();
+        weights[i] = entry.getValue();
+        i++;
+      }
+    }
+
+    Postings(int[] documents, float[] weights) {
+      this.documents = documents;
+      this.weights = weights;
+    }
+
+    /**
+     * Returns the documents in either postings with the larger weight of
+     * each, the weights of the other postings multiplied by a factor.
+     */
+    Postings union(Postings other, float factor) {
+      if (documents.length == 0 && factor == 1.0f) {
+        return other;
+      }
+      int[] unionDocuments = new int[documents.length + other.documents.length];
+      float[] unionWeights = new float[unionDocuments.length];
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < documents.length || j < other.documents.length) {
+        if (j == other.documents.length
+            || (i < documents.length && documents[i] < other.documents[j])) {
+          unionDocuments[n] = documents[i];
+          unionWeights[n++] = weights[i++];
+        } else if (i == documents.length || other.documents[j] < documents[i]) {
+          unionDocuments[n] = other.documents[j];
+          unionWeights[n++] = other.weights[j++] * factor;
+        } else {
+          unionDocuments[n] = documents[i];
+          unionWeights[n++] = Math.max(weights[i++], other.weights[j++] * factor);
+        }
+      }
+      return new Postings(Arrays.copyOf(unionDocuments, n), Arrays.copyOf(unionWeights, n));
+    }
+
+    /**
+     * Returns the documents in both postings with the sum of their weights.
+     */
+    Postings intersect(Postings other) {
+      int[] commonDocuments = new int[Math.min(documents.length, other.documents.length)];
+      float[] commonWeights = new float[commonDocuments.length];
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < documents.length && j < other.documents.length) {
+        if (documents[i] < other.documents[j]) {
+          i++;
+        } else if (other.documents[j] < documents[i]) {
+          j++;
+        } else {
+          commonDocuments[n] = documents[i];
+          commonWeights[n++] = weights[i++] + other.weights[j++];
+        }
+      }
+      return new Postings(Arrays.copyOf(commonDocuments, n), Arrays.copyOf(commonWeights, n));
+    }
+  }
+
+  private final String apiId;
+  private final Kind[] kinds;
+  private final String[] names;
+  private final NavigableMap<String, Postings> terms;
+
+  /**
+   * Index every method, resource, schema and scope of the API.
+   *
+   * @param discovery API to index.
+   */
+  ApiSegment(RestDiscovery discovery) {
+    this.apiId = discovery.getId();
+
+    final List<Kind> documentKinds = Lists.newArrayList();
+    final List<String> documentNames = Lists.newArrayList();
+    final Map<String, Map<Integer, Float>> index = Maps.newHashMap();
+    final Set<String> schemaNames = discovery.getSchemas().keySet();
+
+    discovery.accept(new DiscoveryVisitor() {
+      private final Map<String, Integer> methodDocuments = Maps.newHashMap();
+      private final Map<String, Integer> schemaDocuments = Maps.newHashMap();
+
+      private int addDocument(Kind kind, String name) {
+        documentKinds.add(kind);
+        documentNames.add(name);
+        int document = documentNames.size() - 1;
+        addTerms(index, document, name, NAME_WEIGHT);
+        return document;
+      }
+
+      @Override
+      public boolean visitResource(String path, RestResource resource) {
+        addDocument(Kind.RESOURCE, path);
+        return true;
+      }
+
+      @Override
+      public boolean visitMethod(RestMethod method) {
+        int document = addDocument(Kind.METHOD, method.getId());
+        methodDocuments.put(method.getId(), document);
+        addTerms(index, document, method.getDescription(), DESCRIPTION_WEIGHT);
+        return true;
+      }
+
+      @Override
+      public void visitParameter(RestMethod method, Parameter parameter) {
+        int document = methodDocuments.get(method.getId());
+        addTerms(index, document, parameter.getName(), MEMBER_WEIGHT);
+        addTerms(index, document, parameter.getType().getDescription(), DESCRIPTION_WEIGHT);
+      }
+
+      @Override
+      public boolean visitSchema(String path, DiscoveryType type) {
+        if (schemaNames.contains(path)) {
+          int document = addDocument(Kind.SCHEMA, path);
+          schemaDocuments.put(path, document);
+          addTerms(index, document, type.getDescription(), DESCRIPTION_WEIGHT);
+          return true;
+        }
+
+        // Properties, array elements and map values belong to their schema
+        int separator = path.length();
+        for (char c : new char[] {'.', '[', '{'}) {
+          int position = path.indexOf(c);
+          if (position >= 0 && position < separator) {
+            separator = position;
+          }
+        }
+        int document = schemaDocuments.get(path.substring(0, separator));
+        String member = path.substring(path.lastIndexOf('.') + 1);
+        if (!member.endsWith("[]") && !member.endsWith("{}")) {
+          addTerms(index, document, member, MEMBER_WEIGHT);
+        }
+        addTerms(index, document, type.getDescription(), DESCRIPTION_WEIGHT);
+        return true;
+      }
+    });
+
+    for (OAuth2Scope scope : discovery.getOAuth2Scopes().values()) {
+      documentKinds.add(Kind.SCOPE);
+      documentNames.add(scope.getScopeName());
+      int document = documentNames.size() - 1;
+      addTerms(index, document, scope.getScopeName(), NAME_WEIGHT);
+      addTerms(index, document, scope.getDescription(), DESCRIPTION_WEIGHT);
+    }
+
+    kinds = documentKinds.toArray(new Kind[documentKinds.size()]);
+    names = documentNames.toArray(new String[documentNames.size()]);
+    terms = new TreeMap<String, Postings>();
+    for (Map.Entry<String, Map<Integer, Float>> term : index.entrySet()) {
+      terms.put(term.getKey(), new Postings(term.getValue()));
+    }
+  }
+
+  /**
+   * Returns the id of the indexed API.
+   */
+  String getApiId() {
+    return apiId;
+  }
+
+  /**
+   * Add the elements of this API matching every query term to the hits.
+   *
+   * @param queryTerms Normalized query terms.
+   * @param prefixes For each query term, whether it also matches longer terms.
+   * @param hits List to add the matching elements to.
+   */
+  void search(List<String> queryTerms, List<Boolean> prefixes, List<SearchHit> hits) {
+    Postings matching = null;
+    for (int t = 0; t < queryTerms.size(); t++) {
+      String queryTerm = queryTerms.get(t);
+      Map<String, Postings> matches;
+      if (prefixes.get(t)) {
+        matches = terms.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+      } else {
+        Postings exact = terms.get(queryTerm);
+        if (exact == null) {
+          // Every term has to match, so nothing in this API can
+          return;
+        }
+        matches = Collections.singletonMap(queryTerm, exact);
+      }
+
+      // The best match of this term in each document
+      Postings termPostings = Postings.EMPTY;
+      for (Map.Entry<String, Postings> match : matches.entrySet()) {
+        float factor = match.getKey().equals(queryTerm) ? 1.0f : PREFIX_FACTOR;
+        termPostings = termPostings.union(match.getValue(), factor);
+      }
+
+      matching = matching == null ? termPostings : matching.intersect(termPostings);
+      if (matching.documents.length == 0) {
+        return;
+      }
+    }
+
+    for (int i = 0; matching != null && i < matching.documents.length; i++) {
+      int document = matching.documents[i];
+      hits.add(new SearchHit(kinds[document], apiId, names[document], matching.weights[i]));
+    }
+  }
+
+  /**
+   * Split the text into normalized terms. Terms are broken at every character
+   * which is not a letter or digit and between a lower case letter or digit
+   * and a following upper case letter, then lower cased. For example
+   * {@code "urlshortener.url.get"} and {@code "shortUrl"} yield
+   * {@code [urlshortener, url, get]} and {@code [short, url]}.
+   *
+   * @param text Text to split, may be {@code null}.
+   */
+  static List<String> tokenize(String text) {
+    List<String> tokens = Lists.newArrayList();
+    if (text == null) {
+      return tokens;
+    }
+
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      char c = i < text.length() ? text.charAt(i) : ' ';
+      boolean wordCharacter = Character.isLetterOrDigit(c);
+      boolean camelBoundary = start >= 0 && wordCharacter && Character.isUpperCase(c)
+          && !Character.isUpperCase(text.charAt(i - 1));
+      if (start >= 0 && (!wordCharacter || camelBoundary)) {
+        tokens.add(text.substring(start, i).toLowerCase(Locale.US));
+        start = -1;
+      }
+      if (wordCharacter && start < 0) {
+        start = i;
+      }
+    }
+    return tokens;
+  }
+
+  private static void addTerms(
+      Map<String, Map<Integer, Float>> index, int document, String text, float weight) {
+    for (String token : tokenize(text)) {
+      Map<Integer, Float> weights = index.get(token);
+      if (weights == null) {
+        weights = new TreeMap<Integer, Float>();
+        index.put(token, weights);
+      }
+      Float current = weights.get(document);
+      if (current == null || current < weight) {
+        weights.put(document, weight);
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.search;
+
+import com.google.common.base.Objects;
+
+/**
+ * A single ranked result of a {@link SearchIndex} query.
+ */
+public final class SearchHit {
+  /**
+   * Kind of element that matched.
+   */
+  public enum Kind {
+    /** A method, matched on its id, description or parameters. */
+    METHOD,
+
+    /** A resource, matched on its dotted path. */
+    RESOURCE,
+
+    /** A named schema, matched on its id, properties or descriptions. */
+    SCHEMA,
+
+    /** An OAuth 2.0 scope, matched on its name or description. */
+    SCOPE;
+  }
+
+  private final Kind kind;
+  private final String apiId;
+  private final String name;
+  private final float score;
+
+  SearchHit(Kind kind, String apiId, String name, float score) {
+    this.kind = kind;
+    this.apiId = apiId;
+    this.name = name;
+    this.score = score;
+  }
+
+  /**
+   * Returns the kind of element that matched.
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the id of the API declaring the element, such as
+   * {@code "urlshortener:v1"}.
+   */
+  public String getApiId() {
+    return apiId;
+  }
+
+  /**
+   * Returns the name of the element: the method id, resource path, schema id
+   * or scope name.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the relevance of the element; higher is better.
+   */
+  public float getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this).add("kind", kind).add("apiId", apiId).add("name", name)
+        .add("score", score).toString();
+  }
+}
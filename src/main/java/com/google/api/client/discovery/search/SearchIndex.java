@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.search;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory inverted index for full-text search across any number of APIs.
+ * Method ids, descriptions and parameters, resource paths, schema ids,
+ * properties and descriptions, and OAuth 2.0 scope names and descriptions are
+ * all indexed.
+ *
+ * <p>
+ * Each API is indexed into its own immutable segment. Adding or reloading an
+ * API with {@link #update(RestDiscovery)} replaces only that segment, and the
+ * set of segments is swapped atomically, so queries never block and always
+ * see a consistent view. Updates are serialized with each other.
+ * </p>
+ *
+ * <p>
+ * A query is split into terms the same way as the indexed text: at
+ * punctuation, whitespace and camel case boundaries. An element matches when
+ * it contains every term. A query word ending in {@code '*'} matches every
+ * term starting with it, at half the weight of an exact match. Terms from
+ * element names weigh most, then parameter and property names, then
+ * descriptions; hits are ordered by the sum of the weights of their best
+ * match for each term.
+ * </p>
+ */
+public final class SearchIndex {
+  private static final Ordering<SearchHit> BY_RELEVANCE = new Ordering<SearchHit>() {
+    @Override
+    public int compare(SearchHit a, SearchHit b) {
+      int order = Float.compare(b.getScore(), a.getScore());
+      if (order == 0) {
+        order = a.getApiId().compareTo(b.getApiId());
+      }
+      if (order == 0) {
+        order = a.getName().compareTo(b.getName());
+      }
+      return order;
+    }
+  };
+
+  private volatile ImmutableMap<String, ApiSegment> segments = ImmutableMap.of();
+
+  /**
+   * Add an API to the index, replacing any previously indexed API with the
+   * same id.
+   *
+   * @param discovery API to index.
+   */
+  public void update(RestDiscovery discovery) {
+    ApiSegment segment = new ApiSegment(discovery);
+    Preconditions.checkArgument(segment.getApiId() != null, "API has no id");
+    synchronized (this) {
+      Map<String, ApiSegment> updated = Maps.newLinkedHashMap(segments);
+      updated.put(segment.getApiId(), segment);
+      segments = ImmutableMap.copyOf(updated);
+    }
+  }
+
+  /**
+   * Remove an API from the index.
+   *
+   * @param apiId Id of the API, such as {@code "urlshortener:v1"}.
+   * @return Whether the API was indexed.
+   */
+  public synchronized boolean remove(String apiId) {
+    if (!segments.containsKey(apiId)) {
+      return false;
+    }
+    Map<String, ApiSegment> updated = Maps.newLinkedHashMap(segments);
+    updated.remove(apiId);
+    segments = ImmutableMap.copyOf(updated);
+    return true;
+  }
+
+  /**
+   * Returns the ids of all indexed APIs.
+   */
+  public Set<String> getApiIds() {
+    return segments.keySet();
+  }
+
+  /**
+   * Returns the best matches for a query.
+   *
+   * @param query Words to search for, such as {@code "url insert"} or
+   *        {@code "short*"}.
+   * @param maxResults Maximum number of hits to return.
+   * @return Matching elements, most relevant first. Empty if the query
+   *         contains no terms.
+   */
+  public List<SearchHit> search(String query, int maxResults) {
+    Preconditions.checkArgument(maxResults >= 0, "maxResults must not be negative");
+
+    List<String> terms = Lists.newArrayList();
+    List<Boolean> prefixes = Lists.newArrayList();
+    for (String word : query.trim().split("\\s+")) {
+      List<String> wordTerms = ApiSegment.tokenize(word);
+      for (int i = 0; i < wordTerms.size(); i++) {
+        terms.add(wordTerms.get(i));
+        prefixes.add(word.endsWith("*") && i == wordTerms.size() - 1);
+      }
+    }
+    if (terms.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<SearchHit> hits = Lists.newArrayList();
+    for (ApiSegment segment : segments.values()) {
+      segment.search(terms, prefixes, hits);
+    }
+    // Only the best hits are ordered, which matters for common terms
+    return Collections.unmodifiableList(BY_RELEVANCE.leastOf(hits, maxResults));
+  }
+}
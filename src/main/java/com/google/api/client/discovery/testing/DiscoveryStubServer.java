@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded HTTP server which imitates the Discovery service from a local
+ * folder, for testing and load-testing code which uses
+ * {@link com.google.api.client.discovery.RestHelper} with a custom discovery
+ * url. Instances are created through a {@link Builder}.
+ *
+ * <p>
+ * Below {@link #getDiscoveryUrl()} the server answers {@code GET apis} and
+ * {@code GET apis/list} with the folder's {@code directory.json}, and
+ * {@code GET apis/<api>/<version>/rest} with {@code <api>-<version>-rest.json}.
+ * Files are read on every request, so they may be edited while the server
+ * runs. Responses carry a strong ETag and honor {@code If-None-Match}, and are
+ * gzip encoded when the client accepts it.
+ * </p>
+ *
+ * <p>
+ * Every request can be delayed by a fixed latency plus uniform jitter, and a
+ * fixed number of initial requests can be stalled for longer, for example to
+ * make a hedged request overtake the first one. Failures can be injected,
+ * both for a fixed number of initial requests and at random with a given
+ * rate.
+ * </p>
+ *
+ * <p>
+ * For latency measurements, run the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true}. Otherwise small responses wait
+ * on delayed acknowledgements, which dominate the measured latencies. The JDK
+ * reads the property once, when its HTTP server is first used.
+ * </p>
+ */
+public final class DiscoveryStubServer {
+  /** Path below which the documents are served. */
+  public static final String BASE_PATH = "/discovery/v1/";
+
+  private static final Pattern REST_PATH = Pattern.compile("apis/([^/]+)/([^/]+)/rest");
+
+  private final File folder;
+  private final long latencyMillis;
+  private final long latencyJitterMillis;
+  private final int failFirstRequests;
+  private final int slowFirstRequests;
+  private final long slowLatencyMillis;
+  private final double errorRate;
+  private final int errorStatusCode;
+  private final Random random;
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  private HttpServer server;
+  private ExecutorService executor;
+
+  private DiscoveryStubServer(Builder builder) {
+    this.folder = builder.folder;
+    this.latencyMillis = builder.latencyMillis;
+    this.latencyJitterMillis = builder.latencyJitterMillis;
+    this.failFirstRequests = builder.failFirstRequests;
+    this.slowFirstRequests = builder.slowFirstRequests;
+    this.slowLatencyMillis = builder.slowLatencyMillis;
+    this.errorRate = builder.errorRate;
+    this.errorStatusCode = builder.errorStatusCode;
+    this.random = new Random(builder.seed);
+  }
+
+  /**
+   * Returns a new builder serving the given folder.
+   *
+   * @param folder Folder holding {@code directory.json} and the
+   *        {@code <api>-<version>-rest.json} documents.
+   */
+  public static Builder builder(File folder) {
+    return new Builder(folder);
+  }
+
+  /**
+   * Start serving on an ephemeral port of the loopback interface.
+   */
+  public synchronized void start() throws IOException {
+    Preconditions.checkState(server == null, "Server already started");
+
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getByName(null), 0), 0);
+    server.createContext(BASE_PATH, new DiscoveryHandler());
+    executor = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("discovery-stub-%d").build());
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Stop serving, aborting requests still in progress.
+   */
+  public synchronized void stop() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+      executor = null;
+    }
+  }
+
+  /**
+   * Returns the url to pass as the discovery url to
+   * {@link com.google.api.client.discovery.RestHelper}.
+   */
+  public synchronized String getDiscoveryUrl() {
+    Preconditions.checkState(server != null, "Server not started");
+    return "http://localhost:" + server.getAddress().getPort() + BASE_PATH;
+  }
+
+  /**
+   * Returns the number of requests received so far, including failed ones.
+   */
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  private class DiscoveryHandler implements HttpHandler {
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        int requestNumber = requestCount.incrementAndGet();
+        sleep(requestNumber);
+
+        if (!"GET".equals(exchange.getRequestMethod())) {
+          exchange.sendResponseHeaders(405, -1);
+          return;
+        }
+        if (requestNumber <= failFirstRequests || shouldInjectError()) {
+          exchange.sendResponseHeaders(errorStatusCode, -1);
+          return;
+        }
+
+        File file = resolve(exchange.getRequestURI().getPath().substring(BASE_PATH.length()));
+        if (file == null || !file.isFile()) {
+          exchange.sendResponseHeaders(404, -1);
+          return;
+        }
+
+        byte[] content = Files.toByteArray(file);
+        String etag = '"' + digest(content) + '"';
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+          exchange.sendResponseHeaders(304, -1);
+          return;
+        }
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+          content = gzip(content);
+          exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, content.length);
+        OutputStream body = exchange.getResponseBody();
+        body.write(content);
+        body.close();
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+
+  /**
+   * Returns the file serving a path below {@link #BASE_PATH} or {@code null}
+   * if there is none.
+   */
+  private File resolve(String path) {
+    if (path.equals("apis") || path.equals("apis/list")) {
+      return new File(folder, "directory.json");
+    }
+    Matcher matcher = REST_PATH.matcher(path);
+    if (matcher.matches()) {
+      return new File(folder, matcher.group(1) + "-" + matcher.group(2) + "-rest.json");
+    }
+    return null;
+  }
+
+  private void sleep(int requestNumber) {
+    long delay = latencyMillis;
+    if (requestNumber <= slowFirstRequests) {
+      delay += slowLatencyMillis;
+    }
+    if (latencyJitterMillis > 0) {
+      synchronized (random) {
+        delay += (long) (random.nextDouble() * latencyJitterMillis);
+      }
+    }
+    if (delay > 0) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private boolean shouldInjectError() {
+    if (errorRate <= 0) {
+      return false;
+    }
+    synchronized (random) {
+      return random.nextDouble() < errorRate;
+    }
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+    GZIPOutputStream out = new GZIPOutputStream(compressed);
+    out.write(content);
+    out.close();
+    return compressed.toByteArray();
+  }
+
+  private static String digest(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-1
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Builder for {@link DiscoveryStubServer}. By default the server responds
+   * immediately and never fails.
+   */
+  public static final class Builder {
+    private final File folder;
+    private long latencyMillis;
+    private long latencyJitterMillis;
+    private int failFirstRequests;
+    private int slowFirstRequests;
+    private long slowLatencyMillis;
+    private double errorRate;
+    private int errorStatusCode = 503;
+    private long seed = 0;
+
+    Builder(File folder) {
+      this.folder = Preconditions.checkNotNull(folder);
+    }
+
+    /**
+     * Delay every response by a fixed latency plus a uniformly distributed
+     * jitter.
+     */
+    public Builder setLatencyMillis(long latencyMillis, long latencyJitterMillis) {
+      Preconditions.checkArgument(latencyMillis >= 0 && latencyJitterMillis >= 0);
+      this.latencyMillis = latencyMillis;
+      this.latencyJitterMillis = latencyJitterMillis;
+      return this;
+    }
+
+    /**
+     * Fail the given number of requests received first with the error status
+     * code.
+     */
+    public Builder setFailFirstRequests(int failFirstRequests) {
+      Preconditions.checkArgument(failFirstRequests >= 0);
+      this.failFirstRequests = failFirstRequests;
+      return this;
+    }
+
+    /**
+     * Delay the given number of requests received first by an additional
+     * latency.
+     */
+    public Builder setSlowFirstRequests(int slowFirstRequests, long slowLatencyMillis) {
+      Preconditions.checkArgument(slowFirstRequests >= 0 && slowLatencyMillis >= 0);
+      this.slowFirstRequests = slowFirstRequests;
+      this.slowLatencyMillis = slowLatencyMillis;
+      return this;
+    }
+
+    /**
+     * Fail the given fraction of requests, chosen at random, with the error
+     * status code.
+     */
+    public Builder setErrorRate(double errorRate) {
+      Preconditions.checkArgument(errorRate >= 0 && errorRate <= 1);
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    /**
+     * Set the status code of injected failures; defaults to 503.
+     */
+    public Builder setErrorStatusCode(int errorStatusCode) {
+      Preconditions.checkArgument(errorStatusCode >= 400 && errorStatusCode < 600);
+      this.errorStatusCode = errorStatusCode;
+      return this;
+    }
+
+    /**
+     * Seed the randomness of latency jitter and injected failures, so that
+     * runs can be repeated.
+     */
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Returns a new server which has not been started.
+     */
+    public DiscoveryStubServer build() {
+      return new DiscoveryStubServer(this);
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.discovery.RetryPolicy;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test which fetches one discovery document concurrently with a
+ * {@link RestHelper} and reports throughput and latency percentiles.
+ *
+ * <p>
+ * Run {@link #main} against a {@link DiscoveryStubServer} serving a local
+ * folder, or call {@link #run} against any discovery url. Pass
+ * {@code -Dsun.net.httpserver.nodelay=true} to the JVM when measuring against
+ * the stub server, as explained there.
+ * </p>
+ */
+public final class FetchLoadTest {
+
+  /**
+   * Outcome of a load test.
+   */
+  public static final class Result {
+    private final long[] latenciesNanos;
+    private final int failures;
+    private final long elapsedNanos;
+
+    Result(long[] latenciesNanos, int failures, long elapsedNanos) {
+      this.latenciesNanos = latenciesNanos;
+      this.failures = failures;
+      this.elapsedNanos = elapsedNanos;
+      Arrays.sort(this.latenciesNanos);
+    }
+
+    /**
+     * Returns the number of fetches made, including failed ones.
+     */
+    public int getFetchCount() {
+      return latenciesNanos.length;
+    }
+
+    /**
+     * Returns the number of fetches which failed after retrying.
+     */
+    public int getFailureCount() {
+      return failures;
+    }
+
+    /**
+     * Returns the wall clock time of the whole test.
+     */
+    public long getElapsedMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of fetches completed per second.
+     */
+    public double getThroughputPerSecond() {
+      return elapsedNanos == 0 ? 0 : latenciesNanos.length * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the latency below which the given fraction of fetches
+     * completed, using the nearest rank.
+     *
+     * @param fraction Fraction between 0 and 1, such as {@code 0.99}.
+     */
+    public double getLatencyPercentileMillis(double fraction) {
+      Preconditions.checkArgument(fraction >= 0 && fraction <= 1);
+      if (latenciesNanos.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(fraction * latenciesNanos.length);
+      return latenciesNanos[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d fetches (%d failed) in %dms: %.1f/s, p50 %.2fms, p90 %.2fms, p99 %.2fms, max %.2fms",
+          getFetchCount(), failures, getElapsedMillis(), getThroughputPerSecond(),
+          getLatencyPercentileMillis(0.5), getLatencyPercentileMillis(0.9),
+          getLatencyPercentileMillis(0.99), getLatencyPercentileMillis(1));
+    }
+  }
+
+  private FetchLoadTest() {
+  }
+
+  /**
+   * Fetch a discovery document from several threads at once, which all start
+   * together.
+   *
+   * @param helper Helper to fetch with.
+   * @param discoveryUrl Base url from which to fetch.
+   * @param apiName Name of the API to fetch.
+   * @param apiVersion Version of the API to fetch.
+   * @param threads Number of concurrent threads.
+   * @param fetchesPerThread Number of sequential fetches made by each thread.
+   * @return Latencies and failures of all fetches.
+   */
+  public static Result run(final RestHelper helper, final String discoveryUrl,
+      final String apiName, final String apiVersion, int threads, final int fetchesPerThread)
+      throws InterruptedException {
+    Preconditions.checkArgument(threads > 0 && fetchesPerThread > 0);
+
+    final long[] latenciesNanos = new long[threads * fetchesPerThread];
+    final AtomicInteger failures = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      final int offset = t * fetchesPerThread;
+      Thread worker = new Thread(new Runnable() {
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < fetchesPerThread; i++) {
+              long begin = System.nanoTime();
+              try {
+                helper.fetchDiscovery(apiName, apiVersion, discoveryUrl);
+              } catch (IOException e) {
+                failures.incrementAndGet();
+              } catch (RuntimeException e) {
+                // Such as a malformed document, which must not stop the worker
+                failures.incrementAndGet();
+              } catch (URISyntaxException e) {
+                throw new IllegalArgumentException(e);
+              }
+              latenciesNanos[offset + i] = System.nanoTime() - begin;
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }, "fetch-load-test-" + t);
+      worker.setDaemon(true);
+      worker.start();
+    }
+
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    return new Result(latenciesNanos, failures.get(), System.nanoTime() - begin);
+  }
+
+  /**
+   * Serve a folder with a {@link DiscoveryStubServer} and load test it.
+   *
+   * <p>
+   * Arguments: {@code folder api version threads fetchesPerThread
+   * [latencyMillis [errorRate]]}.
+   * </p>
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 5) {
+      System.err.println("Usage: FetchLoadTest folder api version threads fetchesPerThread"
+          + " [latencyMillis [errorRate]]");
+      System.exit(1);
+    }
+
+    DiscoveryStubServer.Builder builder = DiscoveryStubServer.builder(new File(args[0]));
+    if (args.length > 5) {
+      builder.setLatencyMillis(Long.parseLong(args[5]), 0);
+    }
+    if (args.length > 6) {
+      builder.setErrorRate(Double.parseDouble(args[6]));
+    }
+    DiscoveryStubServer server = builder.build();
+    server.start();
+    try {
+      RestHelper helper =
+          new RestHelper(new NetHttpTransport(), new GsonFactory(), RetryPolicy.DEFAULT);
+      int threads = Integer.parseInt(args[3]);
+      int fetchesPerThread = Integer.parseInt(args[4]);
+
+      // Warm up the connections and the JIT before measuring
+      run(helper, server.getDiscoveryUrl(), args[1], args[2], threads, fetchesPerThread);
+      System.out.println(
+          run(helper, server.getDiscoveryUrl(), args[1], args[2], threads, fetchesPerThread));
+    } finally {
+      server.stop();
+    }
+  }
+}
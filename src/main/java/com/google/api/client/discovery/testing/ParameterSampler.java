@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.discovery.ParameterTable;
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates random but valid parameters for a method, as they appear in the
+ * request url. Created through {@link SampleGenerator.Builder}.
+ *
+ * <p>
+ * Required parameters are always present, in the suggested order, followed
+ * by optional parameters with the configured probability. Instances are
+ * immutable and may be shared between threads, each with its own
+ * {@code Random}.
+ * </p>
+ */
+public final class ParameterSampler {
+
+  private static final class Entry {
+    final String name;
+    final SampleNode node;
+    final boolean repeated;
+    final boolean required;
+
+    Entry(Parameter parameter, SampleNode node, boolean required) {
+      this.name = parameter.getName();
+      this.node = node;
+      this.repeated = Boolean.TRUE.equals(parameter.isRepeated());
+      this.required = required;
+    }
+  }
+
+  private final SampleSettings settings;
+  private final List<Entry> entries;
+
+  ParameterSampler(ParameterTable table, SampleSettings settings) {
+    this.settings = settings;
+    SampleCompiler compiler = new SampleCompiler(settings);
+    ImmutableList.Builder<Entry> builder = ImmutableList.builder();
+    for (Parameter parameter : table.getRequired()) {
+      builder.add(new Entry(parameter, compiler.compile(parameter.getType()), true));
+    }
+    for (Parameter parameter : table.getOptional()) {
+      builder.add(new Entry(parameter, compiler.compile(parameter.getType()), false));
+    }
+    this.entries = builder.build();
+  }
+
+  /**
+   * Returns parameter values by name. Each value is a {@code String}, or a
+   * non-empty {@code List<String>} for a repeated parameter.
+   */
+  public Map<String, Object> generate(Random random) {
+    Map<String, Object> values = Maps.newLinkedHashMap();
+    for (Entry entry : entries) {
+      if (!entry.required && random.nextDouble() >= settings.optionalProbability) {
+        continue;
+      }
+      if (entry.repeated) {
+        int count = Math.max(1, settings.randomLength(random));
+        List<String> repeated = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+          repeated.add(entry.node.generateText(random));
+        }
+        values.put(entry.name, repeated);
+      } else {
+        values.put(entry.name, entry.node.generateText(random));
+      }
+    }
+    return values;
+  }
+}
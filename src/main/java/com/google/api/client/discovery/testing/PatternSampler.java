@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Generates strings which match a regular expression. Supports the subset of
+ * the syntax seen in discovery documents: literals, escapes, character
+ * classes, {@code .}, groups with alternation, the usual quantifiers and
+ * anchors. Unbounded quantifiers repeat at most {@link #MAX_EXTRA_REPEATS}
+ * times beyond their minimum.
+ *
+ * <p>
+ * Negated classes, {@code .} and {@code \S} draw from letters, digits and
+ * {@code -_.} only, so samples stay safe to use in urls.
+ * </p>
+ */
+final class PatternSampler {
+  static final int MAX_EXTRA_REPEATS = 4;
+
+  private static final int MAX_ATTEMPTS = 16;
+  private static final String SAFE =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.";
+
+  /** Node of the parsed expression. */
+  private interface Node {
+    void append(StringBuilder out, Random random);
+  }
+
+  private final String regex;
+  private final Pattern pattern;
+  private final Node root;
+
+  // Parser state, only used while constructing
+  private int position;
+
+  /**
+   * @throws IllegalArgumentException if the expression is invalid or uses
+   *         unsupported syntax.
+   */
+  PatternSampler(String regex) {
+    this.regex = regex;
+    this.pattern = Pattern.compile(regex);
+    this.root = parseAlternation();
+    if (position != regex.length()) {
+      throw unsupported();
+    }
+  }
+
+  /**
+   * Returns a random string which matches the expression.
+   *
+   * @throws IllegalArgumentException if no match is found, for example because
+   *         of unsatisfiable lookups in the expression.
+   */
+  String sample(Random random) {
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      StringBuilder out = new StringBuilder();
+      root.append(out, random);
+      String candidate = out.toString();
+      if (pattern.matcher(candidate).find()) {
+        return candidate;
+      }
+    }
+    throw new IllegalArgumentException("Unable to generate a match for pattern: " + regex);
+  }
+
+  private IllegalArgumentException unsupported() {
+    return new IllegalArgumentException(
+        "Unsupported pattern syntax at " + position + ": " + regex);
+  }
+
+  private boolean atEnd() {
+    return position >= regex.length();
+  }
+
+  private char peek() {
+    return regex.charAt(position);
+  }
+
+  private Node parseAlternation() {
+    final List<Node> alternatives = Lists.newArrayList(parseSequence());
+    while (!atEnd() && peek() == '|') {
+      position++;
+      alternatives.add(parseSequence());
+    }
+    if (alternatives.size() == 1) {
+      return alternatives.get(0);
+    }
+    return new Node() {
+      public void append(StringBuilder out, Random random) {
+        alternatives.get(random.nextInt(alternatives.size())).append(out, random);
+      }
+    };
+  }
+
+  private Node parseSequence() {
+    final List<Node> items = Lists.newArrayList();
+    while (!atEnd() && peek() != '|' && peek() != ')') {
+      Node atom = parseAtom();
+      if (atom != null) {
+        items.add(parseQuantifier(atom));
+      }
+    }
+    return new Node() {
+      public void append(StringBuilder out, Random random) {
+        for (Node item : items) {
+          item.append(out, random);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the next atom, or {@code null} for an anchor.
+   */
+  private Node parseAtom() {
+    char c = regex.charAt(position++);
+    switch (c) {
+      case '^':
+      case '$':
+        return null;
+      case '(':
+        if (!atEnd() && peek() == '?') {
+          if (!regex.startsWith("?:", position)) {
+            throw unsupported();
+          }
+          position += 2;
+        }
+        Node group = parseAlternation();
+        if (atEnd() || regex.charAt(position++) != ')') {
+          throw unsupported();
+        }
+        return group;
+      case '[':
+        return characters(parseClass());
+      case '.':
+        return characters(safeCharacters(null));
+      case '\\':
+        return characters(parseEscape());
+      case '*':
+      case '+':
+      case '?':
+      case '{':
+      case ')':
+        throw unsupported();
+      default:
+        return literal(c);
+    }
+  }
+
+  private Node parseQuantifier(final Node atom) {
+    if (atEnd()) {
+      return atom;
+    }
+    final int min;
+    final int max;
+    switch (peek()) {
+      case '?':
+        min = 0;
+        max = 1;
+        position++;
+        break;
+      case '*':
+        min = 0;
+        max = MAX_EXTRA_REPEATS;
+        position++;
+        break;
+      case '+':
+        min = 1;
+        max = 1 + MAX_EXTRA_REPEATS;
+        position++;
+        break;
+      case '{':
+        int close = regex.indexOf('}', position);
+        if (close < 0) {
+          throw unsupported();
+        }
+        String[] bounds = regex.substring(position + 1, close).split(",", -1);
+        try {
+          min = Integer.parseInt(bounds[0].trim());
+          if (bounds.length == 1) {
+            max = min;
+          } else if (bounds[1].trim().length() == 0) {
+            max = min + MAX_EXTRA_REPEATS;
+          } else {
+            max = Integer.parseInt(bounds[1].trim());
+          }
+        } catch (NumberFormatException e) {
+          throw unsupported();
+        }
+        position = close + 1;
+        break;
+      default:
+        return atom;
+    }
+    // Lazy and possessive variants generate the same strings
+    if (!atEnd() && (peek() == '?' || peek() == '+')) {
+      position++;
+    }
+    return new Node() {
+      public void append(StringBuilder out, Random random) {
+        int count = min + random.nextInt(max - min + 1);
+        for (int i = 0; i < count; i++) {
+          atom.append(out, random);
+        }
+      }
+    };
+  }
+
+  private BitSet parseClass() {
+    boolean negated = !atEnd() && peek() == '^';
+    if (negated) {
+      position++;
+    }
+    BitSet members = new BitSet(128);
+    boolean first = true;
+    while (true) {
+      if (atEnd()) {
+        throw unsupported();
+      }
+      char c = regex.charAt(position++);
+      if (c == ']' && !first) {
+        break;
+      }
+      first = false;
+      if (c == '\\') {
+        members.or(parseEscape());
+      } else if (!atEnd() && peek() == '-' && position + 1 < regex.length()
+          && regex.charAt(position + 1) != ']') {
+        char last = regex.charAt(position + 1);
+        position += 2;
+        if (last < c) {
+          throw unsupported();
+        }
+        members.set(c, last + 1);
+      } else {
+        members.set(c);
+      }
+    }
+    if (negated) {
+      return safeCharacters(members);
+    }
+    if (members.isEmpty()) {
+      throw unsupported();
+    }
+    return members;
+  }
+
+  private BitSet parseEscape() {
+    if (atEnd()) {
+      throw unsupported();
+    }
+    char c = regex.charAt(position++);
+    BitSet members = new BitSet(128);
+    switch (c) {
+      case 'd':
+        members.set('0', '9' + 1);
+        break;
+      case 'w':
+        members.set('a', 'z' + 1);
+        members.set('A', 'Z' + 1);
+        members.set('0', '9' + 1);
+        members.set('_');
+        break;
+      case 's':
+        members.set(' ');
+        break;
+      case 'S':
+        return safeCharacters(null);
+      case 'n':
+        members.set('\n');
+        break;
+      case 't':
+        members.set('\t');
+        break;
+      default:
+        if (Character.isLetterOrDigit(c)) {
+          throw unsupported();
+        }
+        members.set(c);
+    }
+    return members;
+  }
+
+  /**
+   * Returns the url safe characters which are not excluded.
+   */
+  private BitSet safeCharacters(BitSet excluded) {
+    BitSet members = new BitSet(128);
+    for (int i = 0; i < SAFE.length(); i++) {
+      char c = SAFE.charAt(i);
+      if (excluded == null || !excluded.get(c)) {
+        members.set(c);
+      }
+    }
+    if (members.isEmpty()) {
+      throw unsupported();
+    }
+    return members;
+  }
+
+  private static Node literal(final char c) {
+    return new Node() {
+      public void append(StringBuilder out, Random random) {
+        out.append(c);
+      }
+    };
+  }
+
+  private static Node characters(BitSet members) {
+    ImmutableList.Builder<Character> builder = ImmutableList.builder();
+    for (int c = members.nextSetBit(0); c >= 0; c = members.nextSetBit(c + 1)) {
+      builder.add((char) c);
+    }
+    final List<Character> choices = builder.build();
+    return new Node() {
+      public void append(StringBuilder out, Random random) {
+        out.append(choices.get(random.nextInt(choices.size())).charValue());
+      }
+    };
+  }
+}
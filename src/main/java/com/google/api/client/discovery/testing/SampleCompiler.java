@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.discovery.types.IntegerType;
+import com.google.api.client.discovery.types.NumberType;
+import com.google.api.client.discovery.types.ObjectType;
+import com.google.api.client.discovery.types.StringType;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a type into the tree of {@link SampleNode}s which a
+ * {@link SampleGenerator} draws values from. Bounds are narrowed to what the
+ * format can hold, and each distinct pattern is parsed into a
+ * {@link PatternSampler} only once. A named object or array schema maps to a
+ * single node, keyed by its {@link DiscoveryType#getSchemaName() schema name}
+ * and created before its children, so a schema which contains itself becomes
+ * a cycle in the tree whether or not it has an id; the maximum depth of the
+ * settings bounds the values drawn from it.
+ */
+final class SampleCompiler {
+  /** Bounds of integers and numbers without a declared minimum or maximum. */
+  private static final int DEFAULT_MIN = 0;
+  private static final int DEFAULT_MAX = 1000;
+
+  private static final long UINT32_MAX = 0xffffffffL;
+
+  private final SampleSettings settings;
+  private final Map<String, SampleNode> namedNodes = Maps.newHashMap();
+  private final Map<String, PatternSampler> patterns = Maps.newHashMap();
+
+  SampleCompiler(SampleSettings settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the type has a pattern which cannot
+   *         be sampled or bounds which exclude every value.
+   */
+  SampleNode compile(DiscoveryType type) {
+    switch (type.getBaseType()) {
+      case OBJECT:
+        return compileObject(type.getObject());
+      case ARRAY:
+        return compileArray(type);
+      case STRING:
+        return compileString(type.getString());
+      case INTEGER:
+        return compileInteger(type.getInteger());
+      case NUMBER:
+        return compileNumber(type.getNumber());
+      case BOOLEAN:
+        return SampleNode.BooleanNode.INSTANCE;
+      case NULL:
+        return SampleNode.NullNode.INSTANCE;
+      default:
+        return new SampleNode.StringNode(null, null);
+    }
+  }
+
+  private SampleNode compileArray(DiscoveryType type) {
+    String name = type.getSchemaName();
+    SampleNode named = name == null ? null : namedNodes.get(name);
+    if (named != null) {
+      return named;
+    }
+    SampleNode.ArrayNode node = new SampleNode.ArrayNode(settings);
+    if (name != null) {
+      namedNodes.put(name, node);
+    }
+    node.initialize(compile(type.getArray().getElementType()));
+    return node;
+  }
+
+  private SampleNode compileObject(ObjectType type) {
+    String name = type.getSchemaName();
+    SampleNode named = name == null ? null : namedNodes.get(name);
+    if (named != null) {
+      return named;
+    }
+    SampleNode.ObjectNode node = new SampleNode.ObjectNode(settings);
+    if (name != null) {
+      namedNodes.put(name, node);
+    }
+
+    List<SampleNode.Property> properties = Lists.newArrayList();
+    Map<String, DiscoveryType> propertyTypes = type.getProperties();
+    if (propertyTypes != null) {
+      for (Map.Entry<String, DiscoveryType> property : propertyTypes.entrySet()) {
+        DiscoveryType propertyType = property.getValue();
+        properties.add(new SampleNode.Property(property.getKey(), compile(propertyType),
+            Boolean.TRUE.equals(propertyType.getRequired())));
+      }
+    }
+    DiscoveryType additional = type.getAdditionalPropertyType();
+    node.initialize(properties, additional == null ? null : compile(additional));
+    return node;
+  }
+
+  private SampleNode compileString(StringType type) {
+    if (type.isEnum()) {
+      return new SampleNode.StringNode(type.getEnumValues(), null);
+    }
+    if (type.getFormat() != null) {
+      switch (type.getFormat()) {
+        case INT64:
+          return new SampleNode.Int64Node(false);
+        case UINT64:
+          return new SampleNode.Int64Node(true);
+        case DATE_TIME:
+          return new SampleNode.DateTimeNode(false);
+        case DATE:
+          return new SampleNode.DateTimeNode(true);
+        case BYTE:
+          return new SampleNode.BytesNode();
+        default:
+          break;
+      }
+    }
+
+    String regex = type.getPattern();
+    if (regex == null) {
+      return new SampleNode.StringNode(null, null);
+    }
+    PatternSampler pattern = patterns.get(regex);
+    if (pattern == null) {
+      pattern = new PatternSampler(regex);
+      patterns.put(regex, pattern);
+    }
+    return new SampleNode.StringNode(null, pattern);
+  }
+
+  private static SampleNode compileInteger(IntegerType type) {
+    boolean unsigned = type.getFormat() == IntegerType.Format.UINT32;
+    long lowest = unsigned ? 0 : Integer.MIN_VALUE;
+    long highest = unsigned ? UINT32_MAX : Integer.MAX_VALUE;
+    long min = type.getMinimum() != null ? Math.max(lowest, type.getMinimum()) : lowest;
+    long max = type.getMaximum() != null ? Math.min(highest, type.getMaximum()) : highest;
+    if (type.getMinimum() == null && type.getMaximum() == null) {
+      min = DEFAULT_MIN;
+      max = DEFAULT_MAX;
+    } else if (type.getMinimum() == null) {
+      min = Math.max(lowest, Math.min(DEFAULT_MIN, max));
+    } else if (type.getMaximum() == null) {
+      max = Math.min(highest, Math.max(DEFAULT_MAX, min));
+    }
+    checkBounds(min <= max, type);
+    return new SampleNode.IntegerNode(min, max, unsigned);
+  }
+
+  private static SampleNode compileNumber(NumberType type) {
+    double min = type.getMinimum() != null ? type.getMinimum() : DEFAULT_MIN;
+    double max = type.getMaximum() != null ? type.getMaximum() : DEFAULT_MAX;
+    if (type.getMinimum() == null) {
+      min = Math.min(min, max);
+    } else if (type.getMaximum() == null) {
+      max = Math.max(min, max);
+    }
+    checkBounds(min <= max, type);
+    return new SampleNode.NumberNode(min, max, type.getFormat() == NumberType.Format.FLOAT);
+  }
+
+  private static void checkBounds(boolean valid, DiscoveryType type) {
+    if (!valid) {
+      throw new IllegalArgumentException("Minimum exceeds maximum for "
+          + (type.getId() == null ? "a " + type.getBaseType() : type.getId()));
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.discovery.RestMethod;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+/**
+ * Generates random but valid values of a {@link DiscoveryType}, such as
+ * request bodies for load tests. Instances are created through a
+ * {@link Builder}, which compiles the type once so that generating is cheap.
+ *
+ * <p>
+ * Generated values respect enums, patterns, minimum and maximum, and formats.
+ * Required properties are always present and others with a configurable
+ * probability. Objects and arrays nested deeper than the maximum depth are
+ * empty, which bounds the values of recursive schemas.
+ * </p>
+ *
+ * <p>
+ * All randomness comes from the {@link Random} passed to each call, so the
+ * same seed generates the same values. Instances are immutable and may be
+ * shared between threads, each with its own {@code Random}.
+ * </p>
+ */
+public final class SampleGenerator {
+  private final SampleNode root;
+
+  SampleGenerator(SampleNode root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns a new builder with the default settings.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns a value in the representation of
+   * {@link com.google.api.client.discovery.codec.SchemaCodec}.
+   */
+  public Object generate(Random random) {
+    return root.generate(random, 0);
+  }
+
+  /**
+   * Write a value to a generator directly, without building it in memory.
+   */
+  public void write(JsonGenerator generator, Random random) throws IOException {
+    root.write(generator, random, 0);
+  }
+
+  /**
+   * Write an array of the given length one element at a time, to stream
+   * arbitrarily large payloads.
+   *
+   * @throws IllegalStateException if the type is not an array.
+   */
+  public void writeArray(JsonGenerator generator, Random random, long length)
+      throws IOException {
+    Preconditions.checkState(root instanceof SampleNode.ArrayNode, "Type is not an array");
+    Preconditions.checkArgument(length >= 0);
+    ((SampleNode.ArrayNode) root).writeElements(generator, random, 0, length);
+  }
+
+  /**
+   * Returns a value as a compact JSON string.
+   */
+  public String toJson(JsonFactory jsonFactory, Random random) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonGenerator generator = jsonFactory.createJsonGenerator(out);
+    write(generator, random);
+    generator.flush();
+    return out.toString();
+  }
+
+  /**
+   * Builder for {@link SampleGenerator} and {@link ParameterSampler}. By
+   * default values are nested at most 4 deep, arrays and maps have up to 3
+   * elements and optional properties are present half of the time.
+   */
+  public static final class Builder {
+    private int maxDepth = 4;
+    private int minArrayLength = 0;
+    private int maxArrayLength = 3;
+    private double optionalProbability = 0.5;
+
+    Builder() {
+    }
+
+    /**
+     * Set the number of objects and arrays which may enclose each other
+     * before they are left empty.
+     */
+    public Builder setMaxDepth(int maxDepth) {
+      Preconditions.checkArgument(maxDepth >= 0);
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    /**
+     * Set the bounds of the number of elements of arrays, of additional
+     * properties of maps and of values of repeated parameters.
+     */
+    public Builder setArrayLength(int minArrayLength, int maxArrayLength) {
+      Preconditions.checkArgument(minArrayLength >= 0 && minArrayLength <= maxArrayLength);
+      this.minArrayLength = minArrayLength;
+      this.maxArrayLength = maxArrayLength;
+      return this;
+    }
+
+    /**
+     * Set the probability with which optional properties and parameters are
+     * present.
+     */
+    public Builder setOptionalProbability(double optionalProbability) {
+      Preconditions.checkArgument(optionalProbability >= 0 && optionalProbability <= 1);
+      this.optionalProbability = optionalProbability;
+      return this;
+    }
+
+    private SampleSettings settings() {
+      return new SampleSettings(maxDepth, minArrayLength, maxArrayLength, optionalProbability);
+    }
+
+    /**
+     * Returns a generator of values of the given type, such as the request of
+     * a method.
+     *
+     * @throws IllegalArgumentException if the type has a pattern which cannot
+     *         be sampled or bounds which exclude every value.
+     */
+    public SampleGenerator build(DiscoveryType type) {
+      Preconditions.checkNotNull(type);
+      return new SampleGenerator(new SampleCompiler(settings()).compile(type));
+    }
+
+    /**
+     * Returns a generator of parameter values for the given method.
+     *
+     * @throws IllegalArgumentException if a parameter has a pattern which
+     *         cannot be sampled or bounds which exclude every value.
+     */
+    public ParameterSampler buildParameterSampler(RestMethod method) {
+      Preconditions.checkNotNull(method);
+      return new ParameterSampler(method.getParameterTable(), settings());
+    }
+  }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.util.DateTime;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates random values of a single schema node. Nodes are built by
+ * {@link SampleCompiler} and are immutable once compilation finishes; all
+ * randomness comes from the {@link Random} passed in.
+ */
+abstract class SampleNode {
+  private static final String ALPHANUMERIC =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+  private static final String BASE64 = ALPHANUMERIC + "-_";
+
+  /** 2000-01-01T00:00:00Z, the earliest generated timestamp. */
+  private static final long MIN_TIME_MILLIS = 946684800000L;
+
+  /** Range of generated timestamps, about 30 years. */
+  private static final long TIME_RANGE_MILLIS = 30L * 365 * 24 * 3600 * 1000;
+
+  /**
+   * Returns a value in the representation of
+   * {@link com.google.api.client.discovery.codec.SchemaCodec}.
+   *
+   * @param depth Number of objects and arrays which enclose the value.
+   */
+  abstract Object generate(Random random, int depth);
+
+  /**
+   * Write a value directly, without building it first.
+   *
+   * @param depth Number of objects and arrays which enclose the value.
+   */
+  abstract void write(JsonGenerator generator, Random random, int depth) throws IOException;
+
+  /**
+   * Returns a value as it appears in a url parameter.
+   */
+  String generateText(Random random) {
+    return String.valueOf(generate(random, 0));
+  }
+
+  static String randomString(Random random, String alphabet, int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Returns a uniformly distributed value between the bounds, inclusive.
+   */
+  static long randomLong(Random random, long min, long max) {
+    long range = max - min + 1;
+    if (range <= 0) {
+      // The range overflowed, so it covers more than half of all longs
+      long value;
+      do {
+        value = random.nextLong();
+      } while (value < min || value > max);
+      return value;
+    }
+    return min + (long) (random.nextDouble() * range);
+  }
+
+  /** Property of an {@link ObjectNode}. */
+  static final class Property {
+    final String name;
+    final SampleNode node;
+    final boolean required;
+
+    Property(String name, SampleNode node, boolean required) {
+      this.name = name;
+      this.node = node;
+      this.required = required;
+    }
+  }
+
+  /**
+   * Object with named properties and optionally additional properties.
+   * Required properties are always present and others with the configured
+   * probability. Past the maximum depth objects are empty, which ends the
+   * expansion of recursive schemas.
+   */
+  static final class ObjectNode extends SampleNode {
+    private final SampleSettings settings;
+    private List<Property> properties = Collections.emptyList();
+    private SampleNode additionalProperties;
+
+    ObjectNode(SampleSettings settings) {
+      this.settings = settings;
+    }
+
+    /**
+     * Complete the node. Called exactly once during compilation, after the
+     * node may already be referenced by recursive properties.
+     */
+    void initialize(List<Property> properties, SampleNode additionalProperties) {
+      this.properties = ImmutableList.copyOf(properties);
+      this.additionalProperties = additionalProperties;
+    }
+
+    private boolean include(Property property, Random random) {
+      return property.required || random.nextDouble() < settings.optionalProbability;
+    }
+
+    private int additionalCount(Random random) {
+      return additionalProperties == null ? 0 : settings.randomLength(random);
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      Map<String, Object> values = Maps.newLinkedHashMap();
+      if (depth >= settings.maxDepth) {
+        return values;
+      }
+      for (Property property : properties) {
+        if (include(property, random)) {
+          values.put(property.name, property.node.generate(random, depth + 1));
+        }
+      }
+      for (int i = additionalCount(random) - 1; i >= 0; i--) {
+        values.put("key" + i, additionalProperties.generate(random, depth + 1));
+      }
+      return values;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeStartObject();
+      if (depth < settings.maxDepth) {
+        for (Property property : properties) {
+          if (include(property, random)) {
+            generator.writeFieldName(property.name);
+            property.node.write(generator, random, depth + 1);
+          }
+        }
+        for (int i = additionalCount(random) - 1; i >= 0; i--) {
+          generator.writeFieldName("key" + i);
+          additionalProperties.write(generator, random, depth + 1);
+        }
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Array of the configured length. Past the maximum depth arrays are empty.
+   */
+  static final class ArrayNode extends SampleNode {
+    private final SampleSettings settings;
+    private SampleNode elements;
+
+    ArrayNode(SampleSettings settings) {
+      this.settings = settings;
+    }
+
+    /**
+     * Complete the node. Called exactly once during compilation, after the
+     * node may already be referenced by recursive elements.
+     */
+    void initialize(SampleNode elements) {
+      this.elements = elements;
+    }
+
+    private int length(Random random, int depth) {
+      return depth >= settings.maxDepth ? 0 : settings.randomLength(random);
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      int length = length(random, depth);
+      List<Object> values = Lists.newArrayListWithCapacity(length);
+      for (int i = 0; i < length; i++) {
+        values.add(elements.generate(random, depth + 1));
+      }
+      return values;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      writeElements(generator, random, depth, length(random, depth));
+    }
+
+    /**
+     * Write an array of the given length, one element at a time.
+     */
+    void writeElements(JsonGenerator generator, Random random, int depth, long length)
+        throws IOException {
+      generator.writeStartArray();
+      for (long i = 0; i < length; i++) {
+        elements.write(generator, random, depth + 1);
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  /**
+   * String drawn from the enum values or matching the pattern, or else a
+   * random alphanumeric string.
+   */
+  static final class StringNode extends SampleNode {
+    private final List<String> enumValues;
+    private final PatternSampler pattern;
+
+    StringNode(List<String> enumValues, PatternSampler pattern) {
+      this.enumValues = enumValues;
+      this.pattern = pattern;
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      if (enumValues != null && !enumValues.isEmpty()) {
+        return enumValues.get(random.nextInt(enumValues.size()));
+      }
+      if (pattern != null) {
+        return pattern.sample(random);
+      }
+      return randomString(random, ALPHANUMERIC, 4 + random.nextInt(9));
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeString((String) generate(random, depth));
+    }
+  }
+
+  /**
+   * 64-bit integer carried as a string, generated as a {@link Long} or, when
+   * unsigned, a non-negative {@link BigInteger}.
+   */
+  static final class Int64Node extends SampleNode {
+    private final boolean unsigned;
+
+    Int64Node(boolean unsigned) {
+      this.unsigned = unsigned;
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      long value = random.nextLong();
+      return unsigned ? (Object) BigInteger.valueOf(value & Long.MAX_VALUE) : (Object) value;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeString(generate(random, depth).toString());
+    }
+  }
+
+  /**
+   * Timestamp between 2000 and 2030, or a date if {@code dateOnly}.
+   */
+  static final class DateTimeNode extends SampleNode {
+    private final boolean dateOnly;
+
+    DateTimeNode(boolean dateOnly) {
+      this.dateOnly = dateOnly;
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      long millis = MIN_TIME_MILLIS + randomLong(random, 0, TIME_RANGE_MILLIS);
+      if (dateOnly) {
+        return new DateTime(true, millis, 0).toStringRfc3339();
+      }
+      return new DateTime(millis, 0);
+    }
+
+    @Override
+    String generateText(Random random) {
+      Object value = generate(random, 0);
+      return dateOnly ? (String) value : ((DateTime) value).toStringRfc3339();
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeString(generateText(random));
+    }
+  }
+
+  /**
+   * Base64 encoded bytes, generated as a byte array or written directly as
+   * url safe base64.
+   */
+  static final class BytesNode extends SampleNode {
+    @Override
+    Object generate(Random random, int depth) {
+      byte[] bytes = new byte[random.nextInt(16)];
+      random.nextBytes(bytes);
+      return bytes;
+    }
+
+    @Override
+    String generateText(Random random) {
+      // Every group of four characters decodes to three bytes
+      return randomString(random, BASE64, 4 * random.nextInt(6));
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeString(generateText(random));
+    }
+  }
+
+  /**
+   * Integer within the bounds, generated as an {@link Integer}, or a
+   * {@link Long} for {@code uint32}.
+   */
+  static final class IntegerNode extends SampleNode {
+    private final long min;
+    private final long max;
+    private final boolean unsigned;
+
+    IntegerNode(long min, long max, boolean unsigned) {
+      this.min = min;
+      this.max = max;
+      this.unsigned = unsigned;
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      long value = randomLong(random, min, max);
+      return unsigned ? (Object) value : (Object) (int) value;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeNumber(randomLong(random, min, max));
+    }
+  }
+
+  /**
+   * Number within the bounds, generated as a {@link Double}, or a
+   * {@link Float} for {@code float}.
+   */
+  static final class NumberNode extends SampleNode {
+    private final double min;
+    private final double max;
+    private final boolean single;
+
+    NumberNode(double min, double max, boolean single) {
+      this.min = min;
+      this.max = max;
+      this.single = single;
+    }
+
+    @Override
+    Object generate(Random random, int depth) {
+      double value = Math.min(max, min + random.nextDouble() * (max - min));
+      if (single) {
+        // Rounding to float may step outside the bounds
+        float rounded = (float) value;
+        return rounded < min || rounded > max ? (float) min : rounded;
+      }
+      return value;
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeNumber(((Number) generate(random, depth)).doubleValue());
+    }
+  }
+
+  /**
+   * Boolean.
+   */
+  static final class BooleanNode extends SampleNode {
+    static final BooleanNode INSTANCE = new BooleanNode();
+
+    @Override
+    Object generate(Random random, int depth) {
+      return random.nextBoolean();
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeBoolean(random.nextBoolean());
+    }
+  }
+
+  /**
+   * JSON {@code null}, for the {@code null} type.
+   */
+  static final class NullNode extends SampleNode {
+    static final NullNode INSTANCE = new NullNode();
+
+    @Override
+    Object generate(Random random, int depth) {
+      return null;
+    }
+
+    @Override
+    String generateText(Random random) {
+      return "";
+    }
+
+    @Override
+    void write(JsonGenerator generator, Random random, int depth) throws IOException {
+      generator.writeNull();
+    }
+  }
+}
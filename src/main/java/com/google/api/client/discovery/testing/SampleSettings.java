@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import java.util.Random;
+
+/**
+ * Settings shared by the nodes of one compiled sample generator.
+ */
+final class SampleSettings {
+  final int maxDepth;
+  final int minArrayLength;
+  final int maxArrayLength;
+  final double optionalProbability;
+
+  SampleSettings(int maxDepth, int minArrayLength, int maxArrayLength,
+      double optionalProbability) {
+    this.maxDepth = maxDepth;
+    this.minArrayLength = minArrayLength;
+    this.maxArrayLength = maxArrayLength;
+    this.optionalProbability = optionalProbability;
+  }
+
+  /**
+   * Returns a length for an array or the additional properties of a map.
+   */
+  int randomLength(Random random) {
+    return minArrayLength + random.nextInt(maxArrayLength - minArrayLength + 1);
+  }
+}
@@ -16,6 +16,10 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
+
+import java.util.Map;
+
 /**
  * Type without any additional information.
  *
@@ -23,6 +27,10 @@ package com.google.api.client.discovery.types;
  */
 public class AnyType extends DiscoveryType {
 
+  AnyType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.ANY, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public AnyType getAny() {
     return this;
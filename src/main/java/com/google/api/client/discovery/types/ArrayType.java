@@ -16,6 +16,10 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
+
+import java.util.Map;
+
 /**
  * Type that contains information about an Array of elements.
  *
@@ -23,6 +27,10 @@ package com.google.api.client.discovery.types;
  */
 public class ArrayType extends DiscoveryType {
 
+  ArrayType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.ARRAY, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public ArrayType getArray() {
     return this;
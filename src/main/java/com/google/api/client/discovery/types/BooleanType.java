@@ -16,6 +16,10 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
+
+import java.util.Map;
+
 /**
  * Type which will indicate a true or false condition.
  *
@@ -23,6 +27,10 @@ package com.google.api.client.discovery.types;
  */
 public class BooleanType extends DiscoveryType {
 
+  BooleanType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.BOOLEAN, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public BooleanType getBoolean() {
     return this;
@@ -19,13 +19,23 @@ package com.google.api.client.discovery.types;
 import com.google.api.services.discovery.model.Jsonschema;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base type from which all Discovery types descend.
  *
+ * <p>
+ * Type wrappers are immutable: every field is final and set at construction,
+ * and all collections returned by accessors are unmodifiable. A wrapper may
+ * therefore be shared freely between threads, as long as the underlying
+ * schema nodes are not modified after they were loaded.
+ * </p>
+ *
  * @author moshenko@google.com (Jake Moshenko)
  */
 public abstract class DiscoveryType {
@@ -57,7 +67,7 @@ public abstract class DiscoveryType {
       return jsonTypeToBaseType.get(jsonType);
     }
 
-    private String jsonType;
+    private final String jsonType;
 
     private BaseType(String jsonType) {
       this.jsonType = jsonType;
@@ -68,26 +78,46 @@ public abstract class DiscoveryType {
     }
   }
 
+  /**
+   * Names of the named top level schemas by node identity, built once per
+   * schema map, which weak keys compare by identity too.
+   */
+  private static final ConcurrentMap<Map<String, Jsonschema>, Map<Jsonschema, String>>
+      schemaNames = new MapMaker().weakKeys().makeMap();
+
   /** All named top level schemas from the discovery document. */
-  protected Map<String, Jsonschema> topLevelSchemas;
+  protected final Map<String, Jsonschema> topLevelSchemas;
 
   /** The schema node being wrapped by this type. */
-  protected Jsonschema schemaNode;
+  protected final Jsonschema schemaNode;
 
   /** Lower level type. */
-  protected BaseType type;
+  protected final BaseType type;
 
   /**
    * Reusable function to convert a schema node to the corresponding wrapped
    * {@link DiscoveryType}.
    */
-  protected Function<Jsonschema, DiscoveryType> schemaToDisicoveryType =
+  protected final Function<Jsonschema, DiscoveryType> schemaToDisicoveryType =
       new Function<Jsonschema, DiscoveryType>() {
         public DiscoveryType apply(Jsonschema input) {
           return createTypeFromSchemaNode(input, topLevelSchemas);
         }
       };
 
+  /**
+   * Create an instance.
+   *
+   * @param type Lower level type of the wrapped schema node.
+   * @param schemaNode Dereferenced schema node to wrap.
+   * @param topLevelSchemas All named top level schemas.
+   */
+  DiscoveryType(BaseType type, Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    this.type = Preconditions.checkNotNull(type);
+    this.schemaNode = Preconditions.checkNotNull(schemaNode);
+    this.topLevelSchemas = Preconditions.checkNotNull(topLevelSchemas);
+  }
+
   /**
    * Convert a schema node to the corresponding wrapped Discovery type.
    *
@@ -108,37 +138,33 @@ public abstract class DiscoveryType {
     DiscoveryType newTypeWrapper;
     switch (type) {
       case ANY:
-        newTypeWrapper = new AnyType();
+        newTypeWrapper = new AnyType(realSchema, topLevelSchemas);
         break;
       case ARRAY:
-        newTypeWrapper = new ArrayType();
+        newTypeWrapper = new ArrayType(realSchema, topLevelSchemas);
         break;
       case BOOLEAN:
-        newTypeWrapper = new BooleanType();
+        newTypeWrapper = new BooleanType(realSchema, topLevelSchemas);
         break;
       case INTEGER:
-        newTypeWrapper = new IntegerType();
+        newTypeWrapper = new IntegerType(realSchema, topLevelSchemas);
         break;
       case NULL:
-        newTypeWrapper = new NullType();
+        newTypeWrapper = new NullType(realSchema, topLevelSchemas);
         break;
       case NUMBER:
-        newTypeWrapper = new NumberType();
+        newTypeWrapper = new NumberType(realSchema, topLevelSchemas);
         break;
       case OBJECT:
-        newTypeWrapper = new ObjectType();
+        newTypeWrapper = new ObjectType(realSchema, topLevelSchemas);
         break;
       case STRING:
-        newTypeWrapper = new StringType();
+        newTypeWrapper = new StringType(realSchema, topLevelSchemas);
         break;
       default:
         throw new DiscoveryTypeException("Schema node does not contain a type identifier");
     }
 
-    newTypeWrapper.type = type;
-    newTypeWrapper.topLevelSchemas = topLevelSchemas;
-    newTypeWrapper.schemaNode = realSchema;
-
     return newTypeWrapper;
   }
 
@@ -157,6 +183,32 @@ public abstract class DiscoveryType {
     return schemaNode.getId();
   }
 
+  /**
+   * Returns the name under which the wrapped node is a named top level
+   * schema, whether it was reached by reference or directly, or {@code null}
+   * for an inline schema. Unlike {@link #getId()}, this does not depend on the
+   * optional id field, so it identifies every named schema, including those
+   * which refer to themselves. Where several names hold the same node, the
+   * first of them is returned.
+   */
+  public String getSchemaName() {
+    Map<Jsonschema, String> names = schemaNames.get(topLevelSchemas);
+    if (names == null) {
+      // Schema nodes compare by content, so only identity tells them apart
+      names = Maps.newIdentityHashMap();
+      for (Map.Entry<String, Jsonschema> schema : topLevelSchemas.entrySet()) {
+        if (!names.containsKey(schema.getValue())) {
+          names.put(schema.getValue(), schema.getKey());
+        }
+      }
+      Map<Jsonschema, String> existing = schemaNames.putIfAbsent(topLevelSchemas, names);
+      if (existing != null) {
+        names = existing;
+      }
+    }
+    return names.get(schemaNode);
+  }
+
   /**
    * Returns the base DiscoveryType of this instance. Use this to determine
    * which type can be extracted using get<Type>() methods.
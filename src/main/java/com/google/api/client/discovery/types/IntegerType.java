@@ -16,6 +16,7 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
 import com.google.common.collect.Maps;
 
 import java.util.Map;
@@ -57,7 +58,7 @@ public class IntegerType extends DiscoveryType {
       return jsonFormatToEnum.get(jsonFormat);
     }
 
-    private String jsonFormat;
+    private final String jsonFormat;
 
     private Format(String jsonType) {
       this.jsonFormat = jsonType;
@@ -69,6 +70,10 @@ public class IntegerType extends DiscoveryType {
   }
 
 
+  IntegerType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.INTEGER, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public IntegerType getInteger() {
     return this;
@@ -16,6 +16,10 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
+
+import java.util.Map;
+
 /**
  * This type describes a value that always contains {@code null}
  *
@@ -23,6 +27,10 @@ package com.google.api.client.discovery.types;
  */
 public class NullType extends DiscoveryType {
 
+  NullType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.NULL, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public NullType getNull() {
     return this;
@@ -16,6 +16,7 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
 import com.google.common.collect.Maps;
 
 import java.util.Map;
@@ -55,7 +56,7 @@ public class NumberType extends DiscoveryType {
       return jsonFormatToEnum.get(jsonFormat);
     }
 
-    private String jsonFormat;
+    private final String jsonFormat;
 
     private Format(String jsonType) {
       this.jsonFormat = jsonType;
@@ -67,6 +68,10 @@ public class NumberType extends DiscoveryType {
   }
 
 
+  NumberType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.NUMBER, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public NumberType getNumber() {
     return this;
@@ -19,6 +19,7 @@ package com.google.api.client.discovery.types;
 import com.google.api.services.discovery.model.Jsonschema;
 import com.google.common.collect.Maps;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -29,6 +30,10 @@ import java.util.Map;
  */
 public class ObjectType extends DiscoveryType {
 
+  ObjectType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.OBJECT, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public ObjectType getObject() {
     return this;
@@ -40,7 +45,8 @@ public class ObjectType extends DiscoveryType {
    */
   public Map<String, DiscoveryType> getProperties() {
     Map<String, Jsonschema> props = schemaNode.getProperties();
-    return props == null ? null : Maps.transformValues(props, schemaToDisicoveryType);
+    return props == null ? null
+        : Collections.unmodifiableMap(Maps.transformValues(props, schemaToDisicoveryType));
   }
 
   /**
@@ -16,8 +16,10 @@
 
 package com.google.api.client.discovery.types;
 
+import com.google.api.services.discovery.model.Jsonschema;
 import com.google.common.collect.Maps;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -76,7 +78,7 @@ public class StringType extends DiscoveryType {
       return jsonFormatToEnum.get(jsonFormat);
     }
 
-    private String jsonFormat;
+    private final String jsonFormat;
 
     private Format(String jsonType) {
       this.jsonFormat = jsonType;
@@ -87,6 +89,10 @@ public class StringType extends DiscoveryType {
     }
   }
 
+  StringType(Jsonschema schemaNode, Map<String, Jsonschema> topLevelSchemas) {
+    super(BaseType.STRING, schemaNode, topLevelSchemas);
+  }
+
   @Override
   public StringType getString() {
     return this;
@@ -104,14 +110,14 @@ public class StringType extends DiscoveryType {
    * enumeration.
    */
   public List<String> getEnumValues() {
-    return schemaNode.getDiscoveryEnum();
+    return unmodifiableListOrNull(schemaNode.getDiscoveryEnum());
   }
 
   /**
    * Returns descriptions of the values that can be passed for this enumeration.
    */
   public List<String> getEnumDescriptions() {
-    return schemaNode.getEnumDescriptions();
+    return unmodifiableListOrNull(schemaNode.getEnumDescriptions());
   }
 
   /**
@@ -135,4 +141,8 @@ public class StringType extends DiscoveryType {
     String jsonFormat = schemaNode.getFormat();
     return jsonFormat == null ? null : Format.getEnumForJsonFormat(jsonFormat);
   }
+
+  private static List<String> unmodifiableListOrNull(List<String> list) {
+    return list == null ? null : Collections.unmodifiableList(list);
+  }
 }
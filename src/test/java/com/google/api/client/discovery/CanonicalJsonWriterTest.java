@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the canonical writer and the content fingerprint.
+ */
+public class CanonicalJsonWriterTest extends TestCase {
+  private static final File FILE = new File("src/test/resources/urlshortener-v1-rest.json");
+
+  private final DiscoveryParser parser = new StreamingDiscoveryParser(new GsonFactory());
+
+  private RestDiscovery load() throws Exception {
+    return new RestDiscovery(parser.parseRestDescription(new FileInputStream(FILE)));
+  }
+
+  private static String canonical(Object value) throws Exception {
+    StringWriter out = new StringWriter();
+    new CanonicalJsonWriter(out, true).write(value);
+    return out.toString();
+  }
+
+  /**
+   * Returns a copy with the keys of every object in reverse order.
+   */
+  private static JsonElement reverse(JsonElement element) {
+    if (element.isJsonObject()) {
+      List<Map.Entry<String, JsonElement>> entries =
+          Lists.newArrayList(element.getAsJsonObject().entrySet());
+      JsonObject reversed = new JsonObject();
+      for (Map.Entry<String, JsonElement> entry : Lists.reverse(entries)) {
+        reversed.add(entry.getKey(), reverse(entry.getValue()));
+      }
+      return reversed;
+    }
+    if (element.isJsonArray()) {
+      JsonArray copy = new JsonArray();
+      for (JsonElement child : element.getAsJsonArray()) {
+        copy.add(reverse(child));
+      }
+      return copy;
+    }
+    return element;
+  }
+
+  public void testCanonicalForm() throws Exception {
+    Map<String, Object> value = Maps.newLinkedHashMap();
+    value.put("b", new BigDecimal("1.50"));
+    value.put("a", Lists.<Object>newArrayList(new BigDecimal("1E+2"), 3L, 0.0, "tab\t\"q\""));
+    value.put("c", null);
+    assertEquals("{\"a\":[100,3,0,\"tab\\t\\\"q\\\"\"],\"b\":1.5}", canonical(value));
+    assertEquals("0.25", CanonicalJsonWriter.normalize(0.25f));
+  }
+
+  public void testKeyOrderAndWhitespace() throws Exception {
+    String reordered = reverse(new JsonParser().parse(Files.toString(FILE, Charsets.UTF_8)))
+        .toString();
+    RestDiscovery other = new RestDiscovery(parser.parseRestDescription(
+        new ByteArrayInputStream(reordered.getBytes(Charsets.UTF_8))));
+
+    RestDiscovery discovery = load();
+    assertEquals(canonical(discovery.getDocument()), canonical(other.getDocument()));
+    assertEquals(discovery.getFingerprint(), other.getFingerprint());
+    assertEquals(64, discovery.getFingerprint().length());
+    assertSame(discovery.getFingerprint(), discovery.getFingerprint());
+  }
+
+  public void testBindingParser() throws Exception {
+    RestDiscovery bound = new RestDiscovery(
+        new BindingDiscoveryParser(new GsonFactory()).parseRestDescription(
+            new FileInputStream(FILE)));
+    assertEquals(load().getFingerprint(), bound.getFingerprint());
+  }
+
+  public void testDescriptionsExcludable() throws Exception {
+    RestDiscovery discovery = load();
+    RestDiscovery edited = load();
+    edited.getDocument().getSchemas().get("Url").setDescription("Edited");
+
+    assertFalse(discovery.getFingerprint().equals(edited.getFingerprint()));
+    assertEquals(CanonicalJsonWriter.fingerprint(discovery, false),
+        CanonicalJsonWriter.fingerprint(edited, false));
+  }
+
+  public void testPropertyNamedDescriptionKept() throws Exception {
+    RestDiscovery discovery = load();
+    RestDiscovery edited = load();
+    Jsonschema property = new Jsonschema();
+    property.setType("string");
+    edited.getDocument().getSchemas().get("Url").getProperties().put("description", property);
+
+    assertFalse(CanonicalJsonWriter.fingerprint(discovery, false).equals(
+        CanonicalJsonWriter.fingerprint(edited, false)));
+    assertTrue(canonical(ImmutableMap.of("properties", ImmutableMap.of("description", 1)))
+        .contains("description"));
+  }
+}
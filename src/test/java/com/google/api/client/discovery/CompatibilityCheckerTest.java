@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.services.discovery.model.Jsonschema;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.api.services.discovery.model.Restmethod;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Tests for the backward-compatibility checker.
+ */
+public class CompatibilityCheckerTest extends TestCase {
+  private RestDiscovery oldVersion;
+  private RestDiscovery newVersion;
+
+  @Override
+  public void setUp() throws Exception {
+    oldVersion = load();
+    newVersion = load();
+  }
+
+  private static RestDiscovery load() throws IOException {
+    return RestHelper.getDiscoveryFromFile(
+        new File("src/test/resources/urlshortener-v1-rest.json"));
+  }
+
+  private RestDescription document() {
+    return newVersion.getDocument();
+  }
+
+  private Restmethod getMethod() {
+    return document().getResources().get("url").getMethods().get("get");
+  }
+
+  private ApiChange onlyChange() {
+    CompatibilityReport report = CompatibilityChecker.compare(oldVersion, newVersion);
+    assertEquals(report.toString(), 1, report.getChanges().size());
+    return report.getChanges().get(0);
+  }
+
+  public void testIdentical() {
+    CompatibilityReport report = CompatibilityChecker.compare(oldVersion, newVersion);
+    assertTrue(report.getChanges().isEmpty());
+    assertFalse(report.isBreaking());
+  }
+
+  public void testDescriptionIgnored() {
+    document().getSchemas().get("Url").getProperties().get("id").setDescription("Changed");
+    assertTrue(CompatibilityChecker.compare(oldVersion, newVersion).getChanges().isEmpty());
+  }
+
+  public void testPropertyRemovedAndAdded() {
+    document().getSchemas().get("Url").getProperties().remove("longUrl");
+    ApiChange change = onlyChange();
+    assertTrue(change.isBreaking());
+    assertEquals("schemas.Url.properties.longUrl", change.getPath());
+
+    CompatibilityReport reverse = CompatibilityChecker.compare(newVersion, oldVersion);
+    assertEquals(1, reverse.getChanges().size());
+    assertFalse(reverse.isBreaking());
+  }
+
+  public void testRange() {
+    Jsonschema itemsPerPage =
+        oldVersion.getDocument().getSchemas().get("UrlHistory").getProperties().get("itemsPerPage");
+    itemsPerPage.setMinimum("0");
+    itemsPerPage.setMaximum("100");
+    Jsonschema narrowed =
+        document().getSchemas().get("UrlHistory").getProperties().get("itemsPerPage");
+    narrowed.setMinimum("1");
+    narrowed.setMaximum("100");
+    ApiChange change = onlyChange();
+    assertTrue(change.isBreaking());
+    assertEquals("schemas.UrlHistory.properties.itemsPerPage.minimum", change.getPath());
+
+    narrowed.setMinimum("0");
+    narrowed.setMaximum("1000");
+    assertFalse(onlyChange().isBreaking());
+  }
+
+  public void testEnumValues() {
+    Jsonschema projection = getMethod().getParameters().get("projection");
+    projection.setDiscoveryEnum(Lists.newArrayList("ANALYTICS_CLICKS", "FULL", "NONE"));
+    CompatibilityReport report = CompatibilityChecker.compare(oldVersion, newVersion);
+    assertEquals(2, report.getChanges().size());
+    List<ApiChange> breaking = report.getBreakingChanges();
+    assertEquals(1, breaking.size());
+    assertEquals("methods.urlshortener.url.get.parameters.projection.enum",
+        breaking.get(0).getPath());
+    assertTrue(breaking.get(0).getMessage().contains("ANALYTICS_TOP_STRINGS"));
+  }
+
+  public void testParameterBecameRequired() {
+    getMethod().getParameters().get("projection").setRequired(true);
+    ApiChange change = onlyChange();
+    assertTrue(change.isBreaking());
+    assertEquals("methods.urlshortener.url.get.parameters.projection", change.getPath());
+  }
+
+  public void testParameterAdded() {
+    Jsonschema optional = new Jsonschema();
+    optional.setType("string");
+    optional.setLocation("query");
+    getMethod().getParameters().put("fields", optional);
+    assertFalse(onlyChange().isBreaking());
+
+    optional.setRequired(true);
+    assertTrue(onlyChange().isBreaking());
+  }
+
+  public void testPathChange() {
+    getMethod().setPath("url/expand");
+    ApiChange change = onlyChange();
+    assertTrue(change.isBreaking());
+    assertEquals("methods.urlshortener.url.get.path", change.getPath());
+  }
+
+  public void testMethodAndSchemaRemoved() {
+    document().getResources().get("url").getMethods().remove("get");
+    document().getSchemas().remove("StringCount");
+    CompatibilityReport report = CompatibilityChecker.compare(oldVersion, newVersion);
+    assertEquals(2, report.getBreakingChanges().size());
+    assertEquals("schemas.StringCount", report.getChanges().get(0).getPath());
+    assertEquals("methods.urlshortener.url.get", report.getChanges().get(1).getPath());
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.List;
+
+/**
+ * Tests for {@link DiscoveryArchive}.
+ */
+public class DiscoveryArchiveTest extends TestCase {
+  private static final String DIRECTORY = "{\"kind\": \"discovery#directoryList\", \"items\": ["
+      + "{\"id\": \"urlshortener:v1\", \"name\": \"urlshortener\", \"version\": \"v1\"},"
+      + "{\"id\": \"missing:v1\", \"name\": \"missing\", \"version\": \"v1\"}]}";
+
+  private File archiveFile;
+  private DiscoveryArchive archive;
+
+  @Override
+  protected void setUp() throws Exception {
+    archiveFile = File.createTempFile("discovery", ".zip");
+    DiscoveryArchive.Writer writer =
+        new DiscoveryArchive.Writer(new FileOutputStream(archiveFile));
+    writer.putDirectory(DIRECTORY.getBytes(Charsets.UTF_8));
+    writer.putRestDescription("urlshortener", "v1",
+        Files.toByteArray(new File("src/test/resources/urlshortener-v1-rest.json")));
+    writer.close();
+
+    archive = new DiscoveryArchive(archiveFile);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    archive.close();
+    archiveFile.delete();
+  }
+
+  public void testLoadDiscovery() throws Exception {
+    RestHelper helper = RestHelper.getDefaultInstance();
+    assertTrue(archive.contains("urlshortener", "v1"));
+    assertFalse(archive.contains("urlshortener", "v2"));
+
+    RestDiscovery discovery = helper.loadDiscovery(archive, "urlshortener", "v1");
+    assertEquals(RestHelper.getDiscoveryFromFile(
+        new File("src/test/resources/urlshortener-v1-rest.json")), discovery);
+
+    try {
+      helper.loadDiscovery(archive, "urlshortener", "v2");
+      fail();
+    } catch (FileNotFoundException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testLoadApisFromDirectory() throws Exception {
+    RestHelper helper = RestHelper.getDefaultInstance();
+    assertEquals(2, helper.loadDirectoryDocument(archive).getItems().size());
+
+    List<RestDiscovery> apis = helper.loadApisFromDirectory(archive);
+    assertEquals(2, apis.size());
+    assertEquals("urlshortener:v1", apis.get(0).getId());
+    assertSame(apis.get(0), apis.get(0));
+    assertNull(apis.get(1));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the file-watching reload of discovery documents.
+ */
+public class DiscoveryFileWatcherTest extends TestCase {
+  private static final File SOURCE = new File("src/test/resources/urlshortener-v1-rest.json");
+
+  private final DiscoveryRegistry registry = new DiscoveryRegistry();
+  private final BlockingQueue<Object> outcomes = new LinkedBlockingQueue<Object>();
+  private File directory;
+  private File file;
+  private DiscoveryFileWatcher watcher;
+
+  @Override
+  public void setUp() throws Exception {
+    directory = Files.createTempDir();
+    file = new File(directory, "urlshortener-v1-rest.json");
+    Files.copy(SOURCE, file);
+    Files.write("not a discovery document", new File(directory, "notes.txt"), Charsets.UTF_8);
+
+    watcher = DiscoveryFileWatcher.builder(directory, registry)
+        .setDebounceMillis(50)
+        .setListener(new DiscoveryFileWatcher.Listener() {
+          public void onReload(File file, RestDiscovery discovery, long latencyMillis) {
+            outcomes.add(discovery);
+          }
+
+          public void onFailure(File file, Exception cause) {
+            outcomes.add(cause);
+          }
+        }).build();
+    watcher.start();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    watcher.close();
+    for (File child : directory.listFiles()) {
+      child.delete();
+    }
+    directory.delete();
+  }
+
+  private Object nextOutcome() throws InterruptedException {
+    Object outcome = outcomes.poll(10, TimeUnit.SECONDS);
+    assertNotNull("Timed out waiting for a reload", outcome);
+    return outcome;
+  }
+
+  private void rewrite(String from, String to) throws Exception {
+    String content = Files.toString(SOURCE, Charsets.UTF_8);
+    Files.write(content.replace(from, to), file, Charsets.UTF_8);
+  }
+
+  public void testInitialLoad() throws Exception {
+    RestDiscovery loaded = (RestDiscovery) nextOutcome();
+    assertSame(loaded, registry.get("urlshortener", "v1"));
+    assertTrue(outcomes.isEmpty());
+  }
+
+  public void testReloadOnChange() throws Exception {
+    RestDiscovery initial = (RestDiscovery) nextOutcome();
+    rewrite("\"title\": \"URL Shortener API\"", "\"title\": \"URL Shortener API 2\"");
+
+    RestDiscovery reloaded = (RestDiscovery) nextOutcome();
+    assertNotSame(initial, reloaded);
+    assertEquals("URL Shortener API 2", reloaded.getTitle());
+    assertSame(reloaded, registry.get("urlshortener", "v1"));
+  }
+
+  public void testFailureKeepsPreviousVersion() throws Exception {
+    RestDiscovery initial = (RestDiscovery) nextOutcome();
+    rewrite("\"$ref\": \"AnalyticsSummary\"", "\"$ref\": \"Missing\"");
+
+    assertTrue(nextOutcome() instanceof Exception);
+    assertSame(initial, registry.get("urlshortener", "v1"));
+  }
+
+  public void testMissingResponseSchemaRejected() throws Exception {
+    RestDiscovery initial = (RestDiscovery) nextOutcome();
+    rewrite("\"response\": {\n      \"$ref\": \"UrlHistory\"",
+        "\"response\": {\n      \"$ref\": \"Missing\"");
+
+    Exception failure = (Exception) nextOutcome();
+    assertTrue(failure.getMessage().contains("Missing"));
+    assertSame(initial, registry.get("urlshortener", "v1"));
+  }
+
+  public void testVersionMoved() throws Exception {
+    nextOutcome();
+    rewrite("\"version\": \"v1\"", "\"version\": \"v2\"");
+
+    RestDiscovery reloaded = (RestDiscovery) nextOutcome();
+    assertEquals("v2", reloaded.getVersion());
+    assertNull(registry.get("urlshortener", "v1"));
+    assertSame(reloaded, registry.get("urlshortener", "v2"));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.common.io.Files;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares the throughput of the {@link DiscoveryParser} implementations.
+ * Run it by hand with the test resources directory, or any directory of
+ * discovery documents, as the only argument.
+ */
+public class DiscoveryParserBenchmark {
+  private static final int WARM_UP_ROUNDS = 200;
+  private static final int MEASURED_ROUNDS = 1000;
+
+  public static void main(String[] args) throws IOException {
+    File directory = new File(args.length > 0 ? args[0] : "src/test/resources");
+    File[] files = directory.listFiles();
+    int count = 0;
+    byte[][] documents = new byte[files.length][];
+    for (File file : files) {
+      if (file.getName().endsWith(".json") && !file.getName().startsWith("directory")) {
+        documents[count++] = Files.toByteArray(file);
+      }
+    }
+
+    DiscoveryParser[] parsers = {new BindingDiscoveryParser(new GsonFactory()),
+        new StreamingDiscoveryParser(new GsonFactory())};
+    for (DiscoveryParser parser : parsers) {
+      run(parser, documents, count, WARM_UP_ROUNDS);
+    }
+    for (DiscoveryParser parser : parsers) {
+      long start = System.nanoTime();
+      run(parser, documents, count, MEASURED_ROUNDS);
+      long elapsedMicros = (System.nanoTime() - start) / 1000;
+      System.out.println(parser.getClass().getSimpleName() + ": "
+          + elapsedMicros / (MEASURED_ROUNDS * count) + "us per document");
+    }
+  }
+
+  private static void run(DiscoveryParser parser, byte[][] documents, int count, int rounds)
+      throws IOException {
+    for (int round = 0; round < rounds; round++) {
+      for (int i = 0; i < count; i++) {
+        parser.parseRestDescription(new ByteArrayInputStream(documents[i]));
+      }
+    }
+  }
+}
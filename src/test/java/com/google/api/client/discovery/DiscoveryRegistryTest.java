@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.io.FileInputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the multi-version registry.
+ */
+public class DiscoveryRegistryTest extends TestCase {
+  private final DiscoveryParser parser = new StreamingDiscoveryParser(new GsonFactory());
+  private final DiscoveryRegistry registry = new DiscoveryRegistry();
+
+  private RestDescription load(String version) throws Exception {
+    RestDescription document = parser.parseRestDescription(
+        new FileInputStream("src/test/resources/urlshortener-v1-rest.json"));
+    document.setVersion(version);
+    return document;
+  }
+
+  public void testPutAndGet() throws Exception {
+    RestDiscovery v1 = registry.put(load("v1"));
+    assertSame(v1, registry.get("urlshortener", "v1"));
+    assertNull(registry.get("urlshortener", "v2"));
+    assertNull(registry.get("missing", "v1"));
+    assertEquals(ImmutableList.of("v1"), registry.getVersions("urlshortener"));
+  }
+
+  public void testSnapshotUnaffectedByChanges() throws Exception {
+    registry.put(load("v1"));
+    Map<String, RestDiscovery> before = registry.getSnapshot();
+    RestDiscovery replacement = registry.put(load("v1"));
+    registry.put(load("v2"));
+
+    assertEquals(1, before.size());
+    assertNotSame(replacement, before.get("urlshortener:v1"));
+    assertSame(replacement, registry.get("urlshortener", "v1"));
+    assertEquals(ImmutableList.of("v1", "v2"), registry.getVersions("urlshortener"));
+  }
+
+  public void testSchemasShared() throws Exception {
+    RestDiscovery v1 = registry.put(load("v1"));
+    int schemaCount = registry.getSharedSchemaCount();
+    assertEquals(5, schemaCount);
+
+    RestDescription changed = load("v2");
+    changed.getSchemas().get("Url").setDescription("Changed");
+    RestDiscovery v2 = registry.put(changed);
+    assertSame(v1.getDocument().getSchemas().get("UrlHistory"),
+        v2.getDocument().getSchemas().get("UrlHistory"));
+    assertNotSame(v1.getDocument().getSchemas().get("Url"),
+        v2.getDocument().getSchemas().get("Url"));
+    assertEquals(schemaCount + 1, registry.getSharedSchemaCount());
+
+    // The changed schema is released with the last version referring to it
+    assertSame(v2, registry.remove("urlshortener", "v2"));
+    assertEquals(schemaCount, registry.getSharedSchemaCount());
+    registry.put(load("v1"));
+    assertEquals(schemaCount, registry.getSharedSchemaCount());
+    registry.remove("urlshortener", "v1");
+    assertEquals(0, registry.getSharedSchemaCount());
+    assertNull(registry.remove("urlshortener", "v1"));
+  }
+
+  public void testReadersDuringReload() throws Exception {
+    registry.put(load("v1"));
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicInteger misses = new AtomicInteger();
+    Thread reader = new Thread(new Runnable() {
+      public void run() {
+        while (!done.get()) {
+          RestDiscovery discovery = registry.get("urlshortener", "v1");
+          if (discovery == null || discovery.getSchemas().size() != 5) {
+            misses.incrementAndGet();
+          }
+        }
+      }
+    });
+    reader.start();
+    for (int i = 0; i < 20; i++) {
+      registry.put(load("v1"));
+    }
+    done.set(true);
+    reader.join();
+    assertEquals(0, misses.get());
+  }
+}
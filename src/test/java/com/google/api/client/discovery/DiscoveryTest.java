@@ -138,4 +138,67 @@ public class DiscoveryTest extends TestCase {
         schemas.keySet());
 
   }
+
+  public void testNoSchemas() throws Exception {
+    RestDiscovery noSchemas =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/no-schemas.json"));
+    assertTrue(noSchemas.getSchemas().isEmpty());
+    assertEquals(DiscoveryType.BaseType.STRING, noSchemas.getParameters().get("key").getBaseType());
+
+    RestMethod ping = noSchemas.getMethods().get("ping");
+    assertNull(ping.getResponse());
+    assertEquals(DiscoveryType.BaseType.INTEGER,
+        ping.getParameter("count").getType().getBaseType());
+    assertEquals("noschemas.echo.get",
+        noSchemas.getResources().get("echo").getMethods().get("get").getId());
+    assertNotNull(noSchemas.getSchemaFlattener());
+  }
+
+  public void testSchemaName() throws Exception {
+    DiscoveryType url = discovery.getSchemas().get("Url");
+    assertEquals("Url", url.getSchemaName());
+    assertEquals("AnalyticsSummary",
+        url.getObject().getProperties().get("analytics").getSchemaName());
+    assertNull(url.getObject().getProperties().get("id").getSchemaName());
+
+    RestDiscovery anonymous =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/recursive-without-ids.json"));
+    DiscoveryType node = anonymous.getMethods().get("get").getResponse();
+    assertNull(node.getId());
+    assertEquals("Node", node.getSchemaName());
+    assertEquals("Node", node.getObject().getProperties().get("child").getSchemaName());
+    assertEquals("Renamed", anonymous.getSchemas().get("Renamed").getSchemaName());
+  }
+
+  public void testIcons() {
+    List<IconDescription> icons = discovery.getIcons();
+    assertEquals(IconDescription.Size.X16, icons.get(0).getSize());
+    assertEquals(IconDescription.Size.X32, icons.get(1).getSize());
+  }
+
+  public void testImmutable() {
+    try {
+      discovery.getResources().remove("url");
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Intentionally blank
+    }
+    assertEquals(1, discovery.getResources().size());
+
+    try {
+      discovery.getLabels().clear();
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Intentionally blank
+    }
+    assertEquals(ImmutableList.of("labs"), discovery.getLabels());
+
+    try {
+      discovery.getSchemas().get("Url").getObject().getProperties().remove("id");
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Intentionally blank
+    }
+    assertEquals(6, discovery.getSchemas().get("Url").getObject().getProperties().size());
+  }
 }
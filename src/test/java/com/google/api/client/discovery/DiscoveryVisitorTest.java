@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Tests for the {@link DiscoveryVisitor} walk.
+ */
+public class DiscoveryVisitorTest extends TestCase {
+
+  /**
+   * Visitor which records everything it sees.
+   */
+  private static class RecordingVisitor extends DiscoveryVisitor {
+    final List<String> resources = Lists.newArrayList();
+    final List<String> methods = Lists.newArrayList();
+    final List<String> parameters = Lists.newArrayList();
+    final List<String> schemas = Lists.newArrayList();
+
+    @Override
+    public boolean visitResource(String path, RestResource resource) {
+      resources.add(path);
+      return true;
+    }
+
+    @Override
+    public boolean visitMethod(RestMethod method) {
+      methods.add(method.getId());
+      return true;
+    }
+
+    @Override
+    public void visitParameter(RestMethod method, Parameter parameter) {
+      parameters.add(method.getId() + "/" + parameter.getName());
+    }
+
+    @Override
+    public boolean visitSchema(String path, DiscoveryType type) {
+      schemas.add(path);
+      return true;
+    }
+  }
+
+  public void testWalk() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+    RecordingVisitor visitor = new RecordingVisitor();
+    discovery.accept(visitor);
+
+    assertEquals(Lists.newArrayList("url"), visitor.resources);
+    assertEquals(3, visitor.methods.size());
+    assertTrue(visitor.methods.contains("urlshortener.url.insert"));
+    assertEquals(4, visitor.parameters.size());
+    assertTrue(visitor.parameters.contains("urlshortener.url.get/shortUrl"));
+
+    assertEquals(34, visitor.schemas.size());
+    assertTrue(visitor.schemas.contains("Url.analytics"));
+    assertTrue(visitor.schemas.contains("UrlHistory.items[]"));
+    assertTrue(visitor.schemas.indexOf("Url") < visitor.schemas.indexOf("Url.analytics"));
+  }
+
+  public void testPrune() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+    RecordingVisitor visitor = new RecordingVisitor() {
+      @Override
+      public boolean visitResource(String path, RestResource resource) {
+        super.visitResource(path, resource);
+        return false;
+      }
+
+      @Override
+      public boolean visitSchema(String path, DiscoveryType type) {
+        super.visitSchema(path, type);
+        return !"Url".equals(path);
+      }
+    };
+    discovery.accept(visitor);
+
+    assertEquals(1, visitor.resources.size());
+    assertTrue(visitor.methods.isEmpty());
+    assertTrue(visitor.schemas.contains("Url"));
+    assertFalse(visitor.schemas.contains("Url.analytics"));
+  }
+
+  public void testRecursiveSchemas() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/recursive-schemas.json"));
+    RecordingVisitor visitor = new RecordingVisitor();
+    discovery.accept(visitor);
+
+    assertEquals(Lists.newArrayList("Node", "Node.name", "Node.parent", "Node.children",
+        "Node.children[]", "Node.attributes", "Node.attributes{}", "Attribute", "Attribute.owner",
+        "Attribute.value", "Tree", "Tree{}", "Forest", "Forest[]"), visitor.schemas);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+
+/**
+ * Tests for loading discovery documents from local sources with
+ * {@link RestHelper}.
+ */
+public class LocalSourcesTest extends TestCase {
+  private static final File URLSHORTENER = new File("src/test/resources/urlshortener-v1-rest.json");
+
+  private RestDiscovery expected;
+  private byte[] content;
+
+  @Override
+  protected void setUp() throws Exception {
+    expected = RestHelper.getDiscoveryFromFile(URLSHORTENER);
+    content = Files.toByteArray(URLSHORTENER);
+  }
+
+  public void testStream() throws Exception {
+    assertEquals(expected, RestHelper.getDiscoveryFromStream(new ByteArrayInputStream(content)));
+  }
+
+  public void testBytes() throws Exception {
+    assertEquals(expected, RestHelper.getDiscoveryFromBytes(content));
+  }
+
+  public void testHeapBuffer() throws Exception {
+    byte[] padded = new byte[content.length + 8];
+    System.arraycopy(content, 0, padded, 4, content.length);
+    ByteBuffer buffer = ByteBuffer.wrap(padded, 4, content.length).slice();
+
+    assertEquals(expected, RestHelper.getDiscoveryFromBuffer(buffer));
+    assertEquals(0, buffer.position());
+  }
+
+  public void testDirectBuffer() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(content.length + 3);
+    buffer.put(new byte[3]);
+    buffer.put(content);
+    buffer.position(3);
+
+    assertEquals(expected, RestHelper.getDiscoveryFromBuffer(buffer));
+    assertEquals(3, buffer.position());
+  }
+
+  public void testResource() throws Exception {
+    assertEquals(expected, RestHelper.getDiscoveryFromResource("urlshortener-v1-rest.json"));
+
+    try {
+      RestHelper.getDiscoveryFromResource("missing.json");
+      fail();
+    } catch (FileNotFoundException e) {
+      // Intentionally blank
+    }
+  }
+}
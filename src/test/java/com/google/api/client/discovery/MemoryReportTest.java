@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.MemoryUsage.Measure;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.io.FileInputStream;
+import java.util.List;
+
+/**
+ * Tests for the memory accounting of loaded APIs.
+ */
+public class MemoryReportTest extends TestCase {
+  private final DiscoveryParser parser = new StreamingDiscoveryParser(new GsonFactory());
+
+  private RestDescription load(String fileName) throws Exception {
+    return parser.parseRestDescription(new FileInputStream("src/test/resources/" + fileName));
+  }
+
+  public void testBreakdown() throws Exception {
+    MemoryUsage usage = MemoryUsage.measure(new RestDiscovery(load("urlshortener-v1-rest.json")));
+    assertEquals("urlshortener:v1", usage.getApiId());
+    assertEquals(usage.getTotalBytes(), usage.getSchemaBytes() + usage.getMethodBytes()
+        + usage.getDescriptionBytes() + usage.getOtherBytes() + usage.getCacheBytes());
+    assertTrue(usage.getSchemaBytes() > 0);
+    assertTrue(usage.getMethodBytes() > 0);
+    assertTrue(usage.getDescriptionBytes() > usage.getMethodBytes());
+
+    List<Long> schemaSizes = Lists.newArrayList(usage.getSchemaSizes().values());
+    assertEquals(5, schemaSizes.size());
+    for (int i = 1; i < schemaSizes.size(); i++) {
+      assertTrue(schemaSizes.get(i - 1) >= schemaSizes.get(i));
+    }
+    assertEquals(ImmutableList.of("url"),
+        Lists.newArrayList(usage.getResourceSizes().keySet()));
+  }
+
+  public void testCachesCounted() throws Exception {
+    RestDiscovery discovery = new RestDiscovery(load("urlshortener-v1-rest.json"));
+    MemoryUsage fresh = MemoryUsage.measure(discovery);
+
+    discovery.getSchemaIndex();
+    discovery.getFingerprint();
+    discovery.getSchemaFlattener().flatten("Url");
+    MemoryUsage used = MemoryUsage.measure(discovery);
+    assertTrue(used.getCacheBytes() > fresh.getCacheBytes());
+    assertEquals(fresh.getTotalBytes() - fresh.getCacheBytes(),
+        used.getTotalBytes() - used.getCacheBytes());
+    assertEquals(used.getTotalBytes(), used.getSchemaBytes() + used.getMethodBytes()
+        + used.getDescriptionBytes() + used.getOtherBytes() + used.getCacheBytes());
+    assertTrue(used.toString().contains("caches " + used.getCacheBytes()));
+  }
+
+  public void testDescriptionsCounted() throws Exception {
+    RestDescription document = load("urlshortener-v1-rest.json");
+    long before = MemoryUsage.measure(new RestDiscovery(document)).getDescriptionBytes();
+    document.getSchemas().get("Url").setDescription(
+        "A description long enough to be noticed in the accounting");
+    long after = MemoryUsage.measure(new RestDiscovery(document)).getDescriptionBytes();
+    assertEquals(MemoryEstimator.sizeOf(
+        "A description long enough to be noticed in the accounting"), after - before);
+  }
+
+  public void testSortedReport() throws Exception {
+    MemoryReport report = MemoryReport.measure(ImmutableList.of(
+        new RestDiscovery(load("all-types.json")),
+        new RestDiscovery(load("urlshortener-v1-rest.json"))));
+    assertEquals("null:null", report.getUsages().get(0).getApiId());
+    List<MemoryUsage> sorted = report.sortedBy(Measure.TOTAL);
+    assertEquals("urlshortener:v1", sorted.get(0).getApiId());
+    assertEquals(report.getTotalBytes(),
+        sorted.get(0).getTotalBytes() + sorted.get(1).getTotalBytes());
+    assertTrue(report.toString().startsWith("urlshortener:v1"));
+  }
+
+  public void testSharedSchemasCountedOnce() throws Exception {
+    DiscoveryRegistry registry = new DiscoveryRegistry();
+    registry.put(load("urlshortener-v1-rest.json"));
+    RestDescription v2 = load("urlshortener-v1-rest.json");
+    v2.setVersion("v2");
+    registry.put(v2);
+
+    MemoryReport report = MemoryReport.measure(registry);
+    MemoryUsage first = report.getUsages().get(0);
+    MemoryUsage second = report.getUsages().get(1);
+    assertTrue(second.getSchemaBytes() < first.getSchemaBytes() / 10);
+    assertEquals(first.getTotalBytes(),
+        MemoryUsage.measure(registry.get("urlshortener", "v1")).getTotalBytes());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.RestMethod.Parameter;
+import com.google.api.client.discovery.RestMethod.ParameterLocation;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the per-method parameter table.
+ */
+public class ParameterTableTest extends TestCase {
+  private RestDiscovery discovery;
+  private Map<String, RestMethod> urlMethods;
+
+  @Override
+  public void setUp() throws Exception {
+    discovery = RestHelper.getDiscoveryFromFile(
+        new File("src/test/resources/urlshortener-v1-rest.json"));
+    urlMethods = discovery.getResources().get("url").getMethods();
+  }
+
+  public void testRequiredAndOptional() {
+    RestMethod get = urlMethods.get("get");
+    ParameterTable table = get.getParameterTable();
+    assertSame(table, get.getParameterTable());
+
+    assertEquals(2, table.getParameters().size());
+    assertEquals(1, table.getRequired().size());
+    assertEquals("shortUrl", table.getRequired().get(0).getName());
+    assertEquals(1, table.getOptional().size());
+    assertEquals("projection", table.getOptional().get(0).getName());
+
+    assertEquals(table.getRequired(), table.getRequired(ParameterLocation.QUERY));
+    assertTrue(table.getRequired(ParameterLocation.PATH).isEmpty());
+    assertEquals(table.getOptional(), table.getOptional(ParameterLocation.QUERY));
+    assertTrue(table.getOptional(ParameterLocation.PATH).isEmpty());
+  }
+
+  public void testSharedAcrossLookups() {
+    ParameterTable table =
+        discovery.getResources().get("url").getMethods().get("get").getParameterTable();
+    RestMethod again = discovery.getResources().get("url").getMethods().get("get");
+
+    assertSame(table, again.getParameterTable());
+    assertSame(table.get("shortUrl"), again.getParameter("shortUrl"));
+    assertEquals(1, discovery.getParameterTables().size());
+  }
+
+  public void testLookupByName() {
+    RestMethod get = urlMethods.get("get");
+    Parameter shortUrl = get.getParameter("shortUrl");
+    assertSame(get.getRequiredParameters().get(0), shortUrl);
+    assertSame(shortUrl.getType(), shortUrl.getType());
+    assertNull(get.getParameter("missing"));
+  }
+
+  public void testOptionalInDocumentOrder() {
+    List<Parameter> optional = urlMethods.get("list").getParameterTable().getOptional();
+    assertEquals(2, optional.size());
+    assertEquals("projection", optional.get(0).getName());
+    assertEquals("start-token", optional.get(1).getName());
+    assertTrue(urlMethods.get("list").getRequiredParameters().isEmpty());
+  }
+
+  public void testNoParameters() {
+    RestMethod insert = urlMethods.get("insert");
+    assertTrue(insert.getRequiredParameters().isEmpty());
+    assertTrue(insert.getOptionalParameters().isEmpty());
+    assertTrue(insert.getParameterTable().getParameters().isEmpty());
+  }
+}
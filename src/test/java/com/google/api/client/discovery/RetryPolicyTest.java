@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Tests for the {@link RetryPolicy} class.
+ */
+public class RetryPolicyTest extends TestCase {
+
+  public void testDefaults() {
+    assertEquals(1, RetryPolicy.NO_RETRY.getMaxAttempts());
+    assertEquals(3, RetryPolicy.DEFAULT.getMaxAttempts());
+    assertEquals(0, RetryPolicy.DEFAULT.getDeadlineMillis());
+    assertEquals(0, RetryPolicy.DEFAULT.getHedgeDelayMillis());
+    assertTrue(RetryPolicy.DEFAULT.getRetryableStatusCodes().contains(503));
+    assertFalse(RetryPolicy.DEFAULT.getRetryableStatusCodes().contains(404));
+  }
+
+  public void testNetworkFailuresAreRetryable() {
+    assertTrue(RetryPolicy.DEFAULT.isRetryable(new IOException("Connection reset")));
+  }
+
+  public void testExponentialBackoff() {
+    RetryPolicy policy = RetryPolicy.builder()
+        .setInitialBackoffMillis(100)
+        .setMaxBackoffMillis(1000)
+        .setJitterFactor(0.0)
+        .build();
+    Random random = new Random(0);
+
+    assertEquals(100, policy.getBackoffMillis(1, random));
+    assertEquals(200, policy.getBackoffMillis(2, random));
+    assertEquals(400, policy.getBackoffMillis(3, random));
+    assertEquals(1000, policy.getBackoffMillis(5, random));
+  }
+
+  public void testJitterStaysInBounds() {
+    RetryPolicy policy = RetryPolicy.builder()
+        .setInitialBackoffMillis(100)
+        .setJitterFactor(0.5)
+        .build();
+    Random random = new Random(0);
+
+    for (int i = 0; i < 1000; i++) {
+      long backoff = policy.getBackoffMillis(2, random);
+      assertTrue(backoff >= 100 && backoff <= 300);
+    }
+  }
+
+  public void testInvalidSettings() {
+    try {
+      RetryPolicy.builder().setMaxAttempts(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+
+    try {
+      RetryPolicy.builder().setJitterFactor(1.5);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+}
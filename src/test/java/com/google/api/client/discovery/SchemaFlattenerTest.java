@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.discovery.FlatSchema.Kind;
+import com.google.api.client.discovery.types.DiscoveryType.BaseType;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+/**
+ * Tests for {@link SchemaFlattener}.
+ */
+public class SchemaFlattenerTest extends TestCase {
+
+  private static SchemaFlattener load(String fileName) throws Exception {
+    return RestHelper.getDiscoveryFromFile(new File("src/test/resources/" + fileName))
+        .getSchemaFlattener();
+  }
+
+  public void testInlinesReferences() throws Exception {
+    FlatSchema url = load("urlshortener-v1-rest.json").flatten("Url");
+    assertEquals(Kind.EXPANDED, url.getKind());
+    assertEquals("Url", url.getReference());
+
+    FlatSchema analytics = url.getProperties().get("analytics");
+    assertEquals("AnalyticsSummary", analytics.getReference());
+    FlatSchema countries =
+        analytics.getProperties().get("allTime").getProperties().get("countries");
+    assertEquals(BaseType.ARRAY, countries.getType().getBaseType());
+    FlatSchema count = countries.getItems().getProperties().get("count");
+    assertEquals(BaseType.STRING, count.getType().getBaseType());
+    assertNull(count.getReference());
+  }
+
+  public void testCycles() throws Exception {
+    FlatSchema node = load("recursive-schemas.json").flatten("Node");
+    FlatSchema parent = node.getProperties().get("parent");
+    assertEquals(Kind.CYCLE, parent.getKind());
+    assertEquals("Node", parent.getReference());
+    assertTrue(parent.getProperties().isEmpty());
+
+    FlatSchema attribute = node.getProperties().get("attributes").getAdditionalProperties();
+    assertEquals(Kind.EXPANDED, attribute.getKind());
+    assertEquals("Attribute", attribute.getReference());
+    assertEquals(Kind.CYCLE, attribute.getProperties().get("owner").getKind());
+    assertEquals(Kind.CYCLE, node.getProperties().get("children").getItems().getKind());
+
+    // Attribute is only a cycle when it encloses itself
+    FlatSchema owner = load("recursive-schemas.json").flatten("Attribute")
+        .getProperties().get("owner");
+    assertEquals(Kind.EXPANDED, owner.getKind());
+    assertEquals(Kind.CYCLE,
+        owner.getProperties().get("attributes").getAdditionalProperties().getKind());
+  }
+
+  public void testDepth() throws Exception {
+    SchemaFlattener flattener = load("urlshortener-v1-rest.json");
+    FlatSchema url = flattener.flatten("Url", 1);
+    FlatSchema analytics = url.getProperties().get("analytics");
+    assertEquals(Kind.EXPANDED, analytics.getKind());
+    FlatSchema allTime = analytics.getProperties().get("allTime");
+    assertEquals(Kind.TRUNCATED, allTime.getKind());
+    assertEquals("AnalyticsSnapshot", allTime.getReference());
+    assertTrue(allTime.getProperties().isEmpty());
+
+    FlatSchema root = flattener.flatten("Url", 0);
+    assertEquals(Kind.TRUNCATED, root.getProperties().get("id").getKind());
+  }
+
+  public void testMemoized() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+    assertSame(discovery.getSchemaFlattener(), discovery.getSchemaFlattener());
+    SchemaFlattener flattener = discovery.getSchemaFlattener();
+    assertSame(flattener.flatten("UrlHistory", 2), flattener.flatten("UrlHistory", 2));
+    assertNotSame(flattener.flatten("UrlHistory", 2), flattener.flatten("UrlHistory", 3));
+    assertTrue(flattener.flatten("UrlHistory").toString().contains("  items: array\n"));
+
+    try {
+      flattener.flatten("Missing");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.BitSet;
+
+/**
+ * Tests for the {@link SchemaIndex} class.
+ */
+public class SchemaIndexTest extends TestCase {
+
+  private SchemaIndex index;
+
+  @Override
+  public void setUp() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+    index = discovery.getSchemaIndex();
+    assertSame(index, discovery.getSchemaIndex());
+  }
+
+  public void testSchemaClosure() {
+    assertEquals(5, index.getSchemaNames().size());
+    assertEquals(-1, index.getSchemaId("Missing"));
+
+    BitSet url = index.getClosure("Url");
+    assertEquals(4, url.cardinality());
+    assertTrue(url.get(index.getSchemaId("Url")));
+    assertTrue(url.get(index.getSchemaId("AnalyticsSummary")));
+    assertTrue(url.get(index.getSchemaId("AnalyticsSnapshot")));
+    assertTrue(url.get(index.getSchemaId("StringCount")));
+    assertFalse(url.get(index.getSchemaId("UrlHistory")));
+
+    assertEquals(1, index.getClosure("StringCount").cardinality());
+  }
+
+  public void testMethodClosure() {
+    assertEquals(5, index.getMethodClosure("urlshortener.url.list").cardinality());
+    assertEquals(4, index.getMethodClosure("urlshortener.url.get").cardinality());
+    assertTrue(index.methodUsesSchema("urlshortener.url.insert", "AnalyticsSnapshot"));
+    assertFalse(index.methodUsesSchema("urlshortener.url.insert", "UrlHistory"));
+    assertEquals(ImmutableList.of("AnalyticsSnapshot", "AnalyticsSummary", "StringCount", "Url"),
+        index.getMethodSchemaNames("urlshortener.url.get"));
+  }
+
+  public void testMethodsUsing() {
+    assertEquals(ImmutableList.of("urlshortener.url.list"), index.getMethodsUsing("UrlHistory"));
+    assertEquals(3, index.getMethodsUsing("StringCount").size());
+  }
+
+  public void testClosuresAreCopies() {
+    index.getClosure("Url").clear();
+    assertEquals(4, index.getClosure("Url").cardinality());
+  }
+
+  public void testRecursiveSchemas() throws Exception {
+    SchemaIndex recursive =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/recursive-schemas.json"))
+            .getSchemaIndex();
+    assertEquals(2, recursive.getClosure("Node").cardinality());
+    assertEquals(2, recursive.getClosure("Attribute").cardinality());
+    assertEquals(ImmutableList.of("recursive.nodes.get"), recursive.getMethodsUsing("Attribute"));
+  }
+}
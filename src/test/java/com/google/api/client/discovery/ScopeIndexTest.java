@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.BitSet;
+
+/**
+ * Tests for the {@link ScopeIndex} class.
+ */
+public class ScopeIndexTest extends TestCase {
+  private static final String SCOPE = "https://www.googleapis.com/auth/urlshortener";
+
+  private ScopeIndex index;
+
+  @Override
+  public void setUp() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+    index = discovery.getScopeIndex();
+    assertSame(index, discovery.getScopeIndex());
+  }
+
+  public void testDictionary() {
+    assertEquals(ImmutableList.of(SCOPE), index.getScopeNames());
+    assertEquals(0, index.getScopeId(SCOPE));
+    assertEquals(-1, index.getScopeId("https://www.googleapis.com/auth/other"));
+
+    BitSet granted =
+        index.toBitSet(ImmutableList.of("https://www.googleapis.com/auth/other", SCOPE));
+    assertEquals(1, granted.cardinality());
+    assertTrue(granted.get(0));
+  }
+
+  public void testAuthorization() {
+    BitSet granted = index.toBitSet(ImmutableList.of(SCOPE));
+    BitSet none = index.toBitSet(ImmutableList.<String>of());
+
+    assertTrue(index.isAuthorized("urlshortener.url.insert", granted));
+    assertFalse(index.isAuthorized("urlshortener.url.insert", none));
+    assertTrue(index.isAuthorized("urlshortener.url.get", none));
+    assertTrue(index.getMethodScopes("urlshortener.url.get").isEmpty());
+
+    try {
+      index.isAuthorized("urlshortener.url.missing", granted);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testReverseIndex() {
+    assertEquals(ImmutableList.of("urlshortener.url.insert", "urlshortener.url.list"),
+        index.getMethodsWithScope(SCOPE));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.DirectoryList;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+
+/**
+ * Parity tests of {@link StreamingDiscoveryParser} against
+ * {@link BindingDiscoveryParser}.
+ */
+public class StreamingDiscoveryParserTest extends TestCase {
+  private final DiscoveryParser binding = new BindingDiscoveryParser(new GsonFactory());
+  private final DiscoveryParser streaming = new StreamingDiscoveryParser(new GsonFactory());
+
+  private void assertParity(String fileName) throws Exception {
+    File file = new File("src/test/resources", fileName);
+    RestDescription expected = binding.parseRestDescription(new FileInputStream(file));
+    RestDescription actual = streaming.parseRestDescription(new FileInputStream(file));
+
+    assertEquals(expected, actual);
+    assertEquals(new RestDiscovery(expected), new RestDiscovery(actual));
+  }
+
+  public void testUrlshortenerParity() throws Exception {
+    assertParity("urlshortener-v1-rest.json");
+  }
+
+  public void testAllTypesParity() throws Exception {
+    assertParity("all-types.json");
+  }
+
+  public void testRecursiveSchemasParity() throws Exception {
+    assertParity("recursive-schemas.json");
+  }
+
+  public void testDirectoryParity() throws Exception {
+    File file = new File("src/test/resources/directory.json");
+    DirectoryList expected = binding.parseDirectoryList(new FileInputStream(file));
+    DirectoryList actual = streaming.parseDirectoryList(new FileInputStream(file));
+
+    assertEquals(expected, actual);
+  }
+
+  public void testDocumentOrder() throws Exception {
+    RestDescription description = streaming.parseRestDescription(
+        new FileInputStream("src/test/resources/urlshortener-v1-rest.json"));
+    assertEquals(
+        Lists.newArrayList("AnalyticsSnapshot", "AnalyticsSummary", "StringCount", "Url",
+            "UrlHistory"), Lists.newArrayList(description.getSchemas().keySet()));
+  }
+
+  public void testUnknownMembersSkipped() throws Exception {
+    String json = "{\"id\": \"a:v1\", \"unknown\": {\"nested\": [1, {\"x\": null}]},"
+        + " \"schemas\": {\"S\": {\"type\": \"integer\", \"minimum\": 0, \"extra\": true}}}";
+    RestDescription description =
+        streaming.parseRestDescription(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+    assertEquals("a:v1", description.getId());
+    assertEquals("0", description.getSchemas().get("S").getMinimum());
+  }
+
+  public void testMalformed() throws Exception {
+    try {
+      streaming.parseRestDescription(new ByteArrayInputStream("[]".getBytes("UTF-8")));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+}
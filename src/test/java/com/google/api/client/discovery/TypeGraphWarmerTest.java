@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for the parallel warm-up of the type graph.
+ */
+public class TypeGraphWarmerTest extends TestCase {
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  private static RestDiscovery load(String fileName) throws Exception {
+    return RestHelper.getDiscoveryFromFile(new File("src/test/resources", fileName));
+  }
+
+  @Override
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  public void testCountsEveryType() throws Exception {
+    // 34 types in the 5 named schemas, 4 requests and responses and 4 parameters
+    int resolved = new TypeGraphWarmer(pool, TypeGraphWarmer.NO_FLATTENING)
+        .warmUp(load("urlshortener-v1-rest.json"));
+    assertEquals(42, resolved);
+  }
+
+  public void testParameterTablesReused() throws Exception {
+    RestDiscovery discovery = load("urlshortener-v1-rest.json");
+    assertEquals(0, discovery.getParameterTables().size());
+
+    new TypeGraphWarmer(pool, TypeGraphWarmer.NO_FLATTENING).warmUp(discovery);
+    assertEquals(3, discovery.getParameterTables().size());
+
+    RestMethod get = discovery.getResources().get("url").getMethods().get("get");
+    assertNotNull(get.getParameter("shortUrl"));
+    assertEquals(3, discovery.getParameterTables().size());
+  }
+
+  public void testRecursiveSchemasFlattened() throws Exception {
+    RestDiscovery discovery = load("recursive-schemas.json");
+    assertTrue(new TypeGraphWarmer(pool, SchemaFlattener.UNBOUNDED).warmUp(discovery) > 0);
+    assertEquals(FlatSchema.Kind.CYCLE, discovery.getSchemaFlattener().flatten("Node")
+        .getProperties().get("parent").getKind());
+  }
+
+  public void testRecursiveSchemasWithoutIds() throws Exception {
+    // 5 + 2 + 2 + 2 types in the named schemas and the response of the method
+    RestDiscovery discovery = load("recursive-without-ids.json");
+    assertEquals(12, new TypeGraphWarmer(pool, SchemaFlattener.UNBOUNDED).warmUp(discovery));
+    assertEquals(FlatSchema.Kind.CYCLE, discovery.getSchemaFlattener().flatten("Node")
+        .getProperties().get("child").getKind());
+  }
+
+  public void testDefaultPool() throws Exception {
+    assertTrue(new TypeGraphWarmer().warmUp(load("all-types.json")) > 0);
+  }
+
+  public void testBrokenDocumentFails() throws Exception {
+    try {
+      new TypeGraphWarmer(pool, TypeGraphWarmer.NO_FLATTENING).warmUp(load("lint-broken.json"));
+      fail();
+    } catch (RuntimeException e) {
+      // Intentionally blank
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.discovery.RestMethod;
+import com.google.api.client.discovery.StreamingDiscoveryParser;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Tests for the query string decoder.
+ */
+public class QueryDecoderTest extends TestCase {
+  private static final String SEARCH = "{\"name\": \"search\", \"version\": \"v1\","
+      + " \"schemas\": {}, \"methods\": {\"search\": {\"id\": \"search.search\","
+      + " \"path\": \"search/{zone}\","
+      + " \"httpMethod\": \"GET\", \"parameterOrder\": [\"zone\", \"q\"], \"parameters\": {"
+      + "\"zone\": {\"type\": \"string\", \"location\": \"path\", \"required\": true},"
+      + "\"q\": {\"type\": \"string\", \"location\": \"query\", \"required\": true},"
+      + "\"limit\": {\"type\": \"integer\", \"location\": \"query\", \"minimum\": \"1\","
+      + " \"maximum\": \"100\", \"default\": \"20\"},"
+      + "\"offset\": {\"type\": \"integer\", \"format\": \"uint32\", \"location\": \"query\"},"
+      + "\"id\": {\"type\": \"string\", \"format\": \"int64\", \"location\": \"query\"},"
+      + "\"big\": {\"type\": \"string\", \"format\": \"uint64\", \"location\": \"query\"},"
+      + "\"exact\": {\"type\": \"boolean\", \"location\": \"query\"},"
+      + "\"boost\": {\"type\": \"number\", \"location\": \"query\"},"
+      + "\"since\": {\"type\": \"string\", \"format\": \"date-time\", \"location\": \"query\"},"
+      + "\"order\": {\"type\": \"string\", \"enum\": [\"ASC\", \"DESC\"], \"default\": \"ASC\","
+      + " \"location\": \"query\"},"
+      + "\"tag\": {\"type\": \"string\", \"repeated\": true, \"location\": \"query\"},"
+      + "\"page\": {\"type\": \"integer\", \"repeated\": true, \"location\": \"query\"}"
+      + "}}}}";
+
+  private static QueryDecoder search() throws Exception {
+    RestDiscovery discovery = new RestDiscovery(new StreamingDiscoveryParser(new GsonFactory())
+        .parseRestDescription(new ByteArrayInputStream(SEARCH.getBytes("UTF-8"))));
+    return QueryDecoder.compile(discovery.getMethods().get("search"));
+  }
+
+  public void testTypedValues() throws Exception {
+    QueryValues values = search().decode("?q=cats&limit=50&offset=4000000000"
+        + "&id=-9223372036854775808&big=18446744073709551615&exact=true&boost=2.5"
+        + "&since=2011-10-01T12:00:00.000Z&order=DESC");
+
+    assertEquals("cats", values.getString("q"));
+    assertEquals(50, values.getInt("limit"));
+    assertEquals(4000000000L, values.getLong("offset"));
+    assertEquals(Long.MIN_VALUE, values.getLong("id"));
+    assertEquals(new BigInteger("18446744073709551615"), values.get("big"));
+    assertTrue(values.getBoolean("exact"));
+    assertEquals(2.5, values.getDouble("boost"));
+    assertEquals(DateTime.parseRfc3339("2011-10-01T12:00:00.000Z"), values.get("since"));
+    assertEquals(1, values.getEnumOrdinal("order"));
+    assertEquals("DESC", values.get("order"));
+    assertEquals(50, values.get("limit"));
+    assertTrue(values.getMissing().isEmpty());
+  }
+
+  public void testDefaultsAndMissing() throws Exception {
+    QueryValues values = search().decode("");
+
+    assertFalse(values.isPresent("limit"));
+    assertTrue(values.has("limit"));
+    assertEquals(20, values.getInt("limit"));
+    assertEquals(0, values.getEnumOrdinal("order"));
+    assertFalse(values.has("exact"));
+    assertNull(values.get("exact"));
+    assertEquals(Arrays.asList("q"), values.getMissing());
+    try {
+      values.getBoolean("exact");
+      fail();
+    } catch (IllegalStateException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testPercentDecoding() throws Exception {
+    QueryValues values =
+        search().decode("q=caf%C3%A9+au+lait%21&%74ag=%F0%9F%90%88&exact=%74rue&limit=1%30");
+
+    assertEquals("caf\u00e9 au lait!", values.getString("q"));
+    assertEquals(ImmutableList.of("\ud83d\udc08"), values.getAll("tag"));
+    assertTrue(values.getBoolean("exact"));
+    assertEquals(10, values.getInt("limit"));
+  }
+
+  public void testRepeated() throws Exception {
+    QueryValues values = search().decode("tag=a&page=1&q=x&tag=b&page=2&tag=");
+
+    assertEquals(ImmutableList.of("a", "b", ""), values.getAll("tag"));
+    assertEquals(ImmutableList.of(1, 2), values.getAll("page"));
+    try {
+      values.get("tag");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testUnknownAndPathParametersSkipped() throws Exception {
+    QueryValues values = search().decode("key=abc&zone=eu&q=x&&=&fields=");
+
+    assertEquals("x", values.getString("q"));
+    try {
+      values.isPresent("zone");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testInvalidValues() throws Exception {
+    QueryDecoder decoder = search();
+    for (String query : Arrays.asList("q=a&q=b", "limit=0", "limit=101", "limit=1x",
+        "offset=-1", "id=9223372036854775808", "big=-1", "exact=yes", "boost=abc",
+        "order=UP", "since=yesterday", "q=%C3", "q=%zz", "q=%4")) {
+      try {
+        decoder.decode(query);
+        fail(query);
+      } catch (IllegalArgumentException e) {
+        // Intentionally blank
+      }
+    }
+  }
+
+  public void testUrlshortener() throws Exception {
+    RestDiscovery discovery =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+    RestMethod get = discovery.getResources().get("url").getMethods().get("get");
+    QueryValues values = QueryDecoder.compile(get)
+        .decode("shortUrl=http%3A%2F%2Fgoo.gl%2FfbsS&projection=ANALYTICS_CLICKS");
+
+    assertEquals("http://goo.gl/fbsS", values.getString("shortUrl"));
+    assertEquals(0, values.getEnumOrdinal("projection"));
+  }
+}
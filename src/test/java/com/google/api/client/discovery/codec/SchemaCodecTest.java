@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codec;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the schema-directed codec.
+ */
+public class SchemaCodecTest extends TestCase {
+  private final JsonFactory jsonFactory = new GsonFactory();
+
+  private static RestDiscovery load(String fileName) throws Exception {
+    return RestHelper.getDiscoveryFromFile(new File("src/test/resources/" + fileName));
+  }
+
+  public void testAllTypes() throws Exception {
+    SchemaCodec codec =
+        SchemaCodec.compile(load("all-types.json").getSchemas().get("ObjectWithAllTypes"));
+    Map<?, ?> value = (Map<?, ?>) codec.parse(jsonFactory, "{"
+        + "\"stringType\": \"2011-10-01T12:00:00.000Z\","
+        + "\"plainIntType\": 7,"
+        + "\"plainNumType\": 2.5,"
+        + "\"objType\": {\"prop1\": \"a\", \"prop2\": 3, \"unknown\": [1, {\"x\": 2}]},"
+        + "\"mapType\": {\"k1\": \"v1\", \"k2\": \"v2\"},"
+        + "\"arrayType\": [1, 2, 3],"
+        + "\"nullType\": null,"
+        + "\"anyType\": {\"nested\": [true, 1.5, 12345678901]},"
+        + "\"unknown\": {\"deeply\": {\"nested\": [1, 2, 3]}}"
+        + "}");
+
+    assertEquals(DateTime.parseRfc3339("2011-10-01T12:00:00.000Z"), value.get("stringType"));
+    assertEquals(7, value.get("plainIntType"));
+    assertEquals(2.5, value.get("plainNumType"));
+    assertEquals(ImmutableMap.of("prop1", "a", "prop2", 3), value.get("objType"));
+    assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), value.get("mapType"));
+    assertEquals(ImmutableList.of(1, 2, 3), value.get("arrayType"));
+    assertTrue(value.containsKey("nullType"));
+    assertNull(value.get("nullType"));
+    List<?> nested = (List<?>) ((Map<?, ?>) value.get("anyType")).get("nested");
+    assertEquals(Boolean.TRUE, nested.get(0));
+    assertEquals(1.5, ((Number) nested.get(1)).doubleValue());
+    assertEquals(12345678901L, nested.get(2));
+    assertFalse(value.containsKey("unknown"));
+
+    // Omitted properties take their defaults
+    assertEquals("VALUE2", value.get("enumType"));
+    assertEquals(15, value.get("intType"));
+    assertEquals(3.1415, value.get("numType"));
+    assertEquals(Boolean.FALSE, value.get("boolType"));
+  }
+
+  public void testRoundTrip() throws Exception {
+    SchemaCodec codec = SchemaCodec.compile(
+        load("urlshortener-v1-rest.json").getSchemas().get("AnalyticsSummary"));
+    String json = "{\"allTime\":{\"shortUrlClicks\":\"12345678901\",\"longUrlClicks\":\"3\","
+        + "\"countries\":[{\"count\":\"2\",\"id\":\"US\"}]}}";
+    Map<?, ?> value = (Map<?, ?>) codec.parse(jsonFactory, json);
+    Map<?, ?> allTime = (Map<?, ?>) value.get("allTime");
+    assertEquals(12345678901L, allTime.get("shortUrlClicks"));
+    assertEquals(2L, ((Map<?, ?>) ((List<?>) allTime.get("countries")).get(0)).get("count"));
+
+    assertEquals(json, codec.toJson(jsonFactory, value));
+    assertEquals(value, codec.parse(jsonFactory, codec.toJson(jsonFactory, value)));
+  }
+
+  public void testRecursiveSchema() throws Exception {
+    RestDiscovery discovery = load("recursive-schemas.json");
+    SchemaCodec codec = SchemaCodec.compile(discovery.getResources().get("nodes").getMethods()
+        .get("get").getResponse());
+    Map<?, ?> value = (Map<?, ?>) codec.parse(jsonFactory, "{\"name\": \"root\","
+        + "\"children\": [{\"name\": \"leaf\", \"attributes\": {\"color\": {\"value\": \"red\","
+        + "\"owner\": {\"name\": \"leaf\"}}}}]}");
+    Map<?, ?> leaf = (Map<?, ?>) ((List<?>) value.get("children")).get(0);
+    Map<?, ?> color = (Map<?, ?>) ((Map<?, ?>) leaf.get("attributes")).get("color");
+    assertEquals("red", color.get("value"));
+    assertEquals(ImmutableMap.of("name", "leaf"), color.get("owner"));
+  }
+
+  public void testRecursiveMapAndArray() throws Exception {
+    RestDiscovery discovery = load("recursive-schemas.json");
+    SchemaCodec tree = SchemaCodec.compile(discovery.getSchemas().get("Tree"));
+    String json = "{\"a\":{\"b\":{},\"c\":{\"d\":{}}}}";
+    Object value = tree.parse(jsonFactory, json);
+    assertEquals(ImmutableMap.of("a", ImmutableMap.of("b", ImmutableMap.of(),
+        "c", ImmutableMap.of("d", ImmutableMap.of()))), value);
+    assertEquals(json, tree.toJson(jsonFactory, value));
+
+    SchemaCodec forest = SchemaCodec.compile(discovery.getSchemas().get("Forest"));
+    assertEquals(ImmutableList.of(ImmutableList.of(), ImmutableList.of(ImmutableList.of())),
+        forest.parse(jsonFactory, "[[], [[]]]"));
+  }
+
+  public void testRecursiveSchemasWithoutIds() throws Exception {
+    RestDiscovery discovery = load("recursive-without-ids.json");
+    SchemaCodec node = SchemaCodec.compile(discovery.getMethods().get("get").getResponse());
+    Object value = node.parse(jsonFactory,
+        "{\"name\": \"a\", \"child\": {\"name\": \"b\", \"siblings\": [{\"name\": \"c\"}]}}");
+    assertEquals(ImmutableMap.of("name", "a", "child", ImmutableMap.of("name", "b",
+        "siblings", ImmutableList.of(ImmutableMap.of("name", "c")))), value);
+
+    SchemaCodec renamed = SchemaCodec.compile(discovery.getSchemas().get("Renamed"));
+    assertEquals(ImmutableMap.of("self", ImmutableMap.of()),
+        renamed.parse(jsonFactory, "{\"self\":{}}"));
+    SchemaCodec.compile(discovery.getSchemas().get("Tree"));
+    SchemaCodec.compile(discovery.getSchemas().get("Forest"));
+  }
+
+  public void testBase64() {
+    for (int length = 0; length < 10; length++) {
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+        bytes[i] = (byte) (250 - 31 * i);
+      }
+      String encoded = Base64.encode(bytes);
+      assertTrue(Arrays.equals(bytes, Base64.decode(encoded)));
+      assertTrue(Arrays.equals(bytes, Base64.decode(encoded.replace("=", ""))));
+      assertTrue(
+          Arrays.equals(bytes, Base64.decode(encoded.replace('-', '+').replace('_', '/'))));
+    }
+    assertEquals("-_8=", Base64.encode(new byte[] {(byte) 0xfb, (byte) 0xff}));
+  }
+
+  public void testTypeMismatch() throws Exception {
+    SchemaCodec codec =
+        SchemaCodec.compile(load("all-types.json").getSchemas().get("ObjectWithAllTypes"));
+    try {
+      codec.parse(jsonFactory, "{\"arrayType\": {}}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+    assertEquals(BigInteger.ONE, new ValueCodec.Uint64Codec("1").getDefault());
+  }
+}
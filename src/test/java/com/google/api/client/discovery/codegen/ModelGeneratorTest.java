@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.codegen;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+/**
+ * Tests for {@link ModelGenerator}.
+ */
+public class ModelGeneratorTest extends TestCase {
+  private File outputDirectory;
+  private File packageDirectory;
+  private RestDiscovery urlshortener;
+
+  @Override
+  protected void setUp() throws Exception {
+    outputDirectory = Files.createTempDir();
+    packageDirectory = new File(outputDirectory, "com/example/urlshortener");
+    urlshortener =
+        RestHelper.getDiscoveryFromFile(new File("src/test/resources/urlshortener-v1-rest.json"));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    delete(outputDirectory);
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    assertTrue(file.delete());
+  }
+
+  public void testGenerate() throws Exception {
+    ModelGenerator generator = new ModelGenerator("com.example.urlshortener", outputDirectory);
+    ModelGenerator.Result result = generator.generate(urlshortener);
+
+    assertEquals(
+        Lists.newArrayList("AnalyticsSnapshot", "AnalyticsSummary", "StringCount", "Url",
+            "UrlHistory"), result.getGenerated());
+    assertTrue(result.getSkipped().isEmpty());
+    assertTrue(result.getDeleted().isEmpty());
+
+    String url = Files.toString(new File(packageDirectory, "Url.java"), Charsets.UTF_8);
+    assertTrue(url.contains("package com.example.urlshortener;"));
+    assertTrue(url.contains("public final class Url extends GenericJson {"));
+    assertTrue(url.contains("@Key(\"analytics\")\n  private AnalyticsSummary analytics;"));
+    assertTrue(url.contains("public Url setLongUrl(String longUrl) {"));
+
+    String count = Files.toString(new File(packageDirectory, "StringCount.java"), Charsets.UTF_8);
+    assertTrue(count.contains("import com.google.api.client.json.JsonString;"));
+    assertTrue(count.contains("@Key(\"count\")\n  @JsonString\n  private Long count;"));
+  }
+
+  public void testIncremental() throws Exception {
+    ModelGenerator generator = new ModelGenerator("com.example.urlshortener", outputDirectory);
+    generator.generate(urlshortener);
+
+    File url = new File(packageDirectory, "Url.java");
+    assertTrue(url.delete());
+    File stale = new File(packageDirectory, "Removed.java");
+    Files.write("class Removed {}", stale, Charsets.UTF_8);
+    File manifest = new File(packageDirectory, ModelGenerator.MANIFEST_FILE_NAME);
+    Files.append("Removed=0\n", manifest, Charsets.ISO_8859_1);
+
+    ModelGenerator.Result result = generator.generate(urlshortener);
+    assertEquals(Lists.newArrayList("Url"), result.getGenerated());
+    assertEquals(4, result.getSkipped().size());
+    assertEquals(Lists.newArrayList("Removed"), result.getDeleted());
+    assertTrue(url.exists());
+    assertFalse(stale.exists());
+
+    result = generator.generate(urlshortener);
+    assertTrue(result.getGenerated().isEmpty());
+    assertEquals(5, result.getSkipped().size());
+  }
+
+  public void testPackageChangeRegenerates() throws Exception {
+    new ModelGenerator("com.example.urlshortener", outputDirectory).generate(urlshortener);
+    File manifest = new File(packageDirectory, ModelGenerator.MANIFEST_FILE_NAME);
+    String fingerprints = Files.toString(manifest, Charsets.ISO_8859_1);
+
+    ModelSource other = new ModelSource("com.example.other", urlshortener.getSchemas());
+    assertFalse(fingerprints.contains(other.fingerprint("Url")));
+  }
+
+  public void testNames() {
+    assertEquals("discoveryClass", ModelSource.toFieldName("class"));
+    assertEquals("selfLink", ModelSource.toFieldName("selfLink"));
+    assertEquals("eTag", ModelSource.toFieldName("e-tag"));
+    assertEquals("Schema2dPoint", ModelSource.toClassName("2d_point"));
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.export;
+
+import com.google.api.client.discovery.DiscoverySource;
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.discovery.StreamingDiscoveryParser;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the OpenAPI and JSON Schema exporters.
+ */
+public class DiscoveryExporterTest extends TestCase {
+  private static final File FOLDER = new File("src/test/resources");
+
+  private final JsonFactory jsonFactory = new GsonFactory();
+
+  private JsonObject export(DiscoveryExporter exporter, String fileName) throws IOException {
+    RestDiscovery discovery = RestHelper.getDiscoveryFromFile(new File(FOLDER, fileName));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exporter.export(discovery, jsonFactory, out);
+    return new JsonParser().parse(new String(out.toByteArray(), "UTF-8")).getAsJsonObject();
+  }
+
+  public void testOpenApiOperations() throws Exception {
+    JsonObject api = export(new OpenApiExporter(), "urlshortener-v1-rest.json");
+    assertEquals(OpenApiExporter.OPENAPI_VERSION, api.get("openapi").getAsString());
+    assertEquals("v1", api.getAsJsonObject("info").get("version").getAsString());
+    assertEquals("/urlshortener/v1",
+        api.getAsJsonArray("servers").get(0).getAsJsonObject().get("url").getAsString());
+
+    JsonObject urlPath = api.getAsJsonObject("paths").getAsJsonObject("/url");
+    assertTrue(urlPath.has("get"));
+    assertTrue(urlPath.has("post"));
+    JsonObject get = urlPath.getAsJsonObject("get");
+    assertEquals("urlshortener.url.get", get.get("operationId").getAsString());
+    assertEquals("url", get.getAsJsonArray("tags").get(0).getAsString());
+
+    JsonArray parameters = get.getAsJsonArray("parameters");
+    JsonObject projection = parameters.get(0).getAsJsonObject();
+    assertEquals("projection", projection.get("name").getAsString());
+    assertEquals("query", projection.get("in").getAsString());
+    assertFalse(projection.has("required"));
+    assertEquals(3, projection.getAsJsonObject("schema").getAsJsonArray("enum").size());
+    JsonObject shortUrl = parameters.get(1).getAsJsonObject();
+    assertTrue(shortUrl.get("required").getAsBoolean());
+    assertEquals("#/components/parameters/alt",
+        parameters.get(2).getAsJsonObject().get("$ref").getAsString());
+
+    assertEquals("#/components/schemas/Url", get.getAsJsonObject("responses")
+        .getAsJsonObject("200").getAsJsonObject("content").getAsJsonObject("application/json")
+        .getAsJsonObject("schema").get("$ref").getAsString());
+    assertTrue(urlPath.getAsJsonObject("post").has("requestBody"));
+  }
+
+  public void testOpenApiComponents() throws Exception {
+    JsonObject components =
+        export(new OpenApiExporter(), "urlshortener-v1-rest.json").getAsJsonObject("components");
+    JsonObject url = components.getAsJsonObject("schemas").getAsJsonObject("Url");
+    assertEquals("object", url.get("type").getAsString());
+    assertEquals("#/components/schemas/AnalyticsSummary", url.getAsJsonObject("properties")
+        .getAsJsonObject("analytics").get("$ref").getAsString());
+    assertTrue(components.getAsJsonObject("parameters").has("key"));
+    assertTrue(components.getAsJsonObject("securitySchemes").has("oauth2"));
+  }
+
+  public void testJsonSchemaRecursive() throws Exception {
+    JsonObject schema = export(new JsonSchemaExporter(), "recursive-schemas.json");
+    assertEquals(JsonSchemaExporter.SCHEMA_URI, schema.get("$schema").getAsString());
+    JsonObject properties =
+        schema.getAsJsonObject("$defs").getAsJsonObject("Node").getAsJsonObject("properties");
+    assertEquals("#/$defs/Node", properties.getAsJsonObject("parent").get("$ref").getAsString());
+    assertEquals("#/$defs/Node", properties.getAsJsonObject("children")
+        .getAsJsonObject("items").get("$ref").getAsString());
+  }
+
+  public void testRecursiveSchemasWithoutIds() throws Exception {
+    JsonObject schema = export(new JsonSchemaExporter(), "recursive-without-ids.json");
+    JsonObject definitions = schema.getAsJsonObject("$defs");
+    assertEquals("#/$defs/Node", definitions.getAsJsonObject("Node")
+        .getAsJsonObject("properties").getAsJsonObject("child").get("$ref").getAsString());
+    assertEquals("#/$defs/Renamed", definitions.getAsJsonObject("Renamed")
+        .getAsJsonObject("properties").getAsJsonObject("self").get("$ref").getAsString());
+    assertEquals("#/$defs/Forest",
+        definitions.getAsJsonObject("Forest").getAsJsonObject("items").get("$ref").getAsString());
+
+    JsonObject components =
+        export(new OpenApiExporter(), "recursive-without-ids.json").getAsJsonObject("components");
+    assertEquals("#/components/schemas/Tree", components.getAsJsonObject("schemas")
+        .getAsJsonObject("Tree").getAsJsonObject("additionalProperties").get("$ref")
+        .getAsString());
+  }
+
+  public void testOpenApiPath() {
+    assertEquals("/url/history", OpenApiExporter.toOpenApiPath("url/history"));
+    assertEquals("/v1/{name}", OpenApiExporter.toOpenApiPath("v1/{+name}"));
+    assertEquals("/api/v1", OpenApiExporter.toServerUrl("/api/v1/"));
+    assertEquals("", OpenApiExporter.toServerUrl("/"));
+  }
+
+  public void testExportDirectory() throws Exception {
+    final AtomicInteger closed = new AtomicInteger();
+    DiscoverySource source = new DiscoverySource() {
+      public InputStream openDirectory() {
+        return counting(new ByteArrayInputStream(("{\"items\": [{\"name\": \"urlshortener\", "
+            + "\"version\": \"v1\"}, {\"name\": \"recursive\", \"version\": \"v1\"}]}")
+            .getBytes(Charsets.UTF_8)));
+      }
+
+      public InputStream openRestDescription(String apiName, String apiVersion)
+          throws IOException {
+        String fileName = apiName.equals("recursive")
+            ? "recursive-schemas.json" : apiName + "-" + apiVersion + "-rest.json";
+        return counting(new FileInputStream(new File(FOLDER, fileName)));
+      }
+
+      private InputStream counting(InputStream in) {
+        return new FilterInputStream(in) {
+          private boolean done;
+
+          @Override
+          public void close() throws IOException {
+            if (!done) {
+              done = true;
+              closed.incrementAndGet();
+            }
+            super.close();
+          }
+        };
+      }
+    };
+
+    File outputDirectory = Files.createTempDir();
+    try {
+      List<File> files = new JsonSchemaExporter().exportDirectory(
+          source, new StreamingDiscoveryParser(jsonFactory), jsonFactory, outputDirectory);
+      assertEquals(2, files.size());
+      assertEquals(3, closed.get());
+      assertEquals("recursive-v1.schema.json", files.get(1).getName());
+      String content = Files.toString(files.get(1), Charsets.UTF_8);
+      assertTrue(new JsonParser().parse(content).getAsJsonObject().has("$defs"));
+    } finally {
+      for (File file : outputDirectory.listFiles()) {
+        file.delete();
+      }
+      outputDirectory.delete();
+    }
+  }
+}
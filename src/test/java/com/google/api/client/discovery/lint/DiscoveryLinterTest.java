@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.lint;
+
+import com.google.api.client.discovery.DiscoverySource;
+import com.google.api.client.discovery.StreamingDiscoveryParser;
+import com.google.api.client.discovery.lint.LintIssue.Severity;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.RestDescription;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for {@link DiscoveryLinter} and the built-in rules.
+ */
+public class DiscoveryLinterTest extends TestCase {
+  private static final File FOLDER = new File("src/test/resources");
+
+  private final StreamingDiscoveryParser parser = new StreamingDiscoveryParser(new GsonFactory());
+
+  private RestDescription load(String fileName) throws IOException {
+    InputStream content = new FileInputStream(new File(FOLDER, fileName));
+    try {
+      return parser.parseRestDescription(content);
+    } finally {
+      content.close();
+    }
+  }
+
+  public void testValidDocuments() throws Exception {
+    for (String fileName : new String[] {"urlshortener-v1-rest.json", "recursive-schemas.json"}) {
+      LintReport report = new DiscoveryLinter().lint(load(fileName));
+      assertTrue(report.toString(), report.getIssues().isEmpty());
+    }
+  }
+
+  public void testBrokenDocument() throws Exception {
+    LintReport report = new DiscoveryLinter().lint(load("lint-broken.json"));
+    assertEquals("broken:v1", report.getDocumentId());
+    assertTrue(report.hasErrors());
+
+    Set<String> found = Sets.newHashSet();
+    for (LintIssue issue : report.getIssues()) {
+      found.add(issue.getSeverity() + " " + issue.getRule() + " " + issue.getPath());
+    }
+    String item = "schemas.Item.properties.";
+    String method = "resources.items.methods.get";
+    assertEquals(Sets.newHashSet(
+        "ERROR missing-reference " + item + "owner",
+        "ERROR missing-reference " + method + ".response",
+        "ERROR unknown-type " + item + "kind",
+        "ERROR unknown-type " + item + "tags.items",
+        "WARNING unknown-type " + item + "code",
+        "ERROR values " + item + "size",
+        "ERROR values " + item + "ratio",
+        "ERROR values " + item + "code",
+        "ERROR values " + method + ".parameters.flag",
+        "ERROR parameter-order " + method + ".parameterOrder",
+        "WARNING parameter-order " + method + ".parameters.flag",
+        "ERROR path-parameters " + method + ".path",
+        "ERROR path-parameters " + method + ".parameters.itemId",
+        "ERROR path-parameters " + method + ".parameters.flag"), found);
+    assertEquals(2, report.getIssues(Severity.WARNING).size());
+  }
+
+  public void testFailingRule() throws Exception {
+    LintRule failing = new LintRule() {
+      @Override
+      public String getName() {
+        return "failing";
+      }
+
+      @Override
+      public void checkDocument(RestDescription document, LintContext context) {
+        throw new IllegalStateException();
+      }
+    };
+    DiscoveryLinter linter = new DiscoveryLinter(
+        ImmutableList.of(failing, LintRules.MISSING_REFERENCE), null);
+    LintReport report = linter.lint(load("lint-broken.json"));
+    assertEquals("failing", report.getIssues().get(0).getRule());
+    assertEquals(3, report.getIssues().size());
+  }
+
+  public void testLintAll() throws Exception {
+    List<LintReport> reports = new DiscoveryLinter().lintAll(ImmutableList.of(
+        load("urlshortener-v1-rest.json"), load("lint-broken.json"), load("all-types.json")));
+    assertEquals(3, reports.size());
+    assertFalse(reports.get(0).hasErrors());
+    assertTrue(reports.get(1).hasErrors());
+    assertEquals("null:null", reports.get(2).getDocumentId());
+  }
+
+  public void testLintDirectory() throws Exception {
+    DiscoverySource source = new DiscoverySource() {
+      public InputStream openDirectory() throws IOException {
+        return new FileInputStream(new File(FOLDER, "directory.json"));
+      }
+
+      public InputStream openRestDescription(String apiName, String apiVersion)
+          throws IOException {
+        throw new FileNotFoundException(apiName + ":" + apiVersion);
+      }
+    };
+    List<LintReport> reports = new DiscoveryLinter().lintDirectory(source, parser);
+    assertFalse(reports.isEmpty());
+    assertEquals("adexchangebuyer:v1", reports.get(0).getDocumentId());
+    for (LintReport report : reports) {
+      assertEquals(DiscoveryLinter.LOAD_RULE, report.getIssues().get(0).getRule());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.search;
+
+import com.google.api.client.discovery.DiscoveryParser;
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.StreamingDiscoveryParser;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.discovery.model.RestDescription;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Measures the latency of {@link SearchIndex} queries over a directory sized
+ * index. Run it by hand with the test resources directory, or any directory
+ * of discovery documents, and the number of versions to index each document
+ * under as the arguments.
+ */
+public class SearchIndexBenchmark {
+  private static final int WARM_UP_ROUNDS = 2000;
+  private static final int MEASURED_ROUNDS = 10000;
+
+  private static final String[] QUERIES = {"url", "short url", "analytic*", "get*", "node"};
+
+  public static void main(String[] args) throws IOException {
+    File directory = new File(args.length > 0 ? args[0] : "src/test/resources");
+    int versions = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    DiscoveryParser parser = new StreamingDiscoveryParser(new GsonFactory());
+    SearchIndex index = new SearchIndex();
+    for (File file : directory.listFiles()) {
+      if (!file.getName().endsWith(".json") || file.getName().startsWith("directory")) {
+        continue;
+      }
+      try {
+        for (int version = 0; version < versions; version++) {
+          RestDescription document = parser.parseRestDescription(new FileInputStream(file));
+          document.setVersion("v" + version);
+          document.setId(document.getName() + ":v" + version);
+          index.update(new RestDiscovery(document));
+        }
+      } catch (RuntimeException e) {
+        // Documents which cannot be walked, such as the broken linter fixture
+        System.out.println("Skipped " + file.getName() + ": " + e);
+      }
+    }
+    System.out.println("Indexed " + index.getApiIds().size() + " APIs");
+
+    run(index, WARM_UP_ROUNDS);
+    for (String query : QUERIES) {
+      long start = System.nanoTime();
+      int hits = 0;
+      for (int round = 0; round < MEASURED_ROUNDS; round++) {
+        hits = index.search(query, 10).size();
+      }
+      long elapsedMicros = (System.nanoTime() - start) / 1000;
+      System.out.println("\"" + query + "\": " + elapsedMicros / MEASURED_ROUNDS
+          + "us per query, " + hits + " hits");
+    }
+  }
+
+  private static void run(SearchIndex index, int rounds) {
+    for (int round = 0; round < rounds; round++) {
+      for (String query : QUERIES) {
+        index.search(query, 10);
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.search;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.discovery.search.SearchHit.Kind;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Tests for {@link SearchIndex}.
+ */
+public class SearchIndexTest extends TestCase {
+  private SearchIndex index;
+
+  @Override
+  protected void setUp() throws Exception {
+    index = new SearchIndex();
+    index.update(load("urlshortener-v1-rest.json"));
+    index.update(load("recursive-schemas.json"));
+  }
+
+  private static RestDiscovery load(String fileName) throws Exception {
+    return RestHelper.getDiscoveryFromFile(new File("src/test/resources", fileName));
+  }
+
+  public void testTokenize() {
+    assertEquals(Lists.newArrayList("urlshortener", "url", "get"),
+        ApiSegment.tokenize("urlshortener.url.get"));
+    assertEquals(Lists.newArrayList("short", "url"), ApiSegment.tokenize("shortUrl"));
+    assertEquals(Lists.newArrayList("start", "token"), ApiSegment.tokenize("start-token"));
+    assertTrue(ApiSegment.tokenize(null).isEmpty());
+  }
+
+  public void testTermQuery() {
+    List<SearchHit> hits = index.search("urlshortener.url.get", 10);
+    assertEquals(Kind.METHOD, hits.get(0).getKind());
+    assertEquals("urlshortener:v1", hits.get(0).getApiId());
+    assertEquals("urlshortener.url.get", hits.get(0).getName());
+
+    // The parameter name ranks the method above schemas that only mention it
+    hits = index.search("short url", 10);
+    assertEquals("urlshortener.url.get", hits.get(0).getName());
+
+    hits = index.search("manage", 10);
+    assertEquals(1, hits.size());
+    assertEquals(Kind.SCOPE, hits.get(0).getKind());
+
+    assertTrue(index.search("nonexistent", 10).isEmpty());
+    assertTrue(index.search("  ", 10).isEmpty());
+  }
+
+  public void testPrefixQuery() {
+    List<SearchHit> exact = index.search("analytic", 10);
+    assertTrue(exact.isEmpty());
+
+    List<SearchHit> hits = index.search("analytic*", 10);
+    List<String> names = Lists.newArrayList();
+    for (SearchHit hit : hits) {
+      names.add(hit.getName());
+    }
+    assertTrue(names.contains("AnalyticsSnapshot"));
+    assertTrue(names.contains("Url"));
+    assertEquals("AnalyticsSnapshot", hits.get(0).getName());
+    assertEquals(2, index.search("analytic*", 2).size());
+  }
+
+  public void testTopLevelArrayAndMapSchemas() {
+    List<SearchHit> hits = index.search("forest", 10);
+    assertEquals(1, hits.size());
+    assertEquals("Forest", hits.get(0).getName());
+    hits = index.search("tree", 10);
+    assertEquals(1, hits.size());
+    assertEquals("Tree", hits.get(0).getName());
+  }
+
+  public void testEveryTermMatches() {
+    // The exact match of the first term outweighs its prefix matches
+    List<SearchHit> hits = index.search("url* get", 10);
+    assertEquals("urlshortener.url.get", hits.get(0).getName());
+    assertEquals(ApiSegment.NAME_WEIGHT * 2, hits.get(0).getScore());
+    assertEquals(ApiSegment.NAME_WEIGHT + ApiSegment.DESCRIPTION_WEIGHT,
+        hits.get(1).getScore());
+
+    assertTrue(index.search("url node", 10).isEmpty());
+  }
+
+  public void testUpdateAndRemove() throws Exception {
+    assertEquals(1, index.search("node", 10).size());
+
+    index.update(load("recursive-schemas.json"));
+    assertEquals(2, index.getApiIds().size());
+    assertEquals(1, index.search("node", 10).size());
+
+    assertTrue(index.remove("recursive:v1"));
+    assertFalse(index.remove("recursive:v1"));
+    assertTrue(index.search("node", 10).isEmpty());
+    assertFalse(index.search("url", 10).isEmpty());
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.discovery.RetryPolicy;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link DiscoveryStubServer} and {@link FetchLoadTest}.
+ */
+public class DiscoveryStubServerTest extends TestCase {
+  private static final File FOLDER = new File("src/test/resources");
+
+  private DiscoveryStubServer server;
+  private final List<RestHelper> helpers = Lists.newArrayList();
+
+  @Override
+  protected void tearDown() {
+    for (RestHelper helper : helpers) {
+      helper.close();
+    }
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  private DiscoveryStubServer start(DiscoveryStubServer.Builder builder) throws Exception {
+    server = builder.build();
+    server.start();
+    return server;
+  }
+
+  private RestHelper helper(RetryPolicy retryPolicy) {
+    RestHelper helper = new RestHelper(new NetHttpTransport(), new GsonFactory(), retryPolicy);
+    helpers.add(helper);
+    return helper;
+  }
+
+  private static long millisSince(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  public void testServe() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER));
+    RestHelper helper = helper(RetryPolicy.NO_RETRY);
+
+    RestDiscovery discovery =
+        helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl());
+    assertEquals(RestHelper.getDiscoveryFromFile(
+        new File(FOLDER, "urlshortener-v1-rest.json")), discovery);
+    assertEquals(3, helper.fetchDirectoryDocument(server.getDiscoveryUrl()).getItems().size());
+
+    try {
+      helper.fetchDiscovery("missing", "v1", server.getDiscoveryUrl());
+      fail();
+    } catch (HttpResponseException e) {
+      assertEquals(404, e.getResponse().getStatusCode());
+    }
+  }
+
+  public void testETag() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER));
+    URL url = new URL(server.getDiscoveryUrl() + "apis/urlshortener/v1/rest");
+
+    HttpURLConnection first = (HttpURLConnection) url.openConnection();
+    assertEquals(200, first.getResponseCode());
+    String etag = first.getHeaderField("ETag");
+    assertNotNull(etag);
+    first.getInputStream().close();
+
+    HttpURLConnection second = (HttpURLConnection) url.openConnection();
+    second.setRequestProperty("If-None-Match", etag);
+    assertEquals(304, second.getResponseCode());
+  }
+
+  public void testInjectedErrorsAreRetried() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER).setFailFirstRequests(2));
+    RestHelper helper = helper(RetryPolicy.builder().setMaxAttempts(3)
+        .setInitialBackoffMillis(1).build());
+
+    assertNotNull(helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl()));
+    assertEquals(3, server.getRequestCount());
+  }
+
+  public void testHedgedRequestWins() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER).setSlowFirstRequests(1, 10000));
+    RestHelper helper = helper(RetryPolicy.builder().setMaxAttempts(1)
+        .setHedgeDelayMillis(100).build());
+
+    long start = System.nanoTime();
+    assertNotNull(helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl()));
+    assertTrue(millisSince(start) < 5000);
+    assertEquals(2, server.getRequestCount());
+  }
+
+  public void testNoHedgeForFastResponse() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER));
+    RestHelper helper = helper(RetryPolicy.builder().setMaxAttempts(1)
+        .setHedgeDelayMillis(5000).build());
+
+    assertNotNull(helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl()));
+    assertEquals(1, server.getRequestCount());
+
+    helper.close();
+    try {
+      helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl());
+      fail();
+    } catch (IllegalStateException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testDeadlineCutsRetriesShort() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER).setLatencyMillis(100, 0).setErrorRate(1));
+    RestHelper helper = helper(RetryPolicy.builder().setMaxAttempts(100)
+        .setInitialBackoffMillis(10).setMaxBackoffMillis(10).setDeadlineMillis(500).build());
+
+    long start = System.nanoTime();
+    try {
+      helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl());
+      fail();
+    } catch (IOException e) {
+      // Either the last error or a read timed out at the deadline
+    }
+    assertTrue(millisSince(start) < 3000);
+    assertTrue(server.getRequestCount() >= 2);
+    assertTrue(server.getRequestCount() < 10);
+  }
+
+  public void testDeadlineBoundsStalledRequest() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER).setSlowFirstRequests(1, 10000));
+    RestHelper helper = helper(RetryPolicy.builder().setMaxAttempts(3)
+        .setDeadlineMillis(300).build());
+
+    long start = System.nanoTime();
+    try {
+      helper.fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl());
+      fail();
+    } catch (InterruptedIOException e) {
+      // Intentionally blank
+    }
+    assertTrue(millisSince(start) < 3000);
+    assertEquals(1, server.getRequestCount());
+  }
+
+  public void testErrorRate() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER).setErrorRate(1).setErrorStatusCode(500));
+
+    try {
+      helper(RetryPolicy.NO_RETRY).fetchDiscovery("urlshortener", "v1", server.getDiscoveryUrl());
+      fail();
+    } catch (HttpResponseException e) {
+      assertEquals(500, e.getResponse().getStatusCode());
+    }
+  }
+
+  public void testLoadTest() throws Exception {
+    start(DiscoveryStubServer.builder(FOLDER).setLatencyMillis(1, 2));
+
+    FetchLoadTest.Result result = FetchLoadTest.run(
+        helper(RetryPolicy.NO_RETRY), server.getDiscoveryUrl(), "urlshortener", "v1", 4, 5);
+    assertEquals(20, result.getFetchCount());
+    assertEquals(0, result.getFailureCount());
+    assertEquals(20, server.getRequestCount());
+    assertTrue(result.getLatencyPercentileMillis(0.5) >= 1);
+    assertTrue(result.getLatencyPercentileMillis(0.5) <= result.getLatencyPercentileMillis(0.99));
+  }
+
+  public void testLoadTestCountsMalformedDocuments() throws Exception {
+    File folder = Files.createTempDir();
+    File document = new File(folder, "broken-v1-rest.json");
+    try {
+      Files.write("[]", document, Charsets.UTF_8);
+      start(DiscoveryStubServer.builder(folder));
+
+      FetchLoadTest.Result result = FetchLoadTest.run(
+          helper(RetryPolicy.NO_RETRY), server.getDiscoveryUrl(), "broken", "v1", 2, 3);
+      assertEquals(6, result.getFetchCount());
+      assertEquals(6, result.getFailureCount());
+    } finally {
+      document.delete();
+      folder.delete();
+    }
+  }
+}
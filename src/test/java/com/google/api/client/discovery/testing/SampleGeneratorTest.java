@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.api.client.discovery.testing;
+
+import com.google.api.client.discovery.RestDiscovery;
+import com.google.api.client.discovery.RestHelper;
+import com.google.api.client.discovery.RestMethod;
+import com.google.api.client.discovery.codec.SchemaCodec;
+import com.google.api.client.discovery.types.DiscoveryType;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.DateTime;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Tests for {@link SampleGenerator} and {@link ParameterSampler}.
+ */
+public class SampleGeneratorTest extends TestCase {
+  private final JsonFactory jsonFactory = new GsonFactory();
+
+  private static RestDiscovery load(String fileName) throws Exception {
+    return RestHelper.getDiscoveryFromFile(new File("src/test/resources/" + fileName));
+  }
+
+  public void testAllTypes() throws Exception {
+    DiscoveryType type = load("all-types.json").getSchemas().get("ObjectWithAllTypes");
+    SampleGenerator generator = SampleGenerator.builder().setOptionalProbability(1).build(type);
+    SchemaCodec codec = SchemaCodec.compile(type);
+    Random random = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      Map<?, ?> value = (Map<?, ?>) codec.parse(jsonFactory, generator.toJson(jsonFactory, random));
+      assertTrue(value.get("stringType") instanceof DateTime);
+      String enumValue = (String) value.get("enumType");
+      assertTrue(enumValue.equals("VALUE1") || enumValue.equals("VALUE2"));
+      int intValue = (Integer) value.get("intType");
+      assertTrue(intValue >= 10 && intValue <= 20);
+      double numValue = (Double) value.get("numType");
+      assertTrue(numValue >= 10 && numValue <= 20);
+      assertTrue(value.get("arrayType") instanceof List<?>);
+    }
+
+    Map<?, ?> generated = (Map<?, ?>) generator.generate(random);
+    assertTrue(generated.get("stringType") instanceof DateTime);
+    assertTrue(generated.get("mapType") instanceof Map<?, ?>);
+  }
+
+  public void testSeeded() throws Exception {
+    DiscoveryType type = load("urlshortener-v1-rest.json").getSchemas().get("UrlHistory");
+    SampleGenerator generator = SampleGenerator.builder().build(type);
+    assertEquals(generator.toJson(jsonFactory, new Random(42)),
+        generator.toJson(jsonFactory, new Random(42)));
+    assertEquals(generator.generate(new Random(7)), generator.generate(new Random(7)));
+  }
+
+  public void testRecursiveDepth() throws Exception {
+    DiscoveryType type = load("recursive-schemas.json").getSchemas().get("Node");
+    SampleGenerator generator = SampleGenerator.builder()
+        .setMaxDepth(3).setArrayLength(2, 2).setOptionalProbability(1).build(type);
+    Map<?, ?> root = (Map<?, ?>) generator.generate(new Random(3));
+    Map<?, ?> parent = (Map<?, ?>) root.get("parent");
+    Map<?, ?> grandParent = (Map<?, ?>) parent.get("parent");
+    assertEquals(2, ((List<?>) root.get("children")).size());
+    assertFalse(grandParent.isEmpty());
+    assertTrue(((Map<?, ?>) grandParent.get("parent")).isEmpty());
+  }
+
+  public void testRecursiveMapAndArray() throws Exception {
+    RestDiscovery discovery = load("recursive-schemas.json");
+    for (String name : new String[] {"Tree", "Forest"}) {
+      DiscoveryType type = discovery.getSchemas().get(name);
+      SampleGenerator generator =
+          SampleGenerator.builder().setMaxDepth(4).setArrayLength(1, 1).build(type);
+      String json = generator.toJson(jsonFactory, new Random(9));
+      assertEquals(json, SchemaCodec.compile(type).toJson(
+          jsonFactory, SchemaCodec.compile(type).parse(jsonFactory, json)));
+    }
+    SampleGenerator forest = SampleGenerator.builder().setMaxDepth(2).setArrayLength(1, 1)
+        .build(discovery.getSchemas().get("Forest"));
+    assertEquals("[[[]]]", forest.toJson(jsonFactory, new Random(1)));
+  }
+
+  public void testRecursiveSchemasWithoutIds() throws Exception {
+    RestDiscovery discovery = load("recursive-without-ids.json");
+    for (String name : new String[] {"Node", "Renamed", "Tree", "Forest"}) {
+      DiscoveryType type = discovery.getSchemas().get(name);
+      SampleGenerator generator = SampleGenerator.builder().setMaxDepth(3)
+          .setArrayLength(1, 1).setOptionalProbability(1).build(type);
+      String json = generator.toJson(jsonFactory, new Random(5));
+      assertEquals(json, SchemaCodec.compile(type).toJson(
+          jsonFactory, SchemaCodec.compile(type).parse(jsonFactory, json)));
+    }
+  }
+
+  public void testWriteArray() throws Exception {
+    DiscoveryType type = load("all-types.json").getSchemas().get("ObjectWithAllTypes")
+        .getObject().getProperties().get("arrayType");
+    SampleGenerator generator = SampleGenerator.builder().build(type);
+    StringWriter out = new StringWriter();
+    JsonGenerator json = jsonFactory.createJsonGenerator(out);
+    generator.writeArray(json, new Random(5), 10000);
+    json.flush();
+    List<?> array = (List<?>) SchemaCodec.compile(type).parse(jsonFactory, out.toString());
+    assertEquals(10000, array.size());
+  }
+
+  public void testPatterns() {
+    String[] regexes = {
+        "[0-9]+", "^[^/]+$", "^projects/[^/]+/zones/[a-z]{2,4}-[a-z]+\\d?$",
+        "(?:abc|de)*x{3}", "[A-Fa-f0-9]{8}(-[A-F0-9]{4}){3}", "a.b\\.c\\w\\S+?"};
+    Random random = new Random(11);
+    for (String regex : regexes) {
+      PatternSampler sampler = new PatternSampler(regex);
+      Pattern pattern = Pattern.compile(regex);
+      for (int i = 0; i < 50; i++) {
+        String sample = sampler.sample(random);
+        assertTrue(regex + " " + sample, pattern.matcher(sample).matches());
+      }
+    }
+
+    try {
+      new PatternSampler("(?=a)b");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Intentionally blank
+    }
+  }
+
+  public void testParameters() throws Exception {
+    RestMethod get =
+        load("urlshortener-v1-rest.json").getResources().get("url").getMethods().get("get");
+    ParameterSampler sampler =
+        SampleGenerator.builder().setOptionalProbability(1).buildParameterSampler(get);
+    Map<String, Object> parameters = sampler.generate(new Random(9));
+    assertEquals("shortUrl", parameters.keySet().iterator().next());
+    assertTrue(get.getParameter("projection").getType().getString().getEnumValues()
+        .contains(parameters.get("projection")));
+
+    sampler = SampleGenerator.builder().setOptionalProbability(0).buildParameterSampler(get);
+    assertEquals(1, sampler.generate(new Random(9)).size());
+  }
+}